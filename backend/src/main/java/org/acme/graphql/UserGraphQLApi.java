@@ -17,6 +17,7 @@ import org.acme.service.CognitoAdminService;
 import org.acme.service.ProfilePictureService;
 import org.acme.service.UserSettingsService;
 import org.eclipse.microprofile.graphql.DefaultValue;
+import org.eclipse.microprofile.graphql.Description;
 import org.eclipse.microprofile.graphql.GraphQLApi;
 import org.eclipse.microprofile.graphql.Mutation;
 import org.eclipse.microprofile.graphql.Name;
@@ -86,14 +87,35 @@ public class UserGraphQLApi {
 
     @Query("users")
     @RolesAllowed({ADMIN_ROLE, AWS_ADMIN_ROLE})
+    @Description("Users from the cached directory, sorted and paged by offset. Pass first/after/prefix for "
+        + "streaming mode: pages come straight from Cognito in its order, optionally filtered by a prefix "
+        + "of prefixAttribute; groups are only filled in with includeGroups")
     public CognitoUserPage users(
             @DefaultValue("0") int page,
             @DefaultValue("10") int size,
             @DefaultValue("username") @Name("sortBy") String sortBy,
-            @DefaultValue("asc") String direction) {
+            @DefaultValue("asc") String direction,
+            @Name("first") Integer first,
+            @Name("after") String after,
+            @Name("prefix") String prefix,
+            @DefaultValue("username") @Name("prefixAttribute") String prefixAttribute,
+            @DefaultValue("false") @Name("includeGroups") boolean includeGroups) {
+        if (first != null || after != null || prefix != null) {
+            return cognitoAdminService.streamUsers(first != null ? first : size, after, prefixAttribute, prefix,
+                includeGroups);
+        }
         return cognitoAdminService.listUsers(page, size, sortBy, direction);
     }
 
+    @Query("searchUsers")
+    @RolesAllowed({ADMIN_ROLE, AWS_ADMIN_ROLE})
+    public CognitoUserPage searchUsers(
+            @Name("query") String query,
+            @DefaultValue("20") @Name("first") int first,
+            @Name("after") String after) {
+        return cognitoAdminService.searchUsers(query, first, after);
+    }
+
     @Query("user")
     @Authenticated
     public CognitoUserView user(String username) {
@@ -110,9 +132,7 @@ public class UserGraphQLApi {
     @Mutation("updateUser")
     @RolesAllowed({ADMIN_ROLE, AWS_ADMIN_ROLE})
     public CognitoUserView updateUser(UpdateUserInput input) {
-        CognitoUserView result = cognitoAdminService.updateUser(input);
-        cognitoAdminService.invalidateUserCache();
-        return result;
+        return cognitoAdminService.updateUser(input);
     }
 
     @Mutation("deleteUser")
@@ -125,11 +145,7 @@ public class UserGraphQLApi {
                 throw new SecurityException("You are not authorized to delete this user.");
             }
         }
-        boolean deleted = cognitoAdminService.deleteUser(username);
-        if (deleted) {
-            cognitoAdminService.invalidateUserCache();
-        }
-        return deleted;
+        return cognitoAdminService.deleteUser(username);
     }
 
     @Mutation("changePassword")
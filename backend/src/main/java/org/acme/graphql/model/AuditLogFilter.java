@@ -0,0 +1,36 @@
+package org.acme.graphql.model;
+
+import org.eclipse.microprofile.graphql.Input;
+
+import java.time.Instant;
+
+/**
+ * Filter for the audit log query. All fields are optional; {@code from}/{@code to} are inclusive.
+ */
+@Input("AuditLogFilter")
+public class AuditLogFilter {
+    private String userId;
+    private String entityType;
+    private String entityId;
+    private String action;
+    private Instant from;
+    private Instant to;
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+
+    public String getEntityId() { return entityId; }
+    public void setEntityId(String entityId) { this.entityId = entityId; }
+
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+
+    public Instant getFrom() { return from; }
+    public void setFrom(Instant from) { this.from = from; }
+
+    public Instant getTo() { return to; }
+    public void setTo(Instant to) { this.to = to; }
+}
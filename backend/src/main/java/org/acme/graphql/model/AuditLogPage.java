@@ -0,0 +1,37 @@
+package org.acme.graphql.model;
+
+import org.acme.model.AuditLog;
+
+import java.util.List;
+
+public class AuditLogPage {
+
+    private List<AuditLog> items;
+    /** Cursor for next page, null if no more pages. */
+    private String cursor;
+
+    public AuditLogPage() {
+        // default constructor for GraphQL
+    }
+
+    public AuditLogPage(List<AuditLog> items, String cursor) {
+        this.items = items;
+        this.cursor = cursor;
+    }
+
+    public List<AuditLog> getItems() {
+        return items;
+    }
+
+    public void setItems(List<AuditLog> items) {
+        this.items = items;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+}
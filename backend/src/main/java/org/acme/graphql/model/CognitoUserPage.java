@@ -6,6 +6,7 @@ public class CognitoUserPage {
     private List<CognitoUserView> items;
     private int page;
     private int size;
+    /** Users in the directory or search; in streaming mode, the number of items in this page. */
     private long total;
     /** Cursor for next page, null if no more pages. */
     private String cursor;
@@ -10,6 +10,8 @@ public class NotificationPage {
     private List<Notification> items;
     private int total;
     private int unreadCount;
+    /** Cursor for next page, null if no more pages. */
+    private String cursor;
 
     public NotificationPage() {}
 
@@ -19,6 +21,14 @@ public class NotificationPage {
         this.unreadCount = unreadCount;
     }
 
+    /**
+     * Cursor-based page. Notifications are not counted, so {@code total} is the number of items in this page.
+     */
+    public NotificationPage(List<Notification> items, int unreadCount, String cursor) {
+        this(items, items.size(), unreadCount);
+        this.cursor = cursor;
+    }
+
     public List<Notification> getItems() { return items; }
     public void setItems(List<Notification> items) { this.items = items; }
 
@@ -27,4 +37,7 @@ public class NotificationPage {
 
     public int getUnreadCount() { return unreadCount; }
     public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
 }
@@ -10,6 +10,8 @@ public class PublishedListsPage {
     private int page;
     private int size;
     private int total;
+    /** Cursor for next page, null if no more pages. */
+    private String cursor;
 
     public PublishedListsPage() {
         // default constructor for GraphQL
@@ -22,6 +24,14 @@ public class PublishedListsPage {
         this.total = total;
     }
 
+    /**
+     * Cursor-based page. The index is not counted, so {@code total} is the number of items in this page.
+     */
+    public PublishedListsPage(List<LinkList> items, int size, String cursor) {
+        this(items, 0, size, items.size());
+        this.cursor = cursor;
+    }
+
     public List<LinkList> getItems() {
         return items;
     }
@@ -53,4 +63,12 @@ public class PublishedListsPage {
     public void setTotal(int total) {
         this.total = total;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
 }
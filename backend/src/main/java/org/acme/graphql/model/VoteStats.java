@@ -7,6 +7,7 @@ public class VoteStats {
     private double averageRating;
     private int voteCount;
     private Integer userRating; // null if user hasn't voted
+    private String entityId; // set on batched results so clients can match them up
 
     public VoteStats() {}
 
@@ -24,4 +25,7 @@ public class VoteStats {
 
     public Integer getUserRating() { return userRating; }
     public void setUserRating(Integer userRating) { this.userRating = userRating; }
+
+    public String getEntityId() { return entityId; }
+    public void setEntityId(String entityId) { this.entityId = entityId; }
 }
@@ -0,0 +1,32 @@
+package org.acme.health;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.AuditService;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * DOWN when the asynchronous audit writer thread has died, since every audit entry would then be
+ * dropped until the instance is replaced. A backed-up queue stays UP: it is a DynamoDB problem shared by
+ * every instance, visible in the audit.* metrics. The check publishes no counters.
+ */
+@Readiness
+@ApplicationScoped
+public class AuditWriterHealthCheck implements HealthCheck {
+
+    private final AuditService auditService;
+
+    @Inject
+    public AuditWriterHealthCheck(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    @Override
+    public HealthCheckResponse call() {
+        return HealthCheckResponse.named("audit-writer")
+            .status(auditService.isWriterRunning())
+            .build();
+    }
+}
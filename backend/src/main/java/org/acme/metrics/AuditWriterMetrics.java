@@ -0,0 +1,46 @@
+package org.acme.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.AuditService;
+
+/**
+ * Publishes the asynchronous audit writer's queue depth, drop count and flush latency as Micrometer metrics.
+ */
+@ApplicationScoped
+public class AuditWriterMetrics implements MeterBinder {
+
+    private final AuditService auditService;
+
+    @Inject
+    public AuditWriterMetrics(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.queue.depth", auditService, AuditService::getQueueDepth)
+            .description("Audit entries waiting to be written")
+            .register(registry);
+        FunctionCounter.builder("audit.dropped", auditService, AuditService::getDroppedCount)
+            .description("Audit entries dropped because the queue was full or DynamoDB kept rejecting them")
+            .register(registry);
+        FunctionCounter.builder("audit.written", auditService, AuditService::getWrittenCount)
+            .description("Audit entries written")
+            .register(registry);
+        Gauge.builder("audit.flush.last", auditService, AuditService::getLastFlushMillis)
+            .baseUnit("milliseconds")
+            .description("Duration of the most recent batch write, retries included")
+            .register(registry);
+        Gauge.builder("audit.flush.max", auditService, AuditService::getMaxFlushMillis)
+            .baseUnit("milliseconds")
+            .register(registry);
+        Gauge.builder("audit.flush.average", auditService, AuditService::getAverageFlushMillis)
+            .baseUnit("milliseconds")
+            .register(registry);
+    }
+}
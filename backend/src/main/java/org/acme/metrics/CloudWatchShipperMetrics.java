@@ -0,0 +1,84 @@
+package org.acme.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.CloudWatchLogService;
+import org.acme.service.CloudWatchLogShipper;
+import org.acme.service.LogSpool;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the CloudWatch shipper's buffer size, send/drop counts, flush latency and spool backlog
+ * as Micrometer metrics. Every value reads 0 while shipping is disabled.
+ */
+@ApplicationScoped
+public class CloudWatchShipperMetrics implements MeterBinder {
+
+    private final CloudWatchLogService cloudWatchLogService;
+
+    @Inject
+    public CloudWatchShipperMetrics(CloudWatchLogService cloudWatchLogService) {
+        this.cloudWatchLogService = cloudWatchLogService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "cloudwatch.shipper.buffered.events", CloudWatchLogShipper.Stats::bufferedEvents);
+        Gauge.builder("cloudwatch.shipper.buffered", cloudWatchLogService,
+                s -> shipper(s, CloudWatchLogShipper.Stats::bufferedBytes))
+            .baseUnit("bytes")
+            .register(registry);
+        counter(registry, "cloudwatch.shipper.sent.events", CloudWatchLogShipper.Stats::sentEvents);
+        counter(registry, "cloudwatch.shipper.sent.batches", CloudWatchLogShipper.Stats::sentBatches);
+        counter(registry, "cloudwatch.shipper.dropped", CloudWatchLogShipper.Stats::droppedEvents);
+        counter(registry, "cloudwatch.shipper.retries", CloudWatchLogShipper.Stats::retries);
+        Gauge.builder("cloudwatch.shipper.flush.last", cloudWatchLogService,
+                s -> shipper(s, CloudWatchLogShipper.Stats::lastFlushMs))
+            .baseUnit("milliseconds")
+            .register(registry);
+        Gauge.builder("cloudwatch.shipper.flush.max", cloudWatchLogService,
+                s -> shipper(s, CloudWatchLogShipper.Stats::maxFlushMs))
+            .baseUnit("milliseconds")
+            .register(registry);
+        FunctionCounter.builder("cloudwatch.backend.handler.dropped", cloudWatchLogService,
+                CloudWatchLogService::backendHandlerDroppedCount)
+            .description("Backend log records dropped because the handler's ring buffer was full")
+            .register(registry);
+
+        Gauge.builder("cloudwatch.spool.pending", cloudWatchLogService, s -> spool(s, LogSpool.Stats::pendingBytes))
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("cloudwatch.spool.segments", cloudWatchLogService, s -> spool(s, LogSpool.Stats::segments))
+            .register(registry);
+        FunctionCounter.builder("cloudwatch.spool.spooled.events", cloudWatchLogService,
+                s -> spool(s, LogSpool.Stats::spooledEvents))
+            .register(registry);
+        FunctionCounter.builder("cloudwatch.spool.replayed.events", cloudWatchLogService,
+                s -> spool(s, LogSpool.Stats::replayedEvents))
+            .register(registry);
+        FunctionCounter.builder("cloudwatch.spool.dropped", cloudWatchLogService,
+                s -> spool(s, LogSpool.Stats::droppedEvents))
+            .register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, ToLongFunction<CloudWatchLogShipper.Stats> value) {
+        Gauge.builder(name, cloudWatchLogService, s -> shipper(s, value)).register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, ToLongFunction<CloudWatchLogShipper.Stats> value) {
+        FunctionCounter.builder(name, cloudWatchLogService, s -> shipper(s, value)).register(registry);
+    }
+
+    private static double shipper(CloudWatchLogService service, ToLongFunction<CloudWatchLogShipper.Stats> value) {
+        return service.shipperStats().map(value::applyAsLong).orElse(0L);
+    }
+
+    private static double spool(CloudWatchLogService service, ToLongFunction<LogSpool.Stats> value) {
+        return service.spoolStats().map(value::applyAsLong).orElse(0L);
+    }
+}
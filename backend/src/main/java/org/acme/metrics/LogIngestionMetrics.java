@@ -0,0 +1,48 @@
+package org.acme.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.FrontendLogAggregator;
+import org.acme.service.LogRateLimiter;
+
+/**
+ * Publishes the log ingestion limiter's tracked clients, rejections and sampling drops, and how much
+ * the aggregator collapsed, as Micrometer metrics.
+ */
+@ApplicationScoped
+public class LogIngestionMetrics implements MeterBinder {
+
+    private final LogRateLimiter rateLimiter;
+    private final FrontendLogAggregator aggregator;
+
+    @Inject
+    public LogIngestionMetrics(LogRateLimiter rateLimiter, FrontendLogAggregator aggregator) {
+        this.rateLimiter = rateLimiter;
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("logs.ingestion.tracked.clients", rateLimiter, LogRateLimiter::getTrackedClients)
+            .register(registry);
+        FunctionCounter.builder("logs.ingestion.rejected", rateLimiter, LogRateLimiter::getRejectedRequests)
+            .description("Log requests rejected by the per-client rate limit")
+            .register(registry);
+        FunctionCounter.builder("logs.ingestion.sampled.out", rateLimiter, LogRateLimiter::getSampledOut)
+            .register(registry);
+        FunctionCounter.builder("logs.ingestion.evicted.clients", rateLimiter, LogRateLimiter::getEvictedClients)
+            .register(registry);
+        FunctionCounter.builder("logs.aggregator.received", aggregator, FrontendLogAggregator::getReceivedCount)
+            .register(registry);
+        FunctionCounter.builder("logs.aggregator.emitted", aggregator, FrontendLogAggregator::getEmittedCount)
+            .register(registry);
+        FunctionCounter.builder("logs.aggregator.passed.through", aggregator, FrontendLogAggregator::getPassedThroughCount)
+            .register(registry);
+        Gauge.builder("logs.aggregator.window.fingerprints", aggregator, FrontendLogAggregator::getWindowFingerprints)
+            .register(registry);
+    }
+}
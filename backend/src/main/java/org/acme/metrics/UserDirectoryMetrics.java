@@ -0,0 +1,47 @@
+package org.acme.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.service.CognitoAdminService;
+
+/**
+ * Publishes the size, age and refresh counters of the in-memory Cognito user directory as Micrometer metrics.
+ * Until the first admin request loads the directory, its size is 0 and its age -1.
+ */
+@ApplicationScoped
+public class UserDirectoryMetrics implements MeterBinder {
+
+    private final CognitoAdminService cognitoAdminService;
+
+    @Inject
+    public UserDirectoryMetrics(CognitoAdminService cognitoAdminService) {
+        this.cognitoAdminService = cognitoAdminService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cognito.directory.users", cognitoAdminService, CognitoAdminService::getDirectorySize)
+            .register(registry);
+        Gauge.builder("cognito.directory.age", cognitoAdminService, CognitoAdminService::getDirectoryAgeMillis)
+            .baseUnit("milliseconds")
+            .description("Age of the loaded snapshot, -1 while none is loaded")
+            .register(registry);
+        FunctionCounter.builder("cognito.directory.refreshes", cognitoAdminService,
+                CognitoAdminService::getDirectoryRefreshCount)
+            .register(registry);
+        FunctionCounter.builder("cognito.directory.refresh.failures", cognitoAdminService,
+                CognitoAdminService::getDirectoryRefreshFailures)
+            .register(registry);
+        Gauge.builder("cognito.directory.refresh.last", cognitoAdminService,
+                CognitoAdminService::getLastDirectoryRefreshMillis)
+            .baseUnit("milliseconds")
+            .register(registry);
+        FunctionCounter.builder("cognito.throttled", cognitoAdminService, CognitoAdminService::getThrottledRequests)
+            .description("Cognito calls answered with TooManyRequests even after the SDK's retries")
+            .register(registry);
+    }
+}
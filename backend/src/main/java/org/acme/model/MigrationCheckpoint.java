@@ -0,0 +1,45 @@
+package org.acme.model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+import java.time.Instant;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Progress marker for one segment of a resumable table migration.
+ * Stored in a DynamoDB table named "MigrationCheckpoints".
+ */
+@RegisterForReflection
+@DynamoDbBean
+public class MigrationCheckpoint {
+    private String id;               // migration name, plus "#segment" for per-segment progress
+    private String lastEvaluatedKey; // opaque cursor of the last copied scan page
+    private Integer totalSegments;
+    private Long itemsCopied;
+    private Boolean done;
+    private Instant updatedAt;
+
+    public MigrationCheckpoint() {
+        // Required by DynamoDB Enhanced Client for deserialization
+    }
+
+    @DynamoDbPartitionKey
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getLastEvaluatedKey() { return lastEvaluatedKey; }
+    public void setLastEvaluatedKey(String lastEvaluatedKey) { this.lastEvaluatedKey = lastEvaluatedKey; }
+
+    public Integer getTotalSegments() { return totalSegments; }
+    public void setTotalSegments(Integer totalSegments) { this.totalSegments = totalSegments; }
+
+    public Long getItemsCopied() { return itemsCopied; }
+    public void setItemsCopied(Long itemsCopied) { this.itemsCopied = itemsCopied; }
+
+    public Boolean getDone() { return done; }
+    public void setDone(Boolean done) { this.done = done; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -4,6 +4,7 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 
 import java.time.Instant;
+import java.util.List;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
 @RegisterForReflection
@@ -14,11 +15,14 @@ public class Notification {
     private String type; // COMMENT, REPLY
     private String entityType; // LIST or LINK
     private String entityId;
-    private String actorUsername; // who triggered the notification
+    private String actorUsername; // who triggered the notification (the latest actor when coalesced)
+    private Integer actorCount; // distinct actors coalesced into this notification; null for a single actor
+    private List<String> recentActors; // most recent first, capped
     private String preview; // truncated content
     private Boolean read;
     private String targetId; // comment ID for navigation
-    private Instant createdAt;
+    private Instant createdAt; // latest activity
+    private Long version; // bumped by every write, guards coalescing updates
 
     public Notification() {
         // Required by DynamoDB Enhanced Client for deserialization
@@ -43,6 +47,12 @@ public class Notification {
     public String getActorUsername() { return actorUsername; }
     public void setActorUsername(String actorUsername) { this.actorUsername = actorUsername; }
 
+    public Integer getActorCount() { return actorCount; }
+    public void setActorCount(Integer actorCount) { this.actorCount = actorCount; }
+
+    public List<String> getRecentActors() { return recentActors; }
+    public void setRecentActors(List<String> recentActors) { this.recentActors = recentActors; }
+
     public String getPreview() { return preview; }
     public void setPreview(String preview) { this.preview = preview; }
 
@@ -54,4 +64,7 @@ public class Notification {
 
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,33 @@
+package org.acme.model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Per-user unread notification count, maintained atomically alongside each notification write, and the
+ * user's read watermark: notifications created before {@code readUpTo} count as read whatever their flag.
+ * Stored in a DynamoDB table named "NotificationCounters", keyed by recipient.
+ */
+@RegisterForReflection
+@DynamoDbBean
+public class NotificationCounter {
+    private String userId;
+    private Long unreadCount;
+    private Long readUpTo; // epoch millis, exclusive; null until the user first marks all as read
+
+    public NotificationCounter() {
+        // Required by DynamoDB Enhanced Client for deserialization
+    }
+
+    @DynamoDbPartitionKey
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public Long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(Long unreadCount) { this.unreadCount = unreadCount; }
+
+    public Long getReadUpTo() { return readUpTo; }
+    public void setReadUpTo(Long readUpTo) { this.readUpTo = readUpTo; }
+}
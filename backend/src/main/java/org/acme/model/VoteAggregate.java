@@ -0,0 +1,52 @@
+package org.acme.model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Pre-aggregated vote counters for one entity, maintained atomically alongside each vote write.
+ * Stored in a DynamoDB table named "VoteAggregates", keyed by "entityType#entityId".
+ */
+@RegisterForReflection
+@DynamoDbBean
+public class VoteAggregate {
+    private String entityKey;   // entityType#entityId
+    private Long ratingSum;
+    private Long voteCount;
+    private Long stars1;        // number of 1-star votes
+    private Long stars2;
+    private Long stars3;
+    private Long stars4;
+    private Long stars5;
+
+    public VoteAggregate() {
+        // Required by DynamoDB Enhanced Client for deserialization
+    }
+
+    @DynamoDbPartitionKey
+    public String getEntityKey() { return entityKey; }
+    public void setEntityKey(String entityKey) { this.entityKey = entityKey; }
+
+    public Long getRatingSum() { return ratingSum; }
+    public void setRatingSum(Long ratingSum) { this.ratingSum = ratingSum; }
+
+    public Long getVoteCount() { return voteCount; }
+    public void setVoteCount(Long voteCount) { this.voteCount = voteCount; }
+
+    public Long getStars1() { return stars1; }
+    public void setStars1(Long stars1) { this.stars1 = stars1; }
+
+    public Long getStars2() { return stars2; }
+    public void setStars2(Long stars2) { this.stars2 = stars2; }
+
+    public Long getStars3() { return stars3; }
+    public void setStars3(Long stars3) { this.stars3 = stars3; }
+
+    public Long getStars4() { return stars4; }
+    public void setStars4(Long stars4) { this.stars4 = stars4; }
+
+    public Long getStars5() { return stars5; }
+    public void setStars5(Long stars5) { this.stars5 = stars5; }
+}
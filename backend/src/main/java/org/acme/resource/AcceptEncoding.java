@@ -0,0 +1,60 @@
+package org.acme.resource;
+
+import java.util.Locale;
+
+/**
+ * Reads an {@code Accept-Encoding} request header (RFC 9110, section 12.5.3) for the streaming exports.
+ */
+final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Whether the client accepts a gzip response: {@code gzip} (or its alias {@code x-gzip}) is listed
+     * with a non-zero quality, or it is not listed and {@code *} is. A quality of 0 means "not acceptable",
+     * and an entry whose quality cannot be parsed is ignored.
+     */
+    static boolean acceptsGzip(String header) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String entry : header.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            Double quality = quality(parts);
+            if (quality == null) {
+                continue;
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        Double accepted = gzip != null ? gzip : wildcard;
+        return accepted != null && accepted > 0;
+    }
+
+    /**
+     * The entry's {@code q} parameter, 1 when it has none, or null when it is malformed.
+     */
+    private static Double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            try {
+                double q = Double.parseDouble(parameter.substring(equals + 1).trim());
+                return q >= 0 && q <= 1 ? q : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return 1.0;
+    }
+}
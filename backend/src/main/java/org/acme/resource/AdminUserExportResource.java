@@ -0,0 +1,160 @@
+package org.acme.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.security.Authenticated;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.graphql.model.CognitoUserView;
+import org.acme.service.CognitoAdminService;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.acme.resource.AuditExportResource.csvField;
+
+/**
+ * Streams the Cognito user pool as NDJSON or CSV (admin only).
+ * Users are read one ListUsers page at a time and each page is written and flushed before the next is
+ * requested, so memory use stays flat however large the pool is. Group membership is looked up in
+ * parallel for each page unless {@code groups=false}. Gzip is applied when the client's
+ * {@code Accept-Encoding} accepts it (see {@link AcceptEncoding}).
+ */
+@Path("/api/v1/admin/users/export")
+@Authenticated
+public class AdminUserExportResource {
+
+    private static final Logger LOG = Logger.getLogger(AdminUserExportResource.class);
+    // Same roles as the admin user queries in UserGraphQLApi
+    private static final String ADMIN_ROLE = "AdminUser";
+    private static final String AWS_ADMIN_ROLE = "admin";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    private static final String CSV_HEADER =
+        "username,email,emailVerified,confirmationStatus,status,enabled,created,lastUpdatedTime,mfaSetting,groups";
+
+    private final CognitoAdminService cognitoAdminService;
+    private final ObjectWriter jsonWriter;
+
+    @Inject
+    public AdminUserExportResource(CognitoAdminService cognitoAdminService, ObjectMapper objectMapper) {
+        this.cognitoAdminService = cognitoAdminService;
+        this.jsonWriter = objectMapper.writerFor(CognitoUserView.class);
+    }
+
+    @GET
+    @RolesAllowed({ADMIN_ROLE, AWS_ADMIN_ROLE})
+    public Response export(@QueryParam("format") String format,
+                           @QueryParam("groups") @DefaultValue("true") boolean includeGroups,
+                           @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (format != null && !csv && !"ndjson".equalsIgnoreCase(format)) {
+            return badRequest("format must be ndjson or csv");
+        }
+
+        boolean gzip = AcceptEncoding.acceptsGzip(acceptEncoding);
+        StreamingOutput body = output -> writeUsers(csv, includeGroups, gzip ? new GZIPOutputStream(output, 8192) : output);
+
+        Response.ResponseBuilder response = Response.ok(body)
+            .type((csv ? CSV : NDJSON) + "; charset=utf-8")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .header("Content-Disposition", "attachment; filename=\"users." + (csv ? "csv" : "ndjson") + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
+    }
+
+    private void writeUsers(boolean csv, boolean includeGroups, OutputStream output) throws IOException {
+        long[] count = {0};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            if (csv) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            cognitoAdminService.exportUsers(includeGroups, page -> {
+                try {
+                    for (CognitoUserView user : page) {
+                        if (csv) {
+                            writeCsvRow(writer, user);
+                        } else {
+                            writer.write(jsonWriter.writeValueAsString(user));
+                            writer.write('\n');
+                        }
+                        count[0]++;
+                    }
+                    // One Cognito page per flush: the client sees rows while the next page is fetched
+                    writer.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the partial body has already been sent
+            LOG.warnf("User export aborted after %d rows: %s", count[0], e.getCause().getMessage());
+            throw e.getCause();
+        } catch (IOException e) {
+            LOG.warnf("User export aborted after %d rows: %s", count[0], e.getMessage());
+            throw e;
+        }
+        LOG.infof("User export streamed %d rows", count[0]);
+    }
+
+    private static void writeCsvRow(Writer writer, CognitoUserView user) throws IOException {
+        writer.write(csvField(user.getUsername()));
+        writer.write(',');
+        writer.write(csvField(user.getEmail()));
+        writer.write(',');
+        writer.write(Boolean.toString(user.isEmailVerified()));
+        writer.write(',');
+        writer.write(csvField(user.getConfirmationStatus()));
+        writer.write(',');
+        writer.write(csvField(user.getStatus()));
+        writer.write(',');
+        writer.write(Boolean.toString(user.isEnabled()));
+        writer.write(',');
+        writer.write(csvField(instant(user.getCreated())));
+        writer.write(',');
+        writer.write(csvField(instant(user.getLastUpdatedTime())));
+        writer.write(',');
+        writer.write(csvField(user.getMfaSetting()));
+        writer.write(',');
+        writer.write(csvField(groups(user.getGroups())));
+        writer.write('\n');
+    }
+
+    private static String instant(Instant value) {
+        return value != null ? value.toString() : null;
+    }
+
+    // Groups go in one field, separated by semicolons
+    private static String groups(List<String> groups) {
+        return groups != null ? String.join(";", groups) : null;
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+            .type(MediaType.APPLICATION_JSON)
+            .entity(Map.of("error", message))
+            .build();
+    }
+}
@@ -0,0 +1,177 @@
+package org.acme.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.security.Authenticated;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.graphql.model.AuditLogFilter;
+import org.acme.model.AuditLog;
+import org.acme.service.AuditService;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams audit log extracts as NDJSON or CSV (admin only).
+ * Rows are written as DynamoDB pages arrive, with no Content-Length (chunked transfer),
+ * so memory use stays flat however many rows match. Gzip is applied when the client's
+ * {@code Accept-Encoding} accepts it (see {@link AcceptEncoding}).
+ */
+@Path("/api/v1/audit/export")
+@Authenticated
+public class AuditExportResource {
+
+    private static final Logger LOG = Logger.getLogger(AuditExportResource.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+    private static final String CSV_HEADER = "id,timestamp,action,entityType,entityId,userId,details";
+    // Push buffered rows to the client every this many rows
+    private static final int FLUSH_EVERY = 500;
+
+    private final AuditService auditService;
+    private final ObjectWriter jsonWriter;
+
+    @Inject
+    public AuditExportResource(AuditService auditService, ObjectMapper objectMapper) {
+        this.auditService = auditService;
+        this.jsonWriter = objectMapper.writerFor(AuditLog.class);
+    }
+
+    @GET
+    @RolesAllowed("AdminUser")
+    public Response export(@QueryParam("format") String format,
+                           @QueryParam("userId") String userId,
+                           @QueryParam("entityType") String entityType,
+                           @QueryParam("entityId") String entityId,
+                           @QueryParam("action") String action,
+                           @QueryParam("from") String from,
+                           @QueryParam("to") String to,
+                           @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (format != null && !csv && !"ndjson".equalsIgnoreCase(format)) {
+            return badRequest("format must be ndjson or csv");
+        }
+
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setUserId(userId);
+        filter.setEntityType(entityType);
+        filter.setEntityId(entityId);
+        filter.setAction(action);
+        Stream<AuditLog> rows;
+        try {
+            filter.setFrom(parseInstant(from));
+            filter.setTo(parseInstant(to));
+            rows = auditService.streamLogs(filter);
+        } catch (DateTimeParseException e) {
+            return badRequest("from/to must be ISO-8601 instants, e.g. 2025-01-31T00:00:00Z");
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+
+        boolean gzip = AcceptEncoding.acceptsGzip(acceptEncoding);
+        StreamingOutput body = output -> writeRows(rows, csv, gzip ? new GZIPOutputStream(output, 8192) : output);
+
+        Response.ResponseBuilder response = Response.ok(body)
+            .type((csv ? CSV : NDJSON) + "; charset=utf-8")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .header("Content-Disposition", "attachment; filename=\"audit-logs." + (csv ? "csv" : "ndjson") + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
+    }
+
+    private void writeRows(Stream<AuditLog> rows, boolean csv, OutputStream output) throws IOException {
+        long count = 0;
+        try (rows; Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            if (csv) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<AuditLog> it = rows.iterator();
+            while (it.hasNext()) {
+                AuditLog row = it.next();
+                if (csv) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(jsonWriter.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IOException e) {
+            // Usually the client went away; the partial body has already been sent
+            LOG.warnf("Audit export aborted after %d rows: %s", count, e.getMessage());
+            throw e;
+        }
+        LOG.infof("Audit export streamed %d rows", count);
+    }
+
+    private static void writeCsvRow(Writer writer, AuditLog row) throws IOException {
+        writer.write(csvField(row.getId()));
+        writer.write(',');
+        writer.write(csvField(row.getTimestamp() != null ? row.getTimestamp().toString() : null));
+        writer.write(',');
+        writer.write(csvField(row.getAction()));
+        writer.write(',');
+        writer.write(csvField(row.getEntityType()));
+        writer.write(',');
+        writer.write(csvField(row.getEntityId()));
+        writer.write(',');
+        writer.write(csvField(row.getUserId()));
+        writer.write(',');
+        writer.write(csvField(row.getDetails()));
+        writer.write('\n');
+    }
+
+    /**
+     * RFC 4180 quoting. Values starting with a formula character are prefixed with a quote
+     * so user-supplied details cannot run as spreadsheet formulas.
+     */
+    static String csvField(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String safe = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (safe.indexOf(',') >= 0 || safe.indexOf('"') >= 0 || safe.indexOf('\n') >= 0 || safe.indexOf('\r') >= 0) {
+            return '"' + safe.replace("\"", "\"\"") + '"';
+        }
+        return safe;
+    }
+
+    private static Instant parseInstant(String value) {
+        return value == null || value.isBlank() ? null : Instant.parse(value.trim());
+    }
+
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+            .type(MediaType.APPLICATION_JSON)
+            .entity(Map.of("error", message))
+            .build();
+    }
+}
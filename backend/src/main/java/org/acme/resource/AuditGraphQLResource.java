@@ -2,6 +2,8 @@ package org.acme.resource;
 
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
+import org.acme.graphql.model.AuditLogFilter;
+import org.acme.graphql.model.AuditLogPage;
 import org.acme.model.AuditLog;
 import org.acme.service.AuditService;
 import org.eclipse.microprofile.graphql.*;
@@ -26,9 +28,12 @@ public class AuditGraphQLResource {
 
     @Query("auditLogs")
     @RolesAllowed("AdminUser")
-    @Description("Get recent audit logs (admin only)")
-    public List<AuditLog> getAuditLogs(@Name("limit") @DefaultValue("50") int limit) {
-        return auditService.getRecentLogs(limit);
+    @Description("Get audit logs newest first, optionally filtered by user, entity, action and time range (admin only). "
+        + "Pass the returned cursor as 'after' to get the next page.")
+    public AuditLogPage getAuditLogs(@Name("filter") AuditLogFilter filter,
+                                     @Name("first") @DefaultValue("50") int first,
+                                     @Name("after") String after) {
+        return auditService.getLogs(filter, first, after);
     }
 
     @Query("auditLogsForEntity")
@@ -29,9 +29,17 @@ public class LinkGraphQLResource {
     }
 
     @Query("publishedLists")
+    @Description("Published lists, newest first. Pass first/after for cursor paging; page/size is the legacy offset mode")
     public PublishedListsPage getPublishedLists(
             @Name("page") @DefaultValue("0") int page,
-            @Name("size") @DefaultValue("10") int size) {
+            @Name("size") @DefaultValue("10") int size,
+            @Name("first") Integer first,
+            @Name("after") String after) {
+        if (first != null || after != null) {
+            int safeFirst = Math.clamp(first != null ? first : size, 1, 100);
+            return linkService.getPublishedListsPage(safeFirst, after);
+        }
+
         int safePage = Math.max(0, page);
         int safeSize = Math.clamp(size, 1, 100);
 
@@ -1,36 +1,76 @@
 package org.acme.resource;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import org.acme.service.CloudWatchLogService;
 import org.acme.service.CloudWatchLogService.FrontendLogEntry;
+import org.acme.service.FrontendLogAggregator;
+import org.acme.service.LogRateLimiter;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * REST endpoint that receives log entries from the frontend
- * and forwards them to CloudWatch Logs.
+ * and forwards them to CloudWatch Logs (repeats are collapsed by {@link FrontendLogAggregator}).
+ * The endpoint is public, so entries are sampled per level and rate limited per client
+ * (the signed-in user, or the forwarded client address for anonymous callers); a client over its limit gets
+ * 429 with Retry-After.
+ * <p>
+ * Small batches are posted as a JSON array (at most 100 entries). Larger batches can be posted as
+ * {@code application/x-ndjson}, optionally with {@code Content-Encoding: gzip}; these are parsed one entry
+ * at a time and shipped in chunks, so the batch is never held in memory as a whole.
  */
 @Path("/api/v1/logs")
 public class LogIngestionResource {
 
     private static final Logger LOG = Logger.getLogger(LogIngestionResource.class);
+    static final String NDJSON = "application/x-ndjson";
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+    // Streamed entries are sampled, rate limited and shipped this many at a time
+    static final int STREAM_CHUNK = 100;
 
-    private final CloudWatchLogService logService;
+    private final FrontendLogAggregator aggregator;
+    private final LogRateLimiter rateLimiter;
+    private final SecurityIdentity identity;
+    private final ObjectReader entryReader;
+
+    // Cap on the decompressed size of a streamed body, which also defuses gzip bombs
+    @ConfigProperty(name = "app.logs.max-stream-bytes", defaultValue = "16777216")
+    long maxStreamBytes;
 
     @Inject
-    public LogIngestionResource(CloudWatchLogService logService) {
-        this.logService = logService;
+    public LogIngestionResource(FrontendLogAggregator aggregator, LogRateLimiter rateLimiter,
+                                SecurityIdentity identity, ObjectMapper objectMapper) {
+        this.aggregator = aggregator;
+        this.rateLimiter = rateLimiter;
+        this.identity = identity;
+        this.entryReader = objectMapper.readerFor(FrontendLogEntry.class);
     }
 
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response ingestLogs(List<FrontendLogEntry> entries) {
+    public Response ingestLogs(List<FrontendLogEntry> entries, @Context HttpServerRequest request) {
         if (entries == null || entries.isEmpty()) {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
@@ -41,8 +81,18 @@ public class LogIngestionResource {
                     .build();
         }
 
+        List<FrontendLogEntry> kept = rateLimiter.sample(entries);
+        if (kept.isEmpty()) {
+            return Response.accepted().build();
+        }
+
+        long waitMillis = rateLimiter.tryAcquire(clientKey(request), kept.size());
+        if (waitMillis > 0) {
+            return tooManyRequests(waitMillis, Map.of("error", "Too many log entries, retry later"));
+        }
+
         try {
-            logService.sendFrontendLogs(entries);
+            aggregator.accept(kept);
         } catch (Exception e) {
             LOG.error("Failed to ingest frontend logs", e);
             return Response.serverError().build();
@@ -50,4 +100,164 @@ public class LogIngestionResource {
 
         return Response.accepted().build();
     }
+
+    /**
+     * Stream NDJSON entries (one JSON object per line, or a JSON array), optionally gzip-compressed.
+     * Responses carry the number of entries consumed, so a client cut off by the rate limit or a bad
+     * line knows where to resume.
+     */
+    @POST
+    @Consumes(NDJSON)
+    public Response ingestLogStream(InputStream body,
+                                    @HeaderParam(HttpHeaders.CONTENT_ENCODING) String contentEncoding,
+                                    @Context HttpServerRequest request) {
+        String encoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if (!encoding.equals("identity") && !encoding.equals("gzip")) {
+            return Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of("error", "Content-Encoding must be gzip or identity"))
+                    .build();
+        }
+
+        String clientKey = clientKey(request);
+        long accepted = 0;
+        List<FrontendLogEntry> chunk = new ArrayList<>(STREAM_CHUNK);
+        try (InputStream in = new BoundedInputStream(encoding.equals("gzip") ? new GZIPInputStream(body) : body,
+                                                     maxStreamBytes);
+             MappingIterator<FrontendLogEntry> entries = entryReader.readValues(in)) {
+            while (entries.hasNextValue()) {
+                FrontendLogEntry entry = entries.nextValue();
+                if (entry != null) {
+                    chunk.add(entry);
+                }
+                if (chunk.size() == STREAM_CHUNK) {
+                    long waitMillis = ship(chunk, clientKey);
+                    if (waitMillis > 0) {
+                        return tooManyRequests(waitMillis, Map.of("accepted", accepted));
+                    }
+                    accepted += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                long waitMillis = ship(chunk, clientKey);
+                if (waitMillis > 0) {
+                    return tooManyRequests(waitMillis, Map.of("accepted", accepted));
+                }
+                accepted += chunk.size();
+            }
+        } catch (BodyTooLargeException e) {
+            return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of("error", e.getMessage(), "accepted", accepted))
+                    .build();
+        } catch (IOException e) {
+            // Malformed JSON or gzip; everything before the bad chunk has been shipped
+            LOG.debugf("Rejected log stream after %d entries: %s", accepted, e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of("error", "Malformed log stream", "accepted", accepted))
+                    .build();
+        }
+
+        return Response.accepted()
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("accepted", accepted))
+                .build();
+    }
+
+    /**
+     * Sample, rate limit and ship one chunk.
+     *
+     * @return 0 if shipped, otherwise milliseconds the client should wait
+     */
+    private long ship(List<FrontendLogEntry> chunk, String clientKey) {
+        List<FrontendLogEntry> kept = rateLimiter.sample(chunk);
+        if (kept.isEmpty()) {
+            return 0;
+        }
+        long waitMillis = rateLimiter.tryAcquire(clientKey, kept.size());
+        if (waitMillis == 0) {
+            aggregator.accept(kept);
+        }
+        return waitMillis;
+    }
+
+    private static Response tooManyRequests(long waitMillis, Map<String, ?> entity) {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, (waitMillis + 999) / 1000)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(entity)
+                .build();
+    }
+
+    /**
+     * Signed-in callers are limited per user, so people behind one NAT do not share a bucket.
+     * Anonymous callers are limited per client address. {@code quarkus.http.proxy.proxy-address-forwarding}
+     * resolves it from X-Forwarded-For when the peer is a trusted proxy (the ALB), but it takes the leftmost
+     * entry, which the client can send itself. The ALB appends the address it saw, so when forwarding
+     * was applied the rightmost entry is used instead.
+     */
+    private String clientKey(HttpServerRequest request) {
+        if (identity != null && !identity.isAnonymous()) {
+            return "user:" + identity.getPrincipal().getName();
+        }
+        if (request == null || request.remoteAddress() == null) {
+            return "ip:unknown";
+        }
+        String client = request.remoteAddress().host();
+        String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+        SocketAddress peer = request.connection() != null ? request.connection().remoteAddress() : null;
+        if (forwardedFor != null && peer != null && !client.equals(peer.host())) {
+            String nearest = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+            if (!nearest.isEmpty()) {
+                client = nearest;
+            }
+        }
+        return "ip:" + client;
+    }
+
+    /**
+     * Fails the read once more than {@code limit} bytes have come through.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws BodyTooLargeException {
+            count += n;
+            if (count > limit) {
+                throw new BodyTooLargeException("Log stream exceeds " + limit + " bytes");
+            }
+        }
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+        BodyTooLargeException(String message) {
+            super(message);
+        }
+    }
 }
@@ -5,6 +5,8 @@ import org.acme.graphql.model.NotificationPage;
 import org.acme.graphql.model.VoteAnalytics;
 import org.acme.graphql.model.VoteStats;
 import org.acme.model.Comment;
+import org.acme.model.Link;
+import org.acme.model.LinkList;
 import org.acme.service.AuditService;
 import org.acme.service.CommentService;
 import org.acme.service.NotificationService;
@@ -21,6 +23,9 @@ import java.util.Set;
 public class SocialGraphQLResource {
 
     private static final String ENTITY_COMMENT = "COMMENT";
+    private static final String ENTITY_LIST = "LIST";
+    private static final String ENTITY_LINK = "LINK";
+    private static final int MAX_BATCH_ENTITIES = 100;
 
     private final VoteService voteService;
     private final CommentService commentService;
@@ -58,6 +63,34 @@ public class SocialGraphQLResource {
         return voteService.getVoteStats(entityType, entityId, userId);
     }
 
+    @Query("voteStatsBatch")
+    @Description("Vote stats for several entities of one type, in the order requested")
+    public List<VoteStats> getVoteStatsBatch(@Name("entityType") String entityType,
+                                              @Name("entityIds") List<String> entityIds) {
+        if (entityIds == null || entityIds.isEmpty()) {
+            return List.of();
+        }
+        if (entityIds.size() > MAX_BATCH_ENTITIES) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_ENTITIES + " entity IDs per request");
+        }
+        String userId = identity.getPrincipal().getName();
+        return voteService.getVoteStatsBatch(entityType, entityIds, userId);
+    }
+
+    // Batched field resolvers: a page of lists or links resolves voteStats in one call, not one per item
+
+    @Name("voteStats")
+    public List<VoteStats> getListVoteStats(@Source List<LinkList> lists) {
+        String userId = identity.getPrincipal().getName();
+        return voteService.getVoteStatsBatch(ENTITY_LIST, lists.stream().map(LinkList::getId).toList(), userId);
+    }
+
+    @Name("voteStats")
+    public List<VoteStats> getLinkVoteStats(@Source List<Link> links) {
+        String userId = identity.getPrincipal().getName();
+        return voteService.getVoteStatsBatch(ENTITY_LINK, links.stream().map(Link::getId).toList(), userId);
+    }
+
     @Query("voteAnalytics")
     public VoteAnalytics getVoteAnalytics(@Name("entityType") String entityType,
                                            @Name("entityId") String entityId) {
@@ -116,10 +149,17 @@ public class SocialGraphQLResource {
     // ========== Notifications ==========
 
     @Query("notifications")
+    @Description("Your notifications, newest first. Pass first/after for cursor paging; page/size is the legacy offset mode")
     public NotificationPage getNotifications(
             @Name("page") @DefaultValue("0") int page,
-            @Name("size") @DefaultValue("20") int size) {
+            @Name("size") @DefaultValue("20") int size,
+            @Name("first") Integer first,
+            @Name("after") String after) {
         String userId = identity.getPrincipal().getName();
+        if (first != null || after != null) {
+            int safeFirst = Math.clamp(first != null ? first : size, 1, 100);
+            return notificationService.getNotificationsPage(userId, safeFirst, after);
+        }
         int safePage = Math.max(0, page);
         int safeSize = Math.clamp(size, 1, 100);
         return notificationService.getNotifications(userId, safePage, safeSize);
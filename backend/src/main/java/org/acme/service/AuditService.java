@@ -1,39 +1,120 @@
 package org.acme.service;
 
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
+import org.acme.graphql.model.AuditLogFilter;
+import org.acme.graphql.model.AuditLogPage;
 import org.acme.model.AuditLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
 
 /**
  * Service for recording and querying audit log entries.
  * Tracks who changed what, when across all mutations.
+ * <p>
+ * Entries are queued in memory and written by a background thread with BatchWriteItem, so
+ * {@link #log} never waits on DynamoDB. The writer wakes as soon as 25 entries are queued and
+ * at least every {@code app.audit.flush-interval-ms}. When the queue is full new entries are
+ * dropped and counted rather than blocking the request.
  */
 @ApplicationScoped
 public class AuditService {
 
     private static final Logger LOG = Logger.getLogger(AuditService.class);
+    static final String TABLE_NAME = "AuditLogs";
+    // BatchWriteItem accepts at most 25 put requests
+    static final int BATCH_SIZE = 25;
+    private static final int MAX_WRITE_ATTEMPTS = 6;
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final String ENTITY_INDEX = "EntityIndex";
+    private static final String USER_INDEX = "UserIndex";
+    static final String TIME_INDEX = "TimeIndex";
+    // Index order is timestamp descending; the id breaks ties so cursors are exact
+    private static final Comparator<AuditLog> NEWEST_FIRST = Comparator.comparing(AuditLog::getTimestamp)
+        .thenComparing(AuditLog::getId)
+        .reversed();
+    // Each day's entries are spread over this many TimeIndex partitions to avoid a hot key
+    static final int TIME_SHARDS = 4;
+    private static final long INDEX_RECHECK_MS = 60_000;
+
+    @ConfigProperty(name = "app.audit.recent-lookback-days", defaultValue = "30")
+    int recentLookbackDays;
+
+    @ConfigProperty(name = "app.audit.queue-capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "app.audit.flush-interval-ms", defaultValue = "1000")
+    long flushIntervalMs;
 
     private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private final AuditTimeIndexMigrationService timeIndexMigration;
+    // Lock-free queue; queued tracks its size so the capacity check is O(1)
+    private final ConcurrentLinkedQueue<AuditLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile boolean running;
+    private volatile boolean partitionIndexesSorted;
+    private volatile long nextIndexCheck;
+    private volatile Thread writer;
     private DynamoDbTable<AuditLog> auditTable;
     private DynamoDbIndex<AuditLog> entityIndex;
     private DynamoDbIndex<AuditLog> userIndex;
+    private DynamoDbIndex<AuditLog> timeIndex;
 
     private static final TableSchema<AuditLog> AUDIT_SCHEMA = TableSchema.builder(AuditLog.class)
         .newItemSupplier(AuditLog::new)
@@ -50,29 +131,39 @@ public class AuditService {
         .addAttribute(String.class, a -> a.name("entityId")
             .getter(AuditLog::getEntityId)
             .setter(AuditLog::setEntityId)
-            .tags(secondaryPartitionKey("EntityIndex")))
+            .tags(secondaryPartitionKey(ENTITY_INDEX)))
         .addAttribute(String.class, a -> a.name("userId")
             .getter(AuditLog::getUserId)
             .setter(AuditLog::setUserId)
-            .tags(secondaryPartitionKey("UserIndex")))
+            .tags(secondaryPartitionKey(USER_INDEX)))
         .addAttribute(String.class, a -> a.name("details")
             .getter(AuditLog::getDetails)
             .setter(AuditLog::setDetails))
         .addAttribute(EnhancedType.of(Instant.class), a -> a.name("timestamp")
             .getter(AuditLog::getTimestamp)
-            .setter(AuditLog::setTimestamp))
+            .setter(AuditLog::setTimestamp)
+            .tags(secondarySortKey(List.of(ENTITY_INDEX, USER_INDEX, TIME_INDEX))))
+        // Derived "yyyy-MM-dd#shard" bucket; recent logs are read per bucket, newest first
+        .addAttribute(String.class, a -> a.name("timeBucket")
+            .getter(AuditService::timeBucket)
+            .setter((l, b) -> { })
+            .tags(secondaryPartitionKey(TIME_INDEX)))
         .build();
 
     @Inject
-    public AuditService(DynamoDbEnhancedClient enhancedClient) {
+    public AuditService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient,
+                        AuditTimeIndexMigrationService timeIndexMigration) {
         this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.timeIndexMigration = timeIndexMigration;
     }
 
     @PostConstruct
     void init() {
-        auditTable = enhancedClient.table("AuditLogs", AUDIT_SCHEMA);
-        entityIndex = auditTable.index("EntityIndex");
-        userIndex = auditTable.index("UserIndex");
+        auditTable = enhancedClient.table(TABLE_NAME, AUDIT_SCHEMA);
+        entityIndex = auditTable.index(ENTITY_INDEX);
+        userIndex = auditTable.index(USER_INDEX);
+        timeIndex = auditTable.index(TIME_INDEX);
         try {
             auditTable.createTable();
         } catch (Exception e) {
@@ -80,8 +171,31 @@ public class AuditService {
         }
     }
 
+    void onStart(@Observes StartupEvent event) {
+        running = true;
+        Thread thread = new Thread(this::runWriter, "audit-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Whatever the writer did not get to is written here, so a clean shutdown loses nothing
+        flush();
+    }
+
     /**
-     * Record an audit log entry.
+     * Record an audit log entry. The entry is queued and written asynchronously.
      *
      * @param action     The action performed (CREATE, UPDATE, DELETE, etc.)
      * @param entityType The type of entity affected (LIST, LINK, COMMENT, VOTE, USER)
@@ -90,20 +204,143 @@ public class AuditService {
      * @param details    Human-readable description of what changed
      */
     public void log(String action, String entityType, String entityId, String userId, String details) {
-        try {
-            AuditLog entry = new AuditLog();
-            entry.setId(UUID.randomUUID().toString());
-            entry.setAction(action);
-            entry.setEntityType(entityType);
-            entry.setEntityId(entityId);
-            entry.setUserId(userId);
-            entry.setDetails(details);
-            entry.setTimestamp(Instant.now());
-            auditTable.putItem(entry);
-        } catch (Exception e) {
-            // Audit logging should never break the main operation
-            LOG.error("Failed to write audit log: " + e.getMessage(), e);
+        AuditLog entry = new AuditLog();
+        entry.setId(UUID.randomUUID().toString());
+        entry.setAction(action);
+        entry.setEntityType(entityType);
+        entry.setEntityId(entityId);
+        entry.setUserId(userId);
+        entry.setDetails(details);
+        entry.setTimestamp(Instant.now());
+
+        // Audit logging should never break or slow down the main operation
+        int depth = queued.incrementAndGet();
+        if (depth > queueCapacity) {
+            queued.decrementAndGet();
+            long dropped = droppedCount.incrementAndGet();
+            if (dropped == 1 || dropped % 1000 == 0) {
+                LOG.warnf("Audit queue full (%d entries), %d entries dropped so far", queueCapacity, dropped);
+            }
+            return;
+        }
+        queue.offer(entry);
+        Thread thread = writer;
+        if (depth == BATCH_SIZE && thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runWriter() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (running) {
+            // Sleep until a full batch is queued (log() unparks us) or the flush interval elapses
+            if (queued.get() < BATCH_SIZE) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            try {
+                flush();
+            } catch (Exception e) {
+                LOG.error("Audit writer failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Write every queued entry in batches of 25. Runs on the writer thread, and once more on shutdown.
+     */
+    void flush() {
+        List<AuditLog> batch = new ArrayList<>(BATCH_SIZE);
+        AuditLog entry;
+        while ((entry = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(entry);
+            if (batch.size() == BATCH_SIZE) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<AuditLog> batch) {
+        long start = System.nanoTime();
+        List<WriteRequest> pending = new ArrayList<>(batch.size());
+        for (AuditLog entry : batch) {
+            pending.add(WriteRequest.builder()
+                .putRequest(PutRequest.builder().item(AUDIT_SCHEMA.itemToMap(entry, true)).build())
+                .build());
+        }
+
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            try {
+                Map<String, List<WriteRequest>> request = Map.of(TABLE_NAME, pending);
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(r -> r.requestItems(request));
+                pending = response.unprocessedItems().getOrDefault(TABLE_NAME, List.of());
+            } catch (Exception e) {
+                LOG.warnf("Audit batch write failed (attempt %d): %s", attempt, e.getMessage());
+            }
+            if (!pending.isEmpty()) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    droppedCount.addAndGet(pending.size());
+                    LOG.errorf("Dropped %d audit entries after %d write attempts", pending.size(), attempt);
+                    break;
+                }
+                backoff(attempt);
+            }
         }
+
+        writtenCount.addAndGet(batch.size() - pending.size());
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        totalFlushNanos.addAndGet(elapsed);
+        flushCount.incrementAndGet();
+    }
+
+    private static void backoff(int attempt) {
+        // Exponential backoff with full jitter: up to 50ms, 100ms, 200ms, ... capped at 2s
+        long ceiling = Math.min(2000L, 25L << attempt);
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(
+            ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1)));
+    }
+
+    /** Whether the background writer thread is running; entries queue up unwritten while it is not. */
+    public boolean isWriterRunning() {
+        Thread thread = writer;
+        return running && thread != null && thread.isAlive();
+    }
+
+    /** Number of entries waiting to be written. */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /** Entries dropped because the queue was full or DynamoDB kept rejecting them. */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /** Entries successfully written since startup. */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /** Duration of the most recent batch write, retries included, in milliseconds. */
+    public long getLastFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastFlushNanos);
+    }
+
+    /** Longest batch write since startup, in milliseconds. */
+    public long getMaxFlushMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxFlushNanos);
+    }
+
+    /** Mean batch write duration since startup, in milliseconds. */
+    public double getAverageFlushMillis() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0.0 : totalFlushNanos.get() / (flushes * 1_000_000.0);
     }
 
     /**
@@ -113,29 +350,21 @@ public class AuditService {
      * @return List of recent audit log entries
      */
     public List<AuditLog> getRecentLogs(int limit) {
-        int safeLimit = Math.clamp(limit, 1, 200);
-        return auditTable.scan().items().stream()
-                .sorted(Comparator.comparing(AuditLog::getTimestamp).reversed())
-                .limit(safeLimit)
-                .toList();
+        return getLogs(null, limit, null).getItems();
     }
 
     /**
-     * Get audit logs for a specific entity.
+     * Get audit logs for a specific entity, newest first.
      *
      * @param entityType The type of entity
      * @param entityId   The ID of the entity
-     * @return List of audit log entries for the entity
+     * @return Up to 200 of the entity's most recent audit log entries
      */
     public List<AuditLog> getLogsForEntity(String entityType, String entityId) {
-        // Use EntityIndex GSI to query by entityId, then filter by entityType in memory
-        return entityIndex.query(QueryConditional.keyEqualTo(
-                Key.builder().partitionValue(entityId).build()))
-            .stream()
-            .flatMap(page -> page.items().stream())
-            .filter(l -> entityType.equals(l.getEntityType()))
-            .sorted(Comparator.comparing(AuditLog::getTimestamp).reversed())
-            .toList();
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setEntityType(entityType);
+        filter.setEntityId(entityId);
+        return getLogs(filter, 200, null).getItems();
     }
 
     /**
@@ -146,14 +375,363 @@ public class AuditService {
      * @return List of audit log entries for the user
      */
     public List<AuditLog> getLogsForUser(String userId, int limit) {
-        int safeLimit = Math.clamp(limit, 1, 200);
-        // Use UserIndex GSI to query by userId instead of scanning the entire table
-        return userIndex.query(QueryConditional.keyEqualTo(
-                Key.builder().partitionValue(userId).build()))
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setUserId(userId);
+        return getLogs(filter, limit, null).getItems();
+    }
+
+    /**
+     * Get one page of audit logs matching a filter, newest first.
+     * An entityId or userId filter queries EntityIndex or UserIndex; otherwise the TimeIndex
+     * buckets are walked day by day, or the table is scanned while entries written before
+     * TimeIndex existed are still being backfilled. The time range is a sort-key condition on timestamp and
+     * the remaining fields are filter expressions, so only the requested page is read.
+     *
+     * @param filter optional filter; {@code from}/{@code to} are inclusive
+     * @param first  page size, clamped to 1..200
+     * @param after  cursor from a previous page, or null for the first page
+     * @return the page, with a cursor when more entries may follow
+     */
+    public AuditLogPage getLogs(AuditLogFilter filter, int first, String after) {
+        AuditLogFilter f = filter != null ? filter : new AuditLogFilter();
+        if (f.getFrom() != null && f.getTo() != null && f.getFrom().isAfter(f.getTo())) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        int limit = Math.clamp(first, 1, 200);
+        AuditLog position = decodePosition(after);
+
+        // Read one extra entry to learn whether another page exists
+        List<AuditLog> items;
+        if (hasText(f.getEntityId())) {
+            items = queryPartition(entityIndex, "entityId", f.getEntityId(), f, limit + 1, position);
+        } else if (hasText(f.getUserId())) {
+            items = queryPartition(userIndex, "userId", f.getUserId(), f, limit + 1, position);
+        } else if (timeIndexMigration.isComplete()) {
+            items = walkTimeBuckets(f, limit + 1, position);
+        } else {
+            items = scanLogs(f, position).limit(limit + 1).toList();
+        }
+
+        if (items.size() <= limit) {
+            return new AuditLogPage(items, null);
+        }
+        List<AuditLog> page = items.subList(0, limit);
+        return new AuditLogPage(List.copyOf(page), encodePosition(page.get(limit - 1)));
+    }
+
+    private List<AuditLog> queryPartition(DynamoDbIndex<AuditLog> index, String keyAttribute, String keyValue,
+                                          AuditLogFilter f, int limit, AuditLog position) {
+        if (!isPartitionIndexSorted()) {
+            return unsortedPartition(index, keyValue, keyAttribute, f, position).limit(limit).toList();
+        }
+        QueryEnhancedRequest.Builder request = partitionRequest(keyAttribute, keyValue, f, limit);
+        if (position != null) {
+            // A GSI's exclusive start key is the table key plus the index key
+            Map<String, AttributeValue> startKey = new HashMap<>();
+            startKey.put("id", AUDIT_SCHEMA.attributeValue(position, "id"));
+            startKey.put("timestamp", AUDIT_SCHEMA.attributeValue(position, "timestamp"));
+            startKey.put(keyAttribute, AttributeValue.builder().s(keyValue).build());
+            request.exclusiveStartKey(startKey);
+        }
+        return index.query(request.build())
             .stream()
             .flatMap(page -> page.items().stream())
-            .sorted(Comparator.comparing(AuditLog::getTimestamp).reversed())
-            .limit(safeLimit)
+            .limit(limit)
             .toList();
     }
+
+    /**
+     * Read a whole EntityIndex or UserIndex partition without a sort-key condition, then apply the
+     * time range and cursor and sort in memory. Used while the index has no timestamp sort key.
+     */
+    private Stream<AuditLog> unsortedPartition(DynamoDbIndex<AuditLog> index, String keyValue, String keyAttribute,
+                                               AuditLogFilter f, AuditLog position) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+            .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(keyValue).build()))
+            .limit(EXPORT_PAGE_SIZE);
+        Expression filterExpression = filterExpression(f, keyAttribute);
+        if (filterExpression != null) {
+            request.filterExpression(filterExpression);
+        }
+        return index.query(request.build())
+            .stream()
+            .flatMap(page -> page.items().stream())
+            .filter(l -> matchesRange(l, f, position))
+            .sorted(NEWEST_FIRST);
+    }
+
+    /**
+     * Whether EntityIndex and UserIndex are sorted by timestamp. A table created before the indexes had
+     * a sort key keeps the hash-only indexes until they are replaced, and a replaced index is not ACTIVE
+     * until it has been rebuilt. Until then a sort-key condition on it is rejected, so partitions are read
+     * whole and sorted in memory.
+     */
+    boolean isPartitionIndexSorted() {
+        if (partitionIndexesSorted) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextIndexCheck) {
+            nextIndexCheck = now + INDEX_RECHECK_MS;
+            try {
+                TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(TABLE_NAME)).table();
+                partitionIndexesSorted = isSortedByTimestamp(table, ENTITY_INDEX) && isSortedByTimestamp(table, USER_INDEX);
+                if (!partitionIndexesSorted) {
+                    LOG.warn("EntityIndex/UserIndex on AuditLogs are not sorted by timestamp; sorting audit logs in memory");
+                }
+            } catch (Exception e) {
+                LOG.warn("Could not describe the AuditLogs table: " + e.getMessage());
+            }
+        }
+        return partitionIndexesSorted;
+    }
+
+    private static boolean isSortedByTimestamp(TableDescription table, String indexName) {
+        return table.hasGlobalSecondaryIndexes() && table.globalSecondaryIndexes().stream()
+            .anyMatch(index -> indexName.equals(index.indexName())
+                && index.indexStatus() == IndexStatus.ACTIVE
+                && index.keySchema().stream().anyMatch(key -> key.keyType() == KeyType.RANGE
+                    && "timestamp".equals(key.attributeName())));
+    }
+
+    private static QueryEnhancedRequest.Builder partitionRequest(String keyAttribute, String keyValue,
+                                                                 AuditLogFilter f, int pageSize) {
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+            .queryConditional(timeRange(keyValue, f.getFrom(), f.getTo()))
+            .scanIndexForward(false)
+            .limit(pageSize);
+        Expression filterExpression = filterExpression(f, keyAttribute);
+        if (filterExpression != null) {
+            request.filterExpression(filterExpression);
+        }
+        return request;
+    }
+
+    /**
+     * Stream every audit log matching a filter, newest first, reading DynamoDB one page at a time
+     * so memory use does not grow with the number of entries. Without an entityId or userId filter
+     * the TimeIndex is walked from {@code to} (or now) back to {@code from} (or the configured
+     * lookback), merging each day's shards as they are read. Until the TimeIndex backfill has
+     * finished, that case falls back to a sorted table scan instead.
+     */
+    public Stream<AuditLog> streamLogs(AuditLogFilter filter) {
+        AuditLogFilter f = filter != null ? filter : new AuditLogFilter();
+        if (f.getFrom() != null && f.getTo() != null && f.getFrom().isAfter(f.getTo())) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (hasText(f.getEntityId()) && !isPartitionIndexSorted()) {
+            return unsortedPartition(entityIndex, f.getEntityId(), "entityId", f, null);
+        }
+        if (hasText(f.getEntityId())) {
+            return entityIndex.query(partitionRequest("entityId", f.getEntityId(), f, EXPORT_PAGE_SIZE).build())
+                .stream()
+                .flatMap(page -> page.items().stream());
+        }
+        if (hasText(f.getUserId()) && !isPartitionIndexSorted()) {
+            return unsortedPartition(userIndex, f.getUserId(), "userId", f, null);
+        }
+        if (hasText(f.getUserId())) {
+            return userIndex.query(partitionRequest("userId", f.getUserId(), f, EXPORT_PAGE_SIZE).build())
+                .stream()
+                .flatMap(page -> page.items().stream());
+        }
+        if (!timeIndexMigration.isComplete()) {
+            return scanLogs(f, null);
+        }
+
+        Instant newest = f.getTo() != null ? f.getTo() : Instant.now();
+        LocalDate newestDay = LocalDate.ofInstant(newest, ZoneOffset.UTC);
+        LocalDate oldestDay = f.getFrom() != null
+            ? LocalDate.ofInstant(f.getFrom(), ZoneOffset.UTC)
+            : newestDay.minusDays(recentLookbackDays - 1L);
+        Expression filterExpression = filterExpression(f, null);
+        return Stream.iterate(newestDay, day -> !day.isBefore(oldestDay), day -> day.minusDays(1))
+            .flatMap(day -> mergeShards(day, f.getFrom(), newest, filterExpression));
+    }
+
+    /**
+     * Merge one day's TimeIndex shards into a single newest-first stream, holding one page per shard.
+     */
+    private Stream<AuditLog> mergeShards(LocalDate day, Instant from, Instant to, Expression filterExpression) {
+        PriorityQueue<ShardHead> heads = new PriorityQueue<>((a, b) -> NEWEST_FIRST.compare(a.entry(), b.entry()));
+        for (int shard = 0; shard < TIME_SHARDS; shard++) {
+            QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                .queryConditional(timeRange(day + "#" + shard, from, to))
+                .scanIndexForward(false)
+                .limit(EXPORT_PAGE_SIZE);
+            if (filterExpression != null) {
+                request.filterExpression(filterExpression);
+            }
+            Iterator<AuditLog> entries = timeIndex.query(request.build()).items().iterator();
+            if (entries.hasNext()) {
+                heads.add(new ShardHead(entries.next(), entries));
+            }
+        }
+        Iterator<AuditLog> merged = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public AuditLog next() {
+                ShardHead head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest().hasNext()) {
+                    heads.add(new ShardHead(head.rest().next(), head.rest()));
+                }
+                return head.entry();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Pre-migration read path: entries written before TimeIndex existed are not in the index yet,
+     * so the whole table is scanned and sorted in memory, as before TimeIndex.
+     */
+    private Stream<AuditLog> scanLogs(AuditLogFilter f, AuditLog position) {
+        ScanEnhancedRequest.Builder request = ScanEnhancedRequest.builder();
+        Expression filterExpression = filterExpression(f, null);
+        if (filterExpression != null) {
+            request.filterExpression(filterExpression);
+        }
+        return auditTable.scan(request.build()).items().stream()
+            .filter(l -> matchesRange(l, f, position))
+            .sorted(NEWEST_FIRST);
+    }
+
+    /**
+     * The in-memory equivalent of the sort-key range and exclusive start key, for unindexed reads.
+     */
+    private static boolean matchesRange(AuditLog l, AuditLogFilter f, AuditLog position) {
+        return l.getTimestamp() != null && l.getId() != null
+            && (f.getFrom() == null || !l.getTimestamp().isBefore(f.getFrom()))
+            && (f.getTo() == null || !l.getTimestamp().isAfter(f.getTo()))
+            && (position == null || NEWEST_FIRST.compare(l, position) > 0);
+    }
+
+    private record ShardHead(AuditLog entry, Iterator<AuditLog> rest) { }
+
+    /**
+     * Walk the TimeIndex from the newest relevant day backwards, merging each day's shards,
+     * until enough entries are collected or the range (or configured lookback) is exhausted.
+     */
+    private List<AuditLog> walkTimeBuckets(AuditLogFilter f, int limit, AuditLog position) {
+        Instant newest = position != null ? position.getTimestamp() : (f.getTo() != null ? f.getTo() : Instant.now());
+        LocalDate day = LocalDate.ofInstant(newest, ZoneOffset.UTC);
+        LocalDate oldestDay = f.getFrom() != null
+            ? LocalDate.ofInstant(f.getFrom(), ZoneOffset.UTC)
+            : day.minusDays(recentLookbackDays - 1L);
+        Expression filterExpression = filterExpression(f, null);
+
+        List<AuditLog> result = new ArrayList<>(limit);
+        for (; !day.isBefore(oldestDay) && result.size() < limit; day = day.minusDays(1)) {
+            int remaining = limit - result.size();
+            // Any shard may hold all of the newest entries, so each contributes up to the remainder
+            List<AuditLog> dayLogs = new ArrayList<>();
+            for (int shard = 0; shard < TIME_SHARDS; shard++) {
+                String bucket = day + "#" + shard;
+                QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+                    .queryConditional(timeRange(bucket, null, newest))
+                    .scanIndexForward(false)
+                    .limit(remaining);
+                if (filterExpression != null) {
+                    request.filterExpression(filterExpression);
+                }
+                timeIndex.query(request.build())
+                    .stream()
+                    .flatMap(page -> page.items().stream())
+                    .filter(l -> position == null || NEWEST_FIRST.compare(l, position) > 0)
+                    .takeWhile(l -> f.getFrom() == null || !l.getTimestamp().isBefore(f.getFrom()))
+                    .limit(remaining)
+                    .forEach(dayLogs::add);
+            }
+            dayLogs.stream()
+                .sorted(NEWEST_FIRST)
+                .limit(remaining)
+                .forEach(result::add);
+        }
+        return result;
+    }
+
+    private static QueryConditional timeRange(String partition, Instant from, Instant to) {
+        if (from != null && to != null) {
+            return QueryConditional.sortBetween(timeKey(partition, from), timeKey(partition, to));
+        }
+        if (from != null) {
+            return QueryConditional.sortGreaterThanOrEqualTo(timeKey(partition, from));
+        }
+        if (to != null) {
+            return QueryConditional.sortLessThanOrEqualTo(timeKey(partition, to));
+        }
+        return QueryConditional.keyEqualTo(Key.builder().partitionValue(partition).build());
+    }
+
+    private static Key timeKey(String partition, Instant timestamp) {
+        AuditLog probe = new AuditLog();
+        probe.setTimestamp(timestamp);
+        return Key.builder()
+            .partitionValue(partition)
+            .sortValue(AUDIT_SCHEMA.attributeValue(probe, "timestamp"))
+            .build();
+    }
+
+    /**
+     * Equality conditions for every filter field except the one already used as the partition key.
+     */
+    private static Expression filterExpression(AuditLogFilter f, String keyAttribute) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("userId", f.getUserId());
+        fields.put("entityType", f.getEntityType());
+        fields.put("entityId", f.getEntityId());
+        fields.put("action", f.getAction());
+        fields.remove(keyAttribute);
+
+        List<String> conditions = new ArrayList<>();
+        Expression.Builder expression = Expression.builder();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (hasText(field.getValue())) {
+                // Names are aliased because "action" is a DynamoDB reserved word
+                expression.putExpressionName("#" + field.getKey(), field.getKey());
+                expression.putExpressionValue(":" + field.getKey(), AttributeValue.builder().s(field.getValue()).build());
+                conditions.add("#" + field.getKey() + " = :" + field.getKey());
+            }
+        }
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        return expression.expression(String.join(" AND ", conditions)).build();
+    }
+
+    private static String encodePosition(AuditLog last) {
+        return PageCursor.encode(Map.of(
+            "id", AUDIT_SCHEMA.attributeValue(last, "id"),
+            "timestamp", AUDIT_SCHEMA.attributeValue(last, "timestamp")));
+    }
+
+    private static AuditLog decodePosition(String cursor) {
+        Map<String, AttributeValue> key = PageCursor.decode(cursor);
+        if (key == null) {
+            return null;
+        }
+        if (!key.containsKey("id") || !key.containsKey("timestamp")) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return AUDIT_SCHEMA.mapToItem(key);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    static String timeBucket(AuditLog entry) {
+        if (entry.getTimestamp() == null || entry.getId() == null) {
+            return null;
+        }
+        LocalDate day = LocalDate.ofInstant(entry.getTimestamp(), ZoneOffset.UTC);
+        return day + "#" + Math.floorMod(entry.getId().hashCode(), TIME_SHARDS);
+    }
 }
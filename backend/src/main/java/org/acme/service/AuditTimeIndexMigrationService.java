@@ -0,0 +1,273 @@
+package org.acme.service;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.model.AuditLog;
+import org.acme.model.MigrationCheckpoint;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.CreateGlobalSecondaryIndexAction;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexUpdate;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputDescription;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-time migration that brings an existing "AuditLogs" table up to the TimeIndex layout.
+ *
+ * {@code createTable()} is skipped for a table that already exists, so a table created before
+ * TimeIndex has no such index, and entries written before it carry no {@code timeBucket}.
+ * This migration creates the index with UpdateTable when it is missing, waits for it to become ACTIVE,
+ * then stamps {@code timeBucket} on every entry that lacks it. Progress is checkpointed after each
+ * scan page in MigrationCheckpoints. Every step is idempotent, so several instances may run it.
+ * Until it has finished, {@link AuditService} serves unfiltered reads from a table scan.
+ */
+@ApplicationScoped
+public class AuditTimeIndexMigrationService {
+
+    private static final Logger LOG = Logger.getLogger(AuditTimeIndexMigrationService.class);
+    private static final String MIGRATION_ID = "audit-logs-time-index";
+    private static final int SCAN_PAGE_SIZE = 100;
+    private static final long INDEX_POLL_MS = 10_000;
+    private static final long STATUS_RECHECK_MS = 60_000;
+
+    @ConfigProperty(name = "app.audit-time-index-migration.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private DynamoDbTable<MigrationCheckpoint> checkpointTable;
+
+    private volatile boolean complete;
+    private volatile long nextStatusCheck;
+
+    @Inject
+    public AuditTimeIndexMigrationService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient) {
+        this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    @PostConstruct
+    void init() {
+        checkpointTable = enhancedClient.table(MigrationCheckpoints.TABLE, MigrationCheckpoints.SCHEMA);
+        try {
+            checkpointTable.createTable();
+        } catch (Exception e) {
+            LOG.debug("MigrationCheckpoints table creation skipped (may already exist): " + e.getMessage());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || isComplete()) {
+            return;
+        }
+        Thread runner = new Thread(() -> {
+            try {
+                migrate();
+            } catch (Exception e) {
+                LOG.error("TimeIndex migration failed; restart to resume from its checkpoint", e);
+            }
+        }, "audit-time-index-migration");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    /**
+     * Whether TimeIndex exists and holds every audit log entry.
+     * Until then, {@link AuditService} reads entries without an entity or user filter with a scan.
+     */
+    public boolean isComplete() {
+        if (complete) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextStatusCheck) {
+            nextStatusCheck = now + STATUS_RECHECK_MS;
+            try {
+                MigrationCheckpoint marker = checkpointTable.getItem(r -> r.key(k -> k.partitionValue(MIGRATION_ID)));
+                complete = marker != null && Boolean.TRUE.equals(marker.getDone());
+            } catch (Exception e) {
+                LOG.warn("Could not read TimeIndex migration status: " + e.getMessage());
+            }
+        }
+        return complete;
+    }
+
+    void migrate() throws InterruptedException {
+        createIndexIfMissing();
+        awaitIndexActive();
+        if (backfill()) {
+            complete = true;
+            LOG.info("TimeIndex migration complete");
+        }
+    }
+
+    /**
+     * Add TimeIndex to a table that was created without it.
+     */
+    void createIndexIfMissing() {
+        TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(AuditService.TABLE_NAME)).table();
+        if (timeIndex(table).isPresent()) {
+            return;
+        }
+        CreateGlobalSecondaryIndexAction.Builder create = CreateGlobalSecondaryIndexAction.builder()
+            .indexName(AuditService.TIME_INDEX)
+            .keySchema(
+                KeySchemaElement.builder().attributeName("timeBucket").keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName("timestamp").keyType(KeyType.RANGE).build())
+            .projection(Projection.builder().projectionType(ProjectionType.ALL).build());
+        boolean onDemand = table.billingModeSummary() != null
+            && table.billingModeSummary().billingMode() == BillingMode.PAY_PER_REQUEST;
+        if (!onDemand) {
+            // A provisioned table needs throughput for the new index; give it the table's own
+            ProvisionedThroughputDescription throughput = table.provisionedThroughput();
+            create.provisionedThroughput(ProvisionedThroughput.builder()
+                .readCapacityUnits(throughput.readCapacityUnits())
+                .writeCapacityUnits(throughput.writeCapacityUnits())
+                .build());
+        }
+        try {
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                .tableName(AuditService.TABLE_NAME)
+                .attributeDefinitions(
+                    AttributeDefinition.builder().attributeName("timeBucket").attributeType(ScalarAttributeType.S).build(),
+                    AttributeDefinition.builder().attributeName("timestamp").attributeType(ScalarAttributeType.S).build())
+                .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder().create(create.build()).build())
+                .build());
+            LOG.info("Creating TimeIndex on the AuditLogs table");
+        } catch (ResourceInUseException e) {
+            LOG.debug("AuditLogs table is already being updated (another instance may be creating the index)");
+        }
+    }
+
+    private void awaitIndexActive() throws InterruptedException {
+        while (true) {
+            TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(AuditService.TABLE_NAME)).table();
+            Optional<GlobalSecondaryIndexDescription> index = timeIndex(table);
+            if (index.isPresent() && index.get().indexStatus() == IndexStatus.ACTIVE) {
+                return;
+            }
+            LOG.debugf("Waiting for TimeIndex to become active (%s)",
+                index.map(GlobalSecondaryIndexDescription::indexStatusAsString).orElse("not created"));
+            TimeUnit.MILLISECONDS.sleep(INDEX_POLL_MS);
+        }
+    }
+
+    private static Optional<GlobalSecondaryIndexDescription> timeIndex(TableDescription table) {
+        if (!table.hasGlobalSecondaryIndexes()) {
+            return Optional.empty();
+        }
+        return table.globalSecondaryIndexes().stream()
+            .filter(index -> AuditService.TIME_INDEX.equals(index.indexName()))
+            .findFirst();
+    }
+
+    /**
+     * Stamp timeBucket on entries written before TimeIndex, resuming from the checkpoint.
+     *
+     * @return true once every page has been processed
+     */
+    boolean backfill() {
+        MigrationCheckpoint checkpoint = checkpointTable.getItem(r -> r.key(k -> k.partitionValue(MIGRATION_ID)));
+        if (checkpoint == null) {
+            checkpoint = new MigrationCheckpoint();
+            checkpoint.setId(MIGRATION_ID);
+            checkpoint.setTotalSegments(1);
+            checkpoint.setItemsCopied(0L);
+            checkpoint.setDone(false);
+        }
+        if (Boolean.TRUE.equals(checkpoint.getDone())) {
+            return true;
+        }
+
+        Map<String, AttributeValue> startKey = PageCursor.decode(checkpoint.getLastEvaluatedKey());
+        while (!Thread.currentThread().isInterrupted()) {
+            ScanResponse page = dynamoDbClient.scan(ScanRequest.builder()
+                .tableName(AuditService.TABLE_NAME)
+                .filterExpression("attribute_not_exists(timeBucket)")
+                // "timestamp" is a DynamoDB reserved word
+                .projectionExpression("id, #ts")
+                .expressionAttributeNames(Map.of("#ts", "timestamp"))
+                .limit(SCAN_PAGE_SIZE)
+                .exclusiveStartKey(startKey)
+                .build());
+
+            long stamped = 0;
+            for (Map<String, AttributeValue> item : page.items()) {
+                if (stamp(item)) {
+                    stamped++;
+                }
+            }
+
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+            checkpoint.setLastEvaluatedKey(PageCursor.encode(startKey));
+            checkpoint.setItemsCopied(checkpoint.getItemsCopied() + stamped);
+            checkpoint.setDone(startKey == null);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointTable.putItem(checkpoint);
+
+            if (startKey == null) {
+                LOG.infof("TimeIndex backfill done (%d entries stamped)", checkpoint.getItemsCopied());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Put one entry into TimeIndex, using the same bucket the writer derives for new entries.
+     */
+    private boolean stamp(Map<String, AttributeValue> item) {
+        AttributeValue id = item.get("id");
+        AttributeValue timestamp = item.get("timestamp");
+        if (id == null || timestamp == null || timestamp.s() == null) {
+            return false;
+        }
+        AuditLog probe = new AuditLog();
+        probe.setId(id.s());
+        try {
+            probe.setTimestamp(Instant.parse(timestamp.s()));
+        } catch (DateTimeParseException e) {
+            LOG.warnf("Audit log %s has an unreadable timestamp; left out of TimeIndex", id.s());
+            return false;
+        }
+        try {
+            dynamoDbClient.updateItem(r -> r
+                .tableName(AuditService.TABLE_NAME)
+                .key(Map.of("id", id))
+                .updateExpression("SET timeBucket = :bucket")
+                .conditionExpression("attribute_exists(id) AND attribute_not_exists(timeBucket)")
+                .expressionAttributeValues(Map.of(":bucket", AttributeValue.builder().s(AuditService.timeBucket(probe)).build())));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.acme.service;
+
+import org.jboss.logmanager.ExtHandler;
+import org.jboss.logmanager.ExtLogRecord;
+import org.jboss.logmanager.formatters.PatternFormatter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log handler that forwards backend log records to a CloudWatch stream.
+ * <p>
+ * {@link #doPublish} runs on the logging thread and only claims a slot in a fixed ring of record
+ * references with a CAS; it allocates nothing and never blocks. When the ring is full the record is
+ * dropped and counted. A background thread drains the ring, formats each record and hands it to the
+ * {@link CloudWatchLogShipper}, which batches the network calls.
+ * <p>
+ * Records are formatted after they leave the logging thread, so message parameters are rendered
+ * as they are at that moment, not when the log call was made.
+ */
+public class CloudWatchLogHandler extends ExtHandler {
+
+    static final String PATTERN = "[%p] %c (%t) %s%e";
+
+    // Never ship the shipper's own logs (or the AWS SDK's): during an outage they would feed back into it
+    private static final String[] EXCLUDED_LOGGERS = {
+        "org.acme.service.CloudWatchLog", "org.acme.service.LogSpool", "software.amazon.awssdk"
+    };
+
+    private final CloudWatchLogShipper shipper;
+    private final String stream;
+    private final AtomicReferenceArray<ExtLogRecord> slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Written only by the draining thread
+    private volatile long consumed;
+    private volatile boolean running;
+    private volatile Thread drainer;
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     */
+    public CloudWatchLogHandler(CloudWatchLogShipper shipper, String stream, int capacity) {
+        this.shipper = shipper;
+        this.stream = stream;
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        setFormatter(new PatternFormatter(PATTERN));
+    }
+
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::runDrainer, "cloudwatch-log-handler");
+        thread.setDaemon(true);
+        drainer = thread;
+        thread.start();
+    }
+
+    @Override
+    protected void doPublish(ExtLogRecord record) {
+        if (Thread.currentThread() == drainer || isExcluded(record.getLoggerName())) {
+            return;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= slots.length()) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        slots.set((int) (seq & mask), record);
+        Thread thread = drainer;
+        if (thread != null && seq - consumed == slots.length() / 2) {
+            // Half full: don't wait for the next tick
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static boolean isExcluded(String loggerName) {
+        if (loggerName == null) {
+            return false;
+        }
+        for (String prefix : EXCLUDED_LOGGERS) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runDrainer() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(200));
+            try {
+                drain();
+            } catch (Exception e) {
+                reportError("Failed to ship log records to CloudWatch", e, 0);
+            }
+        }
+    }
+
+    /**
+     * Format and hand over everything published so far. Called by the draining thread only.
+     */
+    void drain() {
+        long next = consumed;
+        long end = claimed.get();
+        while (next < end) {
+            int index = (int) (next & mask);
+            ExtLogRecord record = slots.get(index);
+            if (record == null) {
+                // Slot claimed but the producer has not stored the record yet; pick it up next time
+                break;
+            }
+            slots.set(index, null);
+            consumed = ++next;
+            shipper.offer(stream, record.getMillis(), getFormatter().format(record));
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void flush() {
+        // Draining is owned by the background thread; close() does the final drain
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = drainer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+}
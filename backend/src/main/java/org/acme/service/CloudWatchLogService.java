@@ -1,25 +1,36 @@
 package org.acme.service;
 
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
+import org.jboss.logmanager.LogContext;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
 import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClientBuilder;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogGroupRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamRequest;
-import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
-import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsRequest;
 import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
+/**
+ * Ships frontend and backend log events to CloudWatch Logs.
+ * Events are handed to a {@link CloudWatchLogShipper}, which batches and sends them in the
+ * background, so callers never wait on CloudWatch.
+ */
 @ApplicationScoped
 public class CloudWatchLogService {
 
@@ -49,7 +60,40 @@ public class CloudWatchLogService {
     @ConfigProperty(name = "aws.secret-access-key", defaultValue = "test")
     String awsSecretAccessKey;
 
+    @ConfigProperty(name = "cloudwatch.flush-max-age-ms", defaultValue = "5000")
+    long flushMaxAgeMs;
+
+    @ConfigProperty(name = "cloudwatch.buffer-max-bytes", defaultValue = "8388608")
+    long bufferMaxBytes;
+
+    @ConfigProperty(name = "cloudwatch.spool.enabled", defaultValue = "true")
+    boolean spoolEnabled;
+
+    @ConfigProperty(name = "cloudwatch.spool.dir", defaultValue = "cloudwatch-spool")
+    String spoolDir;
+
+    @ConfigProperty(name = "cloudwatch.spool.segment-bytes", defaultValue = "16777216")
+    int spoolSegmentBytes;
+
+    @ConfigProperty(name = "cloudwatch.spool.max-segments", defaultValue = "8")
+    int spoolMaxSegments;
+
+    @ConfigProperty(name = "cloudwatch.spool.overflow", defaultValue = "DROP_OLDEST")
+    LogSpool.OverflowPolicy spoolOverflow;
+
+    @ConfigProperty(name = "cloudwatch.backend-handler.enabled", defaultValue = "true")
+    boolean backendHandlerEnabled;
+
+    @ConfigProperty(name = "cloudwatch.backend-handler.level", defaultValue = "INFO")
+    String backendHandlerLevel;
+
+    @ConfigProperty(name = "cloudwatch.backend-handler.buffer-size", defaultValue = "8192")
+    int backendHandlerBufferSize;
+
     private CloudWatchLogsClient client;
+    private CloudWatchLogShipper shipper;
+    private LogSpool spool;
+    private CloudWatchLogHandler backendHandler;
 
     @PostConstruct
     void init() {
@@ -68,7 +112,56 @@ public class CloudWatchLogService {
         }
 
         client = builder.build();
-        ensureLogGroupAndStreams();
+        try {
+            ensureLogGroupAndStreams();
+        } catch (SdkException e) {
+            // CloudWatch is down: start anyway and spool until it is back
+            LOG.warn("Could not create CloudWatch log group/streams: " + e.getMessage());
+        }
+        spool = openSpool();
+        shipper = new CloudWatchLogShipper(client, logGroup, flushMaxAgeMs, bufferMaxBytes, spool);
+        shipper.start();
+    }
+
+    private LogSpool openSpool() {
+        if (!spoolEnabled) {
+            return null;
+        }
+        try {
+            return new LogSpool(Path.of(spoolDir), spoolSegmentBytes, spoolMaxSegments, spoolOverflow);
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("CloudWatch log spool unavailable, undeliverable logs will be dropped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Attach the backend log handler to the root logger, so every backend log line is shipped.
+     * Observing startup also makes sure this bean (and so the shipper) is created eagerly.
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (shipper == null || !backendHandlerEnabled) {
+            return;
+        }
+        backendHandler = new CloudWatchLogHandler(shipper, backendLogStream, backendHandlerBufferSize);
+        backendHandler.setLevel(LogContext.getLogContext().getLevelForName(backendHandlerLevel.trim().toUpperCase(Locale.ROOT)));
+        backendHandler.start();
+        java.util.logging.Logger.getLogger("").addHandler(backendHandler);
+        LOG.infof("Shipping backend logs at %s and above to CloudWatch stream %s", backendHandlerLevel, backendLogStream);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (backendHandler != null) {
+            java.util.logging.Logger.getLogger("").removeHandler(backendHandler);
+            backendHandler.close();
+        }
+        if (shipper != null) {
+            // Sends whatever is still buffered; if CloudWatch is down it lands in the spool
+            shipper.close();
+        }
+        if (spool != null) {
+            spool.close();
+        }
     }
 
     private void ensureLogGroupAndStreams() {
@@ -93,49 +186,50 @@ public class CloudWatchLogService {
     }
 
     /**
-     * Send frontend log entries to CloudWatch.
+     * Queue frontend log entries for CloudWatch. Returns immediately.
      */
     public void sendFrontendLogs(List<FrontendLogEntry> entries) {
-        if (!enabled || client == null || entries == null || entries.isEmpty()) {
+        if (!enabled || shipper == null || entries == null || entries.isEmpty()) {
             return;
         }
 
-        List<InputLogEvent> events = entries.stream()
-                .map(e -> InputLogEvent.builder()
-                        .timestamp(e.timestamp() != null ? e.timestamp() : Instant.now().toEpochMilli())
-                        .message("[" + e.level() + "] " + e.message())
-                        .build())
-                .toList();
-
-        putEvents(frontendLogStream, events);
+        long now = Instant.now().toEpochMilli();
+        for (FrontendLogEntry e : entries) {
+            shipper.offer(frontendLogStream, e.timestamp() != null ? e.timestamp() : now,
+                    "[" + e.level() + "] " + e.message());
+        }
     }
 
     /**
-     * Send a single backend log message to CloudWatch.
+     * Queue a single backend log message for CloudWatch. Returns immediately.
      */
     public void sendBackendLog(String level, String message) {
-        if (!enabled || client == null) {
+        if (!enabled || shipper == null) {
             return;
         }
 
-        InputLogEvent event = InputLogEvent.builder()
-                .timestamp(Instant.now().toEpochMilli())
-                .message("[" + level + "] " + message)
-                .build();
+        shipper.offer(backendLogStream, Instant.now().toEpochMilli(), "[" + level + "] " + message);
+    }
+
+    /**
+     * Current shipper metrics, or empty when CloudWatch logging is disabled.
+     */
+    public Optional<CloudWatchLogShipper.Stats> shipperStats() {
+        return shipper != null ? Optional.of(shipper.stats()) : Optional.empty();
+    }
 
-        putEvents(backendLogStream, List.of(event));
+    /**
+     * Current spool metrics, or empty when CloudWatch logging or the spool is disabled.
+     */
+    public Optional<LogSpool.Stats> spoolStats() {
+        return shipper != null ? shipper.spoolStats() : Optional.empty();
     }
 
-    private void putEvents(String stream, List<InputLogEvent> events) {
-        try {
-            client.putLogEvents(PutLogEventsRequest.builder()
-                    .logGroupName(logGroup)
-                    .logStreamName(stream)
-                    .logEvents(events)
-                    .build());
-        } catch (Exception e) {
-            LOG.error("Failed to send logs to CloudWatch: " + e.getMessage(), e);
-        }
+    /**
+     * Backend log records dropped because the handler's ring buffer was full.
+     */
+    public long backendHandlerDroppedCount() {
+        return backendHandler != null ? backendHandler.getDroppedCount() : 0;
     }
 
     public record FrontendLogEntry(String level, String message, Long timestamp) {
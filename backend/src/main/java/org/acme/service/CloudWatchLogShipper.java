@@ -0,0 +1,391 @@
+package org.acme.service;
+
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceAlreadyExistsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Buffers log events per CloudWatch stream and ships them from a background thread.
+ * <p>
+ * A stream is flushed when its buffer reaches CloudWatch's batch limits (1 MB including the
+ * 26-byte per-event overhead, or 10,000 events) or when its oldest event is older than the
+ * configured age. Each batch is sorted by timestamp and split so it never spans more than 24 hours,
+ * as PutLogEvents requires. Throttling and transient failures are retried with full-jitter backoff.
+ * <p>
+ * Producers only touch lock-free queues and counters; all sending happens on the flusher thread
+ * (or the caller of {@link #flushAll()}), one stream at a time.
+ * <p>
+ * With a {@link LogSpool}, batches that cannot be delivered (and events arriving while a stream's buffer
+ * is full) go to disk instead of being dropped. While anything is spooled, new batches are spooled too,
+ * and each flush first replays the spool in order, so events reach CloudWatch in the order they were shipped.
+ */
+public class CloudWatchLogShipper implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(CloudWatchLogShipper.class);
+
+    static final int MAX_BATCH_EVENTS = 10_000;
+    static final int MAX_BATCH_BYTES = 1_048_576;
+    static final int EVENT_OVERHEAD_BYTES = 26;
+    // Longer messages are truncated so one event can never exceed a batch on its own
+    static final int MAX_MESSAGE_BYTES = 256 * 1024;
+    static final long MAX_BATCH_SPAN_MS = TimeUnit.HOURS.toMillis(24);
+    private static final int MAX_SEND_ATTEMPTS = 5;
+    private static final long BACKOFF_BASE_MS = 100;
+    private static final long BACKOFF_CAP_MS = 5_000;
+
+    private final CloudWatchLogsClient client;
+    private final String logGroup;
+    private final long maxAgeMillis;
+    private final long maxBufferedBytes;
+    private final LogSpool spool;
+    private final Map<String, StreamBuffer> buffers = new ConcurrentHashMap<>();
+
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    /**
+     * @param maxAgeMillis     flush a stream once its oldest buffered event has waited this long
+     * @param maxBufferedBytes per-stream cap; events arriving while a stream is over it are dropped
+     */
+    public CloudWatchLogShipper(CloudWatchLogsClient client, String logGroup, long maxAgeMillis, long maxBufferedBytes) {
+        this(client, logGroup, maxAgeMillis, maxBufferedBytes, null);
+    }
+
+    /**
+     * @param spool where undeliverable events go while CloudWatch is unavailable; null to drop them
+     */
+    public CloudWatchLogShipper(CloudWatchLogsClient client, String logGroup, long maxAgeMillis, long maxBufferedBytes,
+                                LogSpool spool) {
+        this.client = client;
+        this.logGroup = logGroup;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.spool = spool;
+    }
+
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::runFlusher, "cloudwatch-shipper");
+        thread.setDaemon(true);
+        flusher = thread;
+        thread.start();
+    }
+
+    /**
+     * Buffer one event. Never blocks on the network and never throws.
+     *
+     * @return false if the event was dropped because the stream's buffer (and the spool, if any) is full
+     */
+    public boolean offer(String stream, long timestamp, String message) {
+        String text = truncate(message != null ? message : "");
+        int size = text.getBytes(StandardCharsets.UTF_8).length + EVENT_OVERHEAD_BYTES;
+        InputLogEvent event = InputLogEvent.builder().timestamp(timestamp).message(text).build();
+        StreamBuffer buffer = buffers.computeIfAbsent(stream, s -> new StreamBuffer());
+        if (buffer.bytes.get() + size > maxBufferedBytes) {
+            // Overflow goes to disk rather than growing the heap
+            if (spool != null && spool.append(stream, List.of(event))) {
+                return true;
+            }
+            droppedEvents.incrementAndGet();
+            return false;
+        }
+        long bytes = buffer.bytes.addAndGet(size);
+        int count = buffer.count.incrementAndGet();
+        buffer.events.offer(new Pending(event, size, System.currentTimeMillis()));
+        Thread thread = flusher;
+        if (thread != null && (count == MAX_BATCH_EVENTS || (bytes >= MAX_BATCH_BYTES && bytes - size < MAX_BATCH_BYTES))) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void runFlusher() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.clamp(maxAgeMillis / 4, 50L, 1000L));
+        while (running) {
+            LockSupport.parkNanos(this, tickNanos);
+            try {
+                flushReady(false);
+            } catch (Exception e) {
+                LOG.error("CloudWatch shipper failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Send everything buffered now, regardless of size or age.
+     */
+    public void flushAll() {
+        flushReady(true);
+    }
+
+    private synchronized void flushReady(boolean force) {
+        replaySpool();
+        for (Map.Entry<String, StreamBuffer> entry : buffers.entrySet()) {
+            StreamBuffer buffer = entry.getValue();
+            while (buffer.count.get() > 0 && (force || isReady(buffer))) {
+                List<InputLogEvent> batch = drainBatch(buffer);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                ship(entry.getKey(), batch);
+            }
+        }
+    }
+
+    private boolean isReady(StreamBuffer buffer) {
+        // The queue is FIFO, so its head is the event that has waited longest
+        Pending oldest = buffer.events.peek();
+        return buffer.count.get() >= MAX_BATCH_EVENTS
+            || buffer.bytes.get() >= MAX_BATCH_BYTES
+            || (oldest != null && System.currentTimeMillis() - oldest.enqueuedAt() >= maxAgeMillis);
+    }
+
+    private List<InputLogEvent> drainBatch(StreamBuffer buffer) {
+        List<InputLogEvent> batch = new ArrayList<>();
+        long batchBytes = 0;
+        Pending next;
+        while (batch.size() < MAX_BATCH_EVENTS
+                && (next = buffer.events.peek()) != null
+                && batchBytes + next.size() <= MAX_BATCH_BYTES) {
+            buffer.events.poll();
+            buffer.count.decrementAndGet();
+            buffer.bytes.addAndGet(-next.size());
+            batchBytes += next.size();
+            batch.add(next.event());
+        }
+        return batch;
+    }
+
+    /**
+     * Replay spooled events oldest first. Stops at the first failure (a single attempt, so an outage
+     * does not stall the flusher); the events stay spooled for the next flush.
+     */
+    private void replaySpool() {
+        if (spool == null) {
+            return;
+        }
+        LogSpool.Batch batch;
+        while ((batch = spool.peek(MAX_BATCH_EVENTS, MAX_BATCH_BYTES, EVENT_OVERHEAD_BYTES)) != null) {
+            for (List<InputLogEvent> chunk : chunks(batch.events())) {
+                if (!send(batch.stream(), chunk, 1)) {
+                    return;
+                }
+            }
+            spool.commit(batch);
+        }
+    }
+
+    /**
+     * Sort a drained batch and send it, split wherever it would span more than 24 hours.
+     * Anything that cannot be delivered is spooled, or dropped without a spool.
+     */
+    void ship(String stream, List<InputLogEvent> events) {
+        if (spool != null && spool.hasPending()) {
+            // Keep order: CloudWatch gets these after the spooled backlog
+            spoolOrDrop(stream, events);
+            return;
+        }
+        List<List<InputLogEvent>> chunks = chunks(events);
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!send(stream, chunks.get(i), MAX_SEND_ATTEMPTS)) {
+                for (List<InputLogEvent> rest : chunks.subList(i, chunks.size())) {
+                    spoolOrDrop(stream, rest);
+                }
+                return;
+            }
+        }
+    }
+
+    private static List<List<InputLogEvent>> chunks(List<InputLogEvent> events) {
+        List<InputLogEvent> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(InputLogEvent::timestamp));
+        List<List<InputLogEvent>> chunks = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            if (i == sorted.size() || sorted.get(i).timestamp() - sorted.get(from).timestamp() > MAX_BATCH_SPAN_MS) {
+                chunks.add(sorted.subList(from, i));
+                from = i;
+            }
+        }
+        return chunks;
+    }
+
+    private void spoolOrDrop(String stream, List<InputLogEvent> events) {
+        if (spool == null || !spool.append(stream, events)) {
+            LOG.warnf("Dropped %d log events for CloudWatch stream %s", events.size(), stream);
+            droppedEvents.addAndGet(events.size());
+        }
+    }
+
+    /**
+     * Send one batch. A batch CloudWatch refuses outright (not throttling or an outage) is dropped here,
+     * since replaying it later would fail the same way.
+     *
+     * @return false if CloudWatch was unavailable and the batch should be kept for later
+     */
+    boolean send(String stream, List<InputLogEvent> batch, int maxAttempts) {
+        long start = System.nanoTime();
+        PutLogEventsRequest request = PutLogEventsRequest.builder()
+            .logGroupName(logGroup)
+            .logStreamName(stream)
+            .logEvents(batch)
+            .build();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                PutLogEventsResponse response = client.putLogEvents(request);
+                if (response.rejectedLogEventsInfo() != null) {
+                    LOG.warnf("CloudWatch rejected some events in %s: %s", stream, response.rejectedLogEventsInfo());
+                }
+                sentEvents.addAndGet(batch.size());
+                sentBatches.incrementAndGet();
+                recordFlush(System.nanoTime() - start);
+                return true;
+            } catch (ResourceNotFoundException e) {
+                // The stream was deleted (or never created); recreate it and try again
+                if (!createStream(stream)) {
+                    break;
+                }
+            } catch (Exception e) {
+                if (!isRetryable(e)) {
+                    LOG.errorf("CloudWatch refused %d log events for stream %s: %s", batch.size(), stream, e.getMessage());
+                    droppedEvents.addAndGet(batch.size());
+                    recordFlush(System.nanoTime() - start);
+                    return true;
+                }
+                if (attempt == maxAttempts) {
+                    // Replay probes fail once per flush during an outage; only report the first delivery failure
+                    if (maxAttempts > 1) {
+                        LOG.errorf("Failed to send %d log events to CloudWatch stream %s: %s", batch.size(), stream, e.getMessage());
+                    }
+                    break;
+                }
+                retries.incrementAndGet();
+                backoff(attempt);
+            }
+        }
+        recordFlush(System.nanoTime() - start);
+        return false;
+    }
+
+    /**
+     * @return false if the stream could not be created (say the log group is missing or the network is down),
+     *         so the batch is kept for later
+     */
+    private boolean createStream(String stream) {
+        try {
+            client.createLogStream(CreateLogStreamRequest.builder().logGroupName(logGroup).logStreamName(stream).build());
+        } catch (ResourceAlreadyExistsException e) {
+            LOG.debug("Log stream already exists: " + stream);
+        } catch (Exception e) {
+            LOG.warnf("Could not create CloudWatch log stream %s: %s", stream, e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof SdkClientException) {
+            return true; // network trouble
+        }
+        return e instanceof AwsServiceException ase && (ase.isThrottlingException() || ase.statusCode() >= 500);
+    }
+
+    private static void backoff(int attempt) {
+        // Full jitter: sleep a random time up to an exponentially growing ceiling
+        long ceiling = Math.min(BACKOFF_CAP_MS, BACKOFF_BASE_MS << attempt);
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1)));
+    }
+
+    private void recordFlush(long nanos) {
+        lastFlushNanos = nanos;
+        if (nanos > maxFlushNanos) {
+            maxFlushNanos = nanos;
+        }
+    }
+
+    private static String truncate(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_MESSAGE_BYTES) {
+            return message;
+        }
+        // Cut on a character boundary by decoding the prefix and dropping a partial last character
+        String cut = new String(bytes, 0, MAX_MESSAGE_BYTES, StandardCharsets.UTF_8);
+        return cut.charAt(cut.length() - 1) == '\uFFFD' ? cut.substring(0, cut.length() - 1) : cut;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushAll();
+    }
+
+    /**
+     * Spool metrics, or empty when running without a spool.
+     */
+    public Optional<LogSpool.Stats> spoolStats() {
+        return spool != null ? Optional.of(spool.stats()) : Optional.empty();
+    }
+
+    public Stats stats() {
+        long events = 0;
+        long bytes = 0;
+        for (StreamBuffer buffer : buffers.values()) {
+            events += buffer.count.get();
+            bytes += buffer.bytes.get();
+        }
+        return new Stats(events, bytes, sentEvents.get(), sentBatches.get(), droppedEvents.get(), retries.get(),
+            TimeUnit.NANOSECONDS.toMillis(lastFlushNanos), TimeUnit.NANOSECONDS.toMillis(maxFlushNanos));
+    }
+
+    /**
+     * Point-in-time shipper metrics. Flush times include retries.
+     */
+    public record Stats(long bufferedEvents, long bufferedBytes, long sentEvents, long sentBatches,
+                        long droppedEvents, long retries, long lastFlushMs, long maxFlushMs) {
+    }
+
+    private record Pending(InputLogEvent event, int size, long enqueuedAt) {
+    }
+
+    private static final class StreamBuffer {
+        final ConcurrentLinkedQueue<Pending> events = new ConcurrentLinkedQueue<>();
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+    }
+}
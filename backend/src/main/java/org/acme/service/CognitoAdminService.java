@@ -1,6 +1,9 @@
 package org.acme.service;
 
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import org.acme.graphql.model.CognitoUserPage;
 import org.acme.graphql.model.CognitoUserView;
 import org.acme.graphql.model.MfaSetupResponse;
@@ -10,6 +13,7 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClientBuilder;
@@ -35,6 +39,10 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.AssociateSo
 import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.AuthFlowType;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.DeviceType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListGroupsRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListGroupsResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupResponse;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersRequest;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersResponse;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
@@ -43,16 +51,25 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.VerifySoftw
 import software.amazon.awssdk.services.cognitoidentityprovider.model.VerifySoftwareTokenResponse;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -65,16 +82,42 @@ public class CognitoAdminService {
     private static final String KEYCLOAK_MOCK_SUFFIX = " (keycloak mock)";
     private static final String STATUS_ENABLED = "Enabled";
     private static final Logger LOG = Logger.getLogger(CognitoAdminService.class);
-    private static final long CACHE_TTL_MS = 30_000; // 30-second cache for user list
-
-    // Cache for user list to avoid re-fetching from Cognito on every page/sort request
-    private final Map<String, CachedUserList> userListCache = new ConcurrentHashMap<>();
-
-    private record CachedUserList(List<CognitoUserView> users, long expiresAt) {
-        boolean isExpired() {
-            return System.currentTimeMillis() > expiresAt;
-        }
-    }
+    /** Attributes ListUsers can prefix-filter on. */
+    static final List<String> PREFIX_ATTRIBUTES = List.of(
+            "username", "email", "preferred_username", "name", "given_name", "family_name", "phone_number");
+    private static final char STREAM_CURSOR_SEPARATOR = '\n';
+    // A reload requested by a reader (stale data, failed refresh) is not retried more often than this
+    private static final long MIN_REFRESH_RETRY_MS = 5_000;
+
+    // One client for the whole service: its HTTP connections are kept alive and reused across admin calls
+    private volatile CognitoIdentityProviderClient sharedClient;
+
+    /*
+     * In-memory copy of the user pool, reloaded in the background by the refresher thread every
+     * refresh-ms while admins are using it. Readers always get the current snapshot, stale or not, and
+     * never wait on Cognito (except on a cold start, before the first load has finished). Admin mutations
+     * swap in a patched copy right away (see patchDirectory). After idle-ms without a reader the refresher
+     * stops listing the pool; the snapshot is kept, so the next reader is served it at once and wakes
+     * the refresher to reload it.
+     */
+    private volatile UserDirectory directory;
+    // Serializes loads, so a cold reader and the refresher never fetch the pool at the same time
+    private final Object loadLock = new Object();
+    // Guards directory swaps and patchesDuringLoad
+    private final Object directoryLock = new Object();
+    // Patches made while a load is in flight, replayed on the loaded snapshot (null value = deleted)
+    private Map<String, CognitoUserView> patchesDuringLoad;
+    private volatile boolean running;
+    private volatile Thread refresher;
+    private volatile long lastRefreshAttemptAt;
+    private volatile long lastRefreshMillis;
+    private volatile long lastAccessAt;
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    // Shared by every directory load; created on first use
+    private CognitoRateLimiter rateLimiter;
+    private ExecutorService lookupExecutor;
 
     @ConfigProperty(name = "aws.region")
     String awsRegion;
@@ -97,6 +140,21 @@ public class CognitoAdminService {
     @ConfigProperty(name = "cognito.client-id", defaultValue = "placeholder")
     String cognitoClientId;
 
+    @ConfigProperty(name = "cognito.user-directory.refresh-ms", defaultValue = "30000")
+    long directoryRefreshMs;
+
+    @ConfigProperty(name = "cognito.user-directory.idle-ms", defaultValue = "600000")
+    long directoryIdleMs;
+
+    @ConfigProperty(name = "cognito.user-directory.mfa-lookup", defaultValue = "false")
+    boolean mfaLookup;
+
+    @ConfigProperty(name = "cognito.user-directory.lookup-threads", defaultValue = "4")
+    int lookupThreads;
+
+    @ConfigProperty(name = "cognito.admin.requests-per-second", defaultValue = "20")
+    double requestsPerSecond;
+
     private boolean isKeycloakMode() {
         return "keycloak".equalsIgnoreCase(authProvider);
     }
@@ -105,47 +163,403 @@ public class CognitoAdminService {
         int safePage = Math.max(0, page);
         int safeSize = Math.clamp(size, 1, 100);
 
-        List<CognitoUserView> all = getCachedUsers();
-        Comparator<CognitoUserView> comparator = comparatorFor(sortBy);
-        if ("desc".equalsIgnoreCase(direction)) {
-            comparator = comparator.reversed();
-        }
-        all = new ArrayList<>(all);
-        all.sort(comparator);
-
-        int fromIndex = Math.min(safePage * safeSize, all.size());
-        int toIndex = Math.min(fromIndex + safeSize, all.size());
-        boolean hasNextPage = toIndex < all.size();
+        // Each sort order is kept presorted in the snapshot, so a page is a slice of it
+        UserDirectory users = currentDirectory();
+        boolean descending = "desc".equalsIgnoreCase(direction);
+        int fromIndex = (int) Math.min((long) safePage * safeSize, users.size());
+        boolean hasNextPage = fromIndex + safeSize < users.size();
 
         CognitoUserPage result = new CognitoUserPage();
-        result.setItems(all.subList(fromIndex, toIndex));
+        result.setItems(users.page(UserDirectory.sortField(sortBy), descending, fromIndex, safeSize));
         result.setPage(safePage);
         result.setSize(safeSize);
-        result.setTotal(all.size());
+        result.setTotal(users.size());
         // Cursor encodes the next page offset for efficient pagination
         result.setCursor(hasNextPage ? String.valueOf(safePage + 1) : null);
         return result;
     }
 
     /**
-     * Get users from cache, fetching from Cognito only if cache is expired or empty.
+     * Users whose username, email, email domain or group starts with {@code query} (case-insensitive),
+     * in username order, served from the directory's prefix index.
+     *
+     * @param first page size, clamped to 1..100
+     * @param after cursor from a previous page, or null for the first page
      */
-    private List<CognitoUserView> getCachedUsers() {
-        String cacheKey = "allUsers";
-        CachedUserList cached = userListCache.get(cacheKey);
-        if (cached != null && !cached.isExpired()) {
-            return cached.users();
-        }
-        List<CognitoUserView> users = fetchAllUsers();
-        userListCache.put(cacheKey, new CachedUserList(users, System.currentTimeMillis() + CACHE_TTL_MS));
-        return users;
+    public CognitoUserPage searchUsers(String query, int first, String after) {
+        int limit = Math.clamp(first, 1, 100);
+        String afterUsername = decodeUserCursor(after);
+        UserSearchIndex.Matches matches = currentDirectory().search(query, afterUsername, limit);
+
+        CognitoUserPage result = new CognitoUserPage();
+        result.setItems(matches.items());
+        result.setPage(0);
+        result.setSize(limit);
+        result.setTotal(matches.total());
+        result.setCursor(matches.hasMore()
+                ? encodeUserCursor(matches.items().get(matches.items().size() - 1).getUsername())
+                : null);
+        return result;
+    }
+
+    /**
+     * Streaming mode: one ListUsers call per page, straight from Cognito, without the directory. The
+     * cursor wraps Cognito's pagination token (bound to the filter it was issued for), and a prefix is
+     * sent as a ListUsers {@code Filter}, so no more than one page is ever held in memory. Users come in
+     * Cognito's order. ListUsers does not return groups; with {@code includeGroups} they are looked up
+     * per user on the lookup pool, otherwise they are left null.
+     *
+     * @param first           page size, clamped to 1..60 (the ListUsers maximum)
+     * @param after           cursor from a previous page, or null for the first page
+     * @param prefixAttribute attribute the prefix applies to, one of {@link #PREFIX_ATTRIBUTES}
+     * @param prefix          optional value prefix
+     */
+    public CognitoUserPage streamUsers(int first, String after, String prefixAttribute, String prefix,
+                                       boolean includeGroups) {
+        int limit = Math.clamp(first, 1, 60);
+        String filter = listUsersFilter(prefixAttribute, prefix);
+        String token = decodeStreamCursor(after, filter);
+
+        List<CognitoUserView> items;
+        String nextToken;
+        if (isKeycloakMode()) {
+            List<CognitoUserView> matching = fetchAllUsersKeycloakMock().stream()
+                    .filter(user -> prefix == null || prefix.isEmpty()
+                            || mockAttribute(user, prefixAttribute).startsWith(prefix))
+                    .toList();
+            int from = parseMockToken(token, matching.size());
+            int to = Math.min(from + limit, matching.size());
+            items = matching.subList(from, to);
+            nextToken = to < matching.size() ? String.valueOf(to) : null;
+        } else {
+            CognitoIdentityProviderClient client = client();
+            CognitoRateLimiter limiter = rateLimiter();
+            ListUsersResponse response = limiter.call(() -> client.listUsers(ListUsersRequest.builder()
+                    .userPoolId(userPoolId)
+                    .filter(filter)
+                    .paginationToken(token)
+                    .limit(limit)
+                    .build()));
+            items = new ArrayList<>(response.users().size());
+            for (UserType user : response.users()) {
+                items.add(map(user, null));
+            }
+            if (includeGroups) {
+                lookUpEach(items, "groups",
+                        view -> view.setGroups(limiter.call(() -> groupsForUser(client, view.getUsername()))));
+            }
+            nextToken = response.paginationToken();
+        }
+
+        CognitoUserPage result = new CognitoUserPage();
+        result.setItems(items);
+        result.setPage(0);
+        result.setSize(limit);
+        // The pool is not counted in streaming mode
+        result.setTotal(items.size());
+        result.setCursor(nextToken == null || nextToken.isBlank() ? null : encodeStreamCursor(filter, nextToken));
+        return result;
+    }
+
+    /**
+     * Walk the whole user pool straight from Cognito, one ListUsers page at a time, handing each page to
+     * {@code sink} before the next one is requested. Only one page is held in memory, so an export costs
+     * the same however large the pool is. With {@code includeGroups} each page's groups are looked up on
+     * the lookup pool before the page is handed over.
+     *
+     * @return number of users handed to the sink
+     */
+    public long exportUsers(boolean includeGroups, Consumer<List<CognitoUserView>> sink) {
+        if (isKeycloakMode()) {
+            List<CognitoUserView> users = fetchAllUsersKeycloakMock();
+            sink.accept(users);
+            return users.size();
+        }
+
+        CognitoIdentityProviderClient client = client();
+        CognitoRateLimiter limiter = rateLimiter();
+        long count = 0;
+        String token = null;
+        do {
+            String pageToken = token;
+            ListUsersResponse response = limiter.call(() -> client.listUsers(ListUsersRequest.builder()
+                    .userPoolId(userPoolId)
+                    .paginationToken(pageToken)
+                    .limit(60)
+                    .build()));
+            List<CognitoUserView> page = new ArrayList<>(response.users().size());
+            for (UserType user : response.users()) {
+                page.add(map(user, null));
+            }
+            if (includeGroups) {
+                lookUpEach(page, "groups",
+                        view -> view.setGroups(limiter.call(() -> groupsForUser(client, view.getUsername()))));
+            }
+            sink.accept(page);
+            count += page.size();
+            token = response.paginationToken();
+        } while (token != null && !token.isBlank());
+        return count;
+    }
+
+    /**
+     * A ListUsers filter matching values of {@code attribute} that start with {@code prefix}, or null.
+     */
+    static String listUsersFilter(String attribute, String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        String name = attribute == null ? "username" : attribute.trim();
+        if (!PREFIX_ATTRIBUTES.contains(name)) {
+            throw new IllegalArgumentException("Prefix search is supported on " + String.join(", ", PREFIX_ATTRIBUTES));
+        }
+        return name + " ^= \"" + prefix.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String encodeStreamCursor(String filter, String paginationToken) {
+        String value = (filter == null ? "" : filter) + STREAM_CURSOR_SEPARATOR + paginationToken;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeStreamCursor(String cursor, String filter) {
+        String value = decodeUserCursor(cursor);
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf(STREAM_CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // Cognito rejects a token used with a different filter; say so plainly instead
+        if (!value.substring(0, separator).equals(filter == null ? "" : filter)) {
+            throw new IllegalArgumentException("Cursor was issued for a different prefix");
+        }
+        return value.substring(separator + 1);
+    }
+
+    private static String mockAttribute(CognitoUserView user, String attribute) {
+        String value = "email".equals(attribute) ? user.getEmail() : user.getUsername();
+        return value == null ? "" : value;
+    }
+
+    private static int parseMockToken(String token, int size) {
+        if (token == null) {
+            return 0;
+        }
+        try {
+            return Math.clamp(Integer.parseInt(token), 0, size);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String encodeUserCursor(String username) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeUserCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
     }
 
     /**
-     * Invalidate the user list cache (call after user mutations).
+     * The directory snapshot. A stale snapshot is still served; it only wakes the refresher.
+     * Only the very first request before any load has completed fetches from Cognito.
      */
-    public void invalidateUserCache() {
-        userListCache.clear();
+    private UserDirectory currentDirectory() {
+        long now = System.currentTimeMillis();
+        boolean wasIdle = now - lastAccessAt >= directoryIdleMs;
+        lastAccessAt = now;
+        if (wasIdle) {
+            // The refresher stopped while nobody was reading; resume it
+            Thread thread = refresher;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        UserDirectory current = directory;
+        if (current == null) {
+            return loadDirectoryCold();
+        }
+        if (System.currentTimeMillis() - current.loadedAt() >= directoryRefreshMs) {
+            requestRefresh();
+        }
+        return current;
+    }
+
+    private UserDirectory loadDirectoryCold() {
+        synchronized (loadLock) {
+            // Concurrent cold readers share one load
+            UserDirectory current = directory;
+            if (current == null) {
+                refreshDirectory();
+                current = directory;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Reload the user directory from Cognito and swap it in. On failure the previous snapshot stays.
+     * Patches made while the load was running are applied on top of the loaded snapshot, since the
+     * load may have read those users before they changed.
+     */
+    void refreshDirectory() {
+        synchronized (loadLock) {
+            long start = System.currentTimeMillis();
+            lastRefreshAttemptAt = start;
+            synchronized (directoryLock) {
+                patchesDuringLoad = new HashMap<>();
+            }
+            try {
+                UserDirectory loaded = UserDirectory.of(fetchAllUsers(), System.currentTimeMillis());
+                synchronized (directoryLock) {
+                    for (Map.Entry<String, CognitoUserView> patch : patchesDuringLoad.entrySet()) {
+                        loaded = patch.getValue() == null ? loaded.without(patch.getKey()) : loaded.with(patch.getValue());
+                    }
+                    directory = loaded;
+                }
+                lastRefreshMillis = System.currentTimeMillis() - start;
+                refreshCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                refreshFailures.incrementAndGet();
+                throw e;
+            } finally {
+                synchronized (directoryLock) {
+                    patchesDuringLoad = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace (or with {@code null}, remove) one user in the directory after an admin change, without
+     * reloading the pool.
+     */
+    private void patchDirectory(String username, CognitoUserView user) {
+        synchronized (directoryLock) {
+            UserDirectory current = directory;
+            if (current != null) {
+                directory = user == null ? current.without(username) : current.with(user);
+            }
+            if (patchesDuringLoad != null) {
+                patchesDuringLoad.put(username, user);
+            }
+        }
+    }
+
+    private void requestRefresh() {
+        Thread thread = refresher;
+        if (thread != null && System.currentTimeMillis() - lastRefreshAttemptAt >= MIN_REFRESH_RETRY_MS) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Start the directory refresher. It stays parked until the first reader, who loads the directory.
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (isKeycloakMode()) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::runRefresher, "cognito-user-directory");
+        thread.setDaemon(true);
+        refresher = thread;
+        thread.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        Thread thread = refresher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (lookupExecutor != null) {
+                lookupExecutor.shutdownNow();
+            }
+        }
+        CognitoIdentityProviderClient client = sharedClient;
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    private void runRefresher() {
+        while (running) {
+            if (isIdle(System.currentTimeMillis())) {
+                // Until a reader unparks us
+                LockSupport.park(this);
+                continue;
+            }
+            UserDirectory current = directory;
+            long age = current == null ? Long.MAX_VALUE : System.currentTimeMillis() - current.loadedAt();
+            if (age < directoryRefreshMs) {
+                // Loaded recently, e.g. by the first reader after startup
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(directoryRefreshMs - age));
+                continue;
+            }
+            try {
+                refreshDirectory();
+            } catch (Exception e) {
+                LOG.warn("Failed to refresh Cognito user directory, serving the previous snapshot: " + e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(directoryRefreshMs));
+            }
+        }
+    }
+
+    /**
+     * Whether nobody has read the directory for idle-ms, so the pool is not listed for no one.
+     * The snapshot itself is kept; the next reader gets it without waiting and wakes the refresher.
+     *
+     * @return true if the refresher should stop until the next reader
+     */
+    boolean isIdle(long now) {
+        return now - lastAccessAt >= directoryIdleMs;
+    }
+
+    public int getDirectorySize() {
+        UserDirectory current = directory;
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * @return age of the directory snapshot in milliseconds, or -1 if it has not been loaded yet
+     */
+    public long getDirectoryAgeMillis() {
+        UserDirectory current = directory;
+        return current == null ? -1 : System.currentTimeMillis() - current.loadedAt();
+    }
+
+    public long getDirectoryRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getDirectoryRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    public long getLastDirectoryRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * @return Cognito calls answered with TooManyRequests even after the SDK's retries
+     */
+    public synchronized long getThrottledRequests() {
+        return rateLimiter == null ? 0 : rateLimiter.getThrottledCount();
     }
 
     public CognitoUserView getUser(String username) {
@@ -163,14 +577,13 @@ public class CognitoAdminService {
              }
              return view;
         }
-        try (CognitoIdentityProviderClient client = client()) {
-            AdminGetUserResponse response = client.adminGetUser(AdminGetUserRequest.builder()
-                    .userPoolId(userPoolId)
-                    .username(username)
-                    .build());
-            List<String> groups = groupsForUser(client, username);
-            return map(response, groups);
-        }
+        CognitoIdentityProviderClient client = client();
+        AdminGetUserResponse response = client.adminGetUser(AdminGetUserRequest.builder()
+                .userPoolId(userPoolId)
+                .username(username)
+                .build());
+        List<String> groups = groupsForUser(client, username);
+        return map(response, groups);
     }
 
     public boolean deleteUser(String username) {
@@ -180,11 +593,13 @@ public class CognitoAdminService {
              // Real implementation would call Keycloak Admin API.
              return true;
         }
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             client.adminDeleteUser(AdminDeleteUserRequest.builder()
                     .userPoolId(userPoolId)
                     .username(username)
                     .build());
+            patchDirectory(username, null);
             return true;
         } catch (Exception e) {
             LOG.error("Failed to delete user: " + username, e);
@@ -218,7 +633,8 @@ public class CognitoAdminService {
             return;
         }
 
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             // Step 1: Verify current password via AdminInitiateAuth
             verifyCurrentPassword(client, username, currentPassword);
 
@@ -265,7 +681,8 @@ public class CognitoAdminService {
             return List.of();
         }
 
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             AdminListDevicesResponse response = client.adminListDevices(AdminListDevicesRequest.builder()
                     .userPoolId(userPoolId)
                     .username(username)
@@ -290,7 +707,8 @@ public class CognitoAdminService {
             return;
         }
 
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             client.adminForgetDevice(AdminForgetDeviceRequest.builder()
                     .userPoolId(userPoolId)
                     .username(username)
@@ -312,7 +730,8 @@ public class CognitoAdminService {
             return;
         }
 
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             client.adminSetUserMFAPreference(AdminSetUserMfaPreferenceRequest.builder()
                     .userPoolId(userPoolId)
                     .username(username)
@@ -344,7 +763,8 @@ public class CognitoAdminService {
             return response;
         }
 
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             // Use admin auth to get a session, then associate software token
             AdminInitiateAuthResponse authResponse = client.adminInitiateAuth(AdminInitiateAuthRequest.builder()
                     .userPoolId(userPoolId)
@@ -380,7 +800,8 @@ public class CognitoAdminService {
             return true;
         }
 
-        try (CognitoIdentityProviderClient client = client()) {
+        try {
+            CognitoIdentityProviderClient client = client();
             // Get a session via admin auth
             AdminInitiateAuthResponse authResponse = client.adminInitiateAuth(AdminInitiateAuthRequest.builder()
                     .userPoolId(userPoolId)
@@ -438,18 +859,19 @@ public class CognitoAdminService {
         if (isKeycloakMode()) {
             return getUser(username);
         }
-        try (CognitoIdentityProviderClient client = client()) {
-            updateEmailIfPresent(client, username, input);
-            updateEnabledStatus(client, username, input.getEnabled());
-            syncGroups(client, username, input.getGroups());
+        CognitoIdentityProviderClient client = client();
+        updateEmailIfPresent(client, username, input);
+        updateEnabledStatus(client, username, input.getEnabled());
+        syncGroups(client, username, input.getGroups());
 
-            AdminGetUserResponse updated = client.adminGetUser(AdminGetUserRequest.builder()
-                    .userPoolId(userPoolId)
-                    .username(username)
-                    .build());
-            List<String> groups = groupsForUser(client, username);
-            return map(updated, groups);
-        }
+        AdminGetUserResponse updated = client.adminGetUser(AdminGetUserRequest.builder()
+                .userPoolId(userPoolId)
+                .username(username)
+                .build());
+        List<String> groups = groupsForUser(client, username);
+        CognitoUserView view = map(updated, groups);
+        patchDirectory(username, view);
+        return view;
     }
 
     private void validateInput(UpdateUserInput input) {
@@ -520,36 +942,166 @@ public class CognitoAdminService {
         }
     }
 
+    /**
+     * Load the whole pool: user attributes come from the ListUsers pages and group membership from
+     * ListUsersInGroup for each group, so the call count grows with pages and groups, not users. The one
+     * per-user call left, AdminGetUser for the MFA setting (ListUsers does not return it), is off by default;
+     * when enabled it runs on the bounded lookup pool, and only for users that are new or modified since the
+     * previous snapshot. Every call goes through the shared rate limiter.
+     */
     private List<CognitoUserView> fetchAllUsers() {
         if (isKeycloakMode()) {
             return fetchAllUsersKeycloakMock();
         }
+        CognitoIdentityProviderClient client = client();
+        CognitoRateLimiter limiter = rateLimiter();
+        Map<String, List<String>> groupsByUser = groupMemberships(client, limiter);
+
         List<CognitoUserView> users = new ArrayList<>();
-        try (CognitoIdentityProviderClient client = client()) {
-            String paginationToken = null;
-            do {
-                ListUsersResponse response = client.listUsers(ListUsersRequest.builder()
-                        .userPoolId(userPoolId)
-                        .paginationToken(paginationToken)
-                        .limit(60)
-                        .build());
+        String paginationToken = null;
+        do {
+            String token = paginationToken;
+            ListUsersResponse response = limiter.call(() -> client.listUsers(ListUsersRequest.builder()
+                    .userPoolId(userPoolId)
+                    .paginationToken(token)
+                    .limit(60)
+                    .build()));
 
-                for (UserType user : response.users()) {
-                    String username = user.username();
-                    AdminGetUserResponse detail = client.adminGetUser(AdminGetUserRequest.builder()
-                            .userPoolId(userPoolId)
-                            .username(username)
-                            .build());
-                    List<String> groups = groupsForUser(client, username);
-                    users.add(map(detail, groups));
-                }
+            for (UserType user : response.users()) {
+                users.add(map(user, groupsByUser.getOrDefault(user.username(), List.of())));
+            }
 
-                paginationToken = response.paginationToken();
-            } while (paginationToken != null && !paginationToken.isBlank());
+            paginationToken = response.paginationToken();
+        } while (paginationToken != null && !paginationToken.isBlank());
+
+        if (mfaLookup) {
+            lookUpMfaSettings(client, limiter, carryOverMfaSettings(directory, users));
         }
         return users;
     }
 
+    /**
+     * Group names per username, each list sorted, from one ListGroups scan plus ListUsersInGroup per group.
+     */
+    private Map<String, List<String>> groupMemberships(CognitoIdentityProviderClient client, CognitoRateLimiter limiter) {
+        List<String> groupNames = new ArrayList<>();
+        String nextToken = null;
+        do {
+            String token = nextToken;
+            ListGroupsResponse response = limiter.call(() -> client.listGroups(ListGroupsRequest.builder()
+                    .userPoolId(userPoolId)
+                    .nextToken(token)
+                    .limit(60)
+                    .build()));
+            response.groups().forEach(group -> groupNames.add(group.groupName()));
+            nextToken = response.nextToken();
+        } while (nextToken != null && !nextToken.isBlank());
+
+        Map<String, List<String>> groupsByUser = new HashMap<>();
+        for (String groupName : groupNames) {
+            nextToken = null;
+            do {
+                String token = nextToken;
+                ListUsersInGroupResponse response = limiter.call(() -> client.listUsersInGroup(
+                        ListUsersInGroupRequest.builder()
+                                .userPoolId(userPoolId)
+                                .groupName(groupName)
+                                .nextToken(token)
+                                .limit(60)
+                                .build()));
+                for (UserType member : response.users()) {
+                    groupsByUser.computeIfAbsent(member.username(), k -> new ArrayList<>()).add(groupName);
+                }
+                nextToken = response.nextToken();
+            } while (nextToken != null && !nextToken.isBlank());
+        }
+        groupsByUser.values().forEach(groups -> groups.sort(String::compareToIgnoreCase));
+        return groupsByUser;
+    }
+
+    /**
+     * Give users whose UserLastModifiedDate matches the previous snapshot the MFA setting looked up then.
+     *
+     * @return the users that still need a lookup: new, modified, or all of them on the first load
+     */
+    private static List<CognitoUserView> carryOverMfaSettings(UserDirectory previous, List<CognitoUserView> users) {
+        if (previous == null) {
+            return users;
+        }
+        List<CognitoUserView> changed = new ArrayList<>();
+        for (CognitoUserView user : users) {
+            CognitoUserView known = previous.get(user.getUsername());
+            if (known != null && user.getModified() != null && user.getModified().equals(known.getModified())) {
+                user.setMfaSetting(known.getMfaSetting());
+            } else {
+                changed.add(user);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Fill in each user's MFA setting with AdminGetUser, a few users at a time. A user whose lookup fails
+     * keeps the setting derived from ListUsers, which is null (unknown) unless legacy SMS MFA is set.
+     */
+    private void lookUpMfaSettings(CognitoIdentityProviderClient client, CognitoRateLimiter limiter,
+                                   List<CognitoUserView> users) {
+        lookUpEach(users, "MFA setting", view -> {
+            AdminGetUserResponse detail = limiter.call(() -> client.adminGetUser(AdminGetUserRequest.builder()
+                    .userPoolId(userPoolId)
+                    .username(view.getUsername())
+                    .build()));
+            view.setMfaSetting(toMfaSetting(detail.userMFASettingList()));
+        });
+    }
+
+    /**
+     * Run one per-user Cognito lookup for each user on the bounded lookup pool and wait for all of them.
+     * Failed lookups are logged and skipped; the user keeps what it had.
+     */
+    private void lookUpEach(List<CognitoUserView> users, String what, Consumer<CognitoUserView> lookup) {
+        ExecutorService executor = lookupExecutor();
+        List<Future<?>> lookups = new ArrayList<>(users.size());
+        for (CognitoUserView view : users) {
+            lookups.add(executor.submit(() -> lookup.accept(view)));
+        }
+
+        int failed = 0;
+        for (Future<?> pending : lookups) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                lookups.forEach(task -> task.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new CognitoOperationException("Interrupted while looking up " + what, e);
+            } catch (ExecutionException e) {
+                failed++;
+                LOG.debug("Lookup of " + what + " failed: " + e.getCause().getMessage());
+            }
+        }
+        if (failed > 0) {
+            LOG.warnf("Could not look up the %s of %d of %d users", what, failed, users.size());
+        }
+    }
+
+    private synchronized CognitoRateLimiter rateLimiter() {
+        if (rateLimiter == null) {
+            rateLimiter = new CognitoRateLimiter(requestsPerSecond);
+        }
+        return rateLimiter;
+    }
+
+    private synchronized ExecutorService lookupExecutor() {
+        if (lookupExecutor == null) {
+            lookupExecutor = Executors.newFixedThreadPool(Math.max(1, lookupThreads), task -> {
+                Thread thread = new Thread(task, "cognito-lookup");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return lookupExecutor;
+    }
+
     private List<CognitoUserView> fetchAllUsersKeycloakMock() {
         CognitoUserView admin = new CognitoUserView();
         admin.setUsername("admin");
@@ -568,22 +1120,6 @@ public class CognitoAdminService {
         return new ArrayList<>(List.of(admin, user));
     }
 
-    private Comparator<CognitoUserView> comparatorFor(String sortBy) {
-        String field = sortBy == null ? "username" : sortBy.trim().toLowerCase(Locale.ROOT);
-        return switch (field) {
-            case ATTR_EMAIL -> Comparator.comparing(user -> safe(user.getEmail()));
-            case "status" -> Comparator.comparing(user -> safe(user.getStatus()));
-            case "confirmationstatus" -> Comparator.comparing(user -> safe(user.getConfirmationStatus()));
-            case "emailverified" -> Comparator.comparing(user -> user.isEmailVerified());
-            case "created" -> Comparator.comparing(user -> safeInstant(user.getCreated()));
-            case "lastupdatedtime" -> Comparator.comparing(user -> safeInstant(user.getLastUpdatedTime()));
-            case "modified" -> Comparator.comparing(user -> safeInstant(user.getModified()));
-            case "mfasetting" -> Comparator.comparing(user -> safe(user.getMfaSetting()));
-            case "enabled" -> Comparator.comparing(user -> user.isEnabled());
-            default -> Comparator.comparing(user -> safe(user.getUsername()));
-        };
-    }
-
     private List<String> groupsForUser(CognitoIdentityProviderClient client, String username) {
         AdminListGroupsForUserResponse groupsResponse = client.adminListGroupsForUser(
                 AdminListGroupsForUserRequest.builder()
@@ -598,17 +1134,33 @@ public class CognitoAdminService {
     }
 
     private CognitoUserView map(AdminGetUserResponse user, List<String> groups) {
+        CognitoUserView view = map(user.username(), user.userAttributes(), user.userStatusAsString(), user.enabled(),
+                user.userCreateDate(), user.userLastModifiedDate(), groups);
+        view.setMfaSetting(toMfaSetting(user.userMFASettingList()));
+        return view;
+    }
+
+    private CognitoUserView map(UserType user, List<String> groups) {
+        CognitoUserView view = map(user.username(), user.attributes(), user.userStatusAsString(), user.enabled(),
+                user.userCreateDate(), user.userLastModifiedDate(), groups);
+        // ListUsers only carries the legacy SMS MFA options; without them the setting is unknown (null)
+        // until the lookup pool fills it in, since the user may still have TOTP
+        view.setMfaSetting(user.mfaOptions().isEmpty() ? null : "SMS_MFA");
+        return view;
+    }
+
+    private CognitoUserView map(String username, List<AttributeType> attributes, String userStatus, Boolean enabled,
+                                Instant created, Instant lastModified, List<String> groups) {
         CognitoUserView view = new CognitoUserView();
-        view.setUsername(user.username());
-        view.setEmail(attributeValue(user.userAttributes(), ATTR_EMAIL));
-        view.setEmailVerified(parseBoolean(attributeValue(user.userAttributes(), "email_verified")));
-        view.setConfirmationStatus(user.userStatusAsString());
-        view.setEnabled(Boolean.TRUE.equals(user.enabled()));
+        view.setUsername(username);
+        view.setEmail(attributeValue(attributes, ATTR_EMAIL));
+        view.setEmailVerified(parseBoolean(attributeValue(attributes, "email_verified")));
+        view.setConfirmationStatus(userStatus);
+        view.setEnabled(Boolean.TRUE.equals(enabled));
         view.setStatus(view.isEnabled() ? STATUS_ENABLED : "Disabled");
-        view.setCreated(user.userCreateDate());
-        view.setLastUpdatedTime(user.userLastModifiedDate());
-        view.setModified(user.userLastModifiedDate());
-        view.setMfaSetting(toMfaSetting(user.userMFASettingList()));
+        view.setCreated(created);
+        view.setLastUpdatedTime(lastModified);
+        view.setModified(lastModified);
         view.setGroups(groups);
         return view;
     }
@@ -622,10 +1174,6 @@ public class CognitoAdminService {
         return "";
     }
 
-    private String safe(String value) {
-        return value == null ? "" : value.toLowerCase(Locale.ROOT);
-    }
-
     private boolean parseBoolean(String value) {
         return "true".equalsIgnoreCase(value);
     }
@@ -637,13 +1185,29 @@ public class CognitoAdminService {
         return values.stream().sorted(String::compareToIgnoreCase).collect(Collectors.joining(", "));
     }
 
-    private Instant safeInstant(Instant value) {
-        return value == null ? Instant.EPOCH : value;
+    /**
+     * The shared Cognito client, built on first use. SDK clients are thread-safe; it is closed on shutdown.
+     */
+    CognitoIdentityProviderClient client() {
+        CognitoIdentityProviderClient client = sharedClient;
+        if (client == null) {
+            synchronized (this) {
+                client = sharedClient;
+                if (client == null) {
+                    client = buildClient();
+                    sharedClient = client;
+                }
+            }
+        }
+        return client;
     }
 
-    CognitoIdentityProviderClient client() {
+    private CognitoIdentityProviderClient buildClient() {
         CognitoIdentityProviderClientBuilder builder = CognitoIdentityProviderClient.builder()
-            .region(Region.of(awsRegion));
+            .region(Region.of(awsRegion))
+            .httpClientBuilder(UrlConnectionHttpClient.builder()
+                .connectionTimeout(Duration.ofSeconds(5))
+                .socketTimeout(Duration.ofSeconds(30)));
 
         if (awsEndpointOverride.isPresent() && !awsEndpointOverride.get().isBlank()) {
             builder.endpointOverride(URI.create(awsEndpointOverride.get().trim()));
@@ -0,0 +1,77 @@
+package org.acme.service;
+
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Spaces out Cognito admin API calls shared by several threads.
+ * <p>
+ * Callers take evenly spaced slots from one {@link AtomicLong} holding the next free slot, and wait for
+ * theirs. When Cognito still answers {@link TooManyRequestsException} (after the SDK's own retries), the
+ * next free slot is pushed back for every caller, not just the one that was throttled, and the call is
+ * retried with full-jitter backoff.
+ */
+final class CognitoRateLimiter {
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BACKOFF_BASE_MS = 250;
+    private static final long BACKOFF_CAP_MS = 5_000;
+
+    private final long intervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+    private final AtomicLong throttled = new AtomicLong();
+
+    /**
+     * @param requestsPerSecond sustained call rate; 0 or less means unlimited (throttling still backs off)
+     */
+    CognitoRateLimiter(double requestsPerSecond) {
+        this.intervalNanos = requestsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond) : 0;
+    }
+
+    <T> T call(Supplier<T> request) {
+        for (int attempt = 1; ; attempt++) {
+            acquire();
+            try {
+                return request.get();
+            } catch (TooManyRequestsException e) {
+                throttled.incrementAndGet();
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                long ceiling = Math.min(BACKOFF_CAP_MS, BACKOFF_BASE_MS << attempt);
+                long delay = TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+                nextSlot.accumulateAndGet(System.nanoTime() + delay, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Wait for the next free slot.
+     */
+    void acquire() {
+        long slot;
+        while (true) {
+            long next = nextSlot.get();
+            slot = Math.max(next, System.nanoTime());
+            if (nextSlot.compareAndSet(next, slot + intervalNanos)) {
+                break;
+            }
+        }
+        long remaining;
+        while ((remaining = slot - System.nanoTime()) > 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CognitoOperationException("Interrupted while waiting for a Cognito request slot", null);
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    long getThrottledCount() {
+        return throttled.get();
+    }
+}
@@ -255,12 +255,8 @@ public class CommentService {
         // Remove the actor (don't notify yourself)
         participants.remove(actorUserId);
 
-        // Create notifications for all participants
-        for (String recipientUserId : participants) {
-            notificationService.createNotification(
-                recipientUserId, type, entityType, entityId,
-                actorUserId, preview, targetId
-            );
-        }
+        // Batched and written off the request thread, so the comment does not wait on the thread's size
+        notificationService.createNotifications(participants, type, entityType, entityId,
+            actorUserId, preview, targetId);
     }
 }
@@ -0,0 +1,234 @@
+package org.acme.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.service.CloudWatchLogService.FrontendLogEntry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Collapses repeated frontend log messages before they reach {@link CloudWatchLogService}.
+ * <p>
+ * Each entry is reduced to a fingerprint: its level plus its message with URLs, UUIDs, long hex ids and
+ * numbers replaced by placeholders. Within a window, entries with the same fingerprint are counted, and
+ * when the window closes one event is sent per fingerprint: the first message seen, with the count and
+ * first/last timestamps appended when it repeated. The table holds at most {@code maxFingerprints}
+ * entries per window; once it is full, entries with new fingerprints are forwarded unaggregated.
+ */
+@ApplicationScoped
+public class FrontendLogAggregator {
+
+    private static final Logger LOG = Logger.getLogger(FrontendLogAggregator.class);
+
+    private static final Pattern URL = Pattern.compile("\\b(?:https?|wss?)://\\S+");
+    private static final Pattern UUID = Pattern.compile(
+        "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern HEX_ID = Pattern.compile("\\b(?=[0-9a-fA-F]*\\d)[0-9a-fA-F]{8,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+    // Only this much of a message takes part in the fingerprint; it also caps key size
+    static final int FINGERPRINT_CHARS = 512;
+    // The example message kept per fingerprint is capped too, so the table's size is bounded
+    static final int MAX_EXAMPLE_CHARS = 4096;
+
+    @ConfigProperty(name = "app.logs.aggregation.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.logs.aggregation.window-ms", defaultValue = "10000")
+    long windowMs;
+
+    @ConfigProperty(name = "app.logs.aggregation.max-fingerprints", defaultValue = "1000")
+    int maxFingerprints;
+
+    private final CloudWatchLogService logService;
+    // Writers share the read lock; the flusher takes the write lock only to swap in a fresh window
+    private final ReentrantReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private volatile Map<String, Aggregate> window = new ConcurrentHashMap<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong passedThrough = new AtomicLong();
+    private volatile boolean running;
+    private volatile Thread flusher;
+
+    @Inject
+    public FrontendLogAggregator(CloudWatchLogService logService) {
+        this.logService = logService;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::runFlusher, "frontend-log-aggregator");
+        thread.setDaemon(true);
+        flusher = thread;
+        thread.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void runFlusher() {
+        while (running) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(windowMs));
+            try {
+                flush();
+            } catch (Exception e) {
+                LOG.error("Failed to flush aggregated frontend logs: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Count entries into the current window. Entries that do not fit are sent straight on.
+     */
+    public void accept(List<FrontendLogEntry> entries) {
+        if (!enabled) {
+            logService.sendFrontendLogs(entries);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<FrontendLogEntry> overflow = null;
+        windowLock.readLock().lock();
+        try {
+            for (FrontendLogEntry entry : entries) {
+                received.incrementAndGet();
+                long timestamp = entry.timestamp() != null ? entry.timestamp() : now;
+                String key = fingerprint(entry.level(), entry.message());
+                Aggregate aggregate = window.get(key);
+                if (aggregate == null && window.size() >= maxFingerprints) {
+                    if (overflow == null) {
+                        overflow = new ArrayList<>();
+                    }
+                    overflow.add(entry);
+                    continue;
+                }
+                if (aggregate == null) {
+                    aggregate = window.computeIfAbsent(key, k -> new Aggregate(entry.level(), entry.message(), timestamp));
+                }
+                aggregate.record(timestamp);
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        if (overflow != null) {
+            passedThrough.addAndGet(overflow.size());
+            logService.sendFrontendLogs(overflow);
+        }
+    }
+
+    /**
+     * Close the current window and send one event per fingerprint.
+     */
+    void flush() {
+        Map<String, Aggregate> closed;
+        windowLock.writeLock().lock();
+        try {
+            if (window.isEmpty()) {
+                return;
+            }
+            closed = window;
+            window = new ConcurrentHashMap<>();
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+
+        List<FrontendLogEntry> summaries = new ArrayList<>(closed.size());
+        for (Aggregate aggregate : closed.values()) {
+            summaries.add(aggregate.toEntry());
+        }
+        emitted.addAndGet(summaries.size());
+        logService.sendFrontendLogs(summaries);
+    }
+
+    /**
+     * Level plus the message with variable parts replaced, e.g.
+     * {@code GET https://x/api/lists/42 failed} becomes {@code ERROR|GET <url> failed}.
+     */
+    static String fingerprint(String level, String message) {
+        String text = message == null ? "" : message;
+        if (text.length() > FINGERPRINT_CHARS) {
+            text = text.substring(0, FINGERPRINT_CHARS);
+        }
+        text = URL.matcher(text).replaceAll("<url>");
+        text = UUID.matcher(text).replaceAll("<uuid>");
+        text = HEX_ID.matcher(text).replaceAll("<hex>");
+        text = NUMBER.matcher(text).replaceAll("<n>");
+        return (level == null ? "" : level.toUpperCase(Locale.ROOT)) + "|" + text;
+    }
+
+    public int getWindowFingerprints() {
+        return window.size();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public long getEmittedCount() {
+        return emitted.get();
+    }
+
+    public long getPassedThroughCount() {
+        return passedThrough.get();
+    }
+
+    private static final class Aggregate {
+        final String level;
+        final String example;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong firstSeen;
+        final AtomicLong lastSeen;
+
+        Aggregate(String level, String example, long timestamp) {
+            this.level = level;
+            this.example = example != null && example.length() > MAX_EXAMPLE_CHARS
+                ? example.substring(0, MAX_EXAMPLE_CHARS) : example;
+            this.firstSeen = new AtomicLong(timestamp);
+            this.lastSeen = new AtomicLong(timestamp);
+        }
+
+        void record(long timestamp) {
+            count.incrementAndGet();
+            firstSeen.accumulateAndGet(timestamp, Math::min);
+            lastSeen.accumulateAndGet(timestamp, Math::max);
+        }
+
+        FrontendLogEntry toEntry() {
+            long n = count.get();
+            if (n == 1) {
+                return new FrontendLogEntry(level, example, firstSeen.get());
+            }
+            String summary = example + " [repeated " + n + " times, first " + Instant.ofEpochMilli(firstSeen.get())
+                + ", last " + Instant.ofEpochMilli(lastSeen.get()) + "]";
+            return new FrontendLogEntry(level, summary, firstSeen.get());
+        }
+    }
+}
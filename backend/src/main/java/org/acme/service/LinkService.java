@@ -2,6 +2,7 @@ package org.acme.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.acme.graphql.model.PublishedListsPage;
 import org.acme.model.Link;
 import org.acme.model.LinkList;
 import org.jboss.logging.Logger;
@@ -10,31 +11,47 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import jakarta.annotation.PostConstruct;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
 import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
 import java.time.Instant;
 
 @ApplicationScoped
 public class LinkService {
 
     private static final Logger LOG = Logger.getLogger(LinkService.class);
+    static final String PUBLISHED_INDEX = "PublishedIndex";
+    // Constant partition value for the sparse PublishedIndex; unpublished lists omit the attribute
+    static final String PUBLISHED_PARTITION = "PUBLISHED";
+    // PublishedIndex order (most recently updated first), with ties broken by id so scan cursors are stable
+    private static final Comparator<LinkList> PUBLISHED_ORDER = Comparator
+        .comparing(LinkService::publishedSortKey, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(LinkList::getId, Comparator.reverseOrder());
     private final DynamoDbEnhancedClient enhancedClient;
+    private final PublishedIndexMigrationService publishedIndexMigration;
     private DynamoDbTable<Link> linkTable;
     private DynamoDbTable<LinkList> listTable;
     private DynamoDbIndex<LinkList> ownerIndex;
+    private DynamoDbIndex<LinkList> publishedIndex;
 
     @Inject
-    public LinkService(DynamoDbEnhancedClient enhancedClient) {
+    public LinkService(DynamoDbEnhancedClient enhancedClient, PublishedIndexMigrationService publishedIndexMigration) {
         this.enhancedClient = enhancedClient;
+        this.publishedIndexMigration = publishedIndexMigration;
     }
 
     private static final TableSchema<LinkList> LIST_SCHEMA = TableSchema.builder(LinkList.class)
@@ -53,6 +70,11 @@ public class LinkService {
         .addAttribute(Boolean.class, a -> a.name("published")
             .getter(LinkList::getPublished)
             .setter(LinkList::setPublished))
+        // Derived from "published": only present on published lists, which keeps PublishedIndex sparse
+        .addAttribute(String.class, a -> a.name("publishedPartition")
+            .getter(l -> Boolean.TRUE.equals(l.getPublished()) ? PUBLISHED_PARTITION : null)
+            .setter((l, v) -> { })
+            .tags(secondaryPartitionKey(PUBLISHED_INDEX)))
         .addAttribute(EnhancedType.listOf(String.class), a -> a.name("linkIds")
             .getter(LinkList::getLinkIds)
             .setter(LinkList::setLinkIds))
@@ -61,7 +83,8 @@ public class LinkService {
             .setter(LinkList::setCreatedAt))
         .addAttribute(Instant.class, a -> a.name("updatedAt")
             .getter(LinkList::getUpdatedAt)
-            .setter(LinkList::setUpdatedAt))
+            .setter(LinkList::setUpdatedAt)
+            .tags(secondarySortKey(PUBLISHED_INDEX)))
         .build();
 
     private static final TableSchema<Link> LINK_SCHEMA = TableSchema.builder(Link.class)
@@ -92,6 +115,7 @@ public class LinkService {
         linkTable = enhancedClient.table("Links", LINK_SCHEMA);
         listTable = enhancedClient.table("Lists", LIST_SCHEMA);
         ownerIndex = listTable.index("OwnerIndex");
+        publishedIndex = listTable.index(PUBLISHED_INDEX);
 
         // Create tables if not exist (mostly for local development)
         try {
@@ -111,12 +135,102 @@ public class LinkService {
             .toList();
     }
     
+    /**
+     * Get all published lists, most recently updated first.
+     * Prefer {@link #getPublishedListsPage(int, String)} on hot paths; this reads the whole index.
+     */
     public List<LinkList> getPublishedLists() {
-        // No GSI for published flag — scan is acceptable since published lists are a small subset
-        // and this is called infrequently (homepage). A GSI with sparse index could optimize later.
+        if (!publishedIndexMigration.isComplete()) {
+            return scanPublishedLists();
+        }
+        // Query the sparse PublishedIndex GSI: only published lists carry its partition key
+        return publishedIndex.query(QueryEnhancedRequest.builder()
+                .queryConditional(publishedPartition())
+                .scanIndexForward(false)
+                .build())
+            .stream()
+            .flatMap(page -> page.items().stream())
+            .toList();
+    }
+
+    /**
+     * Get one page of published lists, most recently updated first.
+     * Each call is a single bounded query against PublishedIndex, regardless of table size.
+     *
+     * @param limit  Maximum number of lists to return
+     * @param cursor Opaque cursor from a previous page, or null for the first page
+     * @return The page, with a cursor for the next page (null if there are no more lists)
+     */
+    public PublishedListsPage getPublishedListsPage(int limit, String cursor) {
+        if (!publishedIndexMigration.isComplete()) {
+            return scanPublishedListsPage(limit, cursor);
+        }
+        Page<LinkList> page = publishedIndex.query(QueryEnhancedRequest.builder()
+                .queryConditional(publishedPartition())
+                .scanIndexForward(false)
+                .limit(limit)
+                .exclusiveStartKey(PageCursor.decode(cursor))
+                .build())
+            .iterator()
+            .next();
+
+        List<LinkList> items = page.items();
+        return new PublishedListsPage(items, limit, PageCursor.encode(page.lastEvaluatedKey()));
+    }
+
+    /**
+     * Pre-migration read path: lists published before PublishedIndex existed are not in the index yet.
+     */
+    private List<LinkList> scanPublishedLists() {
         return listTable.scan().items().stream()
-                .filter(l -> Boolean.TRUE.equals(l.getPublished()))
-                .toList();
+            .filter(l -> Boolean.TRUE.equals(l.getPublished()))
+            .sorted(PUBLISHED_ORDER)
+            .toList();
+    }
+
+    /**
+     * Pre-migration page, with a cursor shaped like a PublishedIndex key so it stays valid after the switch.
+     */
+    private PublishedListsPage scanPublishedListsPage(int limit, String cursor) {
+        List<LinkList> all = scanPublishedLists();
+        int from = 0;
+        Map<String, AttributeValue> startKey = PageCursor.decode(cursor);
+        if (startKey != null) {
+            LinkList last = new LinkList();
+            try {
+                last.setId(Objects.requireNonNull(startKey.get("id").s()));
+                last.setUpdatedAt(Instant.parse(startKey.get("updatedAt").s()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            while (from < all.size() && PUBLISHED_ORDER.compare(all.get(from), last) <= 0) {
+                from++;
+            }
+        }
+        int to = Math.min(from + limit, all.size());
+        List<LinkList> items = all.subList(from, to);
+        String next = null;
+        if (to < all.size() && !items.isEmpty()) {
+            LinkList tail = items.get(items.size() - 1);
+            next = PageCursor.encode(Map.of(
+                "id", AttributeValue.builder().s(tail.getId()).build(),
+                "publishedPartition", AttributeValue.builder().s(PUBLISHED_PARTITION).build(),
+                "updatedAt", AttributeValue.builder().s(publishedSortKey(tail).toString()).build()));
+        }
+        return new PublishedListsPage(items, limit, next);
+    }
+
+    // Lists saved before updatedAt existed sort by createdAt, which the migration copies into updatedAt;
+    // a list with neither gets the epoch there, so it sorts last either way
+    private static Instant publishedSortKey(LinkList list) {
+        if (list.getUpdatedAt() != null) {
+            return list.getUpdatedAt();
+        }
+        return list.getCreatedAt() != null ? list.getCreatedAt() : PublishedIndexMigrationService.MISSING_SORT_KEY;
+    }
+
+    private static QueryConditional publishedPartition() {
+        return QueryConditional.keyEqualTo(Key.builder().partitionValue(PUBLISHED_PARTITION).build());
     }
 
     public LinkList getList(String id) {
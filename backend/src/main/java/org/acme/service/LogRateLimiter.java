@@ -0,0 +1,197 @@
+package org.acme.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.service.CloudWatchLogService.FrontendLogEntry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets and per-level sampling for the public log ingestion endpoint.
+ * <p>
+ * Each client gets a bucket of {@code capacity} entries refilled at {@code refillPerSecond}. A bucket is a
+ * single {@link AtomicLong} holding its "theoretical arrival time" (GCRA), so acquiring is one CAS and
+ * needs no lock; the buckets live in a {@link ConcurrentHashMap}, whose striped bins keep clients from
+ * contending with each other. A bucket whose arrival time has passed is full again and carries no state,
+ * so idle clients are evicted (once a minute, or when the map is full) without changing anyone's limit.
+ * If more than {@code maxClients} are active at once, new clients share one overflow bucket instead of
+ * growing the map. A full map is swept at most once a second, and not before its earliest bucket can have
+ * refilled, so a stream of new clients does not turn every request into a scan of the map.
+ */
+@ApplicationScoped
+public class LogRateLimiter {
+
+    private static final Logger LOG = Logger.getLogger(LogRateLimiter.class);
+    private static final String OVERFLOW_KEY = "";
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long FULL_SWEEP_GAP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long NO_SWEEP_YET = Long.MIN_VALUE;
+
+    @ConfigProperty(name = "app.logs.rate-limit.capacity", defaultValue = "300")
+    int capacity;
+
+    @ConfigProperty(name = "app.logs.rate-limit.refill-per-second", defaultValue = "10")
+    double refillPerSecond;
+
+    @ConfigProperty(name = "app.logs.rate-limit.max-clients", defaultValue = "10000")
+    int maxClients;
+
+    @ConfigProperty(name = "app.logs.sample-rate.debug", defaultValue = "0.1")
+    double debugSampleRate;
+
+    @ConfigProperty(name = "app.logs.sample-rate.info", defaultValue = "1.0")
+    double infoSampleRate;
+
+    @ConfigProperty(name = "app.logs.sample-rate.warn", defaultValue = "1.0")
+    double warnSampleRate;
+
+    @ConfigProperty(name = "app.logs.sample-rate.error", defaultValue = "1.0")
+    double errorSampleRate;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    // Earliest time a sweep of the full map may run again
+    private final AtomicLong nextFullSweep = new AtomicLong(NO_SWEEP_YET);
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong evictedClients = new AtomicLong();
+
+    /**
+     * Keep each entry with its level's sample rate. Unknown levels use the INFO rate.
+     */
+    public List<FrontendLogEntry> sample(List<FrontendLogEntry> entries) {
+        List<FrontendLogEntry> kept = new ArrayList<>(entries.size());
+        for (FrontendLogEntry entry : entries) {
+            double rate = sampleRate(entry.level());
+            if (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate) {
+                kept.add(entry);
+            } else {
+                sampledOut.incrementAndGet();
+            }
+        }
+        return kept;
+    }
+
+    private double sampleRate(String level) {
+        if (level == null) {
+            return infoSampleRate;
+        }
+        return switch (level.toUpperCase(Locale.ROOT)) {
+            case "TRACE", "DEBUG" -> debugSampleRate;
+            case "WARN", "WARNING" -> warnSampleRate;
+            case "ERROR", "FATAL" -> errorSampleRate;
+            default -> infoSampleRate;
+        };
+    }
+
+    /**
+     * Take {@code permits} tokens from the client's bucket, all or nothing. A request for more than the
+     * bucket holds costs the whole bucket.
+     *
+     * @return 0 if granted, otherwise how many milliseconds until the request would fit
+     */
+    public long tryAcquire(String clientKey, int permits) {
+        return tryAcquire(clientKey, permits, System.nanoTime());
+    }
+
+    long tryAcquire(String clientKey, int permits, long now) {
+        permits = Math.min(permits, capacity);
+        long interval = intervalNanos();
+        long tolerance = interval * capacity;
+        AtomicLong bucket = bucket(clientKey, now);
+        while (true) {
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + interval * permits;
+            long excess = next - now - tolerance;
+            if (excess > 0) {
+                rejectedRequests.incrementAndGet();
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(excess));
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String clientKey, long now) {
+        long last = lastSweep.get();
+        if (now - last > SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            evictIdle(now);
+        }
+        AtomicLong bucket = buckets.get(clientKey);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            long due = nextFullSweep.get();
+            if ((due == NO_SWEEP_YET || now - due >= 0) && nextFullSweep.compareAndSet(due, now + FULL_SWEEP_GAP_NANOS)) {
+                // Nothing can be evicted before the earliest remaining bucket has refilled
+                nextFullSweep.set(Math.max(now + FULL_SWEEP_GAP_NANOS, evictIdle(now)));
+            }
+            if (buckets.size() >= maxClients) {
+                // Every tracked client is active: newcomers share one bucket rather than growing the map
+                return buckets.computeIfAbsent(OVERFLOW_KEY, k -> new AtomicLong(now));
+            }
+        }
+        return buckets.computeIfAbsent(clientKey, k -> new AtomicLong(now));
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they are indistinguishable from new ones.
+     *
+     * @return when the earliest remaining bucket will have refilled, or {@code now} if it is not known
+     */
+    private long evictIdle(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return now; // another thread is already sweeping
+        }
+        try {
+            int before = buckets.size();
+            long[] earliest = {Long.MAX_VALUE};
+            buckets.values().removeIf(bucket -> {
+                long tat = bucket.get();
+                if (tat <= now) {
+                    return true;
+                }
+                earliest[0] = Math.min(earliest[0], tat);
+                return false;
+            });
+            int evicted = before - buckets.size();
+            evictedClients.addAndGet(evicted);
+            LOG.debugf("Evicted %d idle log clients, %d still tracked", evicted, buckets.size());
+            return earliest[0] == Long.MAX_VALUE ? now : earliest[0];
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private long intervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+    }
+
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.get();
+    }
+
+    public long getSampledOut() {
+        return sampledOut.get();
+    }
+
+    public long getEvictedClients() {
+        return evictedClients.get();
+    }
+}
@@ -0,0 +1,360 @@
+package org.acme.service;
+
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Disk-backed FIFO of log events, used by {@link CloudWatchLogShipper} while CloudWatch is unavailable.
+ * <p>
+ * Events are appended to fixed-size, memory-mapped segment files ({@code <seq>.seg}) so a spooled burst
+ * lives in the page cache rather than on the heap, and is read back straight from the mapping.
+ * Each record is {@code [int length][int crc32][short streamLength][stream][long timestamp][message]};
+ * the zero-filled tail of a segment marks its end, and a record whose checksum does not match
+ * (torn by a crash) is treated as the end of its segment.
+ * <p>
+ * The read position lives in a checksummed, fsynced {@code offset} file that is updated only after a
+ * replayed batch has been accepted, so replay is at-least-once across restarts. When all
+ * {@code maxSegments} segments are full the {@link OverflowPolicy} decides what is lost.
+ */
+public class LogSpool implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(LogSpool.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String OFFSET_FILE = "offset";
+    private static final int HEADER_BYTES = 8;
+    // Segments must hold at least one maximum-size record
+    static final int MIN_SEGMENT_BYTES = 1024 * 1024;
+
+    public enum OverflowPolicy {
+        /** Delete the oldest segment, losing its unreplayed events, to make room for new ones. */
+        DROP_OLDEST,
+        /** Keep what is spooled and reject new events. */
+        DROP_NEWEST
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final OverflowPolicy overflowPolicy;
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final FileChannel offsetChannel;
+    private final MappedByteBuffer offsetBuffer;
+
+    private long readSeq;
+    private int readPos;
+    private long spooledEvents;
+    private long replayedEvents;
+    private long droppedEvents;
+
+    public LogSpool(Path dir, int segmentBytes, int maxSegments, OverflowPolicy overflowPolicy) throws IOException {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be at least " + MIN_SEGMENT_BYTES);
+        }
+        if (maxSegments < 2) {
+            throw new IllegalArgumentException("maxSegments must be at least 2");
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.overflowPolicy = overflowPolicy;
+        Files.createDirectories(dir);
+
+        offsetChannel = FileChannel.open(dir.resolve(OFFSET_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsetBuffer = offsetChannel.map(FileChannel.MapMode.READ_WRITE, 0, 16);
+        recover();
+    }
+
+    private void recover() throws IOException {
+        List<Long> seqs;
+        try (Stream<Path> files = Files.list(dir)) {
+            seqs = files.map(p -> p.getFileName().toString())
+                .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .toList();
+        }
+        for (long seq : seqs) {
+            segments.addLast(openSegment(seq));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(offsetBuffer.slice(0, 12));
+        boolean offsetValid = offsetBuffer.getInt(12) == (int) crc.getValue();
+        if (segments.isEmpty()) {
+            readSeq = offsetValid ? offsetBuffer.getLong(0) + 1 : 0;
+            readPos = 0;
+            segments.addLast(openSegment(readSeq));
+            writeOffset();
+        } else if (offsetValid && offsetBuffer.getLong(0) >= segments.peekFirst().seq
+                && offsetBuffer.getLong(0) <= segments.peekLast().seq) {
+            readSeq = offsetBuffer.getLong(0);
+            long offsetSeq = readSeq;
+            int writePos = segments.stream().filter(s -> s.seq == offsetSeq).findFirst().map(s -> s.writePos).orElse(0);
+            readPos = Math.clamp(offsetBuffer.getInt(8), 0, writePos);
+        } else {
+            // Torn or missing offset: replay everything that is left rather than lose it
+            readSeq = segments.peekFirst().seq;
+            readPos = 0;
+        }
+        while (segments.size() > 1 && segments.peekFirst().seq < readSeq) {
+            deleteSegment(segments.pollFirst());
+        }
+        if (hasPending()) {
+            LOG.infof("Recovered %d bytes of spooled log events from %s", pendingBytes(), dir);
+        }
+    }
+
+    private Segment openSegment(long seq) throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(seq + SEGMENT_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(seq, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        // Find the end of the valid records
+        int pos = 0;
+        int length;
+        while ((length = validRecordLength(segment.buffer, pos)) > 0) {
+            pos += HEADER_BYTES + length;
+        }
+        segment.writePos = pos;
+        return segment;
+    }
+
+    /**
+     * @return the payload length of the record at {@code pos}, or 0 if there is no intact record there
+     */
+    private int validRecordLength(MappedByteBuffer buffer, int pos) {
+        if (pos + HEADER_BYTES > segmentBytes) {
+            return 0;
+        }
+        int length = buffer.getInt(pos);
+        if (length <= 0 || length > segmentBytes - pos - HEADER_BYTES) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(pos + HEADER_BYTES, length));
+        return buffer.getInt(pos + 4) == (int) crc.getValue() ? length : 0;
+    }
+
+    /**
+     * Append events for one stream.
+     *
+     * @return false if the spool is full and the overflow policy rejected them
+     */
+    public synchronized boolean append(String stream, List<InputLogEvent> events) {
+        byte[] streamBytes = stream.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < events.size(); i++) {
+            InputLogEvent event = events.get(i);
+            byte[] message = event.message().getBytes(StandardCharsets.UTF_8);
+            int length = 2 + streamBytes.length + 8 + message.length;
+            Segment tail = segments.peekLast();
+            // Keep 4 zero bytes after the last record so readers see where the segment ends
+            if (tail.writePos + HEADER_BYTES + length + 4 > segmentBytes && !roll()) {
+                droppedEvents += events.size() - i;
+                return false;
+            }
+            tail = segments.peekLast();
+            MappedByteBuffer buffer = tail.buffer;
+            int pos = tail.writePos;
+            buffer.position(pos + HEADER_BYTES);
+            buffer.putShort((short) streamBytes.length).put(streamBytes).putLong(event.timestamp()).put(message);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(pos + HEADER_BYTES, length));
+            buffer.putInt(pos + 4, (int) crc.getValue());
+            // Length last: until it is written the record does not exist
+            buffer.putInt(pos, length);
+            tail.writePos = pos + HEADER_BYTES + length;
+            spooledEvents++;
+        }
+        return true;
+    }
+
+    private boolean roll() {
+        if (segments.size() >= maxSegments) {
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                return false;
+            }
+            Segment oldest = segments.pollFirst();
+            int from = oldest.seq == readSeq ? readPos : 0;
+            int lost = 0;
+            int length;
+            while ((length = validRecordLength(oldest.buffer, from)) > 0) {
+                from += HEADER_BYTES + length;
+                lost++;
+            }
+            droppedEvents += lost;
+            LOG.warnf("Log spool full, discarded %d oldest events", lost);
+            if (oldest.seq >= readSeq) {
+                readSeq = segments.peekFirst().seq;
+                readPos = 0;
+                writeOffset();
+            }
+            deleteSegment(oldest);
+        }
+        try {
+            Segment tail = segments.peekLast();
+            tail.buffer.force();
+            segments.addLast(openSegment(tail.seq + 1));
+            return true;
+        } catch (IOException e) {
+            LOG.error("Failed to create log spool segment: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public synchronized boolean hasPending() {
+        return pendingBytes() > 0;
+    }
+
+    /**
+     * Read, without consuming, the oldest run of spooled events that belong to one stream,
+     * up to the given limits. Pass the result to {@link #commit} once it has been delivered.
+     *
+     * @return null if nothing is spooled
+     */
+    public synchronized Batch peek(int maxEvents, long maxBytes, int eventOverheadBytes) {
+        Iterator<Segment> it = segments.iterator();
+        Segment segment = it.next();
+        while (segment.seq < readSeq) {
+            segment = it.next();
+        }
+        int pos = readPos;
+        String stream = null;
+        List<InputLogEvent> events = new ArrayList<>();
+        long bytes = 0;
+        while (events.size() < maxEvents) {
+            int length = validRecordLength(segment.buffer, pos);
+            if (length == 0) {
+                if (!it.hasNext()) {
+                    break;
+                }
+                segment = it.next();
+                pos = 0;
+                continue;
+            }
+            ByteBuffer record = segment.buffer.slice(pos + HEADER_BYTES, length);
+            int streamLength = record.getShort();
+            String recordStream = StandardCharsets.UTF_8.decode(record.slice(2, streamLength)).toString();
+            int messageLength = length - 2 - streamLength - 8;
+            if ((stream != null && !stream.equals(recordStream))
+                    || (!events.isEmpty() && bytes + messageLength + eventOverheadBytes > maxBytes)) {
+                break;
+            }
+            stream = recordStream;
+            long timestamp = record.getLong(2 + streamLength);
+            String message = StandardCharsets.UTF_8.decode(record.slice(2 + streamLength + 8, messageLength)).toString();
+            events.add(InputLogEvent.builder().timestamp(timestamp).message(message).build());
+            bytes += messageLength + eventOverheadBytes;
+            pos += HEADER_BYTES + length;
+        }
+        return events.isEmpty() ? null : new Batch(stream, events, segment.seq, pos);
+    }
+
+    /**
+     * Mark a batch from {@link #peek} as delivered and persist the new read position.
+     */
+    public synchronized void commit(Batch batch) {
+        replayedEvents += batch.events().size();
+        // With DROP_OLDEST a roll() between peek and commit may have discarded the segment this batch
+        // ended in and moved the read position past it; that position is already the right one
+        if (batch.endSeq() < readSeq || batch.endSeq() < segments.peekFirst().seq) {
+            return;
+        }
+        readSeq = batch.endSeq();
+        readPos = batch.endPos();
+        writeOffset();
+        while (segments.size() > 1 && segments.peekFirst().seq < readSeq) {
+            deleteSegment(segments.pollFirst());
+        }
+    }
+
+    private void writeOffset() {
+        offsetBuffer.putLong(0, readSeq);
+        offsetBuffer.putInt(8, readPos);
+        CRC32 crc = new CRC32();
+        crc.update(offsetBuffer.slice(0, 12));
+        offsetBuffer.putInt(12, (int) crc.getValue());
+        offsetBuffer.force();
+    }
+
+    private void deleteSegment(Segment segment) {
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(dir.resolve(segment.seq + SEGMENT_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long pendingBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            if (segment.seq >= readSeq) {
+                bytes += segment.writePos - (segment.seq == readSeq ? readPos : 0);
+            }
+        }
+        return bytes;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(pendingBytes(), segments.size(), spooledEvents, replayedEvents, droppedEvents);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close log spool segment: " + e.getMessage());
+            }
+        }
+        try {
+            offsetChannel.close();
+        } catch (IOException e) {
+            LOG.debug("Failed to close log spool offset file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Events read by {@link #peek}, with the position just after the last one.
+     */
+    public record Batch(String stream, List<InputLogEvent> events, long endSeq, int endPos) {
+    }
+
+    /**
+     * Point-in-time spool metrics. Counters cover this process only.
+     */
+    public record Stats(long pendingBytes, int segments, long spooledEvents, long replayedEvents, long droppedEvents) {
+    }
+
+    private static final class Segment {
+        final long seq;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePos;
+
+        Segment(long seq, FileChannel channel, MappedByteBuffer buffer) {
+            this.seq = seq;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.acme.service;
+
+import org.acme.model.MigrationCheckpoint;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.time.Instant;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+
+/**
+ * The "MigrationCheckpoints" table shared by the one-time data migrations. Each migration keeps its
+ * progress in its own rows (keyed by migration id, plus segment where it scans in parallel), and the row
+ * with {@code done} set marks it as finished.
+ */
+final class MigrationCheckpoints {
+
+    static final String TABLE = "MigrationCheckpoints";
+
+    static final TableSchema<MigrationCheckpoint> SCHEMA = TableSchema.builder(MigrationCheckpoint.class)
+        .newItemSupplier(MigrationCheckpoint::new)
+        .addAttribute(String.class, a -> a.name("id")
+            .getter(MigrationCheckpoint::getId).setter(MigrationCheckpoint::setId).tags(primaryPartitionKey()))
+        .addAttribute(String.class, a -> a.name("lastEvaluatedKey")
+            .getter(MigrationCheckpoint::getLastEvaluatedKey).setter(MigrationCheckpoint::setLastEvaluatedKey))
+        .addAttribute(Integer.class, a -> a.name("totalSegments")
+            .getter(MigrationCheckpoint::getTotalSegments).setter(MigrationCheckpoint::setTotalSegments))
+        .addAttribute(Long.class, a -> a.name("itemsCopied")
+            .getter(MigrationCheckpoint::getItemsCopied).setter(MigrationCheckpoint::setItemsCopied))
+        .addAttribute(Boolean.class, a -> a.name("done")
+            .getter(MigrationCheckpoint::getDone).setter(MigrationCheckpoint::setDone))
+        .addAttribute(Instant.class, a -> a.name("updatedAt")
+            .getter(MigrationCheckpoint::getUpdatedAt).setter(MigrationCheckpoint::setUpdatedAt))
+        .build();
+
+    private MigrationCheckpoints() {
+    }
+}
@@ -1,38 +1,114 @@
 package org.acme.service;
 
+import io.quarkus.runtime.ShutdownEvent;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import org.acme.graphql.model.NotificationPage;
 import org.acme.model.Notification;
+import org.acme.model.NotificationCounter;
 import org.acme.websocket.NotificationWebSocket;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
 
 @ApplicationScoped
 public class NotificationService {
 
     private static final Logger LOG = Logger.getLogger(NotificationService.class);
+    // Partitioned by recipient, sorted by createdAt, so a user's newest notifications are one query away
+    private static final String USER_INDEX = "UserIndex";
+    private static final String NOTIFICATIONS_TABLE = "Notifications";
+    private static final String COUNTERS_TABLE = "NotificationCounters";
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    // Events on a hot thread contend for the same row, so coalescing retries a little longer
+    private static final int MAX_COALESCE_ATTEMPTS = 5;
+    private static final int MAX_RECENT_ACTORS = 5;
+    // Recipients per fan-out chunk; each takes two of BatchGetItem's 100 keys
+    private static final int CHUNK_SIZE = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 6;
+    // Legacy offset paging reads at most this many of a user's newest notifications
+    static final int LEGACY_WINDOW = 500;
+    private static final long INDEX_RECHECK_MS = 60_000;
+    // UserIndex order, with ties broken by id so positions are stable when sorting in memory
+    private static final Comparator<Notification> NEWEST_FIRST = Comparator
+        .comparing(Notification::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Notification::getId, Comparator.reverseOrder());
     private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
     private DynamoDbTable<Notification> notificationTable;
     private DynamoDbIndex<Notification> userIndex;
+    private DynamoDbTable<NotificationCounter> counterTable;
+    // Runs comment-thread fan-outs; created on first use
+    private ExecutorService fanOutExecutor;
+    private volatile boolean userIndexSorted;
+    private volatile long nextIndexCheck;
+
+    @ConfigProperty(name = "app.notifications.fan-out-threads", defaultValue = "4")
+    int fanOutThreads;
+
+    @ConfigProperty(name = "app.notifications.fan-out-queue-capacity", defaultValue = "1000")
+    int fanOutQueueCapacity;
+
+    // Activity on an entity coalesces into the user's unread notification for it while the latest activity is this recent
+    @ConfigProperty(name = "app.notifications.coalesce-window-minutes", defaultValue = "60")
+    long coalesceWindowMinutes;
 
     @Inject
-    public NotificationService(DynamoDbEnhancedClient enhancedClient) {
+    public NotificationService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient) {
         this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
     }
 
     private static final TableSchema<Notification> NOTIFICATION_SCHEMA = TableSchema.builder(Notification.class)
@@ -41,7 +117,7 @@ public class NotificationService {
             .getter(Notification::getId).setter(Notification::setId).tags(primaryPartitionKey()))
         .addAttribute(String.class, a -> a.name("userId")
             .getter(Notification::getUserId).setter(Notification::setUserId)
-            .tags(secondaryPartitionKey("UserIndex")))
+            .tags(secondaryPartitionKey(USER_INDEX)))
         .addAttribute(String.class, a -> a.name("type")
             .getter(Notification::getType).setter(Notification::setType))
         .addAttribute(String.class, a -> a.name("entityType")
@@ -50,6 +126,10 @@ public class NotificationService {
             .getter(Notification::getEntityId).setter(Notification::setEntityId))
         .addAttribute(String.class, a -> a.name("actorUsername")
             .getter(Notification::getActorUsername).setter(Notification::setActorUsername))
+        .addAttribute(Integer.class, a -> a.name("actorCount")
+            .getter(Notification::getActorCount).setter(Notification::setActorCount))
+        .addAttribute(EnhancedType.listOf(String.class), a -> a.name("recentActors")
+            .getter(Notification::getRecentActors).setter(Notification::setRecentActors))
         .addAttribute(String.class, a -> a.name("preview")
             .getter(Notification::getPreview).setter(Notification::setPreview))
         .addAttribute(Boolean.class, a -> a.name("read")
@@ -57,75 +137,462 @@ public class NotificationService {
         .addAttribute(String.class, a -> a.name("targetId")
             .getter(Notification::getTargetId).setter(Notification::setTargetId))
         .addAttribute(Instant.class, a -> a.name("createdAt")
-            .getter(Notification::getCreatedAt).setter(Notification::setCreatedAt))
+            .getter(Notification::getCreatedAt).setter(Notification::setCreatedAt)
+            .tags(secondarySortKey(USER_INDEX)))
+        .addAttribute(Long.class, a -> a.name("version")
+            .getter(Notification::getVersion).setter(Notification::setVersion))
+        .build();
+
+    private static final TableSchema<NotificationCounter> COUNTER_SCHEMA = TableSchema.builder(NotificationCounter.class)
+        .newItemSupplier(NotificationCounter::new)
+        .addAttribute(String.class, a -> a.name("userId")
+            .getter(NotificationCounter::getUserId).setter(NotificationCounter::setUserId).tags(primaryPartitionKey()))
+        .addAttribute(Long.class, a -> a.name("unreadCount")
+            .getter(NotificationCounter::getUnreadCount).setter(NotificationCounter::setUnreadCount))
+        .addAttribute(Long.class, a -> a.name("readUpTo")
+            .getter(NotificationCounter::getReadUpTo).setter(NotificationCounter::setReadUpTo))
         .build();
 
     @PostConstruct
     void init() {
-        notificationTable = enhancedClient.table("Notifications", NOTIFICATION_SCHEMA);
-        userIndex = notificationTable.index("UserIndex");
+        notificationTable = enhancedClient.table(NOTIFICATIONS_TABLE, NOTIFICATION_SCHEMA);
+        userIndex = notificationTable.index(USER_INDEX);
+        counterTable = enhancedClient.table(COUNTERS_TABLE, COUNTER_SCHEMA);
         try {
             notificationTable.createTable();
         } catch (Exception e) {
             LOG.debug("Notifications table creation skipped (may already exist): " + e.getMessage());
         }
+        try {
+            counterTable.createTable();
+        } catch (Exception e) {
+            LOG.debug("NotificationCounters table creation skipped (may already exist): " + e.getMessage());
+        }
     }
 
+    /**
+     * Notify a user. Activity on an entity the user already has an open notification for coalesces into
+     * it (see {@link #coalesce}), and the WebSocket push carries the new unread count.
+     */
     public void createNotification(String userId, String type, String entityType, String entityId,
                                     String actorUsername, String preview, String targetId) {
+        Notification event = newNotification(userId, type, entityType, entityId, actorUsername, preview,
+            targetId, Instant.now());
+        push(coalesce(event, null));
+    }
+
+    /**
+     * Send the same notification to many users, off the caller's thread. Recipients are split into chunks
+     * that run in parallel on a bounded pool; each chunk reads its recipients' notifications and counters
+     * with one BatchGetItem and then coalesces each event with a conditional write. Connected recipients
+     * are pushed to in one pass once every chunk is done.
+     * <p>
+     * When the pool's queue is full the fan-out is dropped and logged rather than blocking the caller.
+     */
+    public void createNotifications(Collection<String> userIds, String type, String entityType, String entityId,
+                                    String actorUsername, String preview, String targetId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        // BatchGetItem rejects duplicate keys
+        List<Notification> events = userIds.stream()
+            .distinct()
+            .map(userId -> newNotification(userId, type, entityType, entityId, actorUsername, preview, targetId, now))
+            .toList();
+
+        List<CompletableFuture<List<Notification>>> chunks = new ArrayList<>();
+        try {
+            for (int from = 0; from < events.size(); from += CHUNK_SIZE) {
+                List<Notification> chunk = events.subList(from, Math.min(from + CHUNK_SIZE, events.size()));
+                chunks.add(CompletableFuture.supplyAsync(() -> writeChunk(chunk), fanOutExecutor()));
+            }
+        } catch (RejectedExecutionException e) {
+            LOG.warnf("Notification fan-out queue is full; dropped %d of %d %s notifications for %s %s",
+                events.size() - chunks.size() * CHUNK_SIZE, events.size(), type, entityType, entityId);
+        }
+
+        CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOG.warnf("Notification fan-out for %s %s failed in part: %s", entityType, entityId, error.getMessage());
+            }
+            for (CompletableFuture<List<Notification>> chunk : chunks) {
+                if (!chunk.isCompletedExceptionally()) {
+                    chunk.join().forEach(this::push);
+                }
+            }
+        });
+    }
+
+    /**
+     * Coalesce one chunk of a fan-out.
+     *
+     * @return the notifications as written
+     */
+    private List<Notification> writeChunk(List<Notification> events) {
+        Map<String, List<Map<String, AttributeValue>>> found = batchGet(events);
+        Map<String, Notification> rows = new HashMap<>();
+        found.getOrDefault(NOTIFICATIONS_TABLE, List.of()).forEach(item -> {
+            Notification row = NOTIFICATION_SCHEMA.mapToItem(item);
+            rows.put(row.getId(), row);
+        });
+        Map<String, NotificationCounter> counters = new HashMap<>();
+        found.getOrDefault(COUNTERS_TABLE, List.of()).forEach(item -> {
+            NotificationCounter counter = COUNTER_SCHEMA.mapToItem(item);
+            counters.put(counter.getUserId(), counter);
+        });
+
+        List<Notification> written = new ArrayList<>(events.size());
+        for (Notification event : events) {
+            try {
+                written.add(coalesce(event, new Snapshot(rows.get(event.getId()), counters.get(event.getUserId()))));
+            } catch (Exception e) {
+                LOG.warnf("Notification for %s not written: %s", event.getUserId(), e.getMessage());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Read the current notification row and counter of each event's recipient.
+     *
+     * @return the items found, by table name
+     */
+    private Map<String, List<Map<String, AttributeValue>>> batchGet(List<Notification> events) {
+        List<Map<String, AttributeValue>> rowKeys = new ArrayList<>(events.size());
+        List<Map<String, AttributeValue>> counterKeys = new ArrayList<>(events.size());
+        for (Notification event : events) {
+            rowKeys.add(Map.of("id", AttributeValue.builder().s(event.getId()).build()));
+            counterKeys.add(Map.of("userId", AttributeValue.builder().s(event.getUserId()).build()));
+        }
+        Map<String, KeysAndAttributes> request = Map.of(
+            NOTIFICATIONS_TABLE, KeysAndAttributes.builder().keys(rowKeys).consistentRead(true).build(),
+            COUNTERS_TABLE, KeysAndAttributes.builder().keys(counterKeys).consistentRead(true).build());
+        Map<String, List<Map<String, AttributeValue>>> found = new HashMap<>();
+        for (int attempt = 1; !request.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                if (attempt > MAX_BATCH_ATTEMPTS) {
+                    throw new IllegalStateException("DynamoDB kept returning unprocessed notification keys");
+                }
+                backoff(attempt);
+            }
+            Map<String, KeysAndAttributes> current = request;
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(r -> r.requestItems(current));
+            response.responses().forEach((table, items) ->
+                found.computeIfAbsent(table, t -> new ArrayList<>()).addAll(items));
+            request = response.unprocessedKeys();
+        }
+        return found;
+    }
+
+    /** A recipient's notification row (null if none) and counter (null if not built yet), as read. */
+    private record Snapshot(Notification row, NotificationCounter counter) {}
+
+    /**
+     * Fold one event into the recipient's notification for its (entity, type), which has a fixed id.
+     * While that notification is unread and its latest activity is within the coalescing window, the
+     * event updates it in place: the latest actor, preview and target replace the old ones, the actor
+     * joins the recent actors, and the notification moves back to the top of the list. Otherwise the
+     * row starts over as a new unread notification, and the notification it held is kept under an id of
+     * its own (see {@link #archiveWrite}), read or unread as it was, so earlier activity stays in the list.
+     * <p>
+     * The row is written under a version condition, together with a guard on the user's counter (or
+     * an increment when the row was not already counted as unread), so concurrent events, mark-read
+     * and mark-all-read calls are never lost; on a conflict the state is read again and the event retried.
+     *
+     * @param snapshot the row and counter as already read, or null to read them here
+     * @return the notification as written
+     */
+    private Notification coalesce(Notification event, Snapshot snapshot) {
+        String userId = event.getUserId();
+        for (int attempt = 1; ; attempt++) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(
+                    notificationTable.getItem(r -> r.key(k -> k.partitionValue(event.getId())).consistentRead(true)),
+                    counterTable.getItem(r -> r.key(k -> k.partitionValue(userId)).consistentRead(true)));
+            }
+            Notification existing = snapshot.row();
+            NotificationCounter counter = snapshot.counter() != null ? snapshot.counter() : backfillCounter(userId);
+            Long readUpTo = counter.getReadUpTo();
+            boolean wasUnread = existing != null && !isRead(existing, readUpTo);
+            boolean open = wasUnread
+                && !existing.getCreatedAt().isBefore(event.getCreatedAt().minus(Duration.ofMinutes(coalesceWindowMinutes)));
+            Notification next = open ? merge(existing, event) : restart(existing, event);
+            List<TransactWriteItem> writes = new ArrayList<>(3);
+            writes.add(rowWrite(next, existing));
+            // A restarted notification is a new unread one; the one it replaces keeps its own count
+            writes.add(counterWrite(userId, readUpTo, open ? 0 : 1));
+            if (!open && existing != null) {
+                writes.add(archiveWrite(existing));
+            }
+            try {
+                dynamoDbClient.transactWriteItems(r -> r.transactItems(writes));
+                return next;
+            } catch (TransactionCanceledException e) {
+                if (attempt >= MAX_COALESCE_ATTEMPTS) {
+                    throw e;
+                }
+                LOG.debugf("Notification %s changed concurrently, retrying (attempt %d)", event.getId(), attempt);
+                snapshot = null;
+            }
+        }
+    }
+
+    /**
+     * The event merged into an open notification. Actors are counted once while they stay among the
+     * recent actors; one who dropped off the list and comes back is counted again.
+     */
+    private static Notification merge(Notification existing, Notification event) {
+        List<String> previous = existing.getRecentActors() != null
+            ? existing.getRecentActors()
+            : Collections.singletonList(existing.getActorUsername());
+        List<String> actors = new ArrayList<>(MAX_RECENT_ACTORS);
+        actors.add(event.getActorUsername());
+        previous.stream()
+            .filter(actor -> !Objects.equals(actor, event.getActorUsername()))
+            .limit(MAX_RECENT_ACTORS - 1L)
+            .forEach(actors::add);
+        int actorCount = existing.getActorCount() != null ? existing.getActorCount() : 1;
+
+        Notification next = copy(event);
+        next.setActorCount(previous.contains(event.getActorUsername()) ? actorCount : actorCount + 1);
+        next.setRecentActors(actors);
+        next.setVersion(nextVersion(existing));
+        return next;
+    }
+
+    private static Notification restart(Notification existing, Notification event) {
+        Notification next = copy(event);
+        next.setVersion(nextVersion(existing));
+        return next;
+    }
+
+    private static Notification copy(Notification notification) {
+        return NOTIFICATION_SCHEMA.mapToItem(NOTIFICATION_SCHEMA.itemToMap(notification, true));
+    }
+
+    private static long nextVersion(Notification existing) {
+        return existing != null && existing.getVersion() != null ? existing.getVersion() + 1 : 1;
+    }
+
+    // Replaces the row only if nobody wrote it since it was read
+    private static TransactWriteItem rowWrite(Notification next, Notification existing) {
+        Put.Builder put = Put.builder()
+            .tableName(NOTIFICATIONS_TABLE)
+            .item(NOTIFICATION_SCHEMA.itemToMap(next, true));
+        if (existing == null) {
+            put.conditionExpression("attribute_not_exists(id)");
+        } else if (existing.getVersion() == null) {
+            put.conditionExpression("attribute_not_exists(version)");
+        } else {
+            put.conditionExpression("version = :version")
+                .expressionAttributeValues(Map.of(
+                    ":version", AttributeValue.builder().n(Long.toString(existing.getVersion())).build()));
+        }
+        return TransactWriteItem.builder().put(put.build()).build();
+    }
+
+    /**
+     * The notification a restart replaces, copied to an id derived from its group id and creation time, so
+     * it stays listed and can still be marked read. Retrying the same restart writes the same copy.
+     */
+    private static TransactWriteItem archiveWrite(Notification existing) {
+        Notification archived = copy(existing);
+        String generation = existing.getId() + "\n" + existing.getCreatedAt();
+        archived.setId(UUID.nameUUIDFromBytes(generation.getBytes(StandardCharsets.UTF_8)).toString());
+        return TransactWriteItem.builder().put(Put.builder()
+            .tableName(NOTIFICATIONS_TABLE)
+            .item(NOTIFICATION_SCHEMA.itemToMap(archived, true))
+            .conditionExpression("attribute_not_exists(id)")
+            .build()).build();
+    }
+
+    // Adds delta to the counter, or just checks it, provided the watermark is still the one the row was judged by
+    private static TransactWriteItem counterWrite(String userId, Long readUpTo, int delta) {
+        Map<String, AttributeValue> key = Map.of("userId", AttributeValue.builder().s(userId).build());
+        String condition = "attribute_exists(userId) AND "
+            + (readUpTo == null ? "attribute_not_exists(readUpTo)" : "readUpTo = :readUpTo");
+        Map<String, AttributeValue> values = new HashMap<>();
+        if (readUpTo != null) {
+            values.put(":readUpTo", AttributeValue.builder().n(Long.toString(readUpTo)).build());
+        }
+        if (delta == 0) {
+            ConditionCheck.Builder check = ConditionCheck.builder()
+                .tableName(COUNTERS_TABLE)
+                .key(key)
+                .conditionExpression(condition);
+            if (!values.isEmpty()) {
+                check.expressionAttributeValues(values);
+            }
+            return TransactWriteItem.builder().conditionCheck(check.build()).build();
+        }
+        values.put(":delta", AttributeValue.builder().n(Integer.toString(delta)).build());
+        return TransactWriteItem.builder().update(Update.builder()
+            .tableName(COUNTERS_TABLE)
+            .key(key)
+            .updateExpression("ADD unreadCount :delta")
+            .conditionExpression(condition)
+            .expressionAttributeValues(values)
+            .build()).build();
+    }
+
+    private void push(Notification notification) {
+        if (!NotificationWebSocket.isConnected(notification.getUserId())) {
+            return;
+        }
+        try {
+            NotificationWebSocket.sendToUser(notification.getUserId(),
+                notificationJson(notification, readUnreadCount(notification.getUserId())));
+        } catch (Exception e) {
+            LOG.debug("WebSocket notification push failed (non-critical): " + e.getMessage());
+        }
+    }
+
+    private static Notification newNotification(String userId, String type, String entityType, String entityId,
+                                                String actorUsername, String preview, String targetId,
+                                                Instant createdAt) {
         Notification notification = new Notification();
-        notification.setId(UUID.randomUUID().toString());
+        notification.setId(groupId(userId, type, entityType, entityId));
         notification.setUserId(userId);
         notification.setType(type);
         notification.setEntityType(entityType);
         notification.setEntityId(entityId);
         notification.setActorUsername(actorUsername);
+        notification.setActorCount(1);
+        notification.setRecentActors(Collections.singletonList(actorUsername));
         notification.setPreview(preview);
         notification.setRead(false);
         notification.setTargetId(targetId);
-        notification.setCreatedAt(Instant.now());
-        notificationTable.putItem(notification);
+        notification.setCreatedAt(createdAt);
+        return notification;
+    }
 
-        // Push real-time notification via WebSocket
-        try {
-            String json = String.format(
-                "{\"type\":\"%s\",\"entityType\":\"%s\",\"entityId\":\"%s\",\"actorUsername\":\"%s\",\"preview\":\"%s\",\"id\":\"%s\"}",
-                type, entityType, entityId,
-                actorUsername != null ? actorUsername.replace("\"", "\\\"") : "",
-                preview != null ? preview.replace("\"", "\\\"") : "",
-                notification.getId()
-            );
-            NotificationWebSocket.sendToUser(userId, json);
-        } catch (Exception e) {
-            LOG.debug("WebSocket notification push failed (non-critical): " + e.getMessage());
-        }
+    /**
+     * The id of a user's notification for one (entity, type): fixed, so an event finds the row to
+     * coalesce into without a lookup.
+     */
+    static String groupId(String userId, String type, String entityType, String entityId) {
+        String group = String.join("\n", userId, type, entityType, entityId);
+        return UUID.nameUUIDFromBytes(group.getBytes(StandardCharsets.UTF_8)).toString();
     }
 
+    private static String notificationJson(Notification notification, int unreadCount) {
+        String actorUsername = notification.getActorUsername();
+        String preview = notification.getPreview();
+        return String.format(
+            "{\"type\":\"%s\",\"entityType\":\"%s\",\"entityId\":\"%s\",\"actorUsername\":\"%s\",\"actorCount\":%d,\"preview\":\"%s\",\"id\":\"%s\",\"unreadCount\":%d}",
+            notification.getType(), notification.getEntityType(), notification.getEntityId(),
+            actorUsername != null ? actorUsername.replace("\"", "\\\"") : "",
+            notification.getActorCount() != null ? notification.getActorCount() : 1,
+            preview != null ? preview.replace("\"", "\\\"") : "",
+            notification.getId(),
+            unreadCount
+        );
+    }
+
+    /**
+     * Legacy offset paging. Only the newest {@value #LEGACY_WINDOW} notifications are read (one bounded query),
+     * so {@code total} counts at most that many; use {@link #getNotificationsPage} to go further back.
+     */
     public NotificationPage getNotifications(String userId, int page, int size) {
-        List<Notification> userNotifications = new java.util.ArrayList<>(getUserNotifications(userId));
+        List<Notification> newest = newestNotifications(userId, LEGACY_WINDOW, null);
+        NotificationCounter counter = counter(userId);
 
-        int total = userNotifications.size();
-        int unreadCount = (int) userNotifications.stream()
-            .filter(n -> !Boolean.TRUE.equals(n.getRead()))
-            .count();
+        int total = newest.size();
+        int fromIndex = (int) Math.min((long) page * size, total);
+        int toIndex = Math.min(fromIndex + size, total);
+        List<Notification> items = newest.subList(fromIndex, toIndex);
+        applyWatermark(items, counter.getReadUpTo());
 
-        // Sort by createdAt descending (newest first)
-        userNotifications.sort(Comparator.comparing(Notification::getCreatedAt).reversed());
+        return new NotificationPage(items, total, clampCount(counter.getUnreadCount()));
+    }
 
-        int fromIndex = Math.min(page * size, total);
-        int toIndex = Math.min(fromIndex + size, total);
+    /**
+     * Get one page of a user's notifications, newest first.
+     * Each call is a single bounded query against UserIndex, however many notifications the user has.
+     *
+     * @param first page size
+     * @param after cursor from a previous page, or null for the first page
+     * @return the page, with a cursor when more notifications follow
+     */
+    public NotificationPage getNotificationsPage(String userId, int first, String after) {
+        // Read one extra notification to learn whether another page exists
+        List<Notification> items = newestNotifications(userId, first + 1, decodePosition(after));
 
-        return new NotificationPage(
-            userNotifications.subList(fromIndex, toIndex),
-            total,
-            unreadCount
-        );
+        NotificationCounter counter = counter(userId);
+        applyWatermark(items, counter.getReadUpTo());
+        int unreadCount = clampCount(counter.getUnreadCount());
+        if (items.size() <= first) {
+            return new NotificationPage(items, unreadCount, null);
+        }
+        List<Notification> page = List.copyOf(items.subList(0, first));
+        return new NotificationPage(page, unreadCount, encodePosition(page.get(first - 1)));
+    }
+
+    /**
+     * Up to {@code limit} of the user's notifications, newest first, starting after {@code position}.
+     */
+    private List<Notification> newestNotifications(String userId, int limit, Notification position) {
+        if (!isUserIndexSorted()) {
+            return getUserNotifications(userId).stream()
+                .sorted(NEWEST_FIRST)
+                .filter(n -> position == null || NEWEST_FIRST.compare(n, position) > 0)
+                .limit(limit)
+                .toList();
+        }
+        QueryEnhancedRequest.Builder request = QueryEnhancedRequest.builder()
+            .queryConditional(userPartition(userId))
+            .scanIndexForward(false)
+            .limit(limit);
+        if (position != null) {
+            // A GSI's exclusive start key is the table key plus the index key
+            Map<String, AttributeValue> startKey = new HashMap<>();
+            startKey.put("id", NOTIFICATION_SCHEMA.attributeValue(position, "id"));
+            startKey.put("createdAt", NOTIFICATION_SCHEMA.attributeValue(position, "createdAt"));
+            startKey.put("userId", AttributeValue.builder().s(userId).build());
+            request.exclusiveStartKey(startKey);
+        }
+        return userIndex.query(request.build())
+            .stream()
+            .flatMap(page -> page.items().stream())
+            .limit(limit)
+            .toList();
     }
 
+    /**
+     * Whether UserIndex is sorted by createdAt. A table created before the index had a sort key keeps
+     * the hash-only index until it is replaced (see the Notifications table in Terraform); until then
+     * its query order is undefined, so notifications are sorted in memory.
+     */
+    boolean isUserIndexSorted() {
+        if (userIndexSorted) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextIndexCheck) {
+            nextIndexCheck = now + INDEX_RECHECK_MS;
+            try {
+                TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(NOTIFICATIONS_TABLE)).table();
+                userIndexSorted = table.hasGlobalSecondaryIndexes() && table.globalSecondaryIndexes().stream()
+                    .anyMatch(index -> USER_INDEX.equals(index.indexName())
+                        && index.indexStatus() == IndexStatus.ACTIVE
+                        && index.keySchema().stream().anyMatch(key -> key.keyType() == KeyType.RANGE
+                            && "createdAt".equals(key.attributeName())));
+                if (!userIndexSorted) {
+                    LOG.warn("UserIndex on Notifications is not sorted by createdAt; sorting notifications in memory");
+                }
+            } catch (Exception e) {
+                LOG.warn("Could not describe the Notifications table: " + e.getMessage());
+            }
+        }
+        return userIndexSorted;
+    }
+
+    /**
+     * The user's unread count: a single GetItem on their counter.
+     */
     public int getUnreadCount(String userId) {
-        return (int) getUserNotifications(userId).stream()
-            .filter(n -> !Boolean.TRUE.equals(n.getRead()))
-            .count();
+        return clampCount(counter(userId).getUnreadCount());
     }
 
     public boolean markRead(String notificationId, String userId) {
@@ -133,27 +600,248 @@ public class NotificationService {
         if (notification == null || !userId.equals(notification.getUserId())) {
             return false;
         }
-        notification.setRead(true);
-        notificationTable.updateItem(notification);
+        if (!Boolean.TRUE.equals(notification.getRead()) && markRowRead(notification)) {
+            pushUnreadCount(userId);
+        }
         return true;
     }
 
+    /**
+     * Mark everything the user has received so far as read with one write: the counter's
+     * {@code readUpTo} watermark moves to now and the count goes to zero. Rows are not touched;
+     * anything created before the watermark reads as read.
+     */
     public boolean markAllRead(String userId) {
-        getUserNotifications(userId).stream()
+        // Exclusive bound, so everything stamped up to and including this millisecond is covered
+        long readUpTo = Instant.now().toEpochMilli() + 1;
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                .tableName(COUNTERS_TABLE)
+                .key(Map.of("userId", AttributeValue.builder().s(userId).build()))
+                .updateExpression("SET readUpTo = :readUpTo, unreadCount = :zero")
+                .conditionExpression("attribute_not_exists(readUpTo) OR readUpTo < :readUpTo")
+                .expressionAttributeValues(Map.of(
+                    ":readUpTo", AttributeValue.builder().n(Long.toString(readUpTo)).build(),
+                    ":zero", AttributeValue.builder().n("0").build()))
+                .build());
+        } catch (ConditionalCheckFailedException e) {
+            // Another instance (with a clock ahead of ours) already moved the watermark past this one
+            LOG.debugf("Read watermark for %s is already newer", userId);
+        }
+        pushUnreadCount(userId);
+        return true;
+    }
+
+    /**
+     * Flip one notification to read and decrement the counter in the same transaction.
+     *
+     * @return false if the notification was already read (by a concurrent call or the watermark)
+     */
+    private boolean markRowRead(Notification notification) {
+        Update update = Update.builder()
+            .tableName(NOTIFICATIONS_TABLE)
+            .key(Map.of("id", AttributeValue.builder().s(notification.getId()).build()))
+            // The version bump makes a concurrent coalesce into this row retry with it marked read
+            .updateExpression("SET #read = :true ADD version :one")
+            .conditionExpression("userId = :user AND (attribute_not_exists(#read) OR #read = :false)")
+            .expressionAttributeNames(Map.of("#read", "read"))
+            .expressionAttributeValues(Map.of(
+                ":true", AttributeValue.builder().bool(true).build(),
+                ":false", AttributeValue.builder().bool(false).build(),
+                ":one", AttributeValue.builder().n("1").build(),
+                ":user", AttributeValue.builder().s(notification.getUserId()).build()))
+            .build();
+        return writeCounted(notification.getUserId(), TransactWriteItem.builder().update(update).build(), -1,
+            notification.getCreatedAt()) == WriteOutcome.WRITTEN;
+    }
+
+    private enum WriteOutcome {
+        WRITTEN,
+        /** The write's own condition failed; nothing was written. */
+        ROW_UNCHANGED,
+        /** The notification is older than the read watermark, so it does not count; nothing was written. */
+        BELOW_WATERMARK
+    }
+
+    /**
+     * Apply {@code write} and add {@code delta} to the user's unread counter in one transaction, as long
+     * as the notification is not older than the read watermark (which already counts it as read).
+     * The counter update requires the counter to exist, so a counter created by the backfill never
+     * misses a notification; when it is missing it is built and the write retried.
+     */
+    private WriteOutcome writeCounted(String userId, TransactWriteItem write, int delta, Instant createdAt) {
+        Update counterUpdate = Update.builder()
+            .tableName(COUNTERS_TABLE)
+            .key(Map.of("userId", AttributeValue.builder().s(userId).build()))
+            .updateExpression("ADD unreadCount :delta")
+            .conditionExpression("attribute_exists(userId) AND (attribute_not_exists(readUpTo) OR readUpTo <= :createdAt)")
+            .expressionAttributeValues(Map.of(
+                ":delta", AttributeValue.builder().n(Integer.toString(delta)).build(),
+                ":createdAt", AttributeValue.builder().n(Long.toString(createdAt.toEpochMilli())).build()))
+            .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+            .build();
+        List<TransactWriteItem> writes = List.of(write, TransactWriteItem.builder().update(counterUpdate).build());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dynamoDbClient.transactWriteItems(r -> r.transactItems(writes));
+                return WriteOutcome.WRITTEN;
+            } catch (TransactionCanceledException e) {
+                if (isConditionFailure(e, 0)) {
+                    return WriteOutcome.ROW_UNCHANGED;
+                }
+                if (isConditionFailure(e, 1)) {
+                    Map<String, AttributeValue> stored = e.cancellationReasons().get(1).item();
+                    if (stored != null && !stored.isEmpty()) {
+                        return WriteOutcome.BELOW_WATERMARK;
+                    }
+                }
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                if (isConditionFailure(e, 1)) {
+                    backfillCounter(userId);
+                }
+                LOG.debugf("Notification write for %s retried (attempt %d)", userId, attempt);
+            }
+        }
+    }
+
+    private NotificationCounter counter(String userId) {
+        NotificationCounter counter = counterTable.getItem(r -> r.key(k -> k.partitionValue(userId)));
+        return counter != null ? counter : backfillCounter(userId);
+    }
+
+    /**
+     * Build a user's counter from their notification history. Runs once per user who predates the
+     * counters table. Counted writes cannot succeed while the counter is missing, so the rows read here
+     * are complete; if another caller creates the counter first, the stored one is returned.
+     */
+    private NotificationCounter backfillCounter(String userId) {
+        long unread = getUserNotifications(userId).stream()
             .filter(n -> !Boolean.TRUE.equals(n.getRead()))
-            .forEach(n -> {
+            .count();
+        NotificationCounter counter = new NotificationCounter();
+        counter.setUserId(userId);
+        counter.setUnreadCount(unread);
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(COUNTERS_TABLE)
+                .item(COUNTER_SCHEMA.itemToMap(counter, true))
+                .conditionExpression("attribute_not_exists(userId)")
+                .build());
+        } catch (ConditionalCheckFailedException e) {
+            LOG.debugf("Notification counter for %s was created concurrently", userId);
+            NotificationCounter stored = counterTable.getItem(r -> r.key(k -> k.partitionValue(userId)).consistentRead(true));
+            return stored != null ? stored : counter;
+        }
+        return counter;
+    }
+
+    /**
+     * Show notifications older than the read watermark as read. Their stored flag is left as it was.
+     */
+    private static void applyWatermark(List<Notification> notifications, Long readUpTo) {
+        if (readUpTo == null) {
+            return;
+        }
+        for (Notification n : notifications) {
+            if (isRead(n, readUpTo)) {
                 n.setRead(true);
-                notificationTable.updateItem(n);
-            });
-        return true;
+            }
+        }
+    }
+
+    private static boolean isRead(Notification notification, Long readUpTo) {
+        return Boolean.TRUE.equals(notification.getRead())
+            || (readUpTo != null && notification.getCreatedAt() != null
+                && notification.getCreatedAt().toEpochMilli() < readUpTo);
+    }
+
+    // Strongly consistent, so a push right after a write carries that write's count
+    private int readUnreadCount(String userId) {
+        NotificationCounter counter = counterTable.getItem(r -> r.key(k -> k.partitionValue(userId)).consistentRead(true));
+        return clampCount(counter != null ? counter.getUnreadCount() : null);
+    }
+
+    private void pushUnreadCount(String userId) {
+        try {
+            if (NotificationWebSocket.isConnected(userId)) {
+                NotificationWebSocket.sendToUser(userId,
+                    "{\"type\":\"UNREAD_COUNT\",\"unreadCount\":" + readUnreadCount(userId) + "}");
+            }
+        } catch (Exception e) {
+            LOG.debug("WebSocket unread count push failed (non-critical): " + e.getMessage());
+        }
+    }
+
+    private static int clampCount(Long count) {
+        // A counter can only dip below zero through a write that failed half way; never show that
+        return count == null ? 0 : Math.clamp(count, 0, Integer.MAX_VALUE);
+    }
+
+    private static void backoff(int attempt) {
+        // Exponential backoff with full jitter: up to 50ms, 100ms, 200ms, ... capped at 2s
+        long ceiling = Math.min(2000L, 25L << attempt);
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(
+            ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1)));
+    }
+
+    private synchronized ExecutorService fanOutExecutor() {
+        if (fanOutExecutor == null) {
+            int threads = Math.max(1, fanOutThreads);
+            fanOutExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, fanOutQueueCapacity)), task -> {
+                    Thread thread = new Thread(task, "notification-fan-out");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        return fanOutExecutor;
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        synchronized (this) {
+            if (fanOutExecutor != null) {
+                fanOutExecutor.shutdown();
+            }
+        }
+    }
+
+    private static boolean isConditionFailure(TransactionCanceledException e, int index) {
+        List<CancellationReason> reasons = e.cancellationReasons();
+        return reasons != null && reasons.size() > index
+            && CONDITIONAL_CHECK_FAILED.equals(reasons.get(index).code());
     }
 
     private List<Notification> getUserNotifications(String userId) {
         // Use UserIndex GSI to query by userId instead of scanning the entire table
-        return userIndex.query(QueryConditional.keyEqualTo(
-                Key.builder().partitionValue(userId).build()))
+        return userIndex.query(QueryEnhancedRequest.builder()
+                .queryConditional(userPartition(userId))
+                .scanIndexForward(false)
+                .build())
             .stream()
             .flatMap(page -> page.items().stream())
             .toList();
     }
+
+    private static QueryConditional userPartition(String userId) {
+        return QueryConditional.keyEqualTo(Key.builder().partitionValue(userId).build());
+    }
+
+    private static String encodePosition(Notification last) {
+        return PageCursor.encode(Map.of(
+            "id", NOTIFICATION_SCHEMA.attributeValue(last, "id"),
+            "createdAt", NOTIFICATION_SCHEMA.attributeValue(last, "createdAt")));
+    }
+
+    private static Notification decodePosition(String cursor) {
+        Map<String, AttributeValue> key = PageCursor.decode(cursor);
+        if (key == null) {
+            return null;
+        }
+        if (!key.containsKey("id") || !key.containsKey("createdAt")) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return NOTIFICATION_SCHEMA.mapToItem(key);
+    }
 }
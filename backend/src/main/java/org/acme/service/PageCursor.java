@@ -0,0 +1,96 @@
+package org.acme.service;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes DynamoDB's {@code LastEvaluatedKey} as an opaque, URL-safe cursor string
+ * so GraphQL clients can page through query results without seeing key attributes.
+ * Only string and number key attributes are supported, which covers every table key in this app.
+ */
+final class PageCursor {
+
+    private static final char TYPE_STRING = 'S';
+    private static final char TYPE_NUMBER = 'N';
+
+    private PageCursor() {
+    }
+
+    /**
+     * Encode a last-evaluated key into a cursor.
+     *
+     * @return the cursor, or null when there is no further page
+     */
+    static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(lastEvaluatedKey.size());
+            for (Map.Entry<String, AttributeValue> entry : lastEvaluatedKey.entrySet()) {
+                AttributeValue value = entry.getValue();
+                out.writeUTF(entry.getKey());
+                if (value.s() != null) {
+                    out.writeChar(TYPE_STRING);
+                    out.writeUTF(value.s());
+                } else if (value.n() != null) {
+                    out.writeChar(TYPE_NUMBER);
+                    out.writeUTF(value.n());
+                } else {
+                    throw new IllegalArgumentException("Unsupported key attribute type for " + entry.getKey());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decode a cursor back into an exclusive start key.
+     *
+     * @return the start key, or null when the cursor is null or blank (first page)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    static Map<String, AttributeValue> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor.trim())))) {
+            int count = in.readShort();
+            if (count <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Map<String, AttributeValue> key = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                char type = in.readChar();
+                String value = in.readUTF();
+                if (type == TYPE_STRING) {
+                    key.put(name, AttributeValue.builder().s(value).build());
+                } else if (type == TYPE_NUMBER) {
+                    key.put(name, AttributeValue.builder().n(value).build());
+                } else {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+            }
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
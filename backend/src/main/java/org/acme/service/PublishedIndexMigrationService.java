@@ -0,0 +1,268 @@
+package org.acme.service;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.model.MigrationCheckpoint;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.CreateGlobalSecondaryIndexAction;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexUpdate;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputDescription;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-time migration that brings an existing "Lists" table up to the PublishedIndex layout.
+ *
+ * {@code createTable()} is skipped for a table that already exists, so a table created before
+ * PublishedIndex has no such index, and lists saved before it carry no {@code publishedPartition}.
+ * This migration creates the index with UpdateTable when it is missing, waits for it to become ACTIVE,
+ * then stamps {@code publishedPartition} on every published list that lacks it. Progress is checkpointed
+ * after each scan page in MigrationCheckpoints. Every step is idempotent, so several instances may run it.
+ * Until it has finished, {@link LinkService} serves published lists from a table scan.
+ */
+@ApplicationScoped
+public class PublishedIndexMigrationService {
+
+    private static final Logger LOG = Logger.getLogger(PublishedIndexMigrationService.class);
+    private static final String LISTS_TABLE = "Lists";
+    private static final String MIGRATION_ID = "lists-published-index";
+    private static final int SCAN_PAGE_SIZE = 100;
+    private static final long INDEX_POLL_MS = 10_000;
+    private static final long STATUS_RECHECK_MS = 60_000;
+    // Index sort key for a list that has neither updatedAt nor createdAt
+    static final Instant MISSING_SORT_KEY = Instant.EPOCH;
+
+    @ConfigProperty(name = "app.published-index-migration.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private DynamoDbTable<MigrationCheckpoint> checkpointTable;
+
+    private volatile boolean complete;
+    private volatile long nextStatusCheck;
+
+    @Inject
+    public PublishedIndexMigrationService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient) {
+        this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    @PostConstruct
+    void init() {
+        checkpointTable = enhancedClient.table(MigrationCheckpoints.TABLE, MigrationCheckpoints.SCHEMA);
+        try {
+            checkpointTable.createTable();
+        } catch (Exception e) {
+            LOG.debug("MigrationCheckpoints table creation skipped (may already exist): " + e.getMessage());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || isComplete()) {
+            return;
+        }
+        Thread runner = new Thread(() -> {
+            try {
+                migrate();
+            } catch (Exception e) {
+                LOG.error("PublishedIndex migration failed; restart to resume from its checkpoint", e);
+            }
+        }, "published-index-migration");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    /**
+     * Whether PublishedIndex exists and holds every published list.
+     * Until then, {@link LinkService} reads published lists with a scan.
+     */
+    public boolean isComplete() {
+        if (complete) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextStatusCheck) {
+            nextStatusCheck = now + STATUS_RECHECK_MS;
+            try {
+                MigrationCheckpoint marker = checkpointTable.getItem(r -> r.key(k -> k.partitionValue(MIGRATION_ID)));
+                complete = marker != null && Boolean.TRUE.equals(marker.getDone());
+            } catch (Exception e) {
+                LOG.warn("Could not read PublishedIndex migration status: " + e.getMessage());
+            }
+        }
+        return complete;
+    }
+
+    void migrate() throws InterruptedException {
+        createIndexIfMissing();
+        awaitIndexActive();
+        if (backfill()) {
+            complete = true;
+            LOG.info("PublishedIndex migration complete");
+        }
+    }
+
+    /**
+     * Add PublishedIndex to a table that was created without it.
+     */
+    void createIndexIfMissing() {
+        TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(LISTS_TABLE)).table();
+        if (publishedIndex(table).isPresent()) {
+            return;
+        }
+        CreateGlobalSecondaryIndexAction.Builder create = CreateGlobalSecondaryIndexAction.builder()
+            .indexName(LinkService.PUBLISHED_INDEX)
+            .keySchema(
+                KeySchemaElement.builder().attributeName("publishedPartition").keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName("updatedAt").keyType(KeyType.RANGE).build())
+            .projection(Projection.builder().projectionType(ProjectionType.ALL).build());
+        boolean onDemand = table.billingModeSummary() != null
+            && table.billingModeSummary().billingMode() == BillingMode.PAY_PER_REQUEST;
+        if (!onDemand) {
+            // A provisioned table needs throughput for the new index; give it the table's own
+            ProvisionedThroughputDescription throughput = table.provisionedThroughput();
+            create.provisionedThroughput(ProvisionedThroughput.builder()
+                .readCapacityUnits(throughput.readCapacityUnits())
+                .writeCapacityUnits(throughput.writeCapacityUnits())
+                .build());
+        }
+        try {
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                .tableName(LISTS_TABLE)
+                .attributeDefinitions(
+                    AttributeDefinition.builder().attributeName("publishedPartition").attributeType(ScalarAttributeType.S).build(),
+                    AttributeDefinition.builder().attributeName("updatedAt").attributeType(ScalarAttributeType.S).build())
+                .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder().create(create.build()).build())
+                .build());
+            LOG.info("Creating PublishedIndex on the Lists table");
+        } catch (ResourceInUseException e) {
+            LOG.debug("Lists table is already being updated (another instance may be creating the index)");
+        }
+    }
+
+    private void awaitIndexActive() throws InterruptedException {
+        while (true) {
+            TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(LISTS_TABLE)).table();
+            Optional<GlobalSecondaryIndexDescription> index = publishedIndex(table);
+            if (index.isPresent() && index.get().indexStatus() == IndexStatus.ACTIVE) {
+                return;
+            }
+            LOG.debugf("Waiting for PublishedIndex to become active (%s)",
+                index.map(GlobalSecondaryIndexDescription::indexStatusAsString).orElse("not created"));
+            TimeUnit.MILLISECONDS.sleep(INDEX_POLL_MS);
+        }
+    }
+
+    private static Optional<GlobalSecondaryIndexDescription> publishedIndex(TableDescription table) {
+        if (!table.hasGlobalSecondaryIndexes()) {
+            return Optional.empty();
+        }
+        return table.globalSecondaryIndexes().stream()
+            .filter(index -> LinkService.PUBLISHED_INDEX.equals(index.indexName()))
+            .findFirst();
+    }
+
+    /**
+     * Stamp publishedPartition on published lists saved before PublishedIndex, resuming from the checkpoint.
+     *
+     * @return true once every page has been processed
+     */
+    boolean backfill() {
+        MigrationCheckpoint checkpoint = checkpointTable.getItem(r -> r.key(k -> k.partitionValue(MIGRATION_ID)));
+        if (checkpoint == null) {
+            checkpoint = new MigrationCheckpoint();
+            checkpoint.setId(MIGRATION_ID);
+            checkpoint.setTotalSegments(1);
+            checkpoint.setItemsCopied(0L);
+            checkpoint.setDone(false);
+        }
+        if (Boolean.TRUE.equals(checkpoint.getDone())) {
+            return true;
+        }
+
+        Map<String, AttributeValue> startKey = PageCursor.decode(checkpoint.getLastEvaluatedKey());
+        while (!Thread.currentThread().isInterrupted()) {
+            ScanResponse page = dynamoDbClient.scan(ScanRequest.builder()
+                .tableName(LISTS_TABLE)
+                .filterExpression("published = :true AND attribute_not_exists(publishedPartition)")
+                .projectionExpression("id, createdAt")
+                .expressionAttributeValues(Map.of(":true", AttributeValue.builder().bool(true).build()))
+                .limit(SCAN_PAGE_SIZE)
+                .exclusiveStartKey(startKey)
+                .build());
+
+            long stamped = 0;
+            for (Map<String, AttributeValue> item : page.items()) {
+                if (stamp(item.get("id"), item.get("createdAt"))) {
+                    stamped++;
+                }
+            }
+
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+            checkpoint.setLastEvaluatedKey(PageCursor.encode(startKey));
+            checkpoint.setItemsCopied(checkpoint.getItemsCopied() + stamped);
+            checkpoint.setDone(startKey == null);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointTable.putItem(checkpoint);
+
+            if (startKey == null) {
+                LOG.infof("PublishedIndex backfill done (%d lists stamped)", checkpoint.getItemsCopied());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Put one list into PublishedIndex, unless it was unpublished since the scan read it.
+     */
+    private boolean stamp(AttributeValue id, AttributeValue createdAt) {
+        // The index sort key is updatedAt; very old lists may only have createdAt, or not even that,
+        // and a list without updatedAt would be left out of the index
+        AttributeValue sortKey = createdAt != null && createdAt.s() != null
+            ? createdAt
+            : AttributeValue.builder().s(MISSING_SORT_KEY.toString()).build();
+        try {
+            dynamoDbClient.updateItem(r -> r
+                .tableName(LISTS_TABLE)
+                .key(Map.of("id", id))
+                .updateExpression("SET publishedPartition = :partition, updatedAt = if_not_exists(updatedAt, :sortKey)")
+                .conditionExpression("published = :true")
+                .expressionAttributeValues(Map.of(
+                    ":partition", AttributeValue.builder().s(LinkService.PUBLISHED_PARTITION).build(),
+                    ":sortKey", sortKey,
+                    ":true", AttributeValue.builder().bool(true).build())));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+}
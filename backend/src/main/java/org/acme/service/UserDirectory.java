@@ -0,0 +1,199 @@
+package org.acme.service;
+
+import org.acme.graphql.model.CognitoUserView;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the Cognito user pool, indexed by username and presorted by every sort field.
+ * <p>
+ * Each field's array is sorted once when the snapshot is built; a page is then a slice of it, read
+ * backwards for descending order. {@link #with} and {@link #without} return a new snapshot with one
+ * user replaced or removed: the user is taken out of and put back into each array at its binary-search
+ * position, so a change costs an array copy per field instead of a sort. Views held by a snapshot are
+ * never modified; a change always brings a new view.
+ * <p>
+ * Every snapshot also has its own {@link UserSearchIndex} over the username order, so searches always see
+ * the same users as listings. It is built on the snapshot's first search, so a burst of changes between
+ * searches does not rebuild it for every intermediate snapshot.
+ */
+final class UserDirectory {
+
+    static final String DEFAULT_SORT_FIELD = "username";
+
+    private static final Map<String, Comparator<CognitoUserView>> COMPARATORS = comparators();
+
+    private final Map<String, CognitoUserView> byUsername;
+    private final Map<String, CognitoUserView[]> sorted;
+    private volatile UserSearchIndex searchIndex;
+    private final long loadedAt;
+
+    private UserDirectory(Map<String, CognitoUserView> byUsername, Map<String, CognitoUserView[]> sorted, long loadedAt) {
+        this.byUsername = byUsername;
+        this.sorted = sorted;
+        this.loadedAt = loadedAt;
+    }
+
+    static UserDirectory of(List<CognitoUserView> users, long loadedAt) {
+        Map<String, CognitoUserView> byUsername = new HashMap<>(Math.max(16, users.size() * 4 / 3 + 1));
+        for (CognitoUserView user : users) {
+            byUsername.put(user.getUsername(), user);
+        }
+        CognitoUserView[] unique = byUsername.values().toArray(new CognitoUserView[0]);
+        Map<String, CognitoUserView[]> sorted = new HashMap<>();
+        COMPARATORS.forEach((field, comparator) -> {
+            CognitoUserView[] array = unique.clone();
+            Arrays.sort(array, comparator);
+            sorted.put(field, array);
+        });
+        return new UserDirectory(Collections.unmodifiableMap(byUsername), sorted, loadedAt);
+    }
+
+    /**
+     * The sort field a {@code sortBy} argument refers to; unknown or missing fields sort by username.
+     */
+    static String sortField(String sortBy) {
+        String field = sortBy == null ? DEFAULT_SORT_FIELD : sortBy.trim().toLowerCase(Locale.ROOT);
+        return COMPARATORS.containsKey(field) ? field : DEFAULT_SORT_FIELD;
+    }
+
+    int size() {
+        return byUsername.size();
+    }
+
+    long loadedAt() {
+        return loadedAt;
+    }
+
+    CognitoUserView get(String username) {
+        return byUsername.get(username);
+    }
+
+    /**
+     * Up to {@code count} users starting at {@code from} in the given order.
+     */
+    List<CognitoUserView> page(String field, boolean descending, int from, int count) {
+        CognitoUserView[] array = sorted.get(sortField(field));
+        int start = Math.min(from, array.length);
+        int end = Math.min(start + count, array.length);
+        CognitoUserView[] page = new CognitoUserView[end - start];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = descending ? array[array.length - 1 - start - i] : array[start + i];
+        }
+        return List.of(page);
+    }
+
+    /**
+     * Users matching a search prefix, in username order, starting after the user named {@code afterUsername}
+     * (who need not exist any more).
+     */
+    UserSearchIndex.Matches search(String query, String afterUsername, int limit) {
+        int from = 0;
+        if (afterUsername != null) {
+            CognitoUserView[] array = sorted.get(DEFAULT_SORT_FIELD);
+            CognitoUserView probe = new CognitoUserView();
+            probe.setUsername(afterUsername);
+            int index = Arrays.binarySearch(array, probe, COMPARATORS.get(DEFAULT_SORT_FIELD));
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        return searchIndex().search(query, from, limit);
+    }
+
+    private UserSearchIndex searchIndex() {
+        UserSearchIndex index = searchIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = searchIndex;
+                if (index == null) {
+                    index = UserSearchIndex.build(sorted.get(DEFAULT_SORT_FIELD));
+                    searchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * A copy of this snapshot with {@code user} added, or replacing the user with the same username.
+     */
+    UserDirectory with(CognitoUserView user) {
+        CognitoUserView previous = byUsername.get(user.getUsername());
+        Map<String, CognitoUserView> users = new HashMap<>(byUsername);
+        users.put(user.getUsername(), user);
+        Map<String, CognitoUserView[]> arrays = new HashMap<>();
+        sorted.forEach((field, array) -> {
+            Comparator<CognitoUserView> comparator = COMPARATORS.get(field);
+            arrays.put(field, insert(previous == null ? array : remove(array, previous, comparator), user, comparator));
+        });
+        return new UserDirectory(Collections.unmodifiableMap(users), arrays, loadedAt);
+    }
+
+    /**
+     * A copy of this snapshot without the given user; this snapshot if there is no such user.
+     */
+    UserDirectory without(String username) {
+        CognitoUserView previous = byUsername.get(username);
+        if (previous == null) {
+            return this;
+        }
+        Map<String, CognitoUserView> users = new HashMap<>(byUsername);
+        users.remove(username);
+        Map<String, CognitoUserView[]> arrays = new HashMap<>();
+        sorted.forEach((field, array) -> arrays.put(field, remove(array, previous, COMPARATORS.get(field))));
+        return new UserDirectory(Collections.unmodifiableMap(users), arrays, loadedAt);
+    }
+
+    private static CognitoUserView[] remove(CognitoUserView[] array, CognitoUserView user, Comparator<CognitoUserView> comparator) {
+        int index = Arrays.binarySearch(array, user, comparator);
+        if (index < 0) {
+            return array;
+        }
+        CognitoUserView[] result = new CognitoUserView[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    private static CognitoUserView[] insert(CognitoUserView[] array, CognitoUserView user, Comparator<CognitoUserView> comparator) {
+        int index = Arrays.binarySearch(array, user, comparator);
+        int at = index < 0 ? -index - 1 : index;
+        CognitoUserView[] result = new CognitoUserView[array.length + 1];
+        System.arraycopy(array, 0, result, 0, at);
+        result[at] = user;
+        System.arraycopy(array, at, result, at + 1, array.length - at);
+        return result;
+    }
+
+    private static Map<String, Comparator<CognitoUserView>> comparators() {
+        Map<String, Comparator<CognitoUserView>> comparators = new LinkedHashMap<>();
+        comparators.put("username", Comparator.comparing(user -> safe(user.getUsername())));
+        comparators.put("email", Comparator.comparing(user -> safe(user.getEmail())));
+        comparators.put("status", Comparator.comparing(user -> safe(user.getStatus())));
+        comparators.put("confirmationstatus", Comparator.comparing(user -> safe(user.getConfirmationStatus())));
+        comparators.put("emailverified", Comparator.comparing(CognitoUserView::isEmailVerified));
+        comparators.put("created", Comparator.comparing(user -> safeInstant(user.getCreated())));
+        comparators.put("lastupdatedtime", Comparator.comparing(user -> safeInstant(user.getLastUpdatedTime())));
+        comparators.put("modified", Comparator.comparing(user -> safeInstant(user.getModified())));
+        comparators.put("mfasetting", Comparator.comparing(user -> safe(user.getMfaSetting())));
+        comparators.put("enabled", Comparator.comparing(CognitoUserView::isEnabled));
+        // Usernames are unique, so breaking ties on them makes every order total and binary search exact
+        comparators.replaceAll((field, comparator) -> comparator.thenComparing(CognitoUserView::getUsername));
+        return Collections.unmodifiableMap(comparators);
+    }
+
+    private static String safe(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Instant safeInstant(Instant value) {
+        return value == null ? Instant.EPOCH : value;
+    }
+}
@@ -0,0 +1,136 @@
+package org.acme.service;
+
+import org.acme.graphql.model.CognitoUserView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive prefix index over the usernames, emails, email domains and groups of a
+ * {@link UserDirectory} snapshot.
+ * <p>
+ * Users are numbered by their position in username order. Username and email keys live in one sorted
+ * array with the owning user's number alongside, so a prefix is a binary search followed by a scan of
+ * the matching run. Groups have few distinct names and many members, so each group keeps a member
+ * bitset instead. Matches are gathered in a {@link BitSet}, which removes duplicates and yields users in
+ * username order for paging.
+ */
+final class UserSearchIndex {
+
+    record Matches(List<CognitoUserView> items, int total, boolean hasMore) {
+    }
+
+    private final CognitoUserView[] users;
+    private final String[] keys;
+    private final int[] owners;
+    private final String[] groupKeys;
+    private final BitSet[] groupMembers;
+
+    private UserSearchIndex(CognitoUserView[] users, String[] keys, int[] owners, String[] groupKeys, BitSet[] groupMembers) {
+        this.users = users;
+        this.keys = keys;
+        this.owners = owners;
+        this.groupKeys = groupKeys;
+        this.groupMembers = groupMembers;
+    }
+
+    /**
+     * @param users every user, in username order
+     */
+    static UserSearchIndex build(CognitoUserView[] users) {
+        List<Key> entries = new ArrayList<>(users.length * 3);
+        Map<String, BitSet> groups = new TreeMap<>();
+        for (int i = 0; i < users.length; i++) {
+            CognitoUserView user = users[i];
+            addKey(entries, user.getUsername(), i);
+            String email = normalize(user.getEmail());
+            if (!email.isEmpty()) {
+                entries.add(new Key(email, i));
+                int at = email.indexOf('@');
+                if (at >= 0 && at + 1 < email.length()) {
+                    entries.add(new Key(email.substring(at + 1), i));
+                }
+            }
+            if (user.getGroups() != null) {
+                for (String group : user.getGroups()) {
+                    String key = normalize(group);
+                    if (!key.isEmpty()) {
+                        groups.computeIfAbsent(key, k -> new BitSet(users.length)).set(i);
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(Key::key).thenComparingInt(Key::owner));
+
+        String[] keys = new String[entries.size()];
+        int[] owners = new int[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).key();
+            owners[i] = entries.get(i).owner();
+        }
+        return new UserSearchIndex(users, keys, owners,
+            groups.keySet().toArray(new String[0]), groups.values().toArray(new BitSet[0]));
+    }
+
+    private static void addKey(List<Key> entries, String value, int owner) {
+        String key = normalize(value);
+        if (!key.isEmpty()) {
+            entries.add(new Key(key, owner));
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Users with a username, email, email domain or group starting with {@code query}, in username order.
+     * A blank query matches everyone.
+     *
+     * @param from  first position (in username order) to return
+     * @param limit maximum number of users to return
+     */
+    Matches search(String query, int from, int limit) {
+        String prefix = normalize(query);
+        BitSet matches = new BitSet(users.length);
+        if (prefix.isEmpty()) {
+            matches.set(0, users.length);
+        } else {
+            for (int i = lowerBound(keys, prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+                matches.set(owners[i]);
+            }
+            for (int g = lowerBound(groupKeys, prefix); g < groupKeys.length && groupKeys[g].startsWith(prefix); g++) {
+                matches.or(groupMembers[g]);
+            }
+        }
+
+        List<CognitoUserView> items = new ArrayList<>(Math.min(limit, 64));
+        int next = matches.nextSetBit(Math.max(0, from));
+        while (next >= 0 && items.size() < limit) {
+            items.add(users[next]);
+            next = matches.nextSetBit(next + 1);
+        }
+        return new Matches(items, matches.cardinality(), next >= 0);
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int index = Arrays.binarySearch(sorted, key);
+        if (index >= 0) {
+            // Step back to the first of several equal keys
+            while (index > 0 && sorted[index - 1].equals(key)) {
+                index--;
+            }
+            return index;
+        }
+        return -index - 1;
+    }
+
+    private record Key(String key, int owner) {
+    }
+}
@@ -0,0 +1,357 @@
+package org.acme.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.model.MigrationCheckpoint;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Online migration of the legacy id-keyed "Votes" table into the composite-key layout used by
+ * {@link VoteService} (partition {@code entityType#entityId}, sort {@code userId}).
+ *
+ * Runs at startup until it has finished; {@link VoteService} reads the legacy table only until then.
+ * The legacy table is read with a parallel scan; each segment writes a checkpoint after every page, so a
+ * restarted migration resumes from the last copied page. Each row is copied with a put conditioned on the
+ * (entity, user) row not existing yet, so a vote the application has written to the new table is never
+ * overwritten by its legacy copy, and instances running the migration side by side only repeat work.
+ * Every entity it copies gets a VoteAggregates row, so once it is done a missing aggregate means no votes.
+ */
+@ApplicationScoped
+public class VoteMigrationService {
+
+    private static final Logger LOG = Logger.getLogger(VoteMigrationService.class);
+    static final String LEGACY_TABLE = "Votes";
+    private static final String MIGRATION_ID = "votes-by-entity";
+    private static final int SCAN_PAGE_SIZE = 100;
+    private static final long STATUS_RECHECK_MS = 60_000;
+
+    @ConfigProperty(name = "app.votes-migration.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.votes-migration.segments", defaultValue = "4")
+    int segments;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private DynamoDbTable<MigrationCheckpoint> checkpointTable;
+    private ExecutorService executor;
+
+    private volatile boolean complete;
+    private volatile long nextStatusCheck;
+
+    // Shared by every migration that checkpoints into MigrationCheckpoints
+    @Inject
+    public VoteMigrationService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient) {
+        this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    @PostConstruct
+    void init() {
+        checkpointTable = enhancedClient.table(MigrationCheckpoints.TABLE, MigrationCheckpoints.SCHEMA);
+        try {
+            checkpointTable.createTable();
+        } catch (Exception e) {
+            LOG.debug("MigrationCheckpoints table creation skipped (may already exist): " + e.getMessage());
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled || isComplete()) {
+            return;
+        }
+        executor = Executors.newFixedThreadPool(Math.max(1, segments));
+        Thread runner = new Thread(this::migrate, "votes-migration");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether every legacy vote has been copied (or there is no legacy table).
+     * Until then, {@link VoteService} also consults the legacy table.
+     */
+    public boolean isComplete() {
+        if (complete) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= nextStatusCheck) {
+            nextStatusCheck = now + STATUS_RECHECK_MS;
+            try {
+                MigrationCheckpoint marker = checkpointTable.getItem(r -> r.key(k -> k.partitionValue(MIGRATION_ID)));
+                complete = (marker != null && Boolean.TRUE.equals(marker.getDone())) || !legacyTableExists();
+            } catch (Exception e) {
+                LOG.warn("Could not read vote migration status: " + e.getMessage());
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Copy all segments in parallel and record completion once every segment has finished.
+     */
+    void migrate() {
+        LOG.infof("Starting votes migration with %d scan segments", segments);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int segment = 0; segment < segments; segment++) {
+            int current = segment;
+            results.add(executor.submit(() -> migrateSegment(current)));
+        }
+
+        boolean allDone = true;
+        for (Future<Boolean> result : results) {
+            try {
+                allDone &= result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("Votes migration segment failed; restart to resume from its checkpoint", e);
+                allDone = false;
+            }
+        }
+
+        if (allDone) {
+            MigrationCheckpoint marker = new MigrationCheckpoint();
+            marker.setId(MIGRATION_ID);
+            marker.setTotalSegments(segments);
+            marker.setDone(true);
+            marker.setUpdatedAt(Instant.now());
+            checkpointTable.putItem(marker);
+            complete = true;
+            LOG.info("Votes migration complete");
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Copy one scan segment, resuming from its checkpoint.
+     *
+     * @return true if the segment has been copied completely
+     */
+    boolean migrateSegment(int segment) {
+        String checkpointId = MIGRATION_ID + "#" + segment;
+        MigrationCheckpoint checkpoint = checkpointTable.getItem(r -> r.key(k -> k.partitionValue(checkpointId)));
+        if (checkpoint == null) {
+            checkpoint = new MigrationCheckpoint();
+            checkpoint.setId(checkpointId);
+            checkpoint.setTotalSegments(segments);
+            checkpoint.setItemsCopied(0L);
+            checkpoint.setDone(false);
+        } else if (!Integer.valueOf(segments).equals(checkpoint.getTotalSegments())) {
+            throw new IllegalStateException("Votes migration was started with " + checkpoint.getTotalSegments()
+                + " segments; app.votes-migration.segments must not change while it is in progress");
+        }
+        if (Boolean.TRUE.equals(checkpoint.getDone())) {
+            return true;
+        }
+
+        Map<String, AttributeValue> startKey = PageCursor.decode(checkpoint.getLastEvaluatedKey());
+        while (!Thread.currentThread().isInterrupted()) {
+            ScanResponse page = dynamoDbClient.scan(ScanRequest.builder()
+                .tableName(LEGACY_TABLE)
+                .segment(segment)
+                .totalSegments(segments)
+                .limit(SCAN_PAGE_SIZE)
+                .exclusiveStartKey(startKey)
+                .build());
+
+            long copied = copy(page.items());
+
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+            checkpoint.setLastEvaluatedKey(PageCursor.encode(startKey));
+            checkpoint.setItemsCopied(checkpoint.getItemsCopied() + copied);
+            checkpoint.setDone(startKey == null);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointTable.putItem(checkpoint);
+
+            if (startKey == null) {
+                LOG.infof("Votes migration segment %d done (%d items copied)", segment, checkpoint.getItemsCopied());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy legacy rows to the new table with one conditional put each. A row that already exists there
+     * was written by the application (or copied earlier) and is at least as new as its legacy copy, so it is kept.
+     *
+     * @return the number of rows written
+     */
+    private long copy(List<Map<String, AttributeValue>> legacyItems) {
+        long written = 0;
+        // Keyed by entityKey: each entity on the page needs its aggregate checked once
+        Map<String, Map<String, AttributeValue>> entities = new LinkedHashMap<>();
+        for (Map<String, AttributeValue> legacy : legacyItems) {
+            Map<String, AttributeValue> item = toNewLayout(legacy);
+            if (item == null) {
+                continue;
+            }
+            entities.putIfAbsent(item.get(VoteService.ENTITY_KEY).s(), item);
+            if (putIfAbsent(item)) {
+                written++;
+            }
+        }
+        for (Map<String, AttributeValue> item : entities.values()) {
+            ensureAggregate(item.get("entityType").s(), item.get("entityId").s());
+        }
+        return written;
+    }
+
+    private static Map<String, AttributeValue> toNewLayout(Map<String, AttributeValue> legacy) {
+        AttributeValue entityType = legacy.get("entityType");
+        AttributeValue entityId = legacy.get("entityId");
+        if (entityType == null || entityId == null || !legacy.containsKey(VoteService.USER_ID)) {
+            LOG.warnf("Skipping malformed legacy vote %s", legacy.get("id"));
+            return null;
+        }
+        Map<String, AttributeValue> item = new LinkedHashMap<>(legacy);
+        item.put(VoteService.ENTITY_KEY, AttributeValue.builder()
+            .s(VoteService.entityKey(entityType.s(), entityId.s())).build());
+        return item;
+    }
+
+    private boolean putIfAbsent(Map<String, AttributeValue> item) {
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(VoteService.VOTES_TABLE)
+                .item(item)
+                .conditionExpression("attribute_not_exists(userId)")
+                .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private void ensureAggregate(String entityType, String entityId) {
+        GetItemResponse existing = dynamoDbClient.getItem(GetItemRequest.builder()
+            .tableName(VoteService.AGGREGATES_TABLE)
+            .key(Map.of(VoteService.ENTITY_KEY, s(VoteService.entityKey(entityType, entityId))))
+            .projectionExpression(VoteService.ENTITY_KEY)
+            .build());
+        if (!existing.hasItem() || existing.item().isEmpty()) {
+            buildAggregate(entityType, entityId);
+        }
+    }
+
+    /**
+     * Build the aggregate for an entity whose votes predate it, from its copied and not yet copied rows.
+     * Until the migration is complete, vote writes cannot succeed while the aggregate is missing, so the
+     * rows read here are complete; if another caller builds it first, its identical result is kept.
+     */
+    void buildAggregate(String entityType, String entityId) {
+        Map<String, Integer> ratingsByUser = new HashMap<>();
+        queryAll(QueryRequest.builder()
+            .tableName(LEGACY_TABLE)
+            .indexName("EntityIndex")
+            .keyConditionExpression("entityId = :entityId")
+            .expressionAttributeValues(Map.of(":entityId", s(entityId))),
+            item -> {
+                AttributeValue type = item.get("entityType");
+                if (type != null && entityType.equals(type.s())) {
+                    ratingsByUser.put(item.get(VoteService.USER_ID).s(), rating(item));
+                }
+            });
+        // A row in the new table is the user's current vote and replaces their legacy one
+        queryAll(QueryRequest.builder()
+            .tableName(VoteService.VOTES_TABLE)
+            .keyConditionExpression("entityKey = :entityKey")
+            .expressionAttributeValues(Map.of(":entityKey", s(VoteService.entityKey(entityType, entityId)))),
+            item -> ratingsByUser.put(item.get(VoteService.USER_ID).s(), rating(item)));
+
+        long[] stars = new long[6]; // index 0 unused, 1-5 for star ratings
+        long sum = 0;
+        long count = 0;
+        for (int r : ratingsByUser.values()) {
+            if (r >= 1 && r <= 5) {
+                stars[r]++;
+                sum += r;
+                count++;
+            }
+        }
+        Map<String, AttributeValue> aggregate = new HashMap<>();
+        aggregate.put(VoteService.ENTITY_KEY, s(VoteService.entityKey(entityType, entityId)));
+        aggregate.put("ratingSum", n(sum));
+        aggregate.put("voteCount", n(count));
+        for (int r = 1; r <= 5; r++) {
+            aggregate.put("stars" + r, n(stars[r]));
+        }
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(VoteService.AGGREGATES_TABLE)
+                .item(aggregate)
+                .conditionExpression("attribute_not_exists(entityKey)")
+                .build());
+        } catch (ConditionalCheckFailedException e) {
+            LOG.debugf("Vote aggregate for %s %s was built concurrently", entityType, entityId);
+        }
+    }
+
+    private void queryAll(QueryRequest.Builder request, Consumer<Map<String, AttributeValue>> action) {
+        Map<String, AttributeValue> startKey = null;
+        do {
+            QueryResponse page = dynamoDbClient.query(request.exclusiveStartKey(startKey).build());
+            page.items().forEach(action);
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+        } while (startKey != null);
+    }
+
+    private static int rating(Map<String, AttributeValue> item) {
+        AttributeValue rating = item.get("rating");
+        return rating != null && rating.n() != null ? Integer.parseInt(rating.n()) : 0;
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue n(long value) {
+        return AttributeValue.builder().n(Long.toString(value)).build();
+    }
+
+    private boolean legacyTableExists() {
+        try {
+            dynamoDbClient.describeTable(r -> r.tableName(LEGACY_TABLE));
+            return true;
+        } catch (ResourceNotFoundException e) {
+            return false;
+        }
+    }
+}
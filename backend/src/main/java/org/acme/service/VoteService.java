@@ -6,6 +6,7 @@ import jakarta.inject.Inject;
 import org.acme.graphql.model.VoteAnalytics;
 import org.acme.graphql.model.VoteStats;
 import org.acme.model.Vote;
+import org.acme.model.VoteAggregate;
 import org.jboss.logging.Logger;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
@@ -13,29 +14,83 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
 import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
 
 @ApplicationScoped
 public class VoteService {
 
     private static final Logger LOG = Logger.getLogger(VoteService.class);
+    static final String VOTES_TABLE = "VotesByEntity";
+    static final String ENTITY_KEY = "entityKey";
+    static final String USER_ID = "userId";
+    static final String AGGREGATES_TABLE = "VoteAggregates";
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    // BatchGetItem takes at most 100 keys: one aggregate plus one caller vote per entity
+    private static final int BATCH_ENTITIES = 50;
+    private static final int MAX_BATCH_READ_ATTEMPTS = 5;
+
     private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private final VoteMigrationService migration;
     private DynamoDbTable<Vote> voteTable;
-    private DynamoDbIndex<Vote> entityIndex;
+    private DynamoDbIndex<Vote> legacyEntityIndex;
+    private DynamoDbTable<VoteAggregate> aggregateTable;
 
     @Inject
-    public VoteService(DynamoDbEnhancedClient enhancedClient) {
+    public VoteService(DynamoDbEnhancedClient enhancedClient, DynamoDbClient dynamoDbClient,
+                       VoteMigrationService migration) {
         this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.migration = migration;
     }
 
+    // One row per (entity, user): findVote is a GetItem and a re-vote overwrites the same item
     private static final TableSchema<Vote> VOTE_SCHEMA = TableSchema.builder(Vote.class)
+        .newItemSupplier(Vote::new)
+        .addAttribute(String.class, a -> a.name(ENTITY_KEY)
+            .getter(v -> entityKey(v.getEntityType(), v.getEntityId()))
+            .setter((v, k) -> { })
+            .tags(primaryPartitionKey()))
+        .addAttribute(String.class, a -> a.name(USER_ID)
+            .getter(Vote::getUserId).setter(Vote::setUserId).tags(primarySortKey()))
+        .addAttribute(String.class, a -> a.name("id")
+            .getter(Vote::getId).setter(Vote::setId))
+        .addAttribute(String.class, a -> a.name("entityType")
+            .getter(Vote::getEntityType).setter(Vote::setEntityType))
+        .addAttribute(String.class, a -> a.name("entityId")
+            .getter(Vote::getEntityId).setter(Vote::setEntityId))
+        .addAttribute(Integer.class, a -> a.name("rating")
+            .getter(Vote::getRating).setter(Vote::setRating))
+        .addAttribute(Instant.class, a -> a.name("createdAt")
+            .getter(Vote::getCreatedAt).setter(Vote::setCreatedAt))
+        .addAttribute(Instant.class, a -> a.name("updatedAt")
+            .getter(Vote::getUpdatedAt).setter(Vote::setUpdatedAt))
+        .build();
+
+    // Original id-keyed layout, read only until VoteMigrationService has copied it
+    private static final TableSchema<Vote> LEGACY_VOTE_SCHEMA = TableSchema.builder(Vote.class)
         .newItemSupplier(Vote::new)
         .addAttribute(String.class, a -> a.name("id")
             .getter(Vote::getId).setter(Vote::setId).tags(primaryPartitionKey()))
@@ -54,115 +109,307 @@ public class VoteService {
             .getter(Vote::getUpdatedAt).setter(Vote::setUpdatedAt))
         .build();
 
+    private static final TableSchema<VoteAggregate> AGGREGATE_SCHEMA = TableSchema.builder(VoteAggregate.class)
+        .newItemSupplier(VoteAggregate::new)
+        .addAttribute(String.class, a -> a.name(ENTITY_KEY)
+            .getter(VoteAggregate::getEntityKey).setter(VoteAggregate::setEntityKey).tags(primaryPartitionKey()))
+        .addAttribute(Long.class, a -> a.name("ratingSum")
+            .getter(VoteAggregate::getRatingSum).setter(VoteAggregate::setRatingSum))
+        .addAttribute(Long.class, a -> a.name("voteCount")
+            .getter(VoteAggregate::getVoteCount).setter(VoteAggregate::setVoteCount))
+        .addAttribute(Long.class, a -> a.name("stars1")
+            .getter(VoteAggregate::getStars1).setter(VoteAggregate::setStars1))
+        .addAttribute(Long.class, a -> a.name("stars2")
+            .getter(VoteAggregate::getStars2).setter(VoteAggregate::setStars2))
+        .addAttribute(Long.class, a -> a.name("stars3")
+            .getter(VoteAggregate::getStars3).setter(VoteAggregate::setStars3))
+        .addAttribute(Long.class, a -> a.name("stars4")
+            .getter(VoteAggregate::getStars4).setter(VoteAggregate::setStars4))
+        .addAttribute(Long.class, a -> a.name("stars5")
+            .getter(VoteAggregate::getStars5).setter(VoteAggregate::setStars5))
+        .build();
+
     @PostConstruct
     void init() {
-        voteTable = enhancedClient.table("Votes", VOTE_SCHEMA);
-        entityIndex = voteTable.index("EntityIndex");
+        voteTable = enhancedClient.table(VOTES_TABLE, VOTE_SCHEMA);
+        // The legacy table is never created here; new installs only ever use VotesByEntity
+        legacyEntityIndex = enhancedClient.table(VoteMigrationService.LEGACY_TABLE, LEGACY_VOTE_SCHEMA).index("EntityIndex");
+        aggregateTable = enhancedClient.table(AGGREGATES_TABLE, AGGREGATE_SCHEMA);
         try {
             voteTable.createTable();
         } catch (Exception e) {
-            LOG.debug("Votes table creation skipped (may already exist): " + e.getMessage());
+            LOG.debug("VotesByEntity table creation skipped (may already exist): " + e.getMessage());
+        }
+        try {
+            aggregateTable.createTable();
+        } catch (Exception e) {
+            LOG.debug("VoteAggregates table creation skipped (may already exist): " + e.getMessage());
         }
     }
 
     /**
      * Create or update a vote. Returns updated vote stats.
+     * The vote row and the entity's aggregate counters are written in one transaction. A first vote
+     * needs no read; a re-vote learns the previous rating from the failed insert condition.
+     * Once the votes migration is complete, the first vote for an entity creates its aggregate.
      */
     public VoteStats vote(String entityType, String entityId, String userId, int rating) {
         if (rating < 1 || rating > 5) {
             throw new IllegalArgumentException("Rating must be between 1 and 5");
         }
 
-        Vote existing = findVote(entityType, entityId, userId);
+        boolean migrated = migration.isComplete();
+        // Row currently stored in the new table, learned from a failed condition check
+        Vote current = null;
+        // A not-yet-migrated legacy vote is already counted in the aggregate and must be replaced, not added
+        Vote legacy = migrated ? null : findLegacyVote(entityType, entityId, userId);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeVote(entityType, entityId, userId, rating, current != null ? current : legacy, current != null,
+                    !migrated);
+                break;
+            } catch (TransactionCanceledException e) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw e;
+                }
+                // Index 1 is the aggregate update: it only fails when the aggregate does not exist yet
+                if (isConditionFailure(e, 1)) {
+                    migration.buildAggregate(entityType, entityId);
+                }
+                // Index 0 fails when the stored vote differs from what we assumed; retry against it
+                if (isConditionFailure(e, 0)) {
+                    current = storedVote(e);
+                }
+                LOG.debugf("Vote write for %s %s retried (attempt %d)", entityType, entityId, attempt);
+            }
+        }
+
+        return getVoteStats(entityType, entityId, userId);
+    }
+
+    /**
+     * @param previous  the vote currently counted in the aggregate, or null for a first vote
+     * @param rowExists whether {@code previous} is stored in the new table (rather than only in the legacy one)
+     * @param aggregateMustExist whether the entity may have uncounted legacy votes, so its aggregate must be
+     *                           built from them rather than created by this vote
+     */
+    private void writeVote(String entityType, String entityId, String userId, int rating,
+                           Vote previous, boolean rowExists, boolean aggregateMustExist) {
         Instant now = Instant.now();
+        Integer previousRating = previous != null ? previous.getRating() : null;
+
+        Vote vote = new Vote();
+        vote.setId(previous != null ? previous.getId() : UUID.randomUUID().toString());
+        vote.setEntityType(entityType);
+        vote.setEntityId(entityId);
+        vote.setUserId(userId);
+        vote.setRating(rating);
+        vote.setCreatedAt(previous != null ? previous.getCreatedAt() : now);
+        vote.setUpdatedAt(now);
 
-        if (existing != null) {
-            existing.setRating(rating);
-            existing.setUpdatedAt(now);
-            voteTable.updateItem(existing);
+        // Idempotent put of the (entity, user) row, guarded so the aggregate delta matches what it replaces
+        Put.Builder put = Put.builder()
+            .tableName(VOTES_TABLE)
+            .item(VOTE_SCHEMA.itemToMap(vote, true))
+            .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD);
+        if (!rowExists) {
+            put.conditionExpression("attribute_not_exists(userId)");
         } else {
-            Vote vote = new Vote();
-            vote.setId(UUID.randomUUID().toString());
-            vote.setEntityType(entityType);
-            vote.setEntityId(entityId);
-            vote.setUserId(userId);
-            vote.setRating(rating);
-            vote.setCreatedAt(now);
-            vote.setUpdatedAt(now);
-            voteTable.putItem(vote);
+            put.conditionExpression("rating = :previous")
+                .expressionAttributeValues(Map.of(":previous", number(previousRating)));
         }
 
-        return getVoteStats(entityType, entityId, userId);
+        List<TransactWriteItem> writes = new ArrayList<>(2);
+        writes.add(TransactWriteItem.builder().put(put.build()).build());
+        if (previousRating == null || previousRating != rating) {
+            writes.add(TransactWriteItem.builder()
+                .update(aggregateUpdate(entityType, entityId, rating, previousRating, aggregateMustExist)).build());
+        }
+        dynamoDbClient.transactWriteItems(r -> r.transactItems(writes));
+    }
+
+    private static Vote storedVote(TransactionCanceledException e) {
+        Map<String, AttributeValue> item = e.cancellationReasons().get(0).item();
+        return item == null || item.isEmpty() ? null : VOTE_SCHEMA.mapToItem(item);
+    }
+
+    /**
+     * Build the ADD expression that applies one vote (or a rating change) to the entity's counters.
+     * ADD creates a missing aggregate; while legacy votes may still be uncounted, the aggregate must
+     * already exist instead, so a freshly created one never misses older votes.
+     */
+    private static Update aggregateUpdate(String entityType, String entityId, int rating, Integer previousRating,
+                                          boolean mustExist) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":one", number(1));
+        String expression;
+        if (previousRating == null) {
+            values.put(":rating", number(rating));
+            expression = "ADD voteCount :one, ratingSum :rating, stars" + rating + " :one";
+        } else {
+            values.put(":delta", number(rating - previousRating));
+            values.put(":minusOne", number(-1));
+            expression = "ADD ratingSum :delta, stars" + rating + " :one, stars" + previousRating + " :minusOne";
+        }
+        Update.Builder update = Update.builder()
+            .tableName(AGGREGATES_TABLE)
+            .key(Map.of(ENTITY_KEY, AttributeValue.builder().s(entityKey(entityType, entityId)).build()))
+            .updateExpression(expression)
+            .expressionAttributeValues(values);
+        if (mustExist) {
+            update.conditionExpression("attribute_exists(entityKey)");
+        }
+        return update.build();
     }
 
     /**
      * Get vote statistics for an entity, including the current user's rating.
      */
     public VoteStats getVoteStats(String entityType, String entityId, String userId) {
-        List<Vote> votes = getVotesForEntity(entityType, entityId);
+        VoteAggregate aggregate = getAggregate(entityType, entityId);
+        long count = valueOf(aggregate.getVoteCount());
 
-        if (votes.isEmpty()) {
+        if (count == 0) {
             return new VoteStats(0.0, 0, null);
         }
 
-        double avg = votes.stream()
-            .mapToInt(Vote::getRating)
-            .average()
-            .orElse(0.0);
+        return new VoteStats(average(aggregate), (int) count, userRating(entityType, entityId, userId));
+    }
 
-        // Round to 1 decimal
-        avg = Math.round(avg * 10.0) / 10.0;
+    /**
+     * Get vote statistics for many entities of one type, in the order of {@code entityIds}.
+     * Aggregates and the caller's votes are fetched together with BatchGetItem, so a page of
+     * entities costs one round trip per 50 entities instead of one query per entity.
+     * An entity without an aggregate has no votes (or, during the votes migration, none counted yet).
+     */
+    public List<VoteStats> getVoteStatsBatch(String entityType, List<String> entityIds, String userId) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(entityIds));
+        Map<String, VoteAggregate> aggregates = new HashMap<>();
+        Map<String, Vote> votes = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_ENTITIES) {
+            batchRead(entityType, ids.subList(from, Math.min(from + BATCH_ENTITIES, ids.size())), userId,
+                aggregates, votes);
+        }
 
-        Integer userRating = votes.stream()
-            .filter(v -> userId.equals(v.getUserId()))
-            .map(Vote::getRating)
-            .findFirst()
-            .orElse(null);
+        Map<String, VoteStats> statsById = new HashMap<>();
+        for (String entityId : ids) {
+            String key = entityKey(entityType, entityId);
+            VoteAggregate aggregate = aggregates.get(key);
+            VoteStats stats;
+            if (aggregate == null || valueOf(aggregate.getVoteCount()) == 0) {
+                stats = new VoteStats(0.0, 0, null);
+            } else {
+                Vote vote = votes.get(key);
+                if (vote == null && userId != null && !migration.isComplete()) {
+                    vote = findLegacyVote(entityType, entityId, userId);
+                }
+                stats = new VoteStats(average(aggregate), (int) valueOf(aggregate.getVoteCount()),
+                    vote != null ? vote.getRating() : null);
+            }
+            stats.setEntityId(entityId);
+            statsById.put(entityId, stats);
+        }
+        return entityIds.stream().map(statsById::get).toList();
+    }
 
-        return new VoteStats(avg, votes.size(), userRating);
+    private void batchRead(String entityType, List<String> entityIds, String userId,
+                           Map<String, VoteAggregate> aggregates, Map<String, Vote> votes) {
+        List<Map<String, AttributeValue>> aggregateKeys = new ArrayList<>(entityIds.size());
+        List<Map<String, AttributeValue>> voteKeys = new ArrayList<>(entityIds.size());
+        for (String entityId : entityIds) {
+            AttributeValue key = AttributeValue.builder().s(entityKey(entityType, entityId)).build();
+            aggregateKeys.add(Map.of(ENTITY_KEY, key));
+            if (userId != null) {
+                voteKeys.add(Map.of(ENTITY_KEY, key, USER_ID, AttributeValue.builder().s(userId).build()));
+            }
+        }
+        Map<String, KeysAndAttributes> pending = new HashMap<>();
+        pending.put(AGGREGATES_TABLE, KeysAndAttributes.builder().keys(aggregateKeys).build());
+        if (!voteKeys.isEmpty()) {
+            pending.put(VOTES_TABLE, KeysAndAttributes.builder().keys(voteKeys).build());
+        }
+
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > MAX_BATCH_READ_ATTEMPTS) {
+                throw new IllegalStateException("Vote stats batch read left keys unprocessed");
+            }
+            if (attempt > 1) {
+                backoff(attempt);
+            }
+            Map<String, KeysAndAttributes> request = pending;
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(r -> r.requestItems(request));
+            response.responses().getOrDefault(AGGREGATES_TABLE, List.of()).stream()
+                .map(AGGREGATE_SCHEMA::mapToItem)
+                .forEach(a -> aggregates.put(a.getEntityKey(), a));
+            response.responses().getOrDefault(VOTES_TABLE, List.of()).stream()
+                .map(VOTE_SCHEMA::mapToItem)
+                .forEach(v -> votes.put(entityKey(v.getEntityType(), v.getEntityId()), v));
+            pending = response.unprocessedKeys();
+        }
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(Math.min(1000L, 25L << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading vote stats", e);
+        }
     }
 
     /**
      * Get detailed vote analytics for an entity, including rating distribution.
      */
     public VoteAnalytics getVoteAnalytics(String entityType, String entityId, String userId) {
-        List<Vote> votes = getVotesForEntity(entityType, entityId);
+        VoteAggregate aggregate = getAggregate(entityType, entityId);
+        long count = valueOf(aggregate.getVoteCount());
 
         // Build rating distribution (1-5)
-        int[] counts = new int[6]; // index 0 unused, 1-5 for star ratings
-        for (Vote v : votes) {
-            int r = v.getRating();
-            if (r >= 1 && r <= 5) {
-                counts[r]++;
-            }
-        }
         List<VoteAnalytics.RatingEntry> distribution = new ArrayList<>(5);
         for (int i = 1; i <= 5; i++) {
-            distribution.add(new VoteAnalytics.RatingEntry(i, counts[i]));
+            distribution.add(new VoteAnalytics.RatingEntry(i, (int) starsFor(aggregate, i)));
         }
 
-        if (votes.isEmpty()) {
+        if (count == 0) {
             return new VoteAnalytics(0.0, 0, distribution, null);
         }
 
-        double avg = votes.stream()
-            .mapToInt(Vote::getRating)
-            .average()
-            .orElse(0.0);
-        avg = Math.round(avg * 10.0) / 10.0;
+        return new VoteAnalytics(average(aggregate), (int) count, distribution,
+            userRating(entityType, entityId, userId));
+    }
 
-        Integer userRating = votes.stream()
-            .filter(v -> userId.equals(v.getUserId()))
-            .map(Vote::getRating)
-            .findFirst()
-            .orElse(null);
+    /**
+     * Read an entity's aggregate; a missing one reads as no votes and is not created here.
+     */
+    private VoteAggregate getAggregate(String entityType, String entityId) {
+        VoteAggregate aggregate = aggregateTable.getItem(r -> r.key(k -> k.partitionValue(entityKey(entityType, entityId))));
+        if (aggregate == null) {
+            aggregate = new VoteAggregate();
+            aggregate.setEntityKey(entityKey(entityType, entityId));
+        }
+        return aggregate;
+    }
 
-        return new VoteAnalytics(avg, votes.size(), distribution, userRating);
+    private Integer userRating(String entityType, String entityId, String userId) {
+        Vote vote = findVote(entityType, entityId, userId);
+        return vote != null ? vote.getRating() : null;
     }
 
-    private List<Vote> getVotesForEntity(String entityType, String entityId) {
-        // Use EntityIndex GSI to query by entityId, then filter by entityType in memory
-        return entityIndex.query(QueryConditional.keyEqualTo(
+    private Vote findVote(String entityType, String entityId, String userId) {
+        Vote vote = voteTable.getItem(Key.builder()
+            .partitionValue(entityKey(entityType, entityId))
+            .sortValue(userId)
+            .build());
+        if (vote == null && !migration.isComplete()) {
+            return findLegacyVote(entityType, entityId, userId);
+        }
+        return vote;
+    }
+
+    private List<Vote> getLegacyVotesForEntity(String entityType, String entityId) {
+        // Use the legacy EntityIndex GSI to query by entityId, then filter by entityType in memory
+        return legacyEntityIndex.query(QueryConditional.keyEqualTo(
                 Key.builder().partitionValue(entityId).build()))
             .stream()
             .flatMap(page -> page.items().stream())
@@ -170,10 +417,44 @@ public class VoteService {
             .toList();
     }
 
-    private Vote findVote(String entityType, String entityId, String userId) {
-        return getVotesForEntity(entityType, entityId).stream()
+    private Vote findLegacyVote(String entityType, String entityId, String userId) {
+        return getLegacyVotesForEntity(entityType, entityId).stream()
             .filter(v -> userId.equals(v.getUserId()))
             .findFirst()
             .orElse(null);
     }
+
+    static String entityKey(String entityType, String entityId) {
+        return entityType + "#" + entityId;
+    }
+
+    private static double average(VoteAggregate aggregate) {
+        double avg = (double) valueOf(aggregate.getRatingSum()) / valueOf(aggregate.getVoteCount());
+        // Round to 1 decimal
+        return Math.round(avg * 10.0) / 10.0;
+    }
+
+    private static long starsFor(VoteAggregate aggregate, int rating) {
+        return valueOf(switch (rating) {
+            case 1 -> aggregate.getStars1();
+            case 2 -> aggregate.getStars2();
+            case 3 -> aggregate.getStars3();
+            case 4 -> aggregate.getStars4();
+            default -> aggregate.getStars5();
+        });
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static AttributeValue number(int value) {
+        return AttributeValue.builder().n(Integer.toString(value)).build();
+    }
+
+    private static boolean isConditionFailure(TransactionCanceledException e, int index) {
+        List<CancellationReason> reasons = e.cancellationReasons();
+        return reasons != null && reasons.size() > index
+            && CONDITIONAL_CHECK_FAILED.equals(reasons.get(index).code());
+    }
 }
@@ -91,6 +91,14 @@ public class NotificationWebSocket {
         }
     }
 
+    /**
+     * Whether the user has at least one open connection, so callers can skip building a payload nobody receives.
+     */
+    public static boolean isConnected(String userId) {
+        Set<WebSocketConnection> connections = USER_CONNECTIONS.get(userId);
+        return connections != null && !connections.isEmpty();
+    }
+
     /**
      * Get the number of connected users (for monitoring).
      */
@@ -2,6 +2,7 @@ package org.acme;
 
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import org.acme.graphql.model.PublishedListsPage;
 import org.acme.model.Link;
 import org.acme.model.LinkList;
 import org.acme.service.LinkService;
@@ -66,6 +67,37 @@ class LinkServiceIntegrationTest {
         assertFalse(publishedLists.stream().anyMatch(l -> l.getId().equals(unpublished.getId())));
     }
 
+    @Test
+    void testPublishedListsCursorPaging() {
+        String owner = "cursor-test-" + System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            LinkList list = linkService.createList(owner, "Cursor List " + i);
+            list.setPublished(true);
+            linkService.updateList(list);
+        }
+
+        PublishedListsPage first = linkService.getPublishedListsPage(2, null);
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getCursor());
+
+        PublishedListsPage second = linkService.getPublishedListsPage(2, first.getCursor());
+        assertFalse(second.getItems().isEmpty());
+        assertTrue(second.getItems().stream()
+            .noneMatch(l -> first.getItems().stream().anyMatch(f -> f.getId().equals(l.getId()))));
+    }
+
+    @Test
+    void testUnpublishedListLeavesPublishedIndex() {
+        LinkList list = linkService.createList("unpublish-user", "Briefly Public");
+        list.setPublished(true);
+        linkService.updateList(list);
+        assertTrue(linkService.getPublishedLists().stream().anyMatch(l -> l.getId().equals(list.getId())));
+
+        list.setPublished(false);
+        linkService.updateList(list);
+        assertFalse(linkService.getPublishedLists().stream().anyMatch(l -> l.getId().equals(list.getId())));
+    }
+
     @Test
     void testUpdateList() {
         LinkList list = linkService.createList("update-user", "Original Name");
@@ -0,0 +1,79 @@
+package org.acme;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.acme.service.FrontendLogAggregator;
+import org.acme.service.LogRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Anonymous log ingestion is rate limited per client address. Behind the ALB every request
+ * arrives from the load balancer, so the limiter must see the address from X-Forwarded-For.
+ * The test client connects from localhost, which is the trusted proxy in the test profile.
+ */
+@QuarkusTest
+class LogIngestionForwardingTest {
+
+    private static final String LOGS_ENDPOINT = "/api/v1/logs";
+    private static final String BODY = "[{\"level\":\"INFO\",\"message\":\"hello\",\"timestamp\":1}]";
+
+    @InjectMock
+    LogRateLimiter rateLimiter;
+
+    @InjectMock
+    FrontendLogAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        when(rateLimiter.sample(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(rateLimiter.tryAcquire(anyString(), anyInt())).thenReturn(0L);
+    }
+
+    @Test
+    void anonymousClientIsKeyedOnForwardedAddress() {
+        given()
+            .contentType(ContentType.JSON)
+            .header("X-Forwarded-For", "203.0.113.7")
+            .body(BODY)
+            .when().post(LOGS_ENDPOINT)
+            .then()
+                .statusCode(202);
+
+        verify(rateLimiter).tryAcquire("ip:203.0.113.7", 1);
+    }
+
+    @Test
+    void clientSuppliedForwardedForCannotPickTheBucket() {
+        // The client sent its own X-Forwarded-For; the proxy appended the address it actually saw
+        given()
+            .contentType(ContentType.JSON)
+            .header("X-Forwarded-For", "198.51.100.20, 203.0.113.7")
+            .body(BODY)
+            .when().post(LOGS_ENDPOINT)
+            .then()
+                .statusCode(202);
+
+        verify(rateLimiter).tryAcquire("ip:203.0.113.7", 1);
+    }
+
+    @Test
+    void withoutForwardingHeaderTheClientIsThePeer() {
+        given()
+            .contentType(ContentType.JSON)
+            .body(BODY)
+            .when().post(LOGS_ENDPOINT)
+            .then()
+                .statusCode(202);
+
+        verify(rateLimiter).tryAcquire("ip:127.0.0.1", 1);
+    }
+}
@@ -399,6 +399,22 @@ class SocialGraphQLResourceTest {
                 .body("data.unreadNotificationCount", is(0));
     }
 
+    @Test
+    @Order(34)
+    @TestSecurity(user = "owner1", roles = {"RegularUser"})
+    void testNotificationsCursorPaging() {
+        String query = "query Notifications($first: Int, $after: String) { notifications(first: $first, after: $after) { items { id } total cursor } }";
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(graphqlBody(query, "{\"first\": 1}"))
+            .when().post("/api/v1/graphql")
+            .then()
+                .statusCode(200)
+                .body("data.notifications.items.size()", is(1))
+                .body("data.notifications.total", is(1));
+    }
+
     // --- Delete comment tests ---
 
     @Test
@@ -205,6 +205,50 @@ class UserGraphQLApiTest {
                 .body("errors", notNullValue());
     }
 
+    @Test
+    @TestSecurity(user = "admin", roles = {"AdminUser"})
+    void testUsersQueryStreamingMode() {
+        String query = "{\"query\": \"query { users(first: 1) { items { username } total cursor } }\"}";
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(query)
+                .when().post("/api/v1/graphql")
+                .then()
+                .statusCode(200)
+                .body("data.users.total", is(1))
+                .body("data.users.cursor", notNullValue());
+    }
+
+    @Test
+    @TestSecurity(user = "admin", roles = {"AdminUser"})
+    void testSearchUsersAsAdmin() {
+        String query = "{\"query\": \"query { searchUsers(query: \\\"adm\\\", first: 10) { items { username } total cursor } }\"}";
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(query)
+                .when().post("/api/v1/graphql")
+                .then()
+                .statusCode(200)
+                .body("data.searchUsers.total", is(1))
+                .body("data.searchUsers.items[0].username", is("admin"));
+    }
+
+    @Test
+    @TestSecurity(user = "alice", roles = {"RegularUser"})
+    void testSearchUsersAsNonAdminIsDenied() {
+        String query = "{\"query\": \"query { searchUsers(query: \\\"a\\\") { items { username } } }\"}";
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(query)
+                .when().post("/api/v1/graphql")
+                .then()
+                .statusCode(200)
+                .body("errors", notNullValue());
+    }
+
     @Test
     @TestSecurity(user = "admin", roles = {"AdminUser"})
     void testUserQueryAsAdmin() {
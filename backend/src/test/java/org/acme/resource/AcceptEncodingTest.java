@@ -0,0 +1,40 @@
+package org.acme.resource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for AcceptEncoding.
+ */
+class AcceptEncodingTest {
+
+    @Test
+    void listedGzipIsAccepted() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip"));
+        assertTrue(AcceptEncoding.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, x-gzip;q=0.1"));
+    }
+
+    @Test
+    void zeroQualityRefusesGzip() {
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip; q=0.000, *"));
+    }
+
+    @Test
+    void wildcardCoversUnlistedGzip() {
+        assertTrue(AcceptEncoding.acceptsGzip("*"));
+        assertFalse(AcceptEncoding.acceptsGzip("br, *;q=0"));
+    }
+
+    @Test
+    void otherCodingsAndSubstringsAreNotGzip() {
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+        assertFalse(AcceptEncoding.acceptsGzip(""));
+        assertFalse(AcceptEncoding.acceptsGzip("identity"));
+        assertFalse(AcceptEncoding.acceptsGzip("notgzip"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=abc"));
+    }
+}
@@ -0,0 +1,161 @@
+package org.acme.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.graphql.model.CognitoUserView;
+import org.acme.service.CognitoAdminService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AdminUserExportResource.
+ */
+class AdminUserExportResourceTest {
+
+    private AdminUserExportResource resource;
+    private CognitoAdminService mockService;
+
+    @BeforeEach
+    void setUp() {
+        mockService = mock(CognitoAdminService.class);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        resource = new AdminUserExportResource(mockService, mapper);
+    }
+
+    @Test
+    void allowsTheSameAdminRolesAsTheUserQueries() throws Exception {
+        RolesAllowed roles = AdminUserExportResource.class
+            .getMethod("export", String.class, boolean.class, String.class)
+            .getAnnotation(RolesAllowed.class);
+
+        assertEquals(List.of("AdminUser", "admin"), List.of(roles.value()));
+    }
+
+    @Test
+    void exportsNdjsonPageByPage() throws Exception {
+        stubPages(List.of(makeUser("alice", List.of("AdminUser"))), List.of(makeUser("bob", null)));
+
+        Response response = resource.export(null, true, null);
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getMediaType().toString().startsWith("application/x-ndjson"));
+        String[] lines = body(response).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"username\":\"alice\""));
+        assertTrue(lines[0].contains("\"created\":\"2025-01-31T12:00:00Z\""));
+        assertTrue(lines[1].contains("\"username\":\"bob\""));
+    }
+
+    @Test
+    void exportsCsvWithHeaderAndGroups() throws Exception {
+        stubPages(List.of(makeUser("alice", List.of("AdminUser", "RegularUser"))));
+
+        Response response = resource.export("csv", true, null);
+
+        String[] lines = body(response).split("\n");
+        assertEquals("username,email,emailVerified,confirmationStatus,status,enabled,created,lastUpdatedTime,mfaSetting,groups",
+            lines[0]);
+        assertEquals("alice,alice@example.com,true,CONFIRMED,Enabled,true,2025-01-31T12:00:00Z,,None,AdminUser;RegularUser",
+            lines[1]);
+    }
+
+    @Test
+    void passesGroupsFlagToService() throws Exception {
+        stubPages();
+
+        body(resource.export(null, false, null));
+
+        verify(mockService).exportUsers(eq(false), any());
+    }
+
+    @Test
+    void gzipsWhenClientAcceptsIt() throws Exception {
+        stubPages(List.of(makeUser("alice", null)));
+
+        Response response = resource.export(null, true, "gzip, deflate");
+
+        assertEquals("gzip", response.getHeaderString("Content-Encoding"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("\"username\":\"alice\""));
+        }
+    }
+
+    @Test
+    void refusedGzipIsNotApplied() throws Exception {
+        stubPages(List.of(makeUser("alice", null)));
+
+        Response response = resource.export(null, true, "gzip;q=0, identity");
+
+        assertNull(response.getHeaderString("Content-Encoding"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"username\":\"alice\""));
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        Response response = resource.export("xml", true, null);
+
+        assertEquals(400, response.getStatus());
+        verify(mockService, never()).exportUsers(anyBoolean(), any());
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void stubPages(List<CognitoUserView>... pages) {
+        when(mockService.exportUsers(anyBoolean(), any())).thenAnswer(invocation -> {
+            Consumer<List<CognitoUserView>> sink = invocation.getArgument(1);
+            long count = 0;
+            for (List<CognitoUserView> page : pages) {
+                sink.accept(page);
+                count += page.size();
+            }
+            return count;
+        });
+    }
+
+    private static String body(Response response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static CognitoUserView makeUser(String username, List<String> groups) {
+        CognitoUserView user = new CognitoUserView();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setEmailVerified(true);
+        user.setConfirmationStatus("CONFIRMED");
+        user.setStatus("Enabled");
+        user.setEnabled(true);
+        user.setCreated(Instant.parse("2025-01-31T12:00:00Z"));
+        user.setMfaSetting("None");
+        user.setGroups(groups);
+        return user;
+    }
+}
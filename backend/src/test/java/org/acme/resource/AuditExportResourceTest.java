@@ -0,0 +1,143 @@
+package org.acme.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.graphql.model.AuditLogFilter;
+import org.acme.model.AuditLog;
+import org.acme.service.AuditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AuditExportResource.
+ */
+class AuditExportResourceTest {
+
+    private AuditExportResource resource;
+    private AuditService mockService;
+
+    @BeforeEach
+    void setUp() {
+        mockService = mock(AuditService.class);
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        resource = new AuditExportResource(mockService, mapper);
+    }
+
+    @Test
+    void exportsNdjsonByDefault() throws Exception {
+        when(mockService.streamLogs(any())).thenReturn(Stream.of(makeLog("1", "first"), makeLog("2", "second")));
+
+        Response response = resource.export(null, null, null, "list-1", null, null, null, null);
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getMediaType().toString().startsWith("application/x-ndjson"));
+        String[] lines = body(response).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":\"1\""));
+        assertTrue(lines[0].contains("\"timestamp\":\"2025-01-31T12:00:00Z\""));
+        assertTrue(lines[1].contains("\"details\":\"second\""));
+    }
+
+    @Test
+    void exportsCsvWithHeaderAndQuoting() throws Exception {
+        when(mockService.streamLogs(any())).thenReturn(Stream.of(makeLog("1", "Renamed \"a, b\"")));
+
+        Response response = resource.export("csv", null, null, null, null, null, null, null);
+
+        String[] lines = body(response).split("\n");
+        assertEquals("id,timestamp,action,entityType,entityId,userId,details", lines[0]);
+        assertEquals("1,2025-01-31T12:00:00Z,CREATE,LIST,list-1,alice,\"Renamed \"\"a, b\"\"\"", lines[1]);
+    }
+
+    @Test
+    void gzipsWhenClientAcceptsIt() throws Exception {
+        when(mockService.streamLogs(any())).thenReturn(Stream.of(makeLog("1", "first")));
+
+        Response response = resource.export(null, null, null, null, null, null, null, "gzip, deflate");
+
+        assertEquals("gzip", response.getHeaderString("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeaderString("Vary"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("\"id\":\"1\""));
+        }
+    }
+
+    @Test
+    void passesFilterAndRangeToService() {
+        when(mockService.streamLogs(any())).thenReturn(Stream.empty());
+
+        resource.export(null, "alice", "LIST", null, "DELETE", "2025-01-01T00:00:00Z", "2025-02-01T00:00:00Z", null);
+
+        ArgumentCaptor<AuditLogFilter> captor = ArgumentCaptor.forClass(AuditLogFilter.class);
+        verify(mockService).streamLogs(captor.capture());
+        AuditLogFilter filter = captor.getValue();
+        assertEquals("alice", filter.getUserId());
+        assertEquals("LIST", filter.getEntityType());
+        assertNull(filter.getEntityId());
+        assertEquals("DELETE", filter.getAction());
+        assertEquals(Instant.parse("2025-01-01T00:00:00Z"), filter.getFrom());
+        assertEquals(Instant.parse("2025-02-01T00:00:00Z"), filter.getTo());
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        Response response = resource.export("xml", null, null, null, null, null, null, null);
+
+        assertEquals(400, response.getStatus());
+        verify(mockService, never()).streamLogs(any());
+    }
+
+    @Test
+    void rejectsMalformedInstant() {
+        Response response = resource.export(null, null, null, null, null, "last tuesday", null, null);
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    void csvFieldNeutralisesFormulas() {
+        assertEquals("'=SUM(A1)", AuditExportResource.csvField("=SUM(A1)"));
+        assertEquals("'-1", AuditExportResource.csvField("-1"));
+        assertEquals("", AuditExportResource.csvField(null));
+    }
+
+    private static String body(Response response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static AuditLog makeLog(String id, String details) {
+        AuditLog log = new AuditLog();
+        log.setId(id);
+        log.setAction("CREATE");
+        log.setEntityType("LIST");
+        log.setEntityId("list-1");
+        log.setUserId("alice");
+        log.setDetails(details);
+        log.setTimestamp(Instant.parse("2025-01-31T12:00:00Z"));
+        return log;
+    }
+}
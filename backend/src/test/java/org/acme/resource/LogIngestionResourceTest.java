@@ -1,21 +1,41 @@
 package org.acme.resource;
 
-import org.acme.service.CloudWatchLogService;
 import org.acme.service.CloudWatchLogService.FrontendLogEntry;
+import org.acme.service.FrontendLogAggregator;
+import org.acme.service.LogRateLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
 import jakarta.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for LogIngestionResource.
@@ -23,12 +43,19 @@ import static org.mockito.Mockito.verify;
 class LogIngestionResourceTest {
 
     private LogIngestionResource resource;
-    private CloudWatchLogService mockService;
+    private FrontendLogAggregator mockAggregator;
+    private LogRateLimiter mockLimiter;
+    private SecurityIdentity mockIdentity;
 
     @BeforeEach
     void setUp() {
-        mockService = mock(CloudWatchLogService.class);
-        resource = new LogIngestionResource(mockService);
+        mockAggregator = mock(FrontendLogAggregator.class);
+        mockLimiter = mock(LogRateLimiter.class);
+        mockIdentity = mock(SecurityIdentity.class);
+        when(mockIdentity.isAnonymous()).thenReturn(true);
+        when(mockLimiter.sample(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        resource = new LogIngestionResource(mockAggregator, mockLimiter, mockIdentity, new ObjectMapper());
+        resource.maxStreamBytes = 1024 * 1024;
     }
 
     @Test
@@ -36,26 +63,26 @@ class LogIngestionResourceTest {
         List<FrontendLogEntry> entries = List.of(
                 new FrontendLogEntry("INFO", "Test log", System.currentTimeMillis()));
 
-        Response response = resource.ingestLogs(entries);
+        Response response = resource.ingestLogs(entries, null);
 
         assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
-        verify(mockService).sendFrontendLogs(entries);
+        verify(mockAggregator).accept(entries);
     }
 
     @Test
     void testIngestLogsNull() {
-        Response response = resource.ingestLogs(null);
+        Response response = resource.ingestLogs(null, null);
 
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
-        verify(mockService, never()).sendFrontendLogs(anyList());
+        verify(mockAggregator, never()).accept(anyList());
     }
 
     @Test
     void testIngestLogsEmptyList() {
-        Response response = resource.ingestLogs(List.of());
+        Response response = resource.ingestLogs(List.of(), null);
 
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
-        verify(mockService, never()).sendFrontendLogs(anyList());
+        verify(mockAggregator, never()).accept(anyList());
     }
 
     @Test
@@ -64,10 +91,10 @@ class LogIngestionResourceTest {
         IntStream.range(0, 101).forEach(i ->
                 entries.add(new FrontendLogEntry("INFO", "Entry " + i, System.currentTimeMillis())));
 
-        Response response = resource.ingestLogs(entries);
+        Response response = resource.ingestLogs(entries, null);
 
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
-        verify(mockService, never()).sendFrontendLogs(anyList());
+        verify(mockAggregator, never()).accept(anyList());
     }
 
     @Test
@@ -76,10 +103,10 @@ class LogIngestionResourceTest {
         IntStream.range(0, 100).forEach(i ->
                 entries.add(new FrontendLogEntry("INFO", "Entry " + i, System.currentTimeMillis())));
 
-        Response response = resource.ingestLogs(entries);
+        Response response = resource.ingestLogs(entries, null);
 
         assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
-        verify(mockService).sendFrontendLogs(entries);
+        verify(mockAggregator).accept(entries);
     }
 
     @Test
@@ -87,10 +114,164 @@ class LogIngestionResourceTest {
         List<FrontendLogEntry> entries = List.of(
                 new FrontendLogEntry("INFO", "Test", System.currentTimeMillis()));
 
-        doThrow(new RuntimeException("CloudWatch down")).when(mockService).sendFrontendLogs(entries);
+        doThrow(new RuntimeException("CloudWatch down")).when(mockAggregator).accept(entries);
 
-        Response response = resource.ingestLogs(entries);
+        Response response = resource.ingestLogs(entries, null);
 
         assertEquals(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus());
     }
+
+    @Test
+    void testIngestLogsRateLimited() {
+        List<FrontendLogEntry> entries = List.of(
+                new FrontendLogEntry("ERROR", "Loop", System.currentTimeMillis()));
+        when(mockLimiter.tryAcquire(eq("ip:unknown"), eq(1))).thenReturn(1500L);
+
+        Response response = resource.ingestLogs(entries, null);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeaderString("Retry-After"));
+        verify(mockAggregator, never()).accept(anyList());
+    }
+
+    @Test
+    void testIngestLogsKeyedBySignedInUser() {
+        Principal principal = () -> "alice";
+        when(mockIdentity.isAnonymous()).thenReturn(false);
+        when(mockIdentity.getPrincipal()).thenReturn(principal);
+
+        resource.ingestLogs(List.of(new FrontendLogEntry("INFO", "Hi", null)), null);
+
+        verify(mockLimiter).tryAcquire("user:alice", 1);
+    }
+
+    @Test
+    void testIngestLogsIgnoresForwardedForFromUntrustedPeer() {
+        // Quarkus did not apply forwarding (the peer is not a trusted proxy), so the header is ignored
+        HttpServerRequest request = request("192.0.2.50", "192.0.2.50", "203.0.113.7");
+
+        resource.ingestLogs(List.of(new FrontendLogEntry("INFO", "Hi", null)), request);
+
+        verify(mockLimiter).tryAcquire("ip:192.0.2.50", 1);
+    }
+
+    @Test
+    void testIngestLogsKeyedOnAddressAppendedByProxy() {
+        // Forwarding applied the leftmost, client-supplied entry; the proxy's own entry is the last one
+        HttpServerRequest request = request("198.51.100.20", "10.0.1.15", "198.51.100.20, 203.0.113.7");
+
+        resource.ingestLogs(List.of(new FrontendLogEntry("INFO", "Hi", null)), request);
+
+        verify(mockLimiter).tryAcquire("ip:203.0.113.7", 1);
+    }
+
+    @Test
+    void testIngestLogsAllSampledOut() {
+        when(mockLimiter.sample(anyList())).thenReturn(List.of());
+
+        Response response = resource.ingestLogs(
+                List.of(new FrontendLogEntry("DEBUG", "Noise", System.currentTimeMillis())), null);
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
+        verify(mockLimiter, never()).tryAcquire(anyString(), anyInt());
+        verify(mockAggregator, never()).accept(anyList());
+    }
+
+    private static HttpServerRequest request(String remoteHost, String peerHost, String forwardedFor) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        HttpConnection connection = mock(HttpConnection.class);
+        when(request.remoteAddress()).thenReturn(SocketAddress.inetSocketAddress(0, remoteHost));
+        when(request.connection()).thenReturn(connection);
+        when(connection.remoteAddress()).thenReturn(SocketAddress.inetSocketAddress(0, peerHost));
+        when(request.getHeader("X-Forwarded-For")).thenReturn(forwardedFor);
+        return request;
+    }
+
+    // ---- NDJSON streaming ----
+
+    @Test
+    void testIngestLogStreamNdjson() {
+        String body = "{\"level\":\"INFO\",\"message\":\"one\",\"timestamp\":1}\n"
+                + "{\"level\":\"ERROR\",\"message\":\"two\",\"timestamp\":2}\n";
+
+        Response response = resource.ingestLogStream(stream(body), null, null);
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
+        assertEquals(Map.of("accepted", 2L), response.getEntity());
+        verify(mockAggregator).accept(List.of(
+                new FrontendLogEntry("INFO", "one", 1L),
+                new FrontendLogEntry("ERROR", "two", 2L)));
+    }
+
+    @Test
+    void testIngestLogStreamGzipArray() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("[{\"level\":\"WARN\",\"message\":\"zipped\",\"timestamp\":5}]".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Response response = resource.ingestLogStream(new ByteArrayInputStream(compressed.toByteArray()), "gzip", null);
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
+        verify(mockAggregator).accept(List.of(new FrontendLogEntry("WARN", "zipped", 5L)));
+    }
+
+    @Test
+    void testIngestLogStreamShipsInChunks() {
+        Response response = resource.ingestLogStream(stream(lines(250)), null, null);
+
+        assertEquals(Map.of("accepted", 250L), response.getEntity());
+        verify(mockAggregator, times(3)).accept(anyList());
+        verify(mockLimiter, times(2)).tryAcquire("ip:unknown", 100);
+        verify(mockLimiter).tryAcquire("ip:unknown", 50);
+    }
+
+    @Test
+    void testIngestLogStreamRateLimitedMidStream() {
+        when(mockLimiter.tryAcquire(anyString(), anyInt())).thenReturn(0L, 3000L);
+
+        Response response = resource.ingestLogStream(stream(lines(250)), null, null);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("3", response.getHeaderString("Retry-After"));
+        assertEquals(Map.of("accepted", 100L), response.getEntity());
+        verify(mockAggregator, times(1)).accept(anyList());
+    }
+
+    @Test
+    void testIngestLogStreamMalformedLine() {
+        String body = lines(100) + "{not json}\n";
+
+        Response response = resource.ingestLogStream(stream(body), null, null);
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals(100L, ((Map<?, ?>) response.getEntity()).get("accepted"));
+    }
+
+    @Test
+    void testIngestLogStreamTooLarge() {
+        resource.maxStreamBytes = 100;
+
+        Response response = resource.ingestLogStream(stream(lines(10)), null, null);
+
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), response.getStatus());
+        verify(mockAggregator, never()).accept(anyList());
+    }
+
+    @Test
+    void testIngestLogStreamRejectsUnknownEncoding() {
+        Response response = resource.ingestLogStream(stream(lines(1)), "br", null);
+
+        assertEquals(Response.Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode(), response.getStatus());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String lines(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "{\"level\":\"INFO\",\"message\":\"Entry " + i + "\",\"timestamp\":" + i + "}\n")
+                .collect(Collectors.joining());
+    }
 }
@@ -1,26 +1,51 @@
 package org.acme.service;
 
+import org.acme.graphql.model.AuditLogFilter;
+import org.acme.graphql.model.AuditLogPage;
 import org.acme.model.AuditLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 import java.lang.reflect.Field;
 import java.time.Instant;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,13 +61,23 @@ class AuditServiceTest {
     private final DynamoDbIndex<AuditLog> mockEntityIndex = mock(DynamoDbIndex.class);
     @SuppressWarnings("unchecked")
     private final DynamoDbIndex<AuditLog> mockUserIndex = mock(DynamoDbIndex.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbIndex<AuditLog> mockTimeIndex = mock(DynamoDbIndex.class);
+    private final DynamoDbClient mockDynamoDb = mock(DynamoDbClient.class);
+    private final AuditTimeIndexMigrationService mockMigration = mock(AuditTimeIndexMigrationService.class);
 
     @BeforeEach
     @SuppressWarnings({"unchecked", "rawtypes"})
     void setUp() throws Exception {
         DynamoDbEnhancedClient mockClient = mock(DynamoDbEnhancedClient.class);
         when(mockClient.table(any(String.class), any())).thenReturn((DynamoDbTable) mockTable);
-        service = new AuditService(mockClient);
+        when(mockDynamoDb.batchWriteItem(any(Consumer.class))).thenReturn(BatchWriteItemResponse.builder().build());
+        when(mockMigration.isComplete()).thenReturn(true);
+        givenPartitionIndexes(KeyType.RANGE);
+        service = new AuditService(mockClient, mockDynamoDb, mockMigration);
+        service.queueCapacity = 100;
+        service.flushIntervalMs = 1000;
+        service.recentLookbackDays = 3;
 
         // Set the auditTable, entityIndex, and userIndex fields via reflection
         Field tableField = AuditService.class.getDeclaredField("auditTable");
@@ -56,146 +91,311 @@ class AuditServiceTest {
         Field userIndexField = AuditService.class.getDeclaredField("userIndex");
         userIndexField.setAccessible(true);
         userIndexField.set(service, mockUserIndex);
+
+        Field timeIndexField = AuditService.class.getDeclaredField("timeIndex");
+        timeIndexField.setAccessible(true);
+        timeIndexField.set(service, mockTimeIndex);
     }
 
     @Test
-    void logCreatesAuditEntry() {
+    @SuppressWarnings("unchecked")
+    void logIsQueuedUntilFlush() {
         service.log("CREATE", "LIST", "list-1", "user-1", "Created list");
-        verify(mockTable).putItem(any(AuditLog.class));
+
+        assertEquals(1, service.getQueueDepth());
+        verify(mockDynamoDb, never()).batchWriteItem(any(Consumer.class));
+
+        service.flush();
+
+        assertEquals(0, service.getQueueDepth());
+        assertEquals(1, service.getWrittenCount());
+        verify(mockDynamoDb).batchWriteItem(any(Consumer.class));
     }
 
     @Test
     void logSetsAllFields() {
-        org.mockito.ArgumentCaptor<AuditLog> captor = org.mockito.ArgumentCaptor.forClass(AuditLog.class);
-
         service.log("UPDATE", "LINK", "link-42", "admin", "Updated link URL");
+        service.flush();
+
+        List<WriteRequest> writes = capturedWrites().get(0);
+        assertEquals(1, writes.size());
+        Map<String, AttributeValue> item = writes.get(0).putRequest().item();
+        assertNotNull(item.get("id").s());
+        assertEquals("UPDATE", item.get("action").s());
+        assertEquals("LINK", item.get("entityType").s());
+        assertEquals("link-42", item.get("entityId").s());
+        assertEquals("admin", item.get("userId").s());
+        assertEquals("Updated link URL", item.get("details").s());
+        assertNotNull(item.get("timestamp").s());
+    }
 
-        verify(mockTable).putItem(captor.capture());
-        AuditLog entry = captor.getValue();
-        assertNotNull(entry.getId());
-        assertEquals("UPDATE", entry.getAction());
-        assertEquals("LINK", entry.getEntityType());
-        assertEquals("link-42", entry.getEntityId());
-        assertEquals("admin", entry.getUserId());
-        assertEquals("Updated link URL", entry.getDetails());
-        assertNotNull(entry.getTimestamp());
+    @Test
+    void flushWritesBatchesOfTwentyFive() {
+        for (int i = 0; i < 60; i++) {
+            service.log("CREATE", "LIST", "list-" + i, "u", "d");
+        }
+        service.flush();
+
+        List<List<WriteRequest>> batches = capturedWrites();
+        assertEquals(3, batches.size());
+        assertEquals(25, batches.get(0).size());
+        assertEquals(25, batches.get(1).size());
+        assertEquals(10, batches.get(2).size());
+        assertEquals(60, service.getWrittenCount());
     }
 
     @Test
-    void logDoesNotThrowOnDynamoDbError() {
-        doThrow(new RuntimeException("DynamoDB unavailable")).when(mockTable).putItem(any(AuditLog.class));
-        assertDoesNotThrow(() -> service.log("DELETE", "LIST", "x", "u", "details"));
+    @SuppressWarnings("unchecked")
+    void unprocessedItemsAreRetried() {
+        service.log("CREATE", "LIST", "a", "u", "d1");
+        service.log("DELETE", "LINK", "b", "u", "d2");
+        when(mockDynamoDb.batchWriteItem(any(Consumer.class)))
+            .thenAnswer(inv -> {
+                BatchWriteItemRequest.Builder builder = BatchWriteItemRequest.builder();
+                ((Consumer<BatchWriteItemRequest.Builder>) inv.getArgument(0)).accept(builder);
+                List<WriteRequest> sent = builder.build().requestItems().get("AuditLogs");
+                return BatchWriteItemResponse.builder()
+                    .unprocessedItems(Map.of("AuditLogs", sent.subList(1, sent.size())))
+                    .build();
+            })
+            .thenReturn(BatchWriteItemResponse.builder().build());
+
+        service.flush();
+
+        List<List<WriteRequest>> batches = capturedWrites();
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(1).size());
+        assertEquals(2, service.getWrittenCount());
+        assertEquals(0, service.getDroppedCount());
     }
 
     @Test
-    void logNeverBreaksMainOperation() {
-        doThrow(new RuntimeException("Connection refused")).when(mockTable).putItem(any(AuditLog.class));
-        // Call log multiple times — none should throw
+    void fullQueueDropsInsteadOfBlocking() {
+        service.queueCapacity = 2;
         assertDoesNotThrow(() -> {
             service.log("CREATE", "LIST", "a", "u", "d1");
             service.log("DELETE", "LINK", "b", "u", "d2");
             service.log("VOTE", "LIST", "c", "u", "d3");
         });
+
+        assertEquals(2, service.getQueueDepth());
+        assertEquals(1, service.getDroppedCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void logNeverBreaksMainOperation() {
+        when(mockDynamoDb.batchWriteItem(any(Consumer.class))).thenThrow(new RuntimeException("Connection refused"));
+        assertDoesNotThrow(() -> service.log("CREATE", "LIST", "a", "u", "d1"));
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    void getRecentLogsReturnsLimitedSortedResults() {
-        AuditLog older = makeLog("1", Instant.parse("2025-01-01T00:00:00Z"));
-        AuditLog newer = makeLog("2", Instant.parse("2025-06-01T00:00:00Z"));
-        AuditLog newest = makeLog("3", Instant.parse("2025-12-01T00:00:00Z"));
-
-        PageIterable<AuditLog> pageIterable = mock(PageIterable.class);
-        when(mockTable.scan()).thenReturn(pageIterable);
-        Page<AuditLog> page = mock(Page.class);
-        when(page.items()).thenReturn(List.of(older, newest, newer));
-        when(pageIterable.stream()).thenReturn(Stream.of(page));
-        when(pageIterable.items()).thenReturn(() -> List.of(older, newest, newer).iterator());
+    void getRecentLogsMergesShardsNewestFirst() {
+        Instant now = Instant.now();
+        AuditLog older = makeLog("1", now.minusSeconds(30));
+        AuditLog newer = makeLog("2", now.minusSeconds(20));
+        AuditLog newest = makeLog("3", now.minusSeconds(10));
+        // Today's first two shards hold entries; every other bucket is empty
+        givenTimeIndexPages(List.of(newest, older), List.of(newer));
 
         List<AuditLog> result = service.getRecentLogs(2);
         assertEquals(2, result.size());
         assertEquals("3", result.get(0).getId()); // newest first
         assertEquals("2", result.get(1).getId());
+        // Today's shards were enough, so no older day was read
+        verify(mockTimeIndex, times(AuditService.TIME_SHARDS)).query(any(QueryEnhancedRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getRecentLogsStopsAtLookback() {
+        givenTimeIndexPages();
+
+        assertEquals(0, service.getRecentLogs(10).size());
+        verify(mockTimeIndex, times(3 * AuditService.TIME_SHARDS)).query(any(QueryEnhancedRequest.class));
     }
 
     @Test
     @SuppressWarnings("unchecked")
     void getRecentLogsClampsLimit() {
-        PageIterable<AuditLog> pageIterable = mock(PageIterable.class);
-        when(mockTable.scan()).thenReturn(pageIterable);
-        when(pageIterable.items()).thenReturn(() -> List.<AuditLog>of().iterator());
+        givenTimeIndexPages();
 
         // Should not throw even with extreme limits
         assertDoesNotThrow(() -> service.getRecentLogs(0));
         assertDoesNotThrow(() -> service.getRecentLogs(999));
     }
 
+    @Test
+    void streamLogsMergesShardsLazily() {
+        Instant noon = Instant.parse("2025-01-31T12:00:00Z");
+        givenTimeIndexPages(
+            List.of(makeLog("5", noon.plusSeconds(5)), makeLog("2", noon.plusSeconds(2))),
+            List.of(makeLog("4", noon.plusSeconds(4)), makeLog("1", noon.plusSeconds(1))),
+            List.of(makeLog("3", noon.plusSeconds(3))));
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setFrom(Instant.parse("2025-01-31T00:00:00Z"));
+        filter.setTo(Instant.parse("2025-01-31T23:59:59Z"));
+
+        List<String> ids = service.streamLogs(filter).map(AuditLog::getId).toList();
+
+        assertEquals(List.of("5", "4", "3", "2", "1"), ids);
+        verify(mockTimeIndex, times(AuditService.TIME_SHARDS)).query(any(QueryEnhancedRequest.class));
+    }
+
+    @Test
+    void getLogsScansUntilTimeIndexIsBackfilled() {
+        when(mockMigration.isComplete()).thenReturn(false);
+        Instant now = Instant.now();
+        when(mockTable.scan(any(ScanEnhancedRequest.class))).thenReturn(pages(List.of(
+            makeLog("1", now.minusSeconds(300)),
+            makeLog("3", now.minusSeconds(100)),
+            makeLog("2", now.minusSeconds(200)))));
+
+        AuditLogPage first = service.getLogs(null, 2, null);
+        assertEquals(List.of("3", "2"), first.getItems().stream().map(AuditLog::getId).toList());
+        assertNotNull(first.getCursor());
+
+        AuditLogPage second = service.getLogs(null, 2, first.getCursor());
+        assertEquals(List.of("1"), second.getItems().stream().map(AuditLog::getId).toList());
+        verify(mockTimeIndex, never()).query(any(QueryEnhancedRequest.class));
+    }
+
     @Test
     @SuppressWarnings("unchecked")
-    void getLogsForEntityFiltersCorrectly() {
+    void getLogsSortsInMemoryWhileUserIndexHasNoSortKey() {
+        givenPartitionIndexes(KeyType.HASH);
+        Instant now = Instant.now();
+        AuditLog a = makeLog("a", now.minusSeconds(30));
+        AuditLog b = makeLog("b", now.minusSeconds(20));
+        AuditLog c = makeLog("c", now.minusSeconds(10));
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(a, c, b)));
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setUserId("user-1");
+        filter.setFrom(now.minusSeconds(25));
+
+        AuditLogPage page = service.getLogs(filter, 10, null);
+
+        assertEquals(List.of("c", "b"), page.getItems().stream().map(AuditLog::getId).toList());
+        // A hash-only index rejects a sort-key condition, so the partition is read by its key alone
+        QueryEnhancedRequest request = capturedQuery(mockUserIndex);
+        assertEquals(QueryConditional.keyEqualTo(k -> k.partitionValue("user-1")).getClass(),
+            request.queryConditional().getClass());
+    }
+
+    @Test
+    void timeBucketIsDayAndShard() {
+        AuditLog log = makeLog("abc", Instant.parse("2025-03-04T23:59:59Z"));
+        String bucket = AuditService.timeBucket(log);
+        assertTrue(bucket.startsWith("2025-03-04#"));
+        int shard = Integer.parseInt(bucket.substring(bucket.indexOf('#') + 1));
+        assertTrue(shard >= 0 && shard < AuditService.TIME_SHARDS);
+    }
+
+    @Test
+    void getLogsForEntityPushesTypeFilterToQuery() {
         AuditLog match = makeLog("1", Instant.now());
         match.setEntityType("LIST");
         match.setEntityId("list-1");
-
-        AuditLog noMatch = makeLog("2", Instant.now());
-        noMatch.setEntityType("LINK");
-        noMatch.setEntityId("list-1"); // same entityId but different entityType
-
-        // Mock the EntityIndex GSI query
-        software.amazon.awssdk.enhanced.dynamodb.model.PageIterable<AuditLog> indexIterable = mock(software.amazon.awssdk.enhanced.dynamodb.model.PageIterable.class);
-        when(mockEntityIndex.query(any(QueryConditional.class))).thenReturn(indexIterable);
-        Page<AuditLog> page = mock(Page.class);
-        when(page.items()).thenReturn(List.of(match, noMatch));
-        when(indexIterable.stream()).thenReturn(Stream.of(page));
+        when(mockEntityIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(match)));
 
         List<AuditLog> result = service.getLogsForEntity("LIST", "list-1");
         assertEquals(1, result.size());
         assertEquals("1", result.get(0).getId());
+
+        QueryEnhancedRequest request = capturedQuery(mockEntityIndex);
+        assertFalse(request.scanIndexForward());
+        assertEquals("#entityType = :entityType", request.filterExpression().expression());
+        assertEquals("LIST", request.filterExpression().expressionValues().get(":entityType").s());
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void getLogsForUserFiltersCorrectly() {
+    void getLogsForUserUsesUserIndex() {
         AuditLog match = makeLog("1", Instant.now());
         match.setUserId("alice");
-
-        AuditLog noMatch = makeLog("2", Instant.now());
-        noMatch.setUserId("bob");
-
-        // Mock the UserIndex GSI query — only returns items matching the partition key (alice)
-        software.amazon.awssdk.enhanced.dynamodb.model.PageIterable<AuditLog> indexIterable = mock(software.amazon.awssdk.enhanced.dynamodb.model.PageIterable.class);
-        when(mockUserIndex.query(any(QueryConditional.class))).thenReturn(indexIterable);
-        Page<AuditLog> page = mock(Page.class);
-        when(page.items()).thenReturn(List.of(match));
-        when(indexIterable.stream()).thenReturn(Stream.of(page));
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(match)));
 
         List<AuditLog> result = service.getLogsForUser("alice", 10);
         assertEquals(1, result.size());
         assertEquals("alice", result.get(0).getUserId());
+        assertNull(capturedQuery(mockUserIndex).filterExpression());
     }
 
     @Test
-    @SuppressWarnings("unchecked")
     void getLogsForUserLimitsResults() {
-        AuditLog a = makeLog("1", Instant.parse("2025-01-01T00:00:00Z"));
-        a.setUserId("alice");
-        AuditLog b = makeLog("2", Instant.parse("2025-06-01T00:00:00Z"));
-        b.setUserId("alice");
+        // UserIndex returns entries newest first
         AuditLog c = makeLog("3", Instant.parse("2025-12-01T00:00:00Z"));
-        c.setUserId("alice");
-
-        // Mock the UserIndex GSI query
-        software.amazon.awssdk.enhanced.dynamodb.model.PageIterable<AuditLog> indexIterable = mock(software.amazon.awssdk.enhanced.dynamodb.model.PageIterable.class);
-        when(mockUserIndex.query(any(QueryConditional.class))).thenReturn(indexIterable);
-        Page<AuditLog> page = mock(Page.class);
-        when(page.items()).thenReturn(List.of(a, b, c));
-        when(indexIterable.stream()).thenReturn(Stream.of(page));
+        AuditLog b = makeLog("2", Instant.parse("2025-06-01T00:00:00Z"));
+        AuditLog a = makeLog("1", Instant.parse("2025-01-01T00:00:00Z"));
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(c, b, a)));
 
         List<AuditLog> result = service.getLogsForUser("alice", 2);
         assertEquals(2, result.size());
         assertEquals("3", result.get(0).getId()); // newest first
     }
 
+    @Test
+    void getLogsReturnsCursorThatResumesAfterLastEntry() {
+        AuditLog c = makeLog("3", Instant.parse("2025-12-01T00:00:00Z"));
+        AuditLog b = makeLog("2", Instant.parse("2025-06-01T00:00:00Z"));
+        AuditLog a = makeLog("1", Instant.parse("2025-01-01T00:00:00Z"));
+        when(mockEntityIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(c, b, a)));
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setEntityId("list-1");
+
+        AuditLogPage first = service.getLogs(filter, 2, null);
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getCursor());
+
+        service.getLogs(filter, 2, first.getCursor());
+        ArgumentCaptor<QueryEnhancedRequest> captor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(mockEntityIndex, times(2)).query(captor.capture());
+        Map<String, AttributeValue> startKey = captor.getAllValues().get(1).exclusiveStartKey();
+        assertEquals("2", startKey.get("id").s());
+        assertEquals("list-1", startKey.get("entityId").s());
+        assertEquals("2025-06-01T00:00:00Z", startKey.get("timestamp").s());
+    }
+
+    @Test
+    void getLogsOmitsCursorOnLastPage() {
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class)))
+            .thenReturn(pages(List.of(makeLog("1", Instant.now()))));
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setUserId("alice");
+
+        assertNull(service.getLogs(filter, 5, null).getCursor());
+    }
+
+    @Test
+    void getLogsPushesTimeRangeToSortKey() {
+        when(mockEntityIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of()));
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setEntityId("list-1");
+        filter.setAction("DELETE");
+        filter.setFrom(Instant.parse("2025-01-01T00:00:00Z"));
+        filter.setTo(Instant.parse("2025-02-01T00:00:00Z"));
+
+        service.getLogs(filter, 10, null);
+
+        QueryEnhancedRequest request = capturedQuery(mockEntityIndex);
+        assertEquals("#action = :action", request.filterExpression().expression());
+        assertEquals(11, request.limit()); // one extra to detect a further page
+    }
+
+    @Test
+    void getLogsRejectsInvertedRange() {
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setFrom(Instant.parse("2025-02-01T00:00:00Z"));
+        filter.setTo(Instant.parse("2025-01-01T00:00:00Z"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.getLogs(filter, 10, null));
+    }
+
+    @Test
+    void getLogsRejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.getLogs(null, 10, "not-a-cursor"));
+    }
+
     @Test
     @SuppressWarnings({"unchecked", "rawtypes"})
     void initCreatesTable() {
@@ -203,7 +403,7 @@ class AuditServiceTest {
         DynamoDbTable<AuditLog> table = mock(DynamoDbTable.class);
         when(mockClient.table(any(String.class), any())).thenReturn((DynamoDbTable) table);
 
-        AuditService svc = new AuditService(mockClient);
+        AuditService svc = new AuditService(mockClient, mockDynamoDb, mockMigration);
         svc.init();
 
         verify(table).createTable();
@@ -217,10 +417,59 @@ class AuditServiceTest {
         when(mockClient.table(any(String.class), any())).thenReturn((DynamoDbTable) table);
         doThrow(new RuntimeException("Table already exists")).when(table).createTable();
 
-        AuditService svc = new AuditService(mockClient);
+        AuditService svc = new AuditService(mockClient, mockDynamoDb, mockMigration);
         assertDoesNotThrow(svc::init);
     }
 
+    private static PageIterable<AuditLog> pages(List<AuditLog> items) {
+        return PageIterable.create(() -> List.of(Page.create(items)).iterator());
+    }
+
+    private static QueryEnhancedRequest capturedQuery(DynamoDbIndex<AuditLog> index) {
+        ArgumentCaptor<QueryEnhancedRequest> captor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(index).query(captor.capture());
+        return captor.getValue();
+    }
+
+    /** EntityIndex and UserIndex are ACTIVE, with a timestamp key of the given type. */
+    @SuppressWarnings("unchecked")
+    private void givenPartitionIndexes(KeyType timestampKey) {
+        List<GlobalSecondaryIndexDescription> indexes = List.of("EntityIndex", "UserIndex").stream()
+            .map(name -> GlobalSecondaryIndexDescription.builder()
+                .indexName(name)
+                .indexStatus(IndexStatus.ACTIVE)
+                .keySchema(KeySchemaElement.builder().attributeName("timestamp").keyType(timestampKey).build())
+                .build())
+            .toList();
+        when(mockDynamoDb.describeTable(any(Consumer.class))).thenReturn(DescribeTableResponse.builder()
+            .table(TableDescription.builder().tableName("AuditLogs").globalSecondaryIndexes(indexes).build())
+            .build());
+    }
+
+    /** Each call to the TimeIndex returns the next list of items, then empty pages. */
+    @SafeVarargs
+    private void givenTimeIndexPages(List<AuditLog>... buckets) {
+        AtomicInteger calls = new AtomicInteger();
+        when(mockTimeIndex.query(any(QueryEnhancedRequest.class))).thenAnswer(inv -> {
+            int call = calls.getAndIncrement();
+            List<AuditLog> items = call < buckets.length ? buckets[call] : List.of();
+            return pages(items);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<WriteRequest>> capturedWrites() {
+        ArgumentCaptor<Consumer<BatchWriteItemRequest.Builder>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockDynamoDb, atLeastOnce()).batchWriteItem(captor.capture());
+        return captor.getAllValues().stream()
+            .map(consumer -> {
+                BatchWriteItemRequest.Builder builder = BatchWriteItemRequest.builder();
+                consumer.accept(builder);
+                return builder.build().requestItems().get("AuditLogs");
+            })
+            .toList();
+    }
+
     private AuditLog makeLog(String id, Instant timestamp) {
         AuditLog log = new AuditLog();
         log.setId(id);
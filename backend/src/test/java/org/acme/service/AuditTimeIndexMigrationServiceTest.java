@@ -0,0 +1,120 @@
+package org.acme.service;
+
+import org.acme.model.AuditLog;
+import org.acme.model.MigrationCheckpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.BillingModeSummary;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
+
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the TimeIndex creation and backfill using a mocked DynamoDB client.
+ */
+class AuditTimeIndexMigrationServiceTest {
+
+    private AuditTimeIndexMigrationService service;
+    private final DynamoDbClient mockDynamoDb = mock(DynamoDbClient.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<MigrationCheckpoint> mockCheckpointTable = mock(DynamoDbTable.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new AuditTimeIndexMigrationService(mock(DynamoDbEnhancedClient.class), mockDynamoDb);
+        Field field = AuditTimeIndexMigrationService.class.getDeclaredField("checkpointTable");
+        field.setAccessible(true);
+        field.set(service, mockCheckpointTable);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createsIndexOnTableWithoutIt() {
+        when(mockDynamoDb.describeTable(any(Consumer.class))).thenReturn(describe(TableDescription.builder()
+            .tableName("AuditLogs")
+            .billingModeSummary(BillingModeSummary.builder().billingMode(BillingMode.PAY_PER_REQUEST).build())
+            .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder().indexName("EntityIndex").build())
+            .build()));
+
+        service.createIndexIfMissing();
+
+        ArgumentCaptor<UpdateTableRequest> captor = ArgumentCaptor.forClass(UpdateTableRequest.class);
+        verify(mockDynamoDb).updateTable(captor.capture());
+        UpdateTableRequest request = captor.getValue();
+        assertEquals("TimeIndex", request.globalSecondaryIndexUpdates().get(0).create().indexName());
+        assertNull(request.globalSecondaryIndexUpdates().get(0).create().provisionedThroughput());
+        assertEquals(2, request.attributeDefinitions().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stampsTheSameBucketTheWriterDerives() {
+        Instant timestamp = Instant.parse("2025-03-04T10:15:30Z");
+        when(mockDynamoDb.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder()
+            .items(List.of(Map.of("id", s("log-1"), "timestamp", s(timestamp.toString()))))
+            .build());
+        when(mockDynamoDb.updateItem(any(Consumer.class))).thenReturn(UpdateItemResponse.builder().build());
+
+        assertTrue(service.backfill());
+
+        ArgumentCaptor<Consumer<UpdateItemRequest.Builder>> update = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockDynamoDb).updateItem(update.capture());
+        UpdateItemRequest.Builder builder = UpdateItemRequest.builder();
+        update.getValue().accept(builder);
+        AuditLog expected = new AuditLog();
+        expected.setId("log-1");
+        expected.setTimestamp(timestamp);
+        assertEquals(AuditService.timeBucket(expected), builder.build().expressionAttributeValues().get(":bucket").s());
+
+        ArgumentCaptor<MigrationCheckpoint> checkpoint = ArgumentCaptor.forClass(MigrationCheckpoint.class);
+        verify(mockCheckpointTable).putItem(checkpoint.capture());
+        assertEquals(true, checkpoint.getValue().getDone());
+        assertEquals(1L, checkpoint.getValue().getItemsCopied());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doneMarkerSkipsBackfill() {
+        MigrationCheckpoint marker = new MigrationCheckpoint();
+        marker.setDone(true);
+        when(mockCheckpointTable.getItem(any(Consumer.class))).thenReturn(marker);
+
+        assertTrue(service.isComplete());
+        assertTrue(service.backfill());
+        verify(mockDynamoDb, never()).scan(any(ScanRequest.class));
+    }
+
+    private static DescribeTableResponse describe(TableDescription table) {
+        return DescribeTableResponse.builder().table(table).build();
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+}
@@ -0,0 +1,117 @@
+package org.acme.service;
+
+import org.jboss.logmanager.ExtLogRecord;
+import org.jboss.logmanager.Level;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for CloudWatchLogHandler. The drain thread is not started; tests drain explicitly.
+ */
+class CloudWatchLogHandlerTest {
+
+    private StubCloudWatchLogsClient client;
+    private CloudWatchLogShipper shipper;
+    private CloudWatchLogHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        client = new StubCloudWatchLogsClient();
+        shipper = new CloudWatchLogShipper(client, "/test", 5000, 1024 * 1024);
+        handler = new CloudWatchLogHandler(shipper, "backend", 4);
+    }
+
+    @Test
+    void formatsAndShipsRecordsInOrder() {
+        handler.publish(record(Level.INFO, "org.acme.service.ListService", "Saved list {0}", "list-1"));
+        handler.publish(record(Level.ERROR, "org.acme.resource.LogIngestionResource", "Boom", null));
+
+        handler.drain();
+        shipper.flushAll();
+
+        List<InputLogEvent> events = client.batches.get(0).logEvents();
+        assertEquals("backend", client.batches.get(0).logStreamName());
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).message().startsWith("[INFO] org.acme.service.ListService ("));
+        assertTrue(events.get(0).message().endsWith(") Saved list list-1"));
+        assertTrue(events.get(1).message().startsWith("[ERROR] org.acme.resource.LogIngestionResource"));
+    }
+
+    @Test
+    void keepsRecordTimestamp() {
+        ExtLogRecord record = record(Level.INFO, "org.acme.Test", "hello", null);
+        record.setInstant(Instant.ofEpochMilli(1_735_689_600_000L));
+        handler.publish(record);
+
+        handler.drain();
+        shipper.flushAll();
+
+        assertEquals(1_735_689_600_000L, client.batches.get(0).logEvents().get(0).timestamp());
+    }
+
+    @Test
+    void dropsWhenRingIsFull() {
+        for (int i = 0; i < 6; i++) {
+            handler.publish(record(Level.INFO, "org.acme.Test", "m" + i, null));
+        }
+
+        assertEquals(2, handler.getDroppedCount());
+        handler.drain();
+        shipper.flushAll();
+        assertEquals(4, client.eventCount());
+
+        // Draining frees the slots again
+        handler.publish(record(Level.INFO, "org.acme.Test", "again", null));
+        handler.drain();
+        assertEquals(1, shipper.stats().bufferedEvents());
+    }
+
+    @Test
+    void skipsShipperAndSdkLoggers() {
+        handler.publish(record(Level.ERROR, "org.acme.service.CloudWatchLogShipper", "Failed to send", null));
+        handler.publish(record(Level.ERROR, "org.acme.service.LogSpool", "Spool full", null));
+        handler.publish(record(Level.WARN, "software.amazon.awssdk.request", "Retrying", null));
+
+        handler.drain();
+
+        assertEquals(0, shipper.stats().bufferedEvents());
+        assertEquals(0, handler.getDroppedCount());
+    }
+
+    @Test
+    void respectsHandlerLevel() {
+        handler.setLevel(Level.WARN);
+
+        handler.publish(record(Level.INFO, "org.acme.Test", "quiet", null));
+        handler.publish(record(Level.WARN, "org.acme.Test", "loud", null));
+        handler.drain();
+
+        assertEquals(1, shipper.stats().bufferedEvents());
+    }
+
+    @Test
+    void closeDrainsRemainingRecords() {
+        handler.publish(record(Level.INFO, "org.acme.Test", "last words", null));
+
+        handler.close();
+        shipper.flushAll();
+
+        assertEquals(1, client.eventCount());
+    }
+
+    private static ExtLogRecord record(java.util.logging.Level level, String logger, String message, Object param) {
+        ExtLogRecord record = new ExtLogRecord(level, message, CloudWatchLogHandlerTest.class.getName());
+        record.setLoggerName(logger);
+        if (param != null) {
+            record.setParameters(new Object[] {param});
+        }
+        return record;
+    }
+}
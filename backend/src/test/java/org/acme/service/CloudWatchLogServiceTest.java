@@ -15,6 +15,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -28,6 +30,7 @@ class CloudWatchLogServiceTest {
 
     private CloudWatchLogService service;
     private CloudWatchLogsClient mockClient;
+    private CloudWatchLogShipper shipper;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -43,6 +46,9 @@ class CloudWatchLogServiceTest {
         setField("awsAccessKeyId", "test");
         setField("awsSecretAccessKey", "test");
         setField("client", mockClient);
+        // Not started: tests drive flushing explicitly
+        shipper = new CloudWatchLogShipper(mockClient, "/test-log-group", 5000, 1024 * 1024);
+        setField("shipper", shipper);
     }
 
     private void setField(String name, Object value) throws Exception {
@@ -64,6 +70,9 @@ class CloudWatchLogServiceTest {
         );
 
         assertDoesNotThrow(() -> service.sendFrontendLogs(entries));
+        verify(mockClient, never()).putLogEvents(any(PutLogEventsRequest.class));
+
+        shipper.flushAll();
         verify(mockClient).putLogEvents(any(PutLogEventsRequest.class));
     }
 
@@ -76,24 +85,27 @@ class CloudWatchLogServiceTest {
         );
 
         service.sendFrontendLogs(entries);
+        shipper.flushAll();
         verify(mockClient, never()).putLogEvents(any(PutLogEventsRequest.class));
     }
 
     @Test
     void testSendFrontendLogsNullList() {
         service.sendFrontendLogs(null);
+        shipper.flushAll();
         verify(mockClient, never()).putLogEvents(any(PutLogEventsRequest.class));
     }
 
     @Test
     void testSendFrontendLogsEmptyList() {
         service.sendFrontendLogs(List.of());
+        shipper.flushAll();
         verify(mockClient, never()).putLogEvents(any(PutLogEventsRequest.class));
     }
 
     @Test
-    void testSendFrontendLogsNullClient() throws Exception {
-        setField("client", null);
+    void testSendFrontendLogsNullShipper() throws Exception {
+        setField("shipper", null);
 
         List<CloudWatchLogService.FrontendLogEntry> entries = List.of(
                 new CloudWatchLogService.FrontendLogEntry("INFO", "Test", System.currentTimeMillis())
@@ -111,8 +123,10 @@ class CloudWatchLogServiceTest {
                 new CloudWatchLogService.FrontendLogEntry("INFO", "Test", System.currentTimeMillis())
         );
 
-        // Should not throw — the error is caught and logged
+        // Should not throw — the error is caught and logged by the shipper
         assertDoesNotThrow(() -> service.sendFrontendLogs(entries));
+        assertDoesNotThrow(() -> shipper.flushAll());
+        assertEquals(1, shipper.stats().droppedEvents());
     }
 
     // ---- sendBackendLog ----
@@ -123,6 +137,7 @@ class CloudWatchLogServiceTest {
                 .thenReturn(PutLogEventsResponse.builder().build());
 
         assertDoesNotThrow(() -> service.sendBackendLog("INFO", "Backend log message"));
+        shipper.flushAll();
         verify(mockClient).putLogEvents(any(PutLogEventsRequest.class));
     }
 
@@ -131,12 +146,13 @@ class CloudWatchLogServiceTest {
         setField("enabled", false);
 
         service.sendBackendLog("INFO", "Should not send");
+        shipper.flushAll();
         verify(mockClient, never()).putLogEvents(any(PutLogEventsRequest.class));
     }
 
     @Test
-    void testSendBackendLogNullClient() throws Exception {
-        setField("client", null);
+    void testSendBackendLogNullShipper() throws Exception {
+        setField("shipper", null);
 
         assertDoesNotThrow(() -> service.sendBackendLog("INFO", "Test"));
     }
@@ -146,8 +162,9 @@ class CloudWatchLogServiceTest {
         when(mockClient.putLogEvents(any(PutLogEventsRequest.class)))
                 .thenThrow(new RuntimeException("Network error"));
 
-        // Should not throw — the error is caught and logged
+        // Should not throw — the error is caught and logged by the shipper
         assertDoesNotThrow(() -> service.sendBackendLog("ERROR", "Test"));
+        assertDoesNotThrow(() -> shipper.flushAll());
     }
 
     // ---- init / ensureLogGroupAndStreams ----
@@ -161,8 +178,10 @@ class CloudWatchLogServiceTest {
         Method initMethod = CloudWatchLogService.class.getDeclaredMethod("init");
         initMethod.setAccessible(true);
 
+        setField("shipper", null);
         assertDoesNotThrow(() -> initMethod.invoke(service));
-        // client should remain null since init exits early
+        // client and shipper should remain null since init exits early
+        assertTrue(service.shipperStats().isEmpty());
     }
 
     @Test
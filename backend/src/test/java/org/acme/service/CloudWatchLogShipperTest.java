@@ -0,0 +1,247 @@
+package org.acme.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for CloudWatchLogShipper against an in-memory CloudWatch that enforces the batch rules.
+ */
+class CloudWatchLogShipperTest {
+
+    private static final long NOW = 1_735_689_600_000L;
+
+    private StubCloudWatchLogsClient client;
+    private CloudWatchLogShipper shipper;
+
+    @BeforeEach
+    void setUp() {
+        client = new StubCloudWatchLogsClient();
+        // Not started: tests drive flushing explicitly
+        shipper = new CloudWatchLogShipper(client, "/test", 5000, 64L * 1024 * 1024);
+    }
+
+    @Test
+    void sortsEventsBeforeSending() {
+        shipper.offer("backend", NOW + 2, "c");
+        shipper.offer("backend", NOW, "a");
+        shipper.offer("backend", NOW + 1, "b");
+
+        shipper.flushAll();
+
+        assertEquals(1, client.batches.size());
+        List<String> messages = client.batches.get(0).logEvents().stream().map(InputLogEvent::message).toList();
+        assertEquals(List.of("a", "b", "c"), messages);
+    }
+
+    @Test
+    void keepsStreamsInSeparateBatches() {
+        shipper.offer("frontend", NOW, "f");
+        shipper.offer("backend", NOW, "b");
+
+        shipper.flushAll();
+
+        assertEquals(2, client.batches.size());
+        assertEquals(List.of("backend", "frontend"),
+            client.batches.stream().map(PutLogEventsRequest::logStreamName).sorted().toList());
+    }
+
+    @Test
+    void splitsAtTenThousandEvents() {
+        for (int i = 0; i < 10_001; i++) {
+            shipper.offer("backend", NOW + i, "m");
+        }
+
+        shipper.flushAll();
+
+        assertEquals(2, client.batches.size());
+        assertEquals(10_000, client.batches.get(0).logEvents().size());
+        assertEquals(10_001, client.eventCount());
+    }
+
+    @Test
+    void splitsAtOneMegabyteIncludingOverhead() {
+        String message = "x".repeat(100 * 1024 - CloudWatchLogShipper.EVENT_OVERHEAD_BYTES);
+        // Exactly ten fit in 1 MB once the per-event overhead is counted; the eleventh does not
+        for (int i = 0; i < 11; i++) {
+            shipper.offer("backend", NOW + i, message);
+        }
+
+        shipper.flushAll();
+
+        assertEquals(2, client.batches.size());
+        assertEquals(10, client.batches.get(0).logEvents().size());
+        assertEquals(1, client.batches.get(1).logEvents().size());
+    }
+
+    @Test
+    void splitsBatchesSpanningMoreThanADay() {
+        long dayAndAMinute = TimeUnit.HOURS.toMillis(24) + TimeUnit.MINUTES.toMillis(1);
+        shipper.offer("backend", NOW, "old");
+        shipper.offer("backend", NOW + dayAndAMinute, "new");
+
+        shipper.flushAll();
+
+        assertEquals(2, client.batches.size());
+        assertEquals("old", client.batches.get(0).logEvents().get(0).message());
+        assertEquals("new", client.batches.get(1).logEvents().get(0).message());
+    }
+
+    @Test
+    void truncatesOversizedMessages() {
+        shipper.offer("backend", NOW, "y".repeat(300 * 1024));
+
+        shipper.flushAll();
+
+        assertEquals(CloudWatchLogShipper.MAX_MESSAGE_BYTES, client.batches.get(0).logEvents().get(0).message().length());
+    }
+
+    @Test
+    void retriesThrottlingAndServerErrors() {
+        client.failNext(2, 429);
+        shipper.offer("backend", NOW, "a");
+        shipper.flushAll();
+
+        client.failNext(1, 503);
+        shipper.offer("backend", NOW, "b");
+        shipper.flushAll();
+
+        assertEquals(2, client.eventCount());
+        assertEquals(5, client.calls.get());
+        CloudWatchLogShipper.Stats stats = shipper.stats();
+        assertEquals(3, stats.retries());
+        assertEquals(0, stats.droppedEvents());
+    }
+
+    @Test
+    void dropsBatchAfterRejection() {
+        // A client error is not retried
+        client.failNext(1, 400);
+        shipper.offer("backend", NOW, "a");
+
+        shipper.flushAll();
+
+        assertEquals(1, client.calls.get());
+        assertEquals(1, shipper.stats().droppedEvents());
+    }
+
+    @Test
+    void dropsEventsBeyondBufferCap() {
+        shipper = new CloudWatchLogShipper(client, "/test", 5000, 100);
+
+        assertTrue(shipper.offer("backend", NOW, "x".repeat(50)));
+        assertFalse(shipper.offer("backend", NOW, "x".repeat(50)));
+        // Other streams have their own cap
+        assertTrue(shipper.offer("frontend", NOW, "x".repeat(50)));
+
+        CloudWatchLogShipper.Stats stats = shipper.stats();
+        assertEquals(2, stats.bufferedEvents());
+        assertEquals(2L * (50 + CloudWatchLogShipper.EVENT_OVERHEAD_BYTES), stats.bufferedBytes());
+        assertEquals(1, stats.droppedEvents());
+    }
+
+    @Test
+    void statsCountSentEventsAndBatches() {
+        shipper.offer("backend", NOW, "a");
+        shipper.offer("backend", NOW, "b");
+
+        shipper.flushAll();
+
+        CloudWatchLogShipper.Stats stats = shipper.stats();
+        assertEquals(0, stats.bufferedEvents());
+        assertEquals(0, stats.bufferedBytes());
+        assertEquals(2, stats.sentEvents());
+        assertEquals(1, stats.sentBatches());
+    }
+
+    @Test
+    void spoolsDuringOutageAndReplaysInOrder(@TempDir Path dir) throws Exception {
+        try (LogSpool spool = new LogSpool(dir, LogSpool.MIN_SEGMENT_BYTES, 4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            shipper = new CloudWatchLogShipper(client, "/test", 5000, 64L * 1024 * 1024, spool);
+            client.failNext(5, 503);
+            shipper.offer("backend", NOW, "a");
+            shipper.flushAll();
+
+            assertTrue(spool.hasPending());
+            assertEquals(0, client.eventCount());
+
+            // Still down: one replay probe fails, and the new batch queues behind the backlog
+            client.failNext(1, 503);
+            shipper.offer("backend", NOW + 1, "b");
+            shipper.flushAll();
+            assertEquals(6, client.calls.get());
+
+            shipper.flushAll();
+
+            assertFalse(spool.hasPending());
+            assertEquals(1, client.batches.size());
+            assertEquals(List.of("a", "b"), client.batches.get(0).logEvents().stream().map(InputLogEvent::message).toList());
+            assertEquals(0, shipper.stats().droppedEvents());
+            assertEquals(2, spool.stats().replayedEvents());
+        }
+    }
+
+    @Test
+    void spoolsWhenStreamCannotBeCreated(@TempDir Path dir) throws Exception {
+        try (LogSpool spool = new LogSpool(dir, LogSpool.MIN_SEGMENT_BYTES, 4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            shipper = new CloudWatchLogShipper(client, "/test", 5000, 64L * 1024 * 1024, spool);
+            // The log group itself is missing, so recreating the stream fails too
+            client.createStreamFailure = ResourceNotFoundException.builder()
+                .message("The specified log group does not exist.").build();
+            shipper.offer("backend", NOW, "a");
+
+            shipper.flushAll();
+
+            assertTrue(spool.hasPending());
+            assertEquals(0, shipper.stats().droppedEvents());
+
+            client.createStreamFailure = null;
+            shipper.flushAll();
+            assertEquals(List.of("a"), client.batches.get(0).logEvents().stream().map(InputLogEvent::message).toList());
+        }
+    }
+
+    @Test
+    void spillsBufferOverflowToSpool(@TempDir Path dir) throws Exception {
+        try (LogSpool spool = new LogSpool(dir, LogSpool.MIN_SEGMENT_BYTES, 4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            shipper = new CloudWatchLogShipper(client, "/test", 5000, 100, spool);
+
+            assertTrue(shipper.offer("backend", NOW, "x".repeat(50)));
+            assertTrue(shipper.offer("backend", NOW + 1, "y".repeat(50)));
+
+            assertEquals(1, shipper.stats().bufferedEvents());
+            assertEquals(1, spool.stats().spooledEvents());
+            assertEquals(0, shipper.stats().droppedEvents());
+
+            shipper.flushAll();
+            assertEquals(2, client.eventCount());
+        }
+    }
+
+    @Test
+    void backgroundFlusherSendsAgedEvents() throws Exception {
+        shipper = new CloudWatchLogShipper(client, "/test", 50, 1024 * 1024);
+        shipper.start();
+        try {
+            shipper.offer("backend", NOW, "a");
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (client.eventCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, client.eventCount());
+        } finally {
+            shipper.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.acme.service;
 
 import org.acme.graphql.model.CognitoUserPage;
+import org.acme.graphql.model.CognitoUserView;
 import org.acme.graphql.model.MfaSetupResponse;
 import org.acme.graphql.model.TrustedDevice;
 import org.acme.graphql.model.UpdateUserInput;
@@ -39,6 +40,10 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.AssociateSo
 import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.DeviceType;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.GroupType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListGroupsRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListGroupsResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupResponse;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersRequest;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersResponse;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
@@ -49,6 +54,7 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.VerifySoftw
 
 import java.lang.reflect.Field;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,12 +62,16 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -90,6 +100,13 @@ class CognitoAdminServiceTest {
         setField("awsAccessKeyId", "test");
         setField("awsSecretAccessKey", "test");
         setField("awsEndpointOverride", Optional.empty());
+        setField("directoryRefreshMs", 60_000L);
+        setField("directoryIdleMs", 600_000L);
+        setField("mfaLookup", true);
+        setField("lookupThreads", 2);
+
+        // No groups unless a test says otherwise
+        when(mockClient.listGroups(any(ListGroupsRequest.class))).thenReturn(ListGroupsResponse.builder().build());
     }
 
     private void setField(String name, Object value) throws Exception {
@@ -570,44 +587,19 @@ class CognitoAdminServiceTest {
 
     @Test
     void testListUsersSortByEmail() {
-        UserType user1 = UserType.builder().username("alice").build();
-        UserType user2 = UserType.builder().username("bob").build();
+        UserType user1 = UserType.builder().username("alice")
+                .attributes(AttributeType.builder().name("email").value("z_alice@test.com").build())
+                .build();
+        UserType user2 = UserType.builder().username("bob")
+                .attributes(AttributeType.builder().name("email").value("a_bob@test.com").build())
+                .build();
 
         ListUsersResponse listResp = ListUsersResponse.builder()
                 .users(user1, user2)
                 .build();
         when(mockClient.listUsers(any(ListUsersRequest.class))).thenReturn(listResp);
-
-        AdminGetUserResponse aliceResp = AdminGetUserResponse.builder()
-                .username("alice")
-                .enabled(true)
-                .userStatus("CONFIRMED")
-                .userAttributes(AttributeType.builder().name("email").value("z_alice@test.com").build())
-                .userCreateDate(Instant.now())
-                .userLastModifiedDate(Instant.now())
-                .build();
-        AdminGetUserResponse bobResp = AdminGetUserResponse.builder()
-                .username("bob")
-                .enabled(true)
-                .userStatus("CONFIRMED")
-                .userAttributes(AttributeType.builder().name("email").value("a_bob@test.com").build())
-                .userCreateDate(Instant.now())
-                .userLastModifiedDate(Instant.now())
-                .build();
-
-        when(mockClient.adminGetUser(AdminGetUserRequest.builder()
-                .userPoolId("us-east-1_TestPool")
-                .username("alice")
-                .build())).thenReturn(aliceResp);
-        when(mockClient.adminGetUser(AdminGetUserRequest.builder()
-                .userPoolId("us-east-1_TestPool")
-                .username("bob")
-                .build())).thenReturn(bobResp);
-
-        AdminListGroupsForUserResponse groupsResp = AdminListGroupsForUserResponse.builder()
-                .groups(List.of())
-                .build();
-        when(mockClient.adminListGroupsForUser(any(AdminListGroupsForUserRequest.class))).thenReturn(groupsResp);
+        when(mockClient.adminGetUser(any(AdminGetUserRequest.class)))
+                .thenReturn(AdminGetUserResponse.builder().build());
 
         // Sort by email ascending: "a_bob" < "z_alice"
         CognitoUserPage page = service.listUsers(0, 10, "email", "asc");
@@ -857,4 +849,333 @@ class CognitoAdminServiceTest {
         assertDoesNotThrow(() -> service.listUsers(0, 10, "enabled", "asc"));
         assertDoesNotThrow(() -> service.listUsers(0, 10, null, "asc")); // default to username
     }
+
+    // ---- user directory ----
+
+    @Test
+    void testListUsersServesSnapshotUntilRefreshed() {
+        stubDirectory("alice");
+        assertEquals(1, service.listUsers(0, 10, "username", "asc").getTotal());
+
+        stubDirectory("alice", "bob");
+        // Still the snapshot: no second ListUsers call on the request path
+        assertEquals(1, service.listUsers(0, 10, "username", "asc").getTotal());
+        verify(mockClient, times(1)).listUsers(any(ListUsersRequest.class));
+
+        service.refreshDirectory();
+
+        assertEquals(2, service.listUsers(0, 10, "username", "asc").getTotal());
+        assertEquals(2, service.getDirectorySize());
+        assertEquals(2, service.getDirectoryRefreshCount());
+    }
+
+    @Test
+    void testFailedRefreshKeepsPreviousSnapshot() {
+        stubDirectory("alice");
+        service.listUsers(0, 10, "username", "asc");
+
+        when(mockClient.listUsers(any(ListUsersRequest.class))).thenThrow(new RuntimeException("Cognito down"));
+        assertThrows(RuntimeException.class, () -> service.refreshDirectory());
+
+        CognitoUserPage page = service.listUsers(0, 10, "username", "asc");
+        assertEquals("alice", page.getItems().get(0).getUsername());
+        assertEquals(1, service.getDirectoryRefreshFailures());
+    }
+
+    @Test
+    void testUpdateUserPatchesDirectoryInPlace() {
+        stubDirectory("alice", "bob");
+        assertEquals("alice", service.listUsers(0, 10, "email", "asc").getItems().get(0).getUsername());
+
+        when(mockClient.adminUpdateUserAttributes(any(AdminUpdateUserAttributesRequest.class)))
+                .thenReturn(AdminUpdateUserAttributesResponse.builder().build());
+        when(mockClient.adminListGroupsForUser(any(AdminListGroupsForUserRequest.class)))
+                .thenReturn(AdminListGroupsForUserResponse.builder().groups(List.of()).build());
+        when(mockClient.adminGetUser(any(AdminGetUserRequest.class))).thenReturn(AdminGetUserResponse.builder()
+                .username("alice")
+                .enabled(true)
+                .userAttributes(AttributeType.builder().name("email").value("zz@test.com").build())
+                .build());
+        UpdateUserInput input = new UpdateUserInput();
+        input.setUsername("alice");
+        input.setEmail("zz@test.com");
+        service.updateUser(input);
+
+        CognitoUserPage page = service.listUsers(0, 10, "email", "asc");
+        assertEquals(List.of("bob", "alice"), page.getItems().stream().map(u -> u.getUsername()).toList());
+        assertEquals("zz@test.com", page.getItems().get(1).getEmail());
+        // Patched, not reloaded
+        verify(mockClient, times(1)).listUsers(any(ListUsersRequest.class));
+    }
+
+    @Test
+    void testDeleteUserRemovesFromDirectory() {
+        stubDirectory("alice", "bob");
+        service.listUsers(0, 10, "username", "asc");
+        when(mockClient.adminDeleteUser(any(AdminDeleteUserRequest.class)))
+                .thenReturn(AdminDeleteUserResponse.builder().build());
+
+        service.deleteUser("alice");
+
+        CognitoUserPage page = service.listUsers(0, 10, "username", "asc");
+        assertEquals(1, page.getTotal());
+        assertEquals("bob", page.getItems().get(0).getUsername());
+        verify(mockClient, times(1)).listUsers(any(ListUsersRequest.class));
+    }
+
+    @Test
+    void testSearchUsersPagesWithCursor() {
+        stubDirectory("anna", "andy", "bert", "amir");
+
+        CognitoUserPage first = service.searchUsers("a", 2, null);
+        assertEquals(List.of("amir", "andy"), first.getItems().stream().map(u -> u.getUsername()).toList());
+        assertEquals(3, first.getTotal());
+        assertNotNull(first.getCursor());
+
+        CognitoUserPage second = service.searchUsers("a", 2, first.getCursor());
+        assertEquals(List.of("anna"), second.getItems().stream().map(u -> u.getUsername()).toList());
+        assertNull(second.getCursor());
+    }
+
+    @Test
+    void testSearchUsersSeesDirectoryPatches() {
+        stubDirectory("anna", "bert");
+        assertEquals(1, service.searchUsers("bert", 10, null).getTotal());
+        when(mockClient.adminDeleteUser(any(AdminDeleteUserRequest.class)))
+                .thenReturn(AdminDeleteUserResponse.builder().build());
+
+        service.deleteUser("bert");
+
+        assertEquals(0, service.searchUsers("bert", 10, null).getTotal());
+    }
+
+    @Test
+    void testSearchUsersRejectsInvalidCursor() {
+        stubDirectory("anna");
+        assertThrows(IllegalArgumentException.class, () -> service.searchUsers("a", 10, "not a cursor!"));
+    }
+
+    // ---- streaming mode ----
+
+    @Test
+    void testStreamUsersFirstPageIsOneCognitoCall() {
+        when(mockClient.listUsers(any(ListUsersRequest.class))).thenReturn(ListUsersResponse.builder()
+                .users(UserType.builder().username("alice")
+                        .attributes(AttributeType.builder().name("email").value("alice@test.com").build())
+                        .build())
+                .paginationToken("token-2")
+                .build());
+
+        CognitoUserPage page = service.streamUsers(25, null, "email", "ali", false);
+
+        ArgumentCaptor<ListUsersRequest> request = ArgumentCaptor.forClass(ListUsersRequest.class);
+        verify(mockClient).listUsers(request.capture());
+        assertEquals("email ^= \"ali\"", request.getValue().filter());
+        assertEquals(25, request.getValue().limit());
+        assertNull(request.getValue().paginationToken());
+        assertEquals("alice@test.com", page.getItems().get(0).getEmail());
+        assertNull(page.getItems().get(0).getGroups());
+        assertNotNull(page.getCursor());
+        verify(mockClient, never()).listGroups(any(ListGroupsRequest.class));
+        verify(mockClient, never()).adminGetUser(any(AdminGetUserRequest.class));
+    }
+
+    @Test
+    void testStreamUsersCursorCarriesPaginationToken() {
+        when(mockClient.listUsers(any(ListUsersRequest.class)))
+                .thenReturn(ListUsersResponse.builder().users(UserType.builder().username("a").build())
+                        .paginationToken("token-2").build())
+                .thenReturn(ListUsersResponse.builder().users(UserType.builder().username("b").build()).build());
+
+        CognitoUserPage first = service.streamUsers(1, null, "username", null, false);
+        CognitoUserPage second = service.streamUsers(1, first.getCursor(), "username", null, false);
+
+        ArgumentCaptor<ListUsersRequest> request = ArgumentCaptor.forClass(ListUsersRequest.class);
+        verify(mockClient, times(2)).listUsers(request.capture());
+        assertEquals("token-2", request.getAllValues().get(1).paginationToken());
+        assertEquals("b", second.getItems().get(0).getUsername());
+        assertNull(second.getCursor());
+    }
+
+    @Test
+    void testStreamUsersRejectsCursorFromAnotherPrefix() {
+        when(mockClient.listUsers(any(ListUsersRequest.class)))
+                .thenReturn(ListUsersResponse.builder().users(UserType.builder().username("a").build())
+                        .paginationToken("token-2").build());
+        String cursor = service.streamUsers(1, null, "username", "a", false).getCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> service.streamUsers(1, cursor, "username", "b", false));
+    }
+
+    @Test
+    void testStreamUsersIncludeGroupsLooksUpPageOnly() {
+        when(mockClient.listUsers(any(ListUsersRequest.class))).thenReturn(ListUsersResponse.builder()
+                .users(UserType.builder().username("alice").build(), UserType.builder().username("bob").build())
+                .build());
+        when(mockClient.adminListGroupsForUser(any(AdminListGroupsForUserRequest.class)))
+                .thenReturn(AdminListGroupsForUserResponse.builder()
+                        .groups(GroupType.builder().groupName("RegularUser").build()).build());
+
+        CognitoUserPage page = service.streamUsers(10, null, "username", null, true);
+
+        assertEquals(List.of("RegularUser"), page.getItems().get(1).getGroups());
+        verify(mockClient, times(2)).adminListGroupsForUser(any(AdminListGroupsForUserRequest.class));
+    }
+
+    @Test
+    void testExportUsersHandsOverOnePageAtATime() {
+        when(mockClient.listUsers(any(ListUsersRequest.class)))
+                .thenReturn(ListUsersResponse.builder().users(UserType.builder().username("a").build())
+                        .paginationToken("token-2").build())
+                .thenReturn(ListUsersResponse.builder().users(UserType.builder().username("b").build()).build());
+        when(mockClient.adminListGroupsForUser(any(AdminListGroupsForUserRequest.class)))
+                .thenReturn(AdminListGroupsForUserResponse.builder()
+                        .groups(GroupType.builder().groupName("RegularUser").build()).build());
+        List<List<String>> pages = new ArrayList<>();
+
+        long count = service.exportUsers(true, page -> {
+            pages.add(page.stream().map(CognitoUserView::getUsername).toList());
+            assertEquals(List.of("RegularUser"), page.get(0).getGroups());
+        });
+
+        assertEquals(2, count);
+        assertEquals(List.of(List.of("a"), List.of("b")), pages);
+        ArgumentCaptor<ListUsersRequest> request = ArgumentCaptor.forClass(ListUsersRequest.class);
+        verify(mockClient, times(2)).listUsers(request.capture());
+        assertEquals("token-2", request.getAllValues().get(1).paginationToken());
+        verify(mockClient, never()).listGroups(any(ListGroupsRequest.class));
+    }
+
+    @Test
+    void testListUsersFilterEscapesAndValidates() {
+        assertEquals("name ^= \"a\\\"b\\\\\"", CognitoAdminService.listUsersFilter("name", "a\"b\\"));
+        assertNull(CognitoAdminService.listUsersFilter("email", ""));
+        assertThrows(IllegalArgumentException.class, () -> CognitoAdminService.listUsersFilter("custom:tenant", "x"));
+    }
+
+    @Test
+    void testClientIsBuiltOnceAndShared() throws Exception {
+        CognitoAdminService real = new CognitoAdminService();
+        service = real;
+        setField("awsRegion", "us-east-1");
+        setField("awsEndpointOverride", Optional.of("http://localhost:4566"));
+        setField("awsAccessKeyId", "test");
+        setField("awsSecretAccessKey", "test");
+
+        CognitoIdentityProviderClient first = real.client();
+        assertSame(first, real.client());
+        real.onStop(null);
+    }
+
+    @Test
+    void testDirectoryBuiltFromListingsWithoutPerUserGroupCalls() {
+        UserType alice = UserType.builder().username("alice").enabled(true).userStatus("CONFIRMED")
+                .attributes(
+                        AttributeType.builder().name("email").value("alice@test.com").build(),
+                        AttributeType.builder().name("email_verified").value("true").build())
+                .build();
+        UserType bob = UserType.builder().username("bob").enabled(false).userStatus("CONFIRMED")
+                .attributes(AttributeType.builder().name("email").value("bob@test.com").build())
+                .build();
+        when(mockClient.listUsers(any(ListUsersRequest.class)))
+                .thenReturn(ListUsersResponse.builder().users(alice, bob).build());
+        when(mockClient.listGroups(any(ListGroupsRequest.class))).thenReturn(ListGroupsResponse.builder()
+                .groups(GroupType.builder().groupName("RegularUser").build(),
+                        GroupType.builder().groupName("AdminUser").build())
+                .build());
+        when(mockClient.listUsersInGroup(ListUsersInGroupRequest.builder()
+                .userPoolId("us-east-1_TestPool").groupName("RegularUser").limit(60).build()))
+                .thenReturn(ListUsersInGroupResponse.builder().users(alice, bob).build());
+        when(mockClient.listUsersInGroup(ListUsersInGroupRequest.builder()
+                .userPoolId("us-east-1_TestPool").groupName("AdminUser").limit(60).build()))
+                .thenReturn(ListUsersInGroupResponse.builder().users(alice).build());
+        when(mockClient.adminGetUser(any(AdminGetUserRequest.class))).thenAnswer(invocation -> {
+            AdminGetUserRequest request = invocation.getArgument(0);
+            return AdminGetUserResponse.builder()
+                    .username(request.username())
+                    .userMFASettingList("alice".equals(request.username()) ? List.of("SOFTWARE_TOKEN_MFA") : List.of())
+                    .build();
+        });
+
+        CognitoUserPage page = service.listUsers(0, 10, "username", "asc");
+
+        var first = page.getItems().get(0);
+        assertEquals("alice@test.com", first.getEmail());
+        assertTrue(first.isEmailVerified());
+        assertEquals(List.of("AdminUser", "RegularUser"), first.getGroups());
+        assertEquals("SOFTWARE_TOKEN_MFA", first.getMfaSetting());
+        var second = page.getItems().get(1);
+        assertFalse(second.isEnabled());
+        assertEquals(List.of("RegularUser"), second.getGroups());
+        assertEquals("None", second.getMfaSetting());
+        verify(mockClient, never()).adminListGroupsForUser(any(AdminListGroupsForUserRequest.class));
+    }
+
+    @Test
+    void testDirectoryWithoutMfaLookupMakesNoPerUserCalls() throws Exception {
+        setField("mfaLookup", false);
+        stubDirectory("alice", "bob");
+
+        assertEquals(2, service.listUsers(0, 10, "username", "asc").getTotal());
+
+        verify(mockClient, never()).adminGetUser(any(AdminGetUserRequest.class));
+        verify(mockClient, never()).adminListGroupsForUser(any(AdminListGroupsForUserRequest.class));
+        // Not looked up, so not reported as "None": the user may have TOTP
+        assertNull(service.listUsers(0, 10, "username", "asc").getItems().get(0).getMfaSetting());
+    }
+
+    @Test
+    void testIdleDirectoryKeepsSnapshotForNextReader() throws Exception {
+        stubDirectory("alice");
+        service.listUsers(0, 10, "username", "asc");
+        long now = System.currentTimeMillis();
+
+        assertFalse(service.isIdle(now));
+        assertTrue(service.isIdle(now + 600_000L));
+        assertEquals(1, service.getDirectorySize());
+
+        // The next reader is served the kept snapshot instead of waiting for a reload
+        assertEquals(1, service.listUsers(0, 10, "username", "asc").getTotal());
+        verify(mockClient, times(1)).listUsers(any(ListUsersRequest.class));
+    }
+
+    @Test
+    void testRefreshLooksUpMfaOnlyForModifiedUsers() {
+        Instant before = Instant.parse("2025-01-01T00:00:00Z");
+        Instant after = Instant.parse("2025-02-01T00:00:00Z");
+        when(mockClient.listUsers(any(ListUsersRequest.class)))
+                .thenReturn(ListUsersResponse.builder().users(
+                        UserType.builder().username("alice").userLastModifiedDate(before).build(),
+                        UserType.builder().username("bob").userLastModifiedDate(before).build()).build())
+                .thenReturn(ListUsersResponse.builder().users(
+                        UserType.builder().username("alice").userLastModifiedDate(before).build(),
+                        UserType.builder().username("bob").userLastModifiedDate(after).build(),
+                        UserType.builder().username("carol").userLastModifiedDate(after).build()).build());
+        when(mockClient.adminGetUser(any(AdminGetUserRequest.class))).thenReturn(AdminGetUserResponse.builder()
+                .userMFASettingList("SOFTWARE_TOKEN_MFA").build());
+
+        service.refreshDirectory();
+        service.refreshDirectory();
+
+        // Two on the first load, then only bob (modified) and carol (new)
+        ArgumentCaptor<AdminGetUserRequest> lookups = ArgumentCaptor.forClass(AdminGetUserRequest.class);
+        verify(mockClient, times(4)).adminGetUser(lookups.capture());
+        assertEquals(List.of("bob", "carol"), lookups.getAllValues().subList(2, 4).stream()
+                .map(AdminGetUserRequest::username).sorted().toList());
+        // alice kept the setting looked up on the first load
+        assertEquals("SOFTWARE_TOKEN_MFA", service.listUsers(0, 10, "username", "asc").getItems().get(0).getMfaSetting());
+    }
+
+    private void stubDirectory(String... usernames) {
+        List<UserType> users = new ArrayList<>();
+        for (String name : usernames) {
+            users.add(UserType.builder().username(name)
+                    .attributes(AttributeType.builder().name("email").value(name + "@test.com").build())
+                    .build());
+        }
+        when(mockClient.listUsers(any(ListUsersRequest.class)))
+                .thenReturn(ListUsersResponse.builder().users(users).build());
+        when(mockClient.adminGetUser(any(AdminGetUserRequest.class)))
+                .thenReturn(AdminGetUserResponse.builder().build());
+    }
 }
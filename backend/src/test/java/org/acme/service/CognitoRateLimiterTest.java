@@ -0,0 +1,71 @@
+package org.acme.service;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for CognitoRateLimiter.
+ */
+class CognitoRateLimiterTest {
+
+    @Test
+    void spacesCallsAtTheConfiguredRate() {
+        CognitoRateLimiter limiter = new CognitoRateLimiter(100);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire();
+        }
+
+        // The first slot is immediate, the other five are 10 ms apart
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45));
+    }
+
+    @Test
+    void retriesThrottledCalls() {
+        CognitoRateLimiter limiter = new CognitoRateLimiter(0);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = limiter.call(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw TooManyRequestsException.builder().message("Rate exceeded").build();
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(1, limiter.getThrottledCount());
+    }
+
+    @Test
+    void givesUpAfterRepeatedThrottling() {
+        CognitoRateLimiter limiter = new CognitoRateLimiter(0);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.call(() -> {
+            calls.incrementAndGet();
+            throw TooManyRequestsException.builder().message("Rate exceeded").build();
+        }));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        CognitoRateLimiter limiter = new CognitoRateLimiter(0);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> limiter.call(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, calls.get());
+    }
+}
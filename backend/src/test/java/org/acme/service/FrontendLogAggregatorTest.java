@@ -0,0 +1,125 @@
+package org.acme.service;
+
+import org.acme.service.CloudWatchLogService.FrontendLogEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for FrontendLogAggregator. The flusher thread is not started; tests flush explicitly.
+ */
+class FrontendLogAggregatorTest {
+
+    private CloudWatchLogService mockLogService;
+    private FrontendLogAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        mockLogService = mock(CloudWatchLogService.class);
+        aggregator = new FrontendLogAggregator(mockLogService);
+        aggregator.enabled = true;
+        aggregator.windowMs = 10_000;
+        aggregator.maxFingerprints = 2;
+    }
+
+    @Test
+    void fingerprintStripsVariableParts() {
+        assertEquals("ERROR|[HTTP <n>] GET <url> failed after <n> ms",
+            FrontendLogAggregator.fingerprint("error",
+                "[HTTP 500] GET http://localhost:8080/api/v1/lists/42?x=1: failed after 12.5 ms"));
+        assertEquals("WARN|List <uuid> missing (ref <hex>)",
+            FrontendLogAggregator.fingerprint("WARN",
+                "List 3f2504e0-4f89-11d3-9a0c-0305e82c3301 missing (ref 5f3a9c01ab)"));
+        // Plain words made of hex letters are left alone
+        assertEquals("INFO|accepted facade", FrontendLogAggregator.fingerprint("INFO", "accepted facade"));
+    }
+
+    @Test
+    void collapsesRepeatsIntoOneSummary() {
+        aggregator.accept(List.of(
+            new FrontendLogEntry("ERROR", "GET /api/v1/lists/1 failed", 1_000L),
+            new FrontendLogEntry("ERROR", "GET /api/v1/lists/2 failed", 3_000L),
+            new FrontendLogEntry("ERROR", "GET /api/v1/lists/3 failed", 2_000L)));
+        verify(mockLogService, never()).sendFrontendLogs(anyList());
+
+        aggregator.flush();
+
+        List<FrontendLogEntry> sent = captureSent();
+        assertEquals(1, sent.size());
+        assertEquals("ERROR", sent.get(0).level());
+        assertEquals(1_000L, sent.get(0).timestamp());
+        assertEquals("GET /api/v1/lists/1 failed [repeated 3 times, first 1970-01-01T00:00:01Z, last 1970-01-01T00:00:03Z]",
+            sent.get(0).message());
+    }
+
+    @Test
+    void singleOccurrencesPassUnchanged() {
+        aggregator.accept(List.of(new FrontendLogEntry("INFO", "App started", 1_000L)));
+
+        aggregator.flush();
+
+        assertEquals(List.of(new FrontendLogEntry("INFO", "App started", 1_000L)), captureSent());
+    }
+
+    @Test
+    void levelIsPartOfTheFingerprint() {
+        aggregator.accept(List.of(
+            new FrontendLogEntry("INFO", "Save failed", 1_000L),
+            new FrontendLogEntry("ERROR", "Save failed", 1_000L)));
+
+        aggregator.flush();
+
+        assertEquals(2, captureSent().size());
+    }
+
+    @Test
+    void forwardsNewFingerprintsOnceTableIsFull() {
+        aggregator.accept(List.of(
+            new FrontendLogEntry("ERROR", "one", 1L),
+            new FrontendLogEntry("ERROR", "two", 1L),
+            new FrontendLogEntry("ERROR", "three", 1L),
+            new FrontendLogEntry("ERROR", "one", 2L)));
+
+        List<FrontendLogEntry> passed = captureSent();
+        assertEquals(List.of("three"), passed.stream().map(FrontendLogEntry::message).toList());
+        assertEquals(1, aggregator.getPassedThroughCount());
+        assertEquals(2, aggregator.getWindowFingerprints());
+    }
+
+    @Test
+    void flushStartsNewWindow() {
+        aggregator.accept(List.of(new FrontendLogEntry("ERROR", "boom", 1L)));
+        aggregator.flush();
+        aggregator.flush();
+
+        // The second flush has nothing to send
+        verify(mockLogService).sendFrontendLogs(anyList());
+        assertEquals(0, aggregator.getWindowFingerprints());
+        assertEquals(1, aggregator.getEmittedCount());
+    }
+
+    @Test
+    void passesThroughWhenDisabled() {
+        aggregator.enabled = false;
+        List<FrontendLogEntry> entries = List.of(new FrontendLogEntry("ERROR", "boom", 1L));
+
+        aggregator.accept(entries);
+
+        verify(mockLogService).sendFrontendLogs(entries);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<FrontendLogEntry> captureSent() {
+        ArgumentCaptor<List<FrontendLogEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockLogService).sendFrontendLogs(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,133 @@
+package org.acme.service;
+
+import org.acme.service.CloudWatchLogService.FrontendLogEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for LogRateLimiter, driven with explicit clock values.
+ */
+class LogRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private LogRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new LogRateLimiter();
+        limiter.capacity = 100;
+        limiter.refillPerSecond = 10;
+        limiter.maxClients = 3;
+        limiter.debugSampleRate = 0.0;
+        limiter.infoSampleRate = 1.0;
+        limiter.warnSampleRate = 1.0;
+        limiter.errorSampleRate = 1.0;
+    }
+
+    @Test
+    void allowsBurstUpToCapacityThenAsksToWait() {
+        assertEquals(0, limiter.tryAcquire("ip:a", 60, 0));
+        assertEquals(0, limiter.tryAcquire("ip:a", 40, 0));
+
+        // Empty bucket: one entry takes 100 ms to refill at 10/s
+        assertEquals(100, limiter.tryAcquire("ip:a", 1, 0));
+        assertEquals(1, limiter.getRejectedRequests());
+    }
+
+    @Test
+    void refillsOverTime() {
+        limiter.tryAcquire("ip:a", 100, 0);
+
+        assertEquals(0, limiter.tryAcquire("ip:a", 20, 2 * SECOND));
+        assertTrue(limiter.tryAcquire("ip:a", 1, 2 * SECOND) > 0);
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() {
+        limiter.tryAcquire("ip:a", 100, 0);
+
+        assertEquals(0, limiter.tryAcquire("ip:b", 100, 0));
+    }
+
+    @Test
+    void oversizedRequestCostsWholeBucket() {
+        assertEquals(0, limiter.tryAcquire("ip:a", 500, 0));
+        assertTrue(limiter.tryAcquire("ip:a", 1, 0) > 0);
+    }
+
+    @Test
+    void evictsIdleClientsWhenFull() {
+        limiter.tryAcquire("ip:a", 1, 0);
+        limiter.tryAcquire("ip:b", 1, 0);
+        limiter.tryAcquire("ip:c", 100, 0);
+
+        // a and b have refilled by now; c is still draining
+        limiter.tryAcquire("ip:d", 1, SECOND);
+
+        assertEquals(2, limiter.getTrackedClients());
+        assertEquals(2, limiter.getEvictedClients());
+        assertTrue(limiter.tryAcquire("ip:c", 100, SECOND) > 0);
+    }
+
+    @Test
+    void newClientsShareOverflowBucketWhenAllAreActive() {
+        limiter.tryAcquire("ip:a", 100, 0);
+        limiter.tryAcquire("ip:b", 100, 0);
+        limiter.tryAcquire("ip:c", 100, 0);
+
+        assertEquals(0, limiter.tryAcquire("ip:d", 100, 0));
+        assertTrue(limiter.tryAcquire("ip:e", 1, 0) > 0);
+        assertEquals(4, limiter.getTrackedClients());
+    }
+
+    @Test
+    void fullMapIsNotSweptAgainBeforeAnyBucketCanRefill() {
+        limiter.tryAcquire("ip:a", 100, 0);
+        limiter.tryAcquire("ip:b", 50, 0);
+        limiter.tryAcquire("ip:c", 100, 0);
+        // Full: d's sweep finds no idle client and sees that b is the first to refill, at 5 s
+        limiter.tryAcquire("ip:d", 1, 0);
+
+        // The overflow bucket is idle by 2 s, but the map is not scanned again until b can have refilled
+        limiter.tryAcquire("ip:e", 1, 2 * SECOND);
+        assertEquals(0, limiter.getEvictedClients());
+
+        limiter.tryAcquire("ip:f", 1, 6 * SECOND);
+        assertEquals(2, limiter.getEvictedClients());
+    }
+
+    @Test
+    void samplesPerLevel() {
+        List<FrontendLogEntry> entries = new ArrayList<>();
+        entries.add(new FrontendLogEntry("DEBUG", "noise", null));
+        entries.add(new FrontendLogEntry("info", "hello", null));
+        entries.add(new FrontendLogEntry("ERROR", "boom", null));
+        entries.add(new FrontendLogEntry(null, "no level", null));
+
+        List<FrontendLogEntry> kept = limiter.sample(entries);
+
+        assertEquals(List.of("hello", "boom", "no level"), kept.stream().map(FrontendLogEntry::message).toList());
+        assertEquals(1, limiter.getSampledOut());
+    }
+
+    @Test
+    void partialSampleRateKeepsRoughlyThatShare() {
+        limiter.debugSampleRate = 0.1;
+        List<FrontendLogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            entries.add(new FrontendLogEntry("DEBUG", "noise", null));
+        }
+
+        int kept = limiter.sample(entries).size();
+
+        assertTrue(kept > 700 && kept < 1300, "kept " + kept);
+    }
+}
@@ -0,0 +1,212 @@
+package org.acme.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for LogSpool using real segment files in a temporary directory.
+ */
+class LogSpoolTest {
+
+    private static final int SEGMENT = LogSpool.MIN_SEGMENT_BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysInOrderAndGroupsByStream() throws Exception {
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            assertTrue(spool.append("backend", events(0, 3)));
+            assertTrue(spool.append("frontend", events(3, 1)));
+
+            LogSpool.Batch first = spool.peek(10_000, 1_048_576, 26);
+            assertEquals("backend", first.stream());
+            assertEquals(List.of("m0", "m1", "m2"), messages(first));
+            // Peeking does not consume
+            assertEquals(first.events(), spool.peek(10_000, 1_048_576, 26).events());
+
+            spool.commit(first);
+            LogSpool.Batch second = spool.peek(10_000, 1_048_576, 26);
+            assertEquals("frontend", second.stream());
+            assertEquals(List.of("m3"), messages(second));
+
+            spool.commit(second);
+            assertFalse(spool.hasPending());
+            assertNull(spool.peek(10_000, 1_048_576, 26));
+            assertEquals(4, spool.stats().replayedEvents());
+        }
+    }
+
+    @Test
+    void peekRespectsEventAndByteLimits() throws Exception {
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            spool.append("backend", events(0, 5));
+
+            assertEquals(2, spool.peek(2, 1_048_576, 26).events().size());
+            // Each "mN" event is 2 bytes + 26 overhead
+            assertEquals(3, spool.peek(10, 3 * 28, 26).events().size());
+        }
+    }
+
+    @Test
+    void resumesFromCommittedOffsetAfterRestart() throws Exception {
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            spool.append("backend", events(0, 3));
+            spool.commit(spool.peek(2, 1_048_576, 26));
+        }
+
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            assertTrue(spool.hasPending());
+            assertEquals(List.of("m2"), messages(spool.peek(10_000, 1_048_576, 26)));
+        }
+    }
+
+    @Test
+    void replaysEverythingWhenOffsetIsTorn() throws Exception {
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            spool.append("backend", events(0, 3));
+            spool.commit(spool.peek(2, 1_048_576, 26));
+        }
+        try (RandomAccessFile offset = new RandomAccessFile(dir.resolve("offset").toFile(), "rw")) {
+            offset.seek(8);
+            offset.writeInt(12345);
+        }
+
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            assertEquals(List.of("m0", "m1", "m2"), messages(spool.peek(10_000, 1_048_576, 26)));
+        }
+    }
+
+    @Test
+    void ignoresTornRecordAtTail() throws Exception {
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            spool.append("backend", events(0, 2));
+        }
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        // Corrupt the last byte of the second record's message
+        int recordBytes = 8 + 2 + "backend".length() + 8 + 2;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(2L * recordBytes - 1);
+            file.write('X');
+        }
+
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            assertEquals(List.of("m0"), messages(spool.peek(10_000, 1_048_576, 26)));
+            // New events are appended over the torn record
+            spool.append("backend", events(9, 1));
+            assertEquals(List.of("m0", "m9"), messages(spool.peek(10_000, 1_048_576, 26)));
+        }
+    }
+
+    @Test
+    void dropOldestDiscardsOldestSegmentWhenFull() throws Exception {
+        try (LogSpool spool = open(2, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            String big = "x".repeat(200 * 1024);
+            // 5 events fill a 1 MB segment, so 11 need a third segment
+            for (int i = 0; i < 11; i++) {
+                assertTrue(spool.append("backend", List.of(event(i, big + i))));
+            }
+
+            LogSpool.Stats stats = spool.stats();
+            assertEquals(2, stats.segments());
+            assertEquals(5, stats.droppedEvents());
+            assertEquals(big + 5, spool.peek(10_000, Long.MAX_VALUE, 26).events().get(0).message());
+        }
+    }
+
+    @Test
+    void commitAfterInFlightSegmentWasDiscardedKeepsRolledPosition() throws Exception {
+        try (LogSpool spool = open(2, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            String big = "x".repeat(200 * 1024);
+            for (int i = 0; i < 3; i++) {
+                spool.append("backend", List.of(event(i, big + i)));
+            }
+            LogSpool.Batch inFlight = spool.peek(10_000, Long.MAX_VALUE, 26);
+
+            // While the batch is being sent the spool fills up and discards the segment it came from
+            for (int i = 3; i < 11; i++) {
+                assertTrue(spool.append("backend", List.of(event(i, big + i))));
+            }
+            spool.commit(inFlight);
+
+            assertEquals(big + 5, spool.peek(10_000, Long.MAX_VALUE, 26).events().get(0).message());
+        }
+    }
+
+    @Test
+    void dropNewestRejectsAppendsWhenFull() throws Exception {
+        try (LogSpool spool = open(2, LogSpool.OverflowPolicy.DROP_NEWEST)) {
+            String big = "x".repeat(200 * 1024);
+            int accepted = 0;
+            for (int i = 0; i < 12; i++) {
+                if (spool.append("backend", List.of(event(i, big + i)))) {
+                    accepted++;
+                }
+            }
+
+            assertEquals(10, accepted);
+            assertEquals(2, spool.stats().droppedEvents());
+            assertEquals(big + 0, spool.peek(10_000, Long.MAX_VALUE, 26).events().get(0).message());
+        }
+    }
+
+    @Test
+    void deletesSegmentsOnceReplayed() throws Exception {
+        try (LogSpool spool = open(4, LogSpool.OverflowPolicy.DROP_OLDEST)) {
+            String big = "x".repeat(200 * 1024);
+            for (int i = 0; i < 6; i++) {
+                spool.append("backend", List.of(event(i, big)));
+            }
+            assertEquals(2, spool.stats().segments());
+
+            LogSpool.Batch batch;
+            while ((batch = spool.peek(10_000, Long.MAX_VALUE, 26)) != null) {
+                spool.commit(batch);
+            }
+
+            assertEquals(1, spool.stats().segments());
+            assertEquals(0, spool.stats().pendingBytes());
+        }
+    }
+
+    @Test
+    void rejectsTinySegments() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new LogSpool(dir, 4096, 4, LogSpool.OverflowPolicy.DROP_OLDEST));
+    }
+
+    private LogSpool open(int maxSegments, LogSpool.OverflowPolicy policy) throws Exception {
+        return new LogSpool(dir, SEGMENT, maxSegments, policy);
+    }
+
+    private static List<InputLogEvent> events(int from, int count) {
+        List<InputLogEvent> events = new ArrayList<>();
+        IntStream.range(from, from + count).forEach(i -> events.add(event(i, "m" + i)));
+        return events;
+    }
+
+    private static InputLogEvent event(long timestamp, String message) {
+        return InputLogEvent.builder().timestamp(1_735_689_600_000L + timestamp).message(message).build();
+    }
+
+    private static List<String> messages(LogSpool.Batch batch) {
+        return batch.events().stream().map(InputLogEvent::message).toList();
+    }
+}
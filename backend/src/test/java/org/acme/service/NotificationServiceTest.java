@@ -0,0 +1,514 @@
+package org.acme.service;
+
+import org.acme.graphql.model.NotificationPage;
+import org.acme.model.Notification;
+import org.acme.model.NotificationCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for NotificationService using a mocked DynamoDB table and index.
+ */
+class NotificationServiceTest {
+
+    private NotificationService service;
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<Notification> mockTable = mock(DynamoDbTable.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbIndex<Notification> mockUserIndex = mock(DynamoDbIndex.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<NotificationCounter> mockCounterTable = mock(DynamoDbTable.class);
+    private final DynamoDbClient mockDynamoDb = mock(DynamoDbClient.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new NotificationService(mock(DynamoDbEnhancedClient.class), mockDynamoDb);
+
+        Field tableField = NotificationService.class.getDeclaredField("notificationTable");
+        tableField.setAccessible(true);
+        tableField.set(service, mockTable);
+
+        Field userIndexField = NotificationService.class.getDeclaredField("userIndex");
+        userIndexField.setAccessible(true);
+        userIndexField.set(service, mockUserIndex);
+
+        Field counterTableField = NotificationService.class.getDeclaredField("counterTable");
+        counterTableField.setAccessible(true);
+        counterTableField.set(service, mockCounterTable);
+
+        service.coalesceWindowMinutes = 60;
+
+        Field sortedField = NotificationService.class.getDeclaredField("userIndexSorted");
+        sortedField.setAccessible(true);
+        sortedField.set(service, true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pageIsOneDescendingLimitedQuery() {
+        // UserIndex returns notifications newest first
+        Notification c = makeNotification("c", "2025-01-03T00:00:00Z");
+        Notification b = makeNotification("b", "2025-01-02T00:00:00Z");
+        Notification a = makeNotification("a", "2025-01-01T00:00:00Z");
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(c, b, a)));
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(3));
+
+        NotificationPage page = service.getNotificationsPage("alice", 2, null);
+
+        assertEquals(List.of("c", "b"), page.getItems().stream().map(Notification::getId).toList());
+        assertEquals(2, page.getTotal());
+        assertEquals(3, page.getUnreadCount());
+        assertNotNull(page.getCursor());
+        // The unread count comes from the counter, so the page is the only query
+        QueryEnhancedRequest request = capturedQueries().get(0);
+        verify(mockUserIndex, times(1)).query(any(QueryEnhancedRequest.class));
+        assertFalse(request.scanIndexForward());
+        assertEquals(3, request.limit());
+        assertNull(request.exclusiveStartKey());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cursorResumesAfterLastItemOfUsersPartition() {
+        Notification b = makeNotification("b", "2025-01-02T00:00:00Z");
+        Notification a = makeNotification("a", "2025-01-01T00:00:00Z");
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class)))
+            .thenReturn(pages(List.of(b, a)))
+            .thenReturn(pages(List.of(a)));
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(2));
+
+        String cursor = service.getNotificationsPage("alice", 1, null).getCursor();
+        NotificationPage second = service.getNotificationsPage("alice", 1, cursor);
+
+        assertEquals("a", second.getItems().get(0).getId());
+        assertNull(second.getCursor());
+        QueryEnhancedRequest request = capturedQueries().get(1);
+        assertEquals("b", request.exclusiveStartKey().get("id").s());
+        assertEquals("alice", request.exclusiveStartKey().get("userId").s());
+        assertEquals("2025-01-02T00:00:00Z", request.exclusiveStartKey().get("createdAt").s());
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> service.getNotificationsPage("alice", 10, "not a cursor!"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void legacyPageIsSliceOfNewestFirstQuery() {
+        Notification c = makeNotification("c", "2025-01-03T00:00:00Z");
+        Notification b = makeNotification("b", "2025-01-02T00:00:00Z");
+        b.setRead(true);
+        Notification a = makeNotification("a", "2025-01-01T00:00:00Z");
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(c, b, a)));
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(2));
+
+        NotificationPage page = service.getNotifications("alice", 1, 2);
+
+        assertEquals(List.of("a"), page.getItems().stream().map(Notification::getId).toList());
+        assertEquals(3, page.getTotal());
+        assertEquals(2, page.getUnreadCount());
+        assertFalse(capturedQueries().get(0).scanIndexForward());
+        // The legacy mode reads a bounded window, not the whole history
+        assertEquals(NotificationService.LEGACY_WINDOW, capturedQueries().get(0).limit());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void hashOnlyUserIndexIsSortedInMemory() throws Exception {
+        Field sortedField = NotificationService.class.getDeclaredField("userIndexSorted");
+        sortedField.setAccessible(true);
+        sortedField.set(service, false);
+        // A table created before UserIndex had a sort key
+        when(mockDynamoDb.describeTable(any(Consumer.class))).thenReturn(DescribeTableResponse.builder()
+            .table(TableDescription.builder()
+                .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder()
+                    .indexName("UserIndex")
+                    .indexStatus(IndexStatus.ACTIVE)
+                    .keySchema(KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build())
+                    .build())
+                .build())
+            .build());
+        Notification c = makeNotification("c", "2025-01-03T00:00:00Z");
+        Notification b = makeNotification("b", "2025-01-02T00:00:00Z");
+        Notification a = makeNotification("a", "2025-01-01T00:00:00Z");
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenAnswer(inv -> pages(List.of(a, c, b)));
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(0));
+
+        NotificationPage first = service.getNotificationsPage("alice", 2, null);
+        NotificationPage second = service.getNotificationsPage("alice", 2, first.getCursor());
+
+        assertFalse(service.isUserIndexSorted());
+        assertEquals(List.of("c", "b"), first.getItems().stream().map(Notification::getId).toList());
+        assertEquals(List.of("a"), second.getItems().stream().map(Notification::getId).toList());
+        assertNull(second.getCursor());
+        // The unsorted index is read whole, without a start key it cannot honour
+        assertNull(capturedQueries().get(1).exclusiveStartKey());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unreadCountIsOneCounterRead() {
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(7));
+
+        assertEquals(7, service.getUnreadCount("alice"));
+        verify(mockUserIndex, never()).query(any(QueryEnhancedRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void missingCounterIsBackfilledFromHistoryOnce() {
+        Notification read = makeNotification("b", "2025-01-02T00:00:00Z");
+        read.setRead(true);
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class)))
+            .thenReturn(pages(List.of(read, makeNotification("a", "2025-01-01T00:00:00Z"))));
+
+        assertEquals(1, service.getUnreadCount("alice"));
+
+        ArgumentCaptor<PutItemRequest> put = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(mockDynamoDb).putItem(put.capture());
+        assertEquals("NotificationCounters", put.getValue().tableName());
+        assertEquals("1", put.getValue().item().get("unreadCount").n());
+        assertEquals("attribute_not_exists(userId)", put.getValue().conditionExpression());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void firstNotificationIsNewRowCountedInSameTransaction() {
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(0));
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+
+        TransactWriteItemsRequest request = capturedTransactions().get(0);
+        assertEquals(2, request.transactItems().size());
+        Put put = request.transactItems().get(0).put();
+        assertEquals(NotificationService.groupId("alice", "COMMENT", "LIST", "list-1"), put.item().get("id").s());
+        assertEquals("attribute_not_exists(id)", put.conditionExpression());
+        assertEquals("1", put.item().get("actorCount").n());
+        assertEquals("ADD unreadCount :delta", request.transactItems().get(1).update().updateExpression());
+        assertEquals("1", request.transactItems().get(1).update().expressionAttributeValues().get(":delta").n());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventCoalescesIntoOpenNotificationWithoutCounting() {
+        Notification open = makeNotification(NotificationService.groupId("alice", "COMMENT", "LIST", "list-1"),
+            Instant.now().minus(Duration.ofMinutes(5)).toString());
+        open.setActorUsername("carol");
+        open.setActorCount(2);
+        open.setRecentActors(List.of("carol", "dave"));
+        open.setVersion(3L);
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(open);
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(1));
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-2");
+
+        TransactWriteItemsRequest request = capturedTransactions().get(0);
+        Put put = request.transactItems().get(0).put();
+        assertEquals("version = :version", put.conditionExpression());
+        assertEquals("3", put.expressionAttributeValues().get(":version").n());
+        assertEquals("4", put.item().get("version").n());
+        assertEquals("3", put.item().get("actorCount").n());
+        assertEquals(List.of("bob", "carol", "dave"),
+            put.item().get("recentActors").l().stream().map(AttributeValue::s).toList());
+        assertEquals("bob", put.item().get("actorUsername").s());
+        assertEquals("c-2", put.item().get("targetId").s());
+        // Already counted as unread: the counter is only checked
+        assertNull(request.transactItems().get(1).update());
+        assertNotNull(request.transactItems().get(1).conditionCheck());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void repeatActorIsNotCountedTwice() {
+        Notification open = makeNotification(NotificationService.groupId("alice", "COMMENT", "LIST", "list-1"),
+            Instant.now().minus(Duration.ofMinutes(5)).toString());
+        open.setActorCount(2);
+        open.setRecentActors(List.of("carol", "bob"));
+        open.setVersion(1L);
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(open);
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(1));
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "again", "c-3");
+
+        Put put = capturedTransactions().get(0).transactItems().get(0).put();
+        assertEquals("2", put.item().get("actorCount").n());
+        assertEquals(List.of("bob", "carol"),
+            put.item().get("recentActors").l().stream().map(AttributeValue::s).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readOrStaleNotificationStartsOver() {
+        Notification read = makeNotification("g", Instant.now().minus(Duration.ofMinutes(5)).toString());
+        read.setRead(true);
+        read.setActorCount(4);
+        read.setVersion(7L);
+        Notification stale = makeNotification("g", Instant.now().minus(Duration.ofHours(2)).toString());
+        stale.setActorCount(4);
+        stale.setVersion(7L);
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(read).thenReturn(stale);
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(1));
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+
+        List<TransactWriteItemsRequest> requests = capturedTransactions();
+        for (TransactWriteItemsRequest request : requests) {
+            assertEquals("1", request.transactItems().get(0).put().item().get("actorCount").n());
+            assertEquals("8", request.transactItems().get(0).put().item().get("version").n());
+        }
+        // Either way the row holds a new unread notification, and the replaced one is kept as it was
+        assertEquals("1", requests.get(0).transactItems().get(1).update().expressionAttributeValues().get(":delta").n());
+        assertEquals("1", requests.get(1).transactItems().get(1).update().expressionAttributeValues().get(":delta").n());
+        Put archivedRead = requests.get(0).transactItems().get(2).put();
+        Put archivedStale = requests.get(1).transactItems().get(2).put();
+        assertEquals("attribute_not_exists(id)", archivedRead.conditionExpression());
+        assertTrue(archivedRead.item().get("read").bool());
+        assertEquals("4", archivedRead.item().get("actorCount").n());
+        assertFalse(archivedStale.item().get("read").bool());
+        assertNotEquals("g", archivedRead.item().get("id").s());
+        assertNotEquals(archivedRead.item().get("id").s(), archivedStale.item().get("id").s());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void openNotificationIsNotArchived() {
+        Notification open = makeNotification("g", Instant.now().minus(Duration.ofMinutes(5)).toString());
+        open.setVersion(1L);
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(open);
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(1));
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+
+        assertEquals(2, capturedTransactions().get(0).transactItems().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void notificationBelowWatermarkStartsOverAndCounts() {
+        Notification open = makeNotification("g", Instant.now().minus(Duration.ofMinutes(5)).toString());
+        open.setVersion(1L);
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(open);
+        NotificationCounter counter = counter(0);
+        counter.setReadUpTo(Instant.now().minus(Duration.ofMinutes(1)).toEpochMilli());
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter);
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+
+        Update update = capturedTransactions().get(0).transactItems().get(1).update();
+        assertEquals("1", update.expressionAttributeValues().get(":delta").n());
+        // Guarded on the watermark it was judged by, so a concurrent mark-all-read forces a retry
+        assertTrue(update.conditionExpression().contains("readUpTo = :readUpTo"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void conflictRereadsAndRetries() {
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter(0));
+        when(mockDynamoDb.transactWriteItems(any(Consumer.class)))
+            .thenThrow(TransactionCanceledException.builder()
+                .cancellationReasons(
+                    CancellationReason.builder().code("ConditionalCheckFailed").build(),
+                    CancellationReason.builder().code("None").build())
+                .build())
+            .thenReturn(null);
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+
+        verify(mockDynamoDb, times(2)).transactWriteItems(any(Consumer.class));
+        verify(mockTable, times(2)).getItem(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void missingCounterIsBackfilledBeforeFirstNotification() {
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of()));
+
+        service.createNotification("alice", "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+
+        verify(mockDynamoDb).putItem(any(PutItemRequest.class));
+        verify(mockDynamoDb, times(1)).transactWriteItems(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markReadFlipsRowAndDecrementsCounter() {
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(makeNotification("a", "2025-01-01T00:00:00Z"));
+
+        assertTrue(service.markRead("a", "alice"));
+
+        TransactWriteItemsRequest request = capturedTransactions().get(0);
+        assertEquals("SET #read = :true ADD version :one", request.transactItems().get(0).update().updateExpression());
+        assertEquals("-1", request.transactItems().get(1).update().expressionAttributeValues().get(":delta").n());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markReadOfReadOrForeignNotificationWritesNothing() {
+        Notification read = makeNotification("a", "2025-01-01T00:00:00Z");
+        read.setRead(true);
+        when(mockTable.getItem(any(Consumer.class))).thenReturn(read);
+
+        assertTrue(service.markRead("a", "alice"));
+        assertFalse(service.markRead("a", "mallory"));
+        verify(mockDynamoDb, never()).transactWriteItems(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markAllReadIsOneWatermarkWrite() {
+        long before = Instant.now().toEpochMilli();
+
+        assertTrue(service.markAllRead("alice"));
+
+        ArgumentCaptor<UpdateItemRequest> update = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockDynamoDb).updateItem(update.capture());
+        assertEquals("NotificationCounters", update.getValue().tableName());
+        assertEquals("SET readUpTo = :readUpTo, unreadCount = :zero", update.getValue().updateExpression());
+        assertTrue(Long.parseLong(update.getValue().expressionAttributeValues().get(":readUpTo").n()) > before);
+        // No row is read or written, however many notifications the user has
+        verify(mockUserIndex, never()).query(any(QueryEnhancedRequest.class));
+        verify(mockDynamoDb, never()).transactWriteItems(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void notificationsBelowWatermarkReadAsRead() {
+        Notification newer = makeNotification("b", "2025-01-02T00:00:00Z");
+        Notification older = makeNotification("a", "2025-01-01T00:00:00Z");
+        when(mockUserIndex.query(any(QueryEnhancedRequest.class))).thenReturn(pages(List.of(newer, older)));
+        NotificationCounter counter = counter(1);
+        counter.setReadUpTo(Instant.parse("2025-01-01T12:00:00Z").toEpochMilli());
+        when(mockCounterTable.getItem(any(Consumer.class))).thenReturn(counter);
+
+        NotificationPage page = service.getNotificationsPage("alice", 10, null);
+
+        assertFalse(page.getItems().get(0).getRead());
+        assertTrue(page.getItems().get(1).getRead());
+        assertEquals(1, page.getUnreadCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fanOutReadsStateInBatchesAndCoalescesEachRecipient() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Field executorField = NotificationService.class.getDeclaredField("fanOutExecutor");
+        executorField.setAccessible(true);
+        executorField.set(service, executor);
+        List<Integer> keysRead = new CopyOnWriteArrayList<>();
+        when(mockDynamoDb.batchGetItem(any(Consumer.class))).thenAnswer(invocation -> {
+            BatchGetItemRequest.Builder builder = BatchGetItemRequest.builder();
+            ((Consumer<BatchGetItemRequest.Builder>) invocation.getArgument(0)).accept(builder);
+            List<Map<String, AttributeValue>> counterKeys = builder.build().requestItems().get("NotificationCounters").keys();
+            keysRead.add(counterKeys.size());
+            // Every recipient has a counter and no notification yet
+            List<Map<String, AttributeValue>> counters = counterKeys.stream()
+                .map(key -> Map.of("userId", key.get("userId"), "unreadCount", AttributeValue.builder().n("0").build()))
+                .toList();
+            return BatchGetItemResponse.builder().responses(Map.of("NotificationCounters", counters)).build();
+        });
+        List<String> recipients = IntStream.range(0, 60).mapToObj(i -> "user" + i).toList();
+
+        service.createNotifications(recipients, "COMMENT", "LIST", "list-1", "bob", "hi", "c-1");
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of(10, 25, 25), keysRead.stream().sorted().toList());
+        // One conditional write per recipient and no per-recipient reads
+        verify(mockDynamoDb, times(60)).transactWriteItems(any(Consumer.class));
+        verify(mockTable, never()).getItem(any(Consumer.class));
+        verify(mockCounterTable, never()).getItem(any(Consumer.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TransactWriteItemsRequest> capturedTransactions() {
+        ArgumentCaptor<Consumer<TransactWriteItemsRequest.Builder>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockDynamoDb, atLeastOnce()).transactWriteItems(captor.capture());
+        return captor.getAllValues().stream()
+            .map(consumer -> {
+                TransactWriteItemsRequest.Builder builder = TransactWriteItemsRequest.builder();
+                consumer.accept(builder);
+                return builder.build();
+            })
+            .toList();
+    }
+
+    private static NotificationCounter counter(long unread) {
+        NotificationCounter counter = new NotificationCounter();
+        counter.setUserId("alice");
+        counter.setUnreadCount(unread);
+        return counter;
+    }
+
+    private List<QueryEnhancedRequest> capturedQueries() {
+        ArgumentCaptor<QueryEnhancedRequest> captor = ArgumentCaptor.forClass(QueryEnhancedRequest.class);
+        verify(mockUserIndex, atLeastOnce()).query(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static PageIterable<Notification> pages(List<Notification> items) {
+        return PageIterable.create(() -> List.of(Page.create(items)).iterator());
+    }
+
+    private static Notification makeNotification(String id, String createdAt) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId("alice");
+        notification.setType("COMMENT");
+        notification.setRead(false);
+        notification.setCreatedAt(Instant.parse(createdAt));
+        return notification;
+    }
+}
@@ -0,0 +1,45 @@
+package org.acme.service;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for PageCursor encoding of DynamoDB last-evaluated keys.
+ */
+class PageCursorTest {
+
+    @Test
+    void roundTripsStringAndNumberKeys() {
+        Map<String, AttributeValue> key = Map.of(
+            "id", AttributeValue.builder().s("list-1").build(),
+            "updatedAt", AttributeValue.builder().s("2025-06-01T00:00:00Z").build(),
+            "count", AttributeValue.builder().n("42").build());
+
+        Map<String, AttributeValue> decoded = PageCursor.decode(PageCursor.encode(key));
+
+        assertEquals(key, decoded);
+    }
+
+    @Test
+    void emptyKeyHasNoCursor() {
+        assertNull(PageCursor.encode(null));
+        assertNull(PageCursor.encode(Map.of()));
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode("  "));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+    }
+}
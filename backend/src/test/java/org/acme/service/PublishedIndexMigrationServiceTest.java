@@ -0,0 +1,159 @@
+package org.acme.service;
+
+import org.acme.model.MigrationCheckpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.BillingModeSummary;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the PublishedIndex creation and backfill using a mocked DynamoDB client.
+ */
+class PublishedIndexMigrationServiceTest {
+
+    private PublishedIndexMigrationService service;
+    private final DynamoDbClient mockDynamoDb = mock(DynamoDbClient.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<MigrationCheckpoint> mockCheckpointTable = mock(DynamoDbTable.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new PublishedIndexMigrationService(mock(DynamoDbEnhancedClient.class), mockDynamoDb);
+        Field field = PublishedIndexMigrationService.class.getDeclaredField("checkpointTable");
+        field.setAccessible(true);
+        field.set(service, mockCheckpointTable);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createsIndexOnTableWithoutIt() {
+        when(mockDynamoDb.describeTable(any(Consumer.class))).thenReturn(describe(TableDescription.builder()
+            .tableName("Lists")
+            .billingModeSummary(BillingModeSummary.builder().billingMode(BillingMode.PAY_PER_REQUEST).build())
+            .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder().indexName("OwnerIndex").build())
+            .build()));
+
+        service.createIndexIfMissing();
+
+        ArgumentCaptor<UpdateTableRequest> captor = ArgumentCaptor.forClass(UpdateTableRequest.class);
+        verify(mockDynamoDb).updateTable(captor.capture());
+        UpdateTableRequest request = captor.getValue();
+        assertEquals("PublishedIndex", request.globalSecondaryIndexUpdates().get(0).create().indexName());
+        assertNull(request.globalSecondaryIndexUpdates().get(0).create().provisionedThroughput());
+        assertEquals(2, request.attributeDefinitions().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leavesExistingIndexAlone() {
+        when(mockDynamoDb.describeTable(any(Consumer.class))).thenReturn(describe(TableDescription.builder()
+            .tableName("Lists")
+            .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder().indexName("PublishedIndex").build())
+            .build()));
+
+        service.createIndexIfMissing();
+
+        verify(mockDynamoDb, never()).updateTable(any(UpdateTableRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stampsPublishedListsAndMarksDone() {
+        when(mockDynamoDb.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder()
+            .items(List.of(Map.of("id", s("list-1"), "createdAt", s("2024-05-01T10:00:00Z")), Map.of("id", s("list-2"))))
+            .build());
+        when(mockDynamoDb.updateItem(any(Consumer.class)))
+            .thenReturn(UpdateItemResponse.builder().build())
+            // list-2 was unpublished between the scan and the update
+            .thenThrow(ConditionalCheckFailedException.builder().message("unpublished").build());
+
+        assertTrue(service.backfill());
+
+        ArgumentCaptor<Consumer<UpdateItemRequest.Builder>> updates = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockDynamoDb, times(2)).updateItem(updates.capture());
+        UpdateItemRequest.Builder builder = UpdateItemRequest.builder();
+        updates.getAllValues().get(0).accept(builder);
+        UpdateItemRequest first = builder.build();
+        assertEquals("list-1", first.key().get("id").s());
+        assertEquals("PUBLISHED", first.expressionAttributeValues().get(":partition").s());
+        assertEquals("published = :true", first.conditionExpression());
+        assertEquals("2024-05-01T10:00:00Z", first.expressionAttributeValues().get(":sortKey").s());
+        // list-2 has no createdAt either, so it still gets a sort key and lands in the index
+        builder = UpdateItemRequest.builder();
+        updates.getAllValues().get(1).accept(builder);
+        assertEquals("1970-01-01T00:00:00Z", builder.build().expressionAttributeValues().get(":sortKey").s());
+
+        ArgumentCaptor<MigrationCheckpoint> checkpoint = ArgumentCaptor.forClass(MigrationCheckpoint.class);
+        verify(mockCheckpointTable).putItem(checkpoint.capture());
+        assertEquals(true, checkpoint.getValue().getDone());
+        assertEquals(1L, checkpoint.getValue().getItemsCopied());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resumesFromCheckpoint() {
+        MigrationCheckpoint saved = new MigrationCheckpoint();
+        saved.setId("lists-published-index");
+        saved.setItemsCopied(7L);
+        saved.setDone(false);
+        saved.setLastEvaluatedKey(PageCursor.encode(Map.of("id", s("list-9"))));
+        when(mockCheckpointTable.getItem(any(Consumer.class))).thenReturn(saved);
+        when(mockDynamoDb.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder().items(List.of()).build());
+
+        assertTrue(service.backfill());
+
+        ArgumentCaptor<ScanRequest> scan = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(mockDynamoDb).scan(scan.capture());
+        assertEquals("list-9", scan.getValue().exclusiveStartKey().get("id").s());
+        assertEquals(7L, saved.getItemsCopied());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doneMarkerSkipsBackfill() {
+        MigrationCheckpoint marker = new MigrationCheckpoint();
+        marker.setDone(true);
+        when(mockCheckpointTable.getItem(any(Consumer.class))).thenReturn(marker);
+
+        assertTrue(service.isComplete());
+        assertTrue(service.backfill());
+        verify(mockDynamoDb, never()).scan(any(ScanRequest.class));
+    }
+
+    private static DescribeTableResponse describe(TableDescription table) {
+        return DescribeTableResponse.builder().table(table).build();
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+}
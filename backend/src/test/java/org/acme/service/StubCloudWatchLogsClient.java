@@ -0,0 +1,101 @@
+package org.acme.service;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CloudWatchLogsException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.CreateLogStreamResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InputLogEvent;
+import software.amazon.awssdk.services.cloudwatchlogs.model.InvalidParameterException;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsRequest;
+import software.amazon.awssdk.services.cloudwatchlogs.model.PutLogEventsResponse;
+import software.amazon.awssdk.services.cloudwatchlogs.model.ResourceNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory CloudWatch Logs that enforces the PutLogEvents batch rules the way the real service
+ * (and LocalStack) does: events in chronological order, at most 10,000 events and 1,048,576 bytes
+ * (message bytes plus 26 per event), spanning no more than 24 hours.
+ */
+class StubCloudWatchLogsClient implements CloudWatchLogsClient {
+
+    final List<PutLogEventsRequest> batches = new CopyOnWriteArrayList<>();
+    final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile int failureStatus;
+    // When set, PutLogEvents reports a missing stream and CreateLogStream fails with this
+    volatile RuntimeException createStreamFailure;
+
+    /**
+     * Fail the next {@code count} calls with the given HTTP status (429 is reported as throttling).
+     */
+    void failNext(int count, int status) {
+        failureStatus = status;
+        failuresLeft.set(count);
+    }
+
+    int eventCount() {
+        return batches.stream().mapToInt(b -> b.logEvents().size()).sum();
+    }
+
+    @Override
+    public PutLogEventsResponse putLogEvents(PutLogEventsRequest request) {
+        calls.incrementAndGet();
+        if (createStreamFailure != null) {
+            throw ResourceNotFoundException.builder().message("The specified log stream does not exist.").build();
+        }
+        if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            String code = failureStatus == 429 ? "ThrottlingException" : "ServiceUnavailableException";
+            throw CloudWatchLogsException.builder()
+                .statusCode(failureStatus)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(code).errorMessage(code).build())
+                .build();
+        }
+        List<InputLogEvent> events = request.logEvents();
+        if (events.isEmpty() || events.size() > 10_000) {
+            throw invalid("batch has " + events.size() + " events");
+        }
+        long bytes = 0;
+        for (int i = 0; i < events.size(); i++) {
+            bytes += events.get(i).message().getBytes(StandardCharsets.UTF_8).length + 26;
+            if (i > 0 && events.get(i).timestamp() < events.get(i - 1).timestamp()) {
+                throw invalid("log events are not in chronological order");
+            }
+        }
+        if (bytes > 1_048_576) {
+            throw invalid("batch is " + bytes + " bytes");
+        }
+        if (events.get(events.size() - 1).timestamp() - events.get(0).timestamp() > TimeUnit.HOURS.toMillis(24)) {
+            throw invalid("batch spans more than 24 hours");
+        }
+        batches.add(request);
+        return PutLogEventsResponse.builder().build();
+    }
+
+    @Override
+    public CreateLogStreamResponse createLogStream(CreateLogStreamRequest request) {
+        RuntimeException failure = createStreamFailure;
+        if (failure != null) {
+            throw failure;
+        }
+        return CreateLogStreamResponse.builder().build();
+    }
+
+    private static InvalidParameterException invalid(String message) {
+        return (InvalidParameterException) InvalidParameterException.builder().statusCode(400).message(message).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return "logs";
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,112 @@
+package org.acme.service;
+
+import org.acme.graphql.model.CognitoUserView;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for UserDirectory.
+ */
+class UserDirectoryTest {
+
+    @Test
+    void pagesFollowEachSortOrder() {
+        UserDirectory directory = UserDirectory.of(List.of(
+            user("carol", "a@test.com", 3),
+            user("alice", "c@test.com", 1),
+            user("bob", "b@test.com", 2)), 0);
+
+        assertEquals(List.of("alice", "bob", "carol"), names(directory.page("username", false, 0, 10)));
+        assertEquals(List.of("carol", "bob", "alice"), names(directory.page("email", false, 0, 10)));
+        assertEquals(List.of("carol", "bob"), names(directory.page("created", true, 0, 2)));
+        assertEquals(List.of("alice"), names(directory.page("created", true, 2, 2)));
+        assertEquals(List.of(), directory.page("created", true, 5, 2));
+    }
+
+    @Test
+    void unknownSortFieldsFallBackToUsername() {
+        assertEquals("username", UserDirectory.sortField(null));
+        assertEquals("username", UserDirectory.sortField("password"));
+        assertEquals("lastupdatedtime", UserDirectory.sortField(" lastUpdatedTime "));
+    }
+
+    @Test
+    void tiesAreBrokenByUsername() {
+        UserDirectory directory = UserDirectory.of(List.of(
+            user("bob", "same@test.com", 1),
+            user("alice", "same@test.com", 1)), 0);
+
+        assertEquals(List.of("alice", "bob"), names(directory.page("email", false, 0, 10)));
+        assertEquals(List.of("bob", "alice"), names(directory.page("email", true, 0, 10)));
+    }
+
+    @Test
+    void withReplacesUserInEveryOrder() {
+        UserDirectory directory = UserDirectory.of(List.of(
+            user("alice", "a@test.com", 1),
+            user("bob", "b@test.com", 2)), 0);
+        CognitoUserView updated = user("alice", "z@test.com", 1);
+
+        UserDirectory patched = directory.with(updated);
+
+        assertSame(updated, patched.get("alice"));
+        assertEquals(2, patched.size());
+        assertEquals(List.of("bob", "alice"), names(patched.page("email", false, 0, 10)));
+        assertEquals(List.of("alice", "bob"), names(patched.page("username", false, 0, 10)));
+        // The original snapshot is untouched
+        assertEquals(List.of("alice", "bob"), names(directory.page("email", false, 0, 10)));
+    }
+
+    @Test
+    void withAddsNewUser() {
+        UserDirectory directory = UserDirectory.of(List.of(user("bob", "b@test.com", 2)), 0);
+
+        UserDirectory patched = directory.with(user("alice", "a@test.com", 1));
+
+        assertEquals(List.of("alice", "bob"), names(patched.page("created", false, 0, 10)));
+    }
+
+    @Test
+    void withoutRemovesUserFromEveryOrder() {
+        UserDirectory directory = UserDirectory.of(List.of(
+            user("alice", "a@test.com", 1),
+            user("bob", "b@test.com", 2)), 0);
+
+        UserDirectory patched = directory.without("alice");
+
+        assertNull(patched.get("alice"));
+        assertEquals(List.of("bob"), names(patched.page("email", false, 0, 10)));
+        assertEquals(List.of("bob"), names(patched.page("mfasetting", true, 0, 10)));
+        assertSame(patched, patched.without("nobody"));
+    }
+
+    @Test
+    void searchSeesEachSnapshotsOwnUsers() {
+        UserDirectory directory = UserDirectory.of(List.of(user("bob", "b@test.com", 2)), 0);
+        assertEquals(List.of("bob"), names(directory.search("", null, 10).items()));
+
+        UserDirectory patched = directory.with(user("bobby", "bb@test.com", 3)).without("bob");
+
+        assertEquals(List.of("bobby"), names(patched.search("bob", null, 10).items()));
+        assertEquals(List.of("bob"), names(directory.search("bob", null, 10).items()));
+    }
+
+    private static CognitoUserView user(String username, String email, long created) {
+        CognitoUserView view = new CognitoUserView();
+        view.setUsername(username);
+        view.setEmail(email);
+        view.setCreated(Instant.ofEpochSecond(created));
+        view.setGroups(List.of());
+        return view;
+    }
+
+    private static List<String> names(List<CognitoUserView> users) {
+        return users.stream().map(CognitoUserView::getUsername).toList();
+    }
+}
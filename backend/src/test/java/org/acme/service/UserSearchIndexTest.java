@@ -0,0 +1,85 @@
+package org.acme.service;
+
+import org.acme.graphql.model.CognitoUserView;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for UserSearchIndex.
+ */
+class UserSearchIndexTest {
+
+    private final UserSearchIndex index = UserSearchIndex.build(new CognitoUserView[] {
+        user("alice", "alice@acme.io", "AdminUser", "RegularUser"),
+        user("bob", "robert@example.com", "RegularUser"),
+        user("carol", "carol@acme.io"),
+        user("dave", null, "OwnerUser")
+    });
+
+    @Test
+    void matchesUsernamePrefixCaseInsensitively() {
+        assertEquals(List.of("alice"), names(index.search("AL", 0, 10)));
+    }
+
+    @Test
+    void matchesEmailAndEmailDomain() {
+        assertEquals(List.of("bob"), names(index.search("rob", 0, 10)));
+        assertEquals(List.of("alice", "carol"), names(index.search("acme", 0, 10)));
+    }
+
+    @Test
+    void matchesGroups() {
+        assertEquals(List.of("alice", "bob"), names(index.search("regular", 0, 10)));
+        assertEquals(List.of("dave"), names(index.search("owner", 0, 10)));
+    }
+
+    @Test
+    void userMatchingSeveralKeysIsReturnedOnce() {
+        // "a" hits alice's username, email and AdminUser group
+        UserSearchIndex.Matches matches = index.search("a", 0, 10);
+        assertEquals(List.of("alice"), names(matches));
+        assertEquals(1, matches.total());
+    }
+
+    @Test
+    void blankQueryMatchesEveryone() {
+        assertEquals(4, index.search("  ", 0, 10).total());
+    }
+
+    @Test
+    void pagesInUsernameOrder() {
+        UserSearchIndex.Matches first = index.search("", 0, 3);
+        assertEquals(List.of("alice", "bob", "carol"), names(first));
+        assertTrue(first.hasMore());
+
+        UserSearchIndex.Matches second = index.search("", 3, 3);
+        assertEquals(List.of("dave"), names(second));
+        assertFalse(second.hasMore());
+        assertEquals(4, second.total());
+    }
+
+    @Test
+    void noMatches() {
+        UserSearchIndex.Matches matches = index.search("zzz", 0, 10);
+        assertTrue(matches.items().isEmpty());
+        assertEquals(0, matches.total());
+        assertFalse(matches.hasMore());
+    }
+
+    private static CognitoUserView user(String username, String email, String... groups) {
+        CognitoUserView view = new CognitoUserView();
+        view.setUsername(username);
+        view.setEmail(email);
+        view.setGroups(List.of(groups));
+        return view;
+    }
+
+    private static List<String> names(UserSearchIndex.Matches matches) {
+        return matches.items().stream().map(CognitoUserView::getUsername).toList();
+    }
+}
@@ -0,0 +1,157 @@
+package org.acme.service;
+
+import org.acme.model.MigrationCheckpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the resumable Votes table migration using a mocked DynamoDB client.
+ */
+class VoteMigrationServiceTest {
+
+    private VoteMigrationService service;
+    private final DynamoDbClient mockDynamoDb = mock(DynamoDbClient.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<MigrationCheckpoint> mockCheckpointTable = mock(DynamoDbTable.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new VoteMigrationService(mock(DynamoDbEnhancedClient.class), mockDynamoDb);
+        setField("checkpointTable", mockCheckpointTable);
+        setField("segments", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void copiesSegmentIntoCompositeKeyLayout() {
+        when(mockDynamoDb.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder()
+            .items(List.of(legacyVote("v1", "alice", 5), legacyVote("v2", "bob", 3)))
+            .build());
+        when(mockDynamoDb.putItem(any(PutItemRequest.class)))
+            .thenReturn(PutItemResponse.builder().build())
+            // bob already voted in the new table
+            .thenThrow(ConditionalCheckFailedException.builder().message("exists").build());
+        when(mockDynamoDb.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+            .item(Map.of(VoteService.ENTITY_KEY, s("LIST#list-1")))
+            .build());
+
+        assertTrue(service.migrateSegment(0));
+
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(mockDynamoDb, times(2)).putItem(captor.capture());
+        PutItemRequest first = captor.getAllValues().get(0);
+        assertEquals(VoteService.VOTES_TABLE, first.tableName());
+        assertEquals("attribute_not_exists(userId)", first.conditionExpression());
+        assertEquals("LIST#list-1", first.item().get(VoteService.ENTITY_KEY).s());
+        assertEquals("alice", first.item().get(VoteService.USER_ID).s());
+        assertEquals("bob", captor.getAllValues().get(1).item().get(VoteService.USER_ID).s());
+
+        // Only alice's legacy row was copied; bob's newer vote was kept
+        ArgumentCaptor<MigrationCheckpoint> checkpoint = ArgumentCaptor.forClass(MigrationCheckpoint.class);
+        verify(mockCheckpointTable).putItem(checkpoint.capture());
+        assertEquals(true, checkpoint.getValue().getDone());
+        assertEquals(1L, checkpoint.getValue().getItemsCopied());
+        // The entity already has an aggregate, so it is not rebuilt
+        verify(mockDynamoDb, never()).query(any(QueryRequest.class));
+    }
+
+    @Test
+    void buildsMissingAggregateFromLegacyAndCopiedVotes() {
+        when(mockDynamoDb.query(any(QueryRequest.class))).thenAnswer(inv -> {
+            QueryRequest request = inv.getArgument(0);
+            List<Map<String, AttributeValue>> items = VoteMigrationService.LEGACY_TABLE.equals(request.tableName())
+                ? List.of(legacyVote("v1", "alice", 5), legacyVote("v2", "bob", 1))
+                // bob has re-voted since, in the new table
+                : List.of(Map.of(VoteService.USER_ID, s("bob"), "rating", n(3)));
+            return QueryResponse.builder().items(items).build();
+        });
+
+        service.buildAggregate("LIST", "list-1");
+
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(mockDynamoDb).putItem(captor.capture());
+        PutItemRequest put = captor.getValue();
+        assertEquals(VoteService.AGGREGATES_TABLE, put.tableName());
+        assertEquals("attribute_not_exists(entityKey)", put.conditionExpression());
+        assertEquals("2", put.item().get("voteCount").n());
+        assertEquals("8", put.item().get("ratingSum").n());
+        assertEquals("0", put.item().get("stars1").n());
+        assertEquals("1", put.item().get("stars3").n());
+        assertEquals("1", put.item().get("stars5").n());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void skipsFinishedSegment() {
+        MigrationCheckpoint done = new MigrationCheckpoint();
+        done.setTotalSegments(2);
+        done.setDone(true);
+        when(mockCheckpointTable.getItem(any(Consumer.class))).thenReturn(done);
+
+        assertTrue(service.migrateSegment(1));
+        verify(mockDynamoDb, never()).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refusesToResumeWithDifferentSegmentCount() {
+        MigrationCheckpoint inProgress = new MigrationCheckpoint();
+        inProgress.setTotalSegments(8);
+        inProgress.setDone(false);
+        when(mockCheckpointTable.getItem(any(Consumer.class))).thenReturn(inProgress);
+
+        assertThrows(IllegalStateException.class, () -> service.migrateSegment(0));
+    }
+
+    private static Map<String, AttributeValue> legacyVote(String id, String userId, int rating) {
+        return Map.of(
+            "id", s(id),
+            "entityType", s("LIST"),
+            "entityId", s("list-1"),
+            "userId", s(userId),
+            "rating", n(rating));
+    }
+
+    private static AttributeValue n(int value) {
+        return AttributeValue.builder().n(Integer.toString(value)).build();
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = VoteMigrationService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+}
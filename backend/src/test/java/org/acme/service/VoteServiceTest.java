@@ -0,0 +1,255 @@
+package org.acme.service;
+
+import org.acme.graphql.model.VoteAnalytics;
+import org.acme.graphql.model.VoteStats;
+import org.acme.model.Vote;
+import org.acme.model.VoteAggregate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for VoteService aggregate maintenance using mocked DynamoDB clients.
+ */
+class VoteServiceTest {
+
+    private VoteService service;
+    private final DynamoDbClient mockDynamoDb = mock(DynamoDbClient.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<Vote> mockVoteTable = mock(DynamoDbTable.class);
+    private final VoteMigrationService mockMigration = mock(VoteMigrationService.class);
+    @SuppressWarnings("unchecked")
+    private final DynamoDbTable<VoteAggregate> mockAggregateTable = mock(DynamoDbTable.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(mockMigration.isComplete()).thenReturn(true);
+        service = new VoteService(mock(DynamoDbEnhancedClient.class), mockDynamoDb, mockMigration);
+        setField("voteTable", mockVoteTable);
+        setField("aggregateTable", mockAggregateTable);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void voteStatsComeFromAggregate() {
+        when(mockAggregateTable.getItem(any(Consumer.class))).thenReturn(aggregate(7, 2, 0, 0, 1, 0, 1));
+        givenVotes(vote("alice", 5));
+
+        VoteStats stats = service.getVoteStats("LIST", "list-1", "alice");
+
+        assertEquals(3.5, stats.getAverageRating());
+        assertEquals(2, stats.getVoteCount());
+        assertEquals(5, stats.getUserRating());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void voteAnalyticsUsesHistogram() {
+        when(mockAggregateTable.getItem(any(Consumer.class))).thenReturn(aggregate(7, 2, 0, 0, 1, 0, 1));
+        givenVotes();
+
+        VoteAnalytics analytics = service.getVoteAnalytics("LIST", "list-1", "bob");
+
+        assertEquals(5, analytics.getRatingDistribution().size());
+        assertEquals(1, analytics.getRatingDistribution().get(2).getCount());
+        assertEquals(1, analytics.getRatingDistribution().get(4).getCount());
+        assertNull(analytics.getUserRating());
+    }
+
+    @Test
+    void missingAggregateReadsAsNoVotesWithoutWriting() {
+        givenVotes(vote("alice", 4));
+
+        VoteStats stats = service.getVoteStats("LIST", "list-1", "alice");
+
+        assertEquals(0, stats.getVoteCount());
+        assertNull(stats.getUserRating());
+        verify(mockDynamoDb, never()).putItem(any(PutItemRequest.class));
+        verify(mockVoteTable, never()).query(any(QueryConditional.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void newVoteAddsToCountersInSameTransaction() {
+        when(mockAggregateTable.getItem(any(Consumer.class))).thenReturn(aggregate(4, 1, 0, 0, 0, 1, 0));
+        givenVotes();
+
+        service.vote("LIST", "list-1", "alice", 4);
+
+        ArgumentCaptor<Consumer<TransactWriteItemsRequest.Builder>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockDynamoDb).transactWriteItems(captor.capture());
+        TransactWriteItemsRequest.Builder builder = TransactWriteItemsRequest.builder();
+        captor.getValue().accept(builder);
+        TransactWriteItemsRequest request = builder.build();
+
+        assertEquals(2, request.transactItems().size());
+        assertEquals("attribute_not_exists(userId)", request.transactItems().get(0).put().conditionExpression());
+        assertTrue(request.transactItems().get(1).update().updateExpression().contains("ADD voteCount :one"));
+        // Once the migration is done, ADD creates the aggregate on the entity's first vote
+        assertNull(request.transactItems().get(1).update().conditionExpression());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void voteDuringMigrationBuildsMissingAggregateThenRetries() throws Exception {
+        when(mockMigration.isComplete()).thenReturn(false);
+        DynamoDbIndex<Vote> legacyIndex = mock(DynamoDbIndex.class);
+        SdkIterable<Page<Vote>> noLegacyVotes = mock(SdkIterable.class);
+        when(noLegacyVotes.stream()).thenAnswer(inv -> Stream.empty());
+        when(legacyIndex.query(any(QueryConditional.class))).thenReturn(noLegacyVotes);
+        setField("legacyEntityIndex", legacyIndex);
+        givenVotes();
+        when(mockDynamoDb.transactWriteItems(any(Consumer.class)))
+            .thenThrow(TransactionCanceledException.builder().cancellationReasons(
+                CancellationReason.builder().code("None").build(),
+                CancellationReason.builder().code("ConditionalCheckFailed").build()).build())
+            .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        service.vote("LIST", "list-1", "alice", 4);
+
+        verify(mockMigration).buildAggregate("LIST", "list-1");
+        ArgumentCaptor<Consumer<TransactWriteItemsRequest.Builder>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockDynamoDb, times(2)).transactWriteItems(captor.capture());
+        TransactWriteItemsRequest.Builder builder = TransactWriteItemsRequest.builder();
+        captor.getValue().accept(builder);
+        assertEquals("attribute_exists(entityKey)",
+            builder.build().transactItems().get(1).update().conditionExpression());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void callerRatingIsPointLookup() {
+        when(mockAggregateTable.getItem(any(Consumer.class))).thenReturn(aggregate(4, 1, 0, 0, 0, 1, 0));
+        when(mockVoteTable.getItem(any(Key.class))).thenReturn(vote("alice", 4));
+
+        VoteStats stats = service.getVoteStats("LIST", "list-1", "alice");
+
+        assertEquals(4, stats.getUserRating());
+        verify(mockVoteTable, never()).query(any(QueryConditional.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchStatsUseOneBatchGetAndKeepRequestOrder() {
+        when(mockDynamoDb.batchGetItem(any(Consumer.class))).thenReturn(BatchGetItemResponse.builder()
+            .responses(Map.of(
+                "VoteAggregates", List.of(Map.of(
+                    VoteService.ENTITY_KEY, s("LIST#list-1"),
+                    "ratingSum", n(9),
+                    "voteCount", n(2))),
+                VoteService.VOTES_TABLE, List.of(Map.of(
+                    VoteService.ENTITY_KEY, s("LIST#list-1"),
+                    VoteService.USER_ID, s("alice"),
+                    "entityType", s("LIST"),
+                    "entityId", s("list-1"),
+                    "rating", n(4)))))
+            .build());
+        // list-2 has no aggregate, so it reads as having no votes
+        givenVotes();
+
+        List<VoteStats> stats = service.getVoteStatsBatch("LIST", List.of("list-2", "list-1"), "alice");
+
+        assertEquals(2, stats.size());
+        assertEquals("list-2", stats.get(0).getEntityId());
+        assertEquals(0, stats.get(0).getVoteCount());
+        assertEquals("list-1", stats.get(1).getEntityId());
+        assertEquals(4.5, stats.get(1).getAverageRating());
+        assertEquals(4, stats.get(1).getUserRating());
+        verify(mockDynamoDb, times(1)).batchGetItem(any(Consumer.class));
+        verify(mockAggregateTable, never()).getItem(any(Consumer.class));
+        verify(mockDynamoDb, never()).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectsOutOfRangeRating() {
+        assertThrows(IllegalArgumentException.class, () -> service.vote("LIST", "list-1", "alice", 6));
+        verify(mockDynamoDb, never()).transactWriteItems(any(Consumer.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenVotes(Vote... votes) {
+        PageIterable<Vote> iterable = mock(PageIterable.class);
+        when(mockVoteTable.query(any(QueryConditional.class))).thenReturn(iterable);
+        Page<Vote> page = mock(Page.class);
+        when(page.items()).thenReturn(List.of(votes));
+        when(iterable.stream()).thenAnswer(inv -> Stream.of(page));
+        when(mockVoteTable.getItem(any(Key.class))).thenAnswer(inv -> {
+            Key key = inv.getArgument(0);
+            return Stream.of(votes)
+                .filter(v -> v.getUserId().equals(key.sortKeyValue().map(a -> a.s()).orElse(null)))
+                .findFirst()
+                .orElse(null);
+        });
+    }
+
+    private static Vote vote(String userId, int rating) {
+        Vote vote = new Vote();
+        vote.setId(userId + "-vote");
+        vote.setEntityType("LIST");
+        vote.setEntityId("list-1");
+        vote.setUserId(userId);
+        vote.setRating(rating);
+        return vote;
+    }
+
+    private static VoteAggregate aggregate(long sum, long count, long s1, long s2, long s3, long s4, long s5) {
+        VoteAggregate aggregate = new VoteAggregate();
+        aggregate.setEntityKey("LIST#list-1");
+        aggregate.setRatingSum(sum);
+        aggregate.setVoteCount(count);
+        aggregate.setStars1(s1);
+        aggregate.setStars2(s2);
+        aggregate.setStars3(s3);
+        aggregate.setStars4(s4);
+        aggregate.setStars5(s5);
+        return aggregate;
+    }
+
+    private static AttributeValue s(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue n(int value) {
+        return AttributeValue.builder().n(Integer.toString(value)).build();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        Field field = VoteService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(service, value);
+    }
+}
@@ -20,6 +20,7 @@ describe('NotificationBellComponent', () => {
     wsServiceMock = {
       lastNotification: signal(null),
       newNotificationCount: signal(0),
+      unreadCount: signal<number | null>(null),
       connected: signal(false),
       connect: vi.fn(),
       disconnect: vi.fn(),
@@ -90,6 +91,35 @@ describe('NotificationBellComponent', () => {
     expect(component.unreadCount()).toBe(4);
   });
 
+  it('should take the pushed count when a notification carries one', () => {
+    component.unreadCount.set(3);
+
+    wsServiceMock.lastNotification.set({
+      id: '1', type: 'COMMENT', entityType: 'LIST',
+      entityId: '1', actorUsername: 'bob', preview: 'hi', unreadCount: 9
+    });
+    wsServiceMock.unreadCount.set(9);
+    TestBed.flushEffects();
+
+    expect(component.unreadCount()).toBe(9);
+  });
+
+  it('should not poll while the WebSocket is connected', () => {
+    vi.useFakeTimers();
+    try {
+      component.ngOnInit();
+      socialServiceMock.getUnreadCount.mockClear();
+      wsServiceMock.connected.set(true);
+
+      vi.advanceTimersByTime(60_000);
+
+      expect(socialServiceMock.getUnreadCount).not.toHaveBeenCalled();
+      component.ngOnDestroy();
+    } finally {
+      vi.useRealTimers();
+    }
+  });
+
   it('should clean up poll interval on destroy', () => {
     const clearSpy = vi.spyOn(globalThis, 'clearInterval');
 
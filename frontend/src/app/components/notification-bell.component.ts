@@ -62,10 +62,17 @@ export class NotificationBellComponent implements OnInit, OnDestroy {
   });
 
   constructor() {
-    // When a WebSocket notification arrives, increment the unread count
+    // The server pushes the new count with each notification and after mark-as-read
+    effect(() => {
+      const count = this.wsService.unreadCount();
+      if (count !== null) {
+        this.unreadCount.set(count);
+      }
+    });
+    // A notification without a count still bumps the badge
     effect(() => {
       const notification = this.wsService.lastNotification();
-      if (notification) {
+      if (notification && notification.unreadCount === undefined) {
         this.unreadCount.update(c => c + 1);
       }
     });
@@ -74,8 +81,10 @@ export class NotificationBellComponent implements OnInit, OnDestroy {
   ngOnInit() {
     if (!isPlatformBrowser(this.platformId)) return;
     this.refresh();
-    // Poll every 60 seconds as fallback (WebSocket handles real-time)
-    this.pollInterval = setInterval(() => this.refresh(), 60_000);
+    // Poll every 60 seconds only while the WebSocket is down; when connected it pushes the count
+    this.pollInterval = setInterval(() => {
+      if (!this.wsService.connected()) this.refresh();
+    }, 60_000);
   }
 
   ngOnDestroy() {
@@ -24,12 +24,13 @@ export interface ListDetails {
 
 export interface PublishedListsPage {
   items: LinkList[];
-  page: number;
   size: number;
-  total: number;
+  /** Cursor for the next page, null when there are no more lists */
+  cursor: string | null;
 }
 
 export interface VoteStats {
+  entityId?: string;
   averageRating: number;
   voteCount: number;
   userRating: number | null;
@@ -66,6 +67,8 @@ export interface Notification {
   entityType: string;
   entityId: string;
   actorUsername: string;
+  /** Distinct people coalesced into this notification; absent or 1 for a single actor. */
+  actorCount?: number;
   preview: string;
   read: boolean;
   targetId: string;
@@ -74,6 +77,7 @@ export interface Notification {
 
 export interface NotificationPage {
   items: Notification[];
-  total: number;
   unreadCount: number;
+  /** Cursor for the next page, null when there are no more notifications */
+  cursor: string | null;
 }
@@ -58,7 +58,7 @@ import { I18nService } from '../services/i18n.service';
                 <td>{{ user.enabled ? i18n.t('admin.yes') : i18n.t('admin.no') }}</td>
                 <td>{{ user.created | date: 'yyyy-MM-dd HH:mm' }}</td>
                 <td>{{ user.lastUpdatedTime | date: 'yyyy-MM-dd HH:mm' }}</td>
-                <td>{{ user.mfaSetting }}</td>
+                <td>{{ user.mfaSetting ?? i18n.t('admin.unknown') }}</td>
                 <td>{{ user.groups.join(', ') || i18n.t('admin.none') }}</td>
                 <td (click)="$event.stopPropagation()">
                   <button class="btn-danger" (click)="deleteUser(user)">{{ i18n.t('common.delete') }}</button>
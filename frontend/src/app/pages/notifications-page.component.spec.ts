@@ -38,8 +38,8 @@ describe('NotificationsPageComponent', () => {
         createdAt: new Date().toISOString()
       }
     ],
-    total: 2,
-    unreadCount: 1
+    unreadCount: 1,
+    cursor: null
   };
 
   beforeEach(async () => {
@@ -124,11 +124,21 @@ describe('NotificationsPageComponent', () => {
     expect(router.navigate).toHaveBeenCalledWith(['/public-lists']);
   });
 
-  it('should go to previous page', () => {
-    component.page.set(1);
+  it('should request the first page without a cursor', () => {
+    expect(socialServiceMock.getNotifications).toHaveBeenCalledWith(20, null);
+  });
+
+  it('should go back to previous page with its original cursor', () => {
+    socialServiceMock.getNotifications.mockReturnValue(of({ items: [], unreadCount: 0, cursor: 'c1' }));
+    component['loadPage']();
+    component['nextPage']();
+    socialServiceMock.getNotifications.mockReturnValue(of({ items: [], unreadCount: 0, cursor: 'c2' }));
+    component['nextPage']();
+    expect(component.page()).toBe(2);
+
     component['previousPage']();
-    expect(component.page()).toBe(0);
-    expect(socialServiceMock.getNotifications).toHaveBeenCalledTimes(2);
+    expect(component.page()).toBe(1);
+    expect(socialServiceMock.getNotifications).toHaveBeenLastCalledWith(20, 'c1');
   });
 
   it('should not go below page 0', () => {
@@ -139,20 +149,20 @@ describe('NotificationsPageComponent', () => {
     expect(socialServiceMock.getNotifications).toHaveBeenCalledTimes(1);
   });
 
-  it('should go to next page when more pages exist', () => {
-    // Set total > pageSize to allow next page
-    socialServiceMock.getNotifications.mockReturnValue(of({ items: [], total: 40, unreadCount: 0 }));
+  it('should go to next page with the returned cursor', () => {
+    socialServiceMock.getNotifications.mockReturnValue(of({ items: [], unreadCount: 0, cursor: 'c1' }));
     component['loadPage']();
     fixture.detectChanges();
     component['nextPage']();
     expect(component.page()).toBe(1);
+    expect(socialServiceMock.getNotifications).toHaveBeenLastCalledWith(20, 'c1');
   });
 
   it('should not go past last page', () => {
-    component.total.set(2);
-    component.page.set(0);
+    // cursor=null → no further notifications
     component['nextPage']();
     expect(component.page()).toBe(0);
+    expect(socialServiceMock.getNotifications).toHaveBeenCalledTimes(1);
   });
 
   it('should truncate long text', () => {
@@ -181,6 +191,16 @@ describe('NotificationsPageComponent', () => {
     expect(label).toContain('user2');
   });
 
+  it('should name the latest actor and count the others of a coalesced notification', () => {
+    const coalesced = { ...mockNotifications.items[0], actorUsername: 'user3', actorCount: 4 };
+    expect(component['actors'](coalesced as any)).toBe('user3 and 3 others');
+    expect(component['notificationAriaLabel'](coalesced as any)).toContain('user3 and 3 others');
+  });
+
+  it('should name a single actor alone', () => {
+    expect(component['actors'](mockNotifications.items[0] as any)).toBe('user1');
+  });
+
   it('should handle loadPage error', () => {
     socialServiceMock.getNotifications.mockReturnValue(throwError(() => new Error('fail')));
     const consoleSpy = vi.spyOn(console, 'error').mockImplementation(() => {});
@@ -189,7 +209,7 @@ describe('NotificationsPageComponent', () => {
   });
 
   it('should show empty state when no notifications', () => {
-    socialServiceMock.getNotifications.mockReturnValue(of({ items: [], total: 0, unreadCount: 0 }));
+    socialServiceMock.getNotifications.mockReturnValue(of({ items: [], unreadCount: 0, cursor: null }));
     component['loadPage']();
     fixture.detectChanges();
     const compiled = fixture.nativeElement as HTMLElement;
@@ -1,4 +1,4 @@
-import { ChangeDetectionStrategy, Component, computed, inject, signal, OnInit } from '@angular/core';
+import { ChangeDetectionStrategy, Component, inject, signal, OnInit } from '@angular/core';
 import { DatePipe } from '@angular/common';
 import { Router } from '@angular/router';
 import { SocialService } from '../services/social.service';
@@ -34,7 +34,7 @@ import { I18nService } from '../services/i18n.service';
           [attr.aria-label]="notificationAriaLabel(notification)">
           <div class="notification-header">
             <span class="notification-actor" [class.font-bold]="!notification.read">
-              {{ notification.actorUsername }}
+              {{ actors(notification) }}
             </span>
             <span class="notification-type">
               {{ notification.type === 'COMMENT' ? i18n.t('notifications.commentedOn') : i18n.t('notifications.repliedOn') }}
@@ -54,7 +54,7 @@ import { I18nService } from '../services/i18n.service';
         <p style="color: var(--color-text-muted)">{{ i18n.t('notifications.noNotifications') }}</p>
       }
 
-      @if (totalPages() > 1) {
+      @if (page() > 0 || nextCursor()) {
         <nav class="mt-6 flex items-center justify-center gap-4" aria-label="Notification pagination">
           <button
             (click)="previousPage()"
@@ -63,11 +63,11 @@ import { I18nService } from '../services/i18n.service';
             {{ i18n.t('publicLists.previous') }}
           </button>
           <span class="text-sm text-gray-600">
-            {{ i18n.t('publicLists.page') }} {{ page() + 1 }} {{ i18n.t('publicLists.of') }} {{ totalPages() }}
+            {{ i18n.t('publicLists.page') }} {{ page() + 1 }}
           </span>
           <button
             (click)="nextPage()"
-            [disabled]="page() >= totalPages() - 1"
+            [disabled]="!nextCursor()"
             class="px-3 py-1 rounded border disabled:opacity-40 disabled:cursor-not-allowed hover:bg-gray-100 cursor-pointer">
             {{ i18n.t('publicLists.next') }}
           </button>
@@ -122,11 +122,11 @@ export class NotificationsPageComponent implements OnInit {
 
   readonly notifications = signal<Notification[]>([]);
   readonly page = signal(0);
-  readonly total = signal(0);
+  readonly nextCursor = signal<string | null>(null);
   readonly unreadCount = signal(0);
   private readonly pageSize = 20;
-
-  readonly totalPages = computed(() => Math.max(1, Math.ceil(this.total() / this.pageSize)));
+  // Cursor each visited page was loaded with; the server only hands out cursors going forward
+  private pageCursors: (string | null)[] = [null];
 
   ngOnInit() {
     this.loadPage();
@@ -167,8 +167,10 @@ export class NotificationsPageComponent implements OnInit {
   }
 
   protected nextPage(): void {
-    if (this.page() < this.totalPages() - 1) {
+    const cursor = this.nextCursor();
+    if (cursor) {
       this.page.set(this.page() + 1);
+      this.pageCursors[this.page()] = cursor;
       this.loadPage();
     }
   }
@@ -181,14 +183,22 @@ export class NotificationsPageComponent implements OnInit {
   protected notificationAriaLabel(n: Notification): string {
     const readStatus = n.read ? this.i18n.t('a11y.readStatus') : this.i18n.t('a11y.unreadStatus');
     const action = n.type === 'COMMENT' ? this.i18n.t('notifications.commentedOn') : this.i18n.t('notifications.repliedOn');
-    return `${readStatus}: ${n.actorUsername} ${action}: ${this.truncate(n.preview, 50)}`;
+    return `${readStatus}: ${this.actors(n)} ${action}: ${this.truncate(n.preview, 50)}`;
+  }
+
+  /** The latest actor, plus how many others were coalesced into the notification. */
+  protected actors(n: Notification): string {
+    const others = (n.actorCount ?? 1) - 1;
+    return others > 0
+      ? `${n.actorUsername} ${this.i18n.t('notifications.andOthers', { count: '' + others })}`
+      : n.actorUsername;
   }
 
   private loadPage(): void {
-    this.socialService.getNotifications(this.page(), this.pageSize).subscribe({
+    this.socialService.getNotifications(this.pageSize, this.pageCursors[this.page()]).subscribe({
       next: (data) => {
         this.notifications.set(data.items);
-        this.total.set(data.total);
+        this.nextCursor.set(data.cursor);
         this.unreadCount.set(data.unreadCount);
       },
       error: (err: Error) => console.error('Failed to load notifications:', err.message)
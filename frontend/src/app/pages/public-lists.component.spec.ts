@@ -16,7 +16,7 @@ describe('PublicListsComponent', () => {
     { id: '2', name: 'Public List 2', owner: 'bob', published: true, createdAt: new Date().toISOString(), linkIds: [] }
   ];
 
-  const mockPage = { items: mockLists, page: 0, size: 10, total: 2 };
+  const mockPage = { items: mockLists, size: 10, cursor: null };
   const mockVoteStats = { averageRating: 0, voteCount: 0, userRating: null };
 
   beforeEach(async () => {
@@ -25,7 +25,11 @@ describe('PublicListsComponent', () => {
     };
 
     socialServiceMock = {
-      getVoteStats: vi.fn().mockReturnValue(of(mockVoteStats))
+      getVoteStats: vi.fn().mockReturnValue(of(mockVoteStats)),
+      getVoteStatsBatch: vi.fn().mockReturnValue(of([
+        { ...mockVoteStats, entityId: '1' },
+        { ...mockVoteStats, entityId: '2' }
+      ]))
     };
 
     await TestBed.configureTestingModule({
@@ -51,34 +55,52 @@ describe('PublicListsComponent', () => {
     expect(component.lists().length).toBe(2);
   });
 
+  it('should load vote stats for the page in one batch', () => {
+    expect(socialServiceMock['getVoteStatsBatch']).toHaveBeenCalledTimes(1);
+    expect(socialServiceMock['getVoteStatsBatch']).toHaveBeenCalledWith('LIST', ['1', '2']);
+    expect(socialServiceMock['getVoteStats']).not.toHaveBeenCalled();
+    expect(Object.keys(component.voteStatsMap())).toEqual(['1', '2']);
+  });
+
   it('should display list names', () => {
     const compiled = fixture.nativeElement as HTMLElement;
     expect(compiled.textContent).toContain('Public List 1');
     expect(compiled.textContent).toContain('Public List 2');
   });
 
-  it('should show empty state when no lists', () => {
-    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: [], page: 0, size: 10, total: 0 }));
+  it(  it('should show empty state when no lists', () => {
+    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: [], size: 10, cursor: null }));
     component.ngOnInit();
     fixture.detectChanges();
     const compiled = fixture.nativeElement as HTMLElement;
     expect(compiled.textContent).toContain('No public lists found');
   });
 
-  it('should navigate to previous page', () => {
-    // Set up multi-page scenario
-    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, page: 1, size: 10, total: 25 }));
+  it('should request the first page without a cursor', () => {
+    expect(linkServiceMock['getPublishedLists']).toHaveBeenCalledWith(10, null);
+  });
+
+  it('should navigate to next page with the returned cursor', () => {
+    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, size: 10, cursor: 'c1' }));
     component.ngOnInit();
     fixture.detectChanges();
 
-    // page should be 0 initially; set it to 1 to test previous
-    (component as any).page.set(1);
-    (component as any).total.set(25);
-    fixture.detectChanges();
+    (component as any).nextPage();
+    expect(component.page()).toBe(1);
+    expect(linkServiceMock['getPublishedLists']).toHaveBeenLastCalledWith(10, 'c1');
+  });
+
+  it('should navigate back to previous page with its original cursor', () => {
+    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, size: 10, cursor: 'c1' }));
+    component.ngOnInit();
+    (component as any).nextPage();
+    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, size: 10, cursor: 'c2' }));
+    (component as any).nextPage();
+    expect(component.page()).toBe(2);
 
     (component as any).previousPage();
-    expect(component.page()).toBe(0);
-    expect(linkServiceMock['getPublishedLists']).toHaveBeenCalled();
+    expect(component.page()).toBe(1);
+    expect(linkServiceMock['getPublishedLists']).toHaveBeenLastCalledWith(10, 'c1');
   });
 
   it('should not go to previous page when on first page', () => {
@@ -87,30 +109,25 @@ describe('PublicListsComponent', () => {
     expect(component.page()).toBe(0);
   });
 
-  it('should navigate to next page', () => {
-    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, page: 0, size: 10, total: 25 }));
-    component.ngOnInit();
-    fixture.detectChanges();
-
-    (component as any).nextPage();
-    expect(component.page()).toBe(1);
-  });
-
   it('should not go to next page when on last page', () => {
-    // total=2, pageSize=10 → only 1 page
+    // cursor=null → no further lists
     expect((component as any).isLastPage()).toBe(true);
     const currentPage = component.page();
     (component as any).nextPage();
     expect(component.page()).toBe(currentPage);
   });
 
-  it('should show pagination controls when multiple pages', () => {
-    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, page: 0, size: 10, total: 25 }));
+  it('should show pagination controls when there is a next page', () => {
+    linkServiceMock['getPublishedLists'].mockReturnValue(of({ items: mockLists, size: 10, cursor: 'c1' }));
     component.ngOnInit();
     fixture.detectChanges();
 
     const compiled = fixture.nativeElement as HTMLElement;
-    expect(compiled.textContent).toContain('Page 1 of 3');
-    expect(compiled.textContent).toContain('25 total lists');
+    expect(compiled.textContent).toContain('Page 1');
+    expect(compiled.querySelector('nav[aria-label="Pagination"]')).toBeTruthy();
+  });
+
+  it('should hide pagination controls for a single page', () => {
+    const compiled = fixture.nativeElement as HTMLElement;
+    expect(compiled.querySelector('nav[aria-label="Pagination"]')).toBeNull();
   });
-});
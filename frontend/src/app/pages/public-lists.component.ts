@@ -1,4 +1,4 @@
-import { ChangeDetectionStrategy, Component, computed, inject, signal, OnInit } from '@angular/core';
+import { ChangeDetectionStrategy, Component, inject, signal, OnInit } from '@angular/core';
 import { CommonModule, DatePipe } from '@angular/common';
 import { RouterLink } from '@angular/router';
 import { LinkService } from '../services/link.service';
@@ -43,7 +43,7 @@ import { I18nService } from '../services/i18n.service';
         }
       </div>
 
-      @if (totalPages() > 1) {
+      @if (page() > 0 || nextCursor()) {
         <nav class="mt-6 flex items-center justify-center gap-4" aria-label="Pagination">
           <button
             (click)="previousPage()"
@@ -52,9 +52,7 @@ import { I18nService } from '../services/i18n.service';
             {{ i18n.t('publicLists.previous') }}
           </button>
           <span class="text-sm text-gray-600">
-            {{ i18n.t('publicLists.page') }} {{ page() + 1 }} {{ i18n.t('publicLists.of') }} {{ totalPages() }}
-            <span class="mx-2">|</span>
-            {{ total() }} {{ i18n.t('publicLists.totalLists') }}
+            {{ i18n.t('publicLists.page') }} {{ page() + 1 }}
           </span>
           <button
             (click)="nextPage()"
@@ -78,13 +76,15 @@ export class PublicListsComponent implements OnInit {
 
   readonly lists = signal<LinkList[]>([]);
   readonly page = signal(0);
-  readonly total = signal(0);
+  readonly nextCursor = signal<string | null>(null);
   readonly voteStatsMap = signal<Record<string, VoteStats>>({});
   private readonly pageSize = 10;
-
-  readonly totalPages = computed(() => Math.max(1, Math.ceil(this.total() / this.pageSize)));
+  // Cursor each visited page was loaded with; the server only hands out cursors going forward
+  private pageCursors: (string | null)[] = [null];
 
   ngOnInit() {
+    this.page.set(0);
+    this.pageCursors = [null];
     this.loadPage();
   }
 
@@ -96,26 +96,37 @@ export class PublicListsComponent implements OnInit {
   }
 
   protected nextPage(): void {
-    if (!this.isLastPage()) {
+    const cursor = this.nextCursor();
+    if (cursor) {
       this.page.set(this.page() + 1);
+      this.pageCursors[this.page()] = cursor;
       this.loadPage();
     }
   }
 
   protected isLastPage(): boolean {
-    return this.page() >= this.totalPages() - 1;
+    return !this.nextCursor();
   }
 
   private loadPage(): void {
-    this.linkService.getPublishedLists(this.page(), this.pageSize).subscribe(data => {
+    this.linkService.getPublishedLists(this.pageSize, this.pageCursors[this.page()]).subscribe(data => {
       this.lists.set(data.items);
-      this.total.set(data.total);
-      for (const list of data.items) {
-        this.socialService.getVoteStats('LIST', list.id).subscribe({
-          next: (stats) => this.voteStatsMap.update(m => ({ ...m, [list.id]: stats })),
-          error: (err: Error) => console.error('Failed to load vote stats:', err.message)
-        });
+      this.nextCursor.set(data.cursor);
+      if (data.items.length === 0) {
+        return;
       }
+      this.socialService.getVoteStatsBatch('LIST', data.items.map(list => list.id)).subscribe({
+        next: (stats) => this.voteStatsMap.update(m => {
+          const updated = { ...m };
+          for (const vs of stats) {
+            if (vs.entityId) {
+              updated[vs.entityId] = vs;
+            }
+          }
+          return updated;
+        }),
+        error: (err: Error) => console.error('Failed to load vote stats:', err.message)
+      });
     });
   }
 }
@@ -16,7 +16,7 @@ describe('VoteAnalyticsComponent', () => {
     { id: '2', name: 'List B', owner: 'bob', published: true, createdAt: new Date().toISOString(), linkIds: [] }
   ];
 
-  const mockPage = { items: mockLists, page: 0, size: 100, total: 2 };
+  const mockPage = { items: mockLists, size: 100, cursor: null };
 
   const mockAnalytics = {
     averageRating: 4.2,
@@ -74,7 +74,7 @@ describe('VoteAnalyticsComponent', () => {
   });
 
   it('should load analytics on init', () => {
-    expect(linkServiceMock['getPublishedLists']).toHaveBeenCalledWith(0, 100);
+    expect(linkServiceMock['getPublishedLists']).toHaveBeenCalledWith(100);
     expect(socialServiceMock['getVoteAnalytics']).toHaveBeenCalledTimes(2);
   });
 
@@ -98,7 +98,7 @@ describe('VoteAnalyticsComponent', () => {
 
   it('should handle empty state', async () => {
     const emptyLinkService = {
-      getPublishedLists: vi.fn().mockReturnValue(of({ items: [], page: 0, size: 100, total: 0 }))
+      getPublishedLists: vi.fn().mockReturnValue(of({ items: [], size: 100, cursor: null }))
     };
 
     TestBed.resetTestingModule();
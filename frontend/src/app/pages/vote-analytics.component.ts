@@ -201,7 +201,7 @@ export class VoteAnalyticsComponent implements OnInit {
 
   private loadAnalytics(): void {
     this.loading.set(true);
-    this.linkService.getPublishedLists(0, 100).subscribe({
+    this.linkService.getPublishedLists(100).subscribe({
       next: (data) => {
         const results: ListAnalytics[] = [];
         let pending = data.items.length;
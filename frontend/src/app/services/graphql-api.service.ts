@@ -33,7 +33,7 @@ export interface CognitoUser {
   created: string;
   lastUpdatedTime: string;
   modified: string;
-  mfaSetting: string;
+  mfaSetting: string | null;
   groups: string[];
 }
 
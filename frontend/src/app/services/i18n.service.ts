@@ -169,6 +169,7 @@ const TRANSLATIONS: Record<Language, Record<string, string>> = {
     'notifications.markAllRead': 'Mark all as read',
     'notifications.commentedOn': 'commented on',
     'notifications.repliedOn': 'replied on',
+    'notifications.andOthers': 'and {count} others',
     'notifications.aList': 'a list',
     'notifications.aLink': 'a link',
     'notifications.noNotifications': 'No notifications yet.',
@@ -196,6 +197,7 @@ const TRANSLATIONS: Record<Language, Record<string, string>> = {
     'admin.yes': 'Yes',
     'admin.no': 'No',
     'admin.none': 'None',
+    'admin.unknown': 'Unknown',
 
     // User Edit
     'userEdit.title': 'Edit User',
@@ -404,6 +406,7 @@ const TRANSLATIONS: Record<Language, Record<string, string>> = {
     'notifications.markAllRead': 'Alle als gelesen markieren',
     'notifications.commentedOn': 'hat kommentiert',
     'notifications.repliedOn': 'hat geantwortet auf',
+    'notifications.andOthers': 'und {count} weitere',
     'notifications.aList': 'eine Liste',
     'notifications.aLink': 'einen Link',
     'notifications.noNotifications': 'Noch keine Benachrichtigungen.',
@@ -431,6 +434,7 @@ const TRANSLATIONS: Record<Language, Record<string, string>> = {
     'admin.yes': 'Ja',
     'admin.no': 'Nein',
     'admin.none': 'Keine',
+    'admin.unknown': 'Unbekannt',
 
     // User Edit
     'userEdit.title': 'Benutzer bearbeiten',
@@ -639,6 +643,7 @@ const TRANSLATIONS: Record<Language, Record<string, string>> = {
     'notifications.markAllRead': 'Markera alla som lästa',
     'notifications.commentedOn': 'kommenterade',
     'notifications.repliedOn': 'svarade på',
+    'notifications.andOthers': 'och {count} andra',
     'notifications.aList': 'en lista',
     'notifications.aLink': 'en länk',
     'notifications.noNotifications': 'Inga notiser ännu.',
@@ -666,6 +671,7 @@ const TRANSLATIONS: Record<Language, Record<string, string>> = {
     'admin.yes': 'Ja',
     'admin.no': 'Nej',
     'admin.none': 'Inga',
+    'admin.unknown': 'Okänd',
 
     // User Edit
     'userEdit.title': 'Redigera användare',
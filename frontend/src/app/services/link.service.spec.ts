@@ -26,15 +26,16 @@ describe('LinkService', () => {
 
   it('should fetch published lists page', () => {
     const mockItems = [{ id: '1', name: 'Public', owner: 'alice', published: true, linkIds: [], createdAt: '' }];
-    const mockPage = { items: mockItems, page: 0, size: 10, total: 1 };
+    const mockPage = { items: mockItems, size: 10, cursor: 'c1' };
 
-    service.getPublishedLists(0, 10).subscribe((page) => {
+    service.getPublishedLists(10, 'c0').subscribe((page) => {
       expect(page).toEqual(mockPage);
     });
 
     const req = httpMock.expectOne(apiUrl);
     expect(req.request.method).toBe('POST');
     expect(req.request.body.query).toContain('publishedLists');
+    expect(req.request.body.variables).toEqual({ first: 10, after: 'c0' });
     req.flush({ data: { publishedLists: mockPage } });
   });
 
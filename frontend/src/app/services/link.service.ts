@@ -26,9 +26,9 @@ export class LinkService {
       }));
   }
 
-  getPublishedLists(page = 0, size = 10): Observable<PublishedListsPage> {
-    const q = `query PublishedLists($page: Int, $size: Int) { publishedLists(page: $page, size: $size) { items { id name owner published createdAt linkIds } page size total } }`;
-    return this.query<{ publishedLists: PublishedListsPage }>(q, { page, size }).pipe(map(d => d.publishedLists));
+  getPublishedLists(first = 10, after: string | null = null): Observable<PublishedListsPage> {
+    const q = `query PublishedLists($first: Int, $after: String) { publishedLists(first: $first, after: $after) { items { id name owner published createdAt linkIds } size cursor } }`;
+    return this.query<{ publishedLists: PublishedListsPage }>(q, { first, after }).pipe(map(d => d.publishedLists));
   }
 
   getMyLists(): Observable<LinkList[]> {
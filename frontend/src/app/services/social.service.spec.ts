@@ -52,6 +52,22 @@ describe('SocialService', () => {
     req.flush({ data: { voteStats: mockResult } });
   });
 
+  it('should get vote stats for several entities in one request', () => {
+    const mockResult = [
+      { entityId: 'list1', averageRating: 3.7, voteCount: 10, userRating: 4 },
+      { entityId: 'list2', averageRating: 0, voteCount: 0, userRating: null }
+    ];
+
+    service.getVoteStatsBatch('LIST', ['list1', 'list2']).subscribe((result) => {
+      expect(result).toEqual(mockResult);
+    });
+
+    const req = httpMock.expectOne(apiUrl);
+    expect(req.request.body.query).toContain('voteStatsBatch');
+    expect(req.request.body.variables.entityIds).toEqual(['list1', 'list2']);
+    req.flush({ data: { voteStatsBatch: mockResult } });
+  });
+
   // --- Comments ---
 
   it('should get comments', () => {
@@ -103,14 +119,15 @@ describe('SocialService', () => {
   // --- Notifications ---
 
   it('should get notifications', () => {
-    const mockPage = { items: [{ id: 'n1' }], total: 1, unreadCount: 1 };
+    const mockPage = { items: [{ id: 'n1' }], unreadCount: 1, cursor: 'n-c1' };
 
-    service.getNotifications(0, 20).subscribe((result) => {
-      expect(result.total).toBe(1);
+    service.getNotifications(20, 'n-c0').subscribe((result) => {
+      expect(result.cursor).toBe('n-c1');
     });
 
     const req = httpMock.expectOne(apiUrl);
     expect(req.request.body.query).toContain('notifications');
+    expect(req.request.body.variables).toEqual({ first: 20, after: 'n-c0' });
     req.flush({ data: { notifications: mockPage } });
   });
 
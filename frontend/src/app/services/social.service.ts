@@ -43,6 +43,16 @@ export class SocialService {
       .pipe(map(d => d.voteStats));
   }
 
+  getVoteStatsBatch(entityType: string, entityIds: string[]): Observable<VoteStats[]> {
+    const q = `query VoteStatsBatch($entityType: String!, $entityIds: [String!]!) {
+      voteStatsBatch(entityType: $entityType, entityIds: $entityIds) {
+        entityId averageRating voteCount userRating
+      }
+    }`;
+    return this.query<{ voteStatsBatch: VoteStats[] }>(q, { entityType, entityIds })
+      .pipe(map(d => d.voteStatsBatch));
+  }
+
   getVoteAnalytics(entityType: string, entityId: string): Observable<VoteAnalytics> {
     const q = `query VoteAnalytics($entityType: String!, $entityId: String!) {
       voteAnalytics(entityType: $entityType, entityId: $entityId) {
@@ -106,16 +116,16 @@ export class SocialService {
 
   // ========== Notifications ==========
 
-  getNotifications(page = 0, size = 20): Observable<NotificationPage> {
-    const q = `query Notifications($page: Int, $size: Int) {
-      notifications(page: $page, size: $size) {
+  getNotifications(first = 20, after: string | null = null): Observable<NotificationPage> {
+    const q = `query Notifications($first: Int, $after: String) {
+      notifications(first: $first, after: $after) {
         items {
-          id userId type entityType entityId actorUsername preview read targetId createdAt
+          id userId type entityType entityId actorUsername actorCount preview read targetId createdAt
         }
-        total unreadCount
+        unreadCount cursor
       }
     }`;
-    return this.query<{ notifications: NotificationPage }>(q, { page, size })
+    return this.query<{ notifications: NotificationPage }>(q, { first, after })
       .pipe(map(d => d.notifications));
   }
 
@@ -134,6 +134,27 @@ describe('WebSocketNotificationService', () => {
       expect(service.newNotificationCount()).toBe(3);
     });
 
+    it('should take the unread count from a notification', () => {
+      service.connect('user1');
+
+      mockWsInstances[0].onmessage({ data: JSON.stringify({
+        id: '1', type: 'COMMENT', entityType: 'LIST', entityId: '1', actorUsername: 'a', preview: '', unreadCount: 4
+      }) });
+
+      expect(service.unreadCount()).toBe(4);
+      expect(service.newNotificationCount()).toBe(1);
+    });
+
+    it('should update the count without a notification on UNREAD_COUNT', () => {
+      service.connect('user1');
+
+      mockWsInstances[0].onmessage({ data: JSON.stringify({ type: 'UNREAD_COUNT', unreadCount: 0 }) });
+
+      expect(service.unreadCount()).toBe(0);
+      expect(service.lastNotification()).toBeNull();
+      expect(service.newNotificationCount()).toBe(0);
+    });
+
     it('should handle malformed JSON in message gracefully', () => {
       service.connect('user1');
       const consoleSpy = vi.spyOn(console, 'error').mockImplementation(() => {});
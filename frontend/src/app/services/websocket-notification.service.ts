@@ -7,9 +7,16 @@ export interface WebSocketNotification {
   entityType: string;
   entityId: string;
   actorUsername: string;
+  /** Distinct people coalesced into this notification */
+  actorCount?: number;
   preview: string;
+  /** The recipient's unread count after this notification */
+  unreadCount?: number;
 }
 
+/** Message type the server sends when only the unread count changed (e.g. after mark-as-read) */
+const UNREAD_COUNT_MESSAGE = 'UNREAD_COUNT';
+
 /**
  * Service that manages a WebSocket connection for real-time notification delivery.
  * Replaces polling with push-based updates for the notification bell.
@@ -29,6 +36,9 @@ export class WebSocketNotificationService implements OnDestroy {
   /** Emits when any WebSocket notification is received */
   readonly lastNotification = signal<WebSocketNotification | null>(null);
 
+  /** Latest unread count pushed by the server, or null until one arrives */
+  readonly unreadCount = signal<number | null>(null);
+
   /** Whether the WebSocket is currently connected */
   readonly connected = signal(false);
 
@@ -76,6 +86,10 @@ export class WebSocketNotificationService implements OnDestroy {
     this.socket.onmessage = (event: MessageEvent) => {
       try {
         const notification = JSON.parse(event.data as string) as WebSocketNotification;
+        if (typeof notification.unreadCount === 'number') {
+          this.unreadCount.set(notification.unreadCount);
+        }
+        if (notification.type === UNREAD_COUNT_MESSAGE) return;
         this.lastNotification.set(notification);
         this.newNotificationCount.update(count => count + 1);
       } catch (err) {
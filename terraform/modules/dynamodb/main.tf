@@ -45,12 +45,30 @@ resource "aws_dynamodb_table" "lists" {
     type = "S"
   }
 
+  attribute {
+    name = "publishedPartition"
+    type = "S"
+  }
+
+  attribute {
+    name = "updatedAt"
+    type = "S"
+  }
+
   global_secondary_index {
     name            = "OwnerIndex"
     hash_key        = "owner"
     projection_type = "ALL"
   }
 
+  # Sparse: only published lists carry publishedPartition
+  global_secondary_index {
+    name            = "PublishedIndex"
+    hash_key        = "publishedPartition"
+    range_key       = "updatedAt"
+    projection_type = "ALL"
+  }
+
   point_in_time_recovery {
     enabled = var.enable_point_in_time_recovery
   }
@@ -114,6 +132,48 @@ resource "aws_dynamodb_table" "votes" {
   tags = var.tags
 }
 
+# One row per (entity, user); replaces the id-keyed Votes table, which is kept until the votes migration has copied it
+resource "aws_dynamodb_table" "votes_by_entity" {
+  name         = "${local.prefix}-VotesByEntity"
+  billing_mode = var.billing_mode
+  hash_key     = "entityKey"
+  range_key    = "userId"
+
+  attribute {
+    name = "entityKey"
+    type = "S"
+  }
+
+  attribute {
+    name = "userId"
+    type = "S"
+  }
+
+  point_in_time_recovery {
+    enabled = var.enable_point_in_time_recovery
+  }
+
+  tags = var.tags
+}
+
+# Per-entity vote counters, updated in the same transaction as each vote
+resource "aws_dynamodb_table" "vote_aggregates" {
+  name         = "${local.prefix}-VoteAggregates"
+  billing_mode = var.billing_mode
+  hash_key     = "entityKey"
+
+  attribute {
+    name = "entityKey"
+    type = "S"
+  }
+
+  point_in_time_recovery {
+    enabled = var.enable_point_in_time_recovery
+  }
+
+  tags = var.tags
+}
+
 resource "aws_dynamodb_table" "notifications" {
   name         = "${local.prefix}-Notifications"
   billing_mode = var.billing_mode
@@ -129,9 +189,15 @@ resource "aws_dynamodb_table" "notifications" {
     type = "S"
   }
 
+  attribute {
+    name = "createdAt"
+    type = "S"
+  }
+
   global_secondary_index {
     name            = "UserIndex"
     hash_key        = "userId"
+    range_key       = "createdAt"
     projection_type = "ALL"
   }
 
@@ -147,6 +213,23 @@ resource "aws_dynamodb_table" "notifications" {
   tags = var.tags
 }
 
+resource "aws_dynamodb_table" "notification_counters" {
+  name         = "${local.prefix}-NotificationCounters"
+  billing_mode = var.billing_mode
+  hash_key     = "userId"
+
+  attribute {
+    name = "userId"
+    type = "S"
+  }
+
+  point_in_time_recovery {
+    enabled = var.enable_point_in_time_recovery
+  }
+
+  tags = var.tags
+}
+
 resource "aws_dynamodb_table" "audit_logs" {
   name         = "${local.prefix}-AuditLogs"
   billing_mode = var.billing_mode
@@ -167,15 +250,35 @@ resource "aws_dynamodb_table" "audit_logs" {
     type = "S"
   }
 
+  attribute {
+    name = "timeBucket"
+    type = "S"
+  }
+
+  attribute {
+    name = "timestamp"
+    type = "S"
+  }
+
   global_secondary_index {
     name            = "EntityIndex"
     hash_key        = "entityId"
+    range_key       = "timestamp"
     projection_type = "ALL"
   }
 
   global_secondary_index {
     name            = "UserIndex"
     hash_key        = "userId"
+    range_key       = "timestamp"
+    projection_type = "ALL"
+  }
+
+  # Recent logs by day; timeBucket is "yyyy-MM-dd#shard", spreading each day over several partitions
+  global_secondary_index {
+    name            = "TimeIndex"
+    hash_key        = "timeBucket"
+    range_key       = "timestamp"
     projection_type = "ALL"
   }
 
@@ -207,3 +310,17 @@ resource "aws_dynamodb_table" "user_settings" {
 
   tags = var.tags
 }
+
+# Progress of the online data migrations (votes, PublishedIndex backfill)
+resource "aws_dynamodb_table" "migration_checkpoints" {
+  name         = "${local.prefix}-MigrationCheckpoints"
+  billing_mode = var.billing_mode
+  hash_key     = "id"
+
+  attribute {
+    name = "id"
+    type = "S"
+  }
+
+  tags = var.tags
+}
@@ -14,10 +14,22 @@ output "votes_table_name" {
   value = aws_dynamodb_table.votes.name
 }
 
+output "votes_by_entity_table_name" {
+  value = aws_dynamodb_table.votes_by_entity.name
+}
+
+output "vote_aggregates_table_name" {
+  value = aws_dynamodb_table.vote_aggregates.name
+}
+
 output "notifications_table_name" {
   value = aws_dynamodb_table.notifications.name
 }
 
+output "notification_counters_table_name" {
+  value = aws_dynamodb_table.notification_counters.name
+}
+
 output "audit_logs_table_name" {
   value = aws_dynamodb_table.audit_logs.name
 }
@@ -26,6 +38,10 @@ output "user_settings_table_name" {
   value = aws_dynamodb_table.user_settings.name
 }
 
+output "migration_checkpoints_table_name" {
+  value = aws_dynamodb_table.migration_checkpoints.name
+}
+
 output "table_arns" {
   description = "ARNs of all DynamoDB tables"
   value = [
@@ -33,8 +49,12 @@ output "table_arns" {
     aws_dynamodb_table.lists.arn,
     aws_dynamodb_table.comments.arn,
     aws_dynamodb_table.votes.arn,
+    aws_dynamodb_table.votes_by_entity.arn,
+    aws_dynamodb_table.vote_aggregates.arn,
     aws_dynamodb_table.notifications.arn,
+    aws_dynamodb_table.notification_counters.arn,
     aws_dynamodb_table.audit_logs.arn,
     aws_dynamodb_table.user_settings.arn,
+    aws_dynamodb_table.migration_checkpoints.arn,
   ]
 }
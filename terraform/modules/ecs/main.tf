@@ -13,6 +13,12 @@ locals {
   prefix = "${var.project_name}-${var.environment}"
 }
 
+# The ALB's nodes live in the public subnets; only they may set the client address via X-Forwarded-For
+data "aws_subnet" "public" {
+  for_each = toset(var.public_subnet_ids)
+  id       = each.value
+}
+
 # --- IAM ---
 resource "aws_iam_role" "ecs_task_execution" {
   name = "${local.prefix}-ecs-exec"
@@ -67,7 +73,8 @@ resource "aws_iam_role_policy" "ecs_task_dynamodb" {
         "dynamodb:BatchGetItem",
         "dynamodb:BatchWriteItem",
         "dynamodb:DescribeTable",
-        "dynamodb:CreateTable"
+        "dynamodb:CreateTable",
+        "dynamodb:UpdateTable"
       ]
       Resource = concat(var.dynamodb_table_arns, [for arn in var.dynamodb_table_arns : "${arn}/index/*"])
     }]
@@ -282,7 +289,8 @@ resource "aws_ecs_task_definition" "main" {
       { name = "AWS_REGION", value = var.aws_region },
       { name = "COGNITO_USER_POOL_ID", value = var.cognito_user_pool_id },
       { name = "COGNITO_CLIENT_ID", value = var.cognito_client_id },
-      { name = "QUARKUS_PROFILE", value = "prod" }
+      { name = "QUARKUS_PROFILE", value = "prod" },
+      { name = "TRUSTED_PROXIES", value = join(",", [for subnet in data.aws_subnet.public : subnet.cidr_block]) }
     ]
     secrets = [
       {